@@ -0,0 +1,47 @@
+package basicgraph;
+
+import java.util.HashSet;
+
+import util.GraphLoader;
+
+/**
+ * Compares Distance2 with calling getDistance2 on every vertex.  Run from
+ * the project root:
+ *
+ *   java basicgraph.Distance2Benchmark [routes file]
+ *
+ * @author Daniel
+ *
+ */
+public class Distance2Benchmark {
+
+	public static void main(String[] args) {
+		String file = args.length > 0 ? args[0] : "data/airports/routesUA.dat";
+		GraphAdjList graph = new GraphAdjList();
+		GraphLoader.loadRoutes(file, graph);
+		System.out.println(file + ": " + graph.getNumVertices() + " airports, "
+				+ graph.getNumEdges() + " routes");
+
+		long begin = System.nanoTime();
+		long total = 0;
+		for (int v = 0; v < graph.getNumVertices(); v++) {
+			total += new HashSet<Integer>(graph.getDistance2(v)).size();
+		}
+		System.out.printf("  getDistance2 per vertex: %8.2f ms (%d two-hop pairs)%n",
+				(System.nanoTime() - begin) / 1e6, total);
+
+		begin = System.nanoTime();
+		CompactGraph compact = CompactGraph.of(graph);
+		long counted = 0;
+		for (int count : Distance2.counts(compact)) {
+			counted += count;
+		}
+		System.out.printf("  counts:                  %8.2f ms (%d two-hop pairs)%n",
+				(System.nanoTime() - begin) / 1e6, counted);
+
+		begin = System.nanoTime();
+		CompactGraph twoHop = Distance2.sets(CompactGraph.of(graph));
+		System.out.printf("  sets:                    %8.2f ms (%d two-hop pairs)%n",
+				(System.nanoTime() - begin) / 1e6, twoHop.getNumEdges());
+	}
+}
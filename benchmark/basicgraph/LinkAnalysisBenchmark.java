@@ -0,0 +1,60 @@
+package basicgraph;
+
+import java.util.Random;
+
+import util.GraphLoader;
+
+/**
+ * Prints the top airports of the route network by PageRank, hub score and
+ * authority score, and the throughput of each method on a random graph of
+ * the given size.  Run from the project root:
+ *
+ *   java basicgraph.LinkAnalysisBenchmark [routes file] [random graph vertices]
+ *
+ * @author Daniel
+ *
+ */
+public class LinkAnalysisBenchmark {
+
+	public static void main(String[] args) {
+		String file = args.length > 0 ? args[0] : "data/airports/routesUA.dat";
+		int randomVertices = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+		GraphAdjList airports = new GraphAdjList();
+		GraphLoader.loadRoutes(file, airports);
+		CompactGraph routes = CompactGraph.of(airports);
+		System.out.println(file + ": " + routes.getNumVertices() + " airports, "
+				+ routes.getNumEdges() + " routes");
+		Ranking rank = LinkAnalysis.pageRank(routes);
+		LinkAnalysis.HubsAndAuthorities hits = LinkAnalysis.hits(routes);
+		System.out.println("  PageRank:    " + rank.topLabels(airports, 10));
+		System.out.println("  Hubs:        " + hits.getHubs().topLabels(airports, 10));
+		System.out.println("  Authorities: " + hits.getAuthorities().topLabels(airports, 10));
+
+		CompactGraph random = randomGraph(randomVertices, 8, 42);
+		System.out.println("random graph: " + random.getNumVertices() + " vertices, "
+				+ random.getNumEdges() + " edges");
+		report("PageRank", LinkAnalysis.pageRank(random));
+		report("HITS", LinkAnalysis.hits(random).getHubs());
+	}
+
+	private static void report(String name, Ranking ranking) {
+		System.out.printf("  %-9s %3d iterations (%s), %6.1f M edges/s%n", name,
+				ranking.getIterations(), ranking.hasConverged() ? "converged" : "not converged",
+				ranking.getEdgesPerSecond() / 1e6);
+	}
+
+	// A graph with degree out-edges from every vertex to random vertices
+	private static CompactGraph randomGraph(int n, int degree, long seed) {
+		Random random = new Random(seed);
+		int[] firstEdge = new int[n + 1];
+		int[] edgeTarget = new int[n * degree];
+		for (int v = 0; v < n; v++) {
+			firstEdge[v + 1] = firstEdge[v] + degree;
+			for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+				edgeTarget[e] = random.nextInt(n);
+			}
+		}
+		return new CompactGraph(firstEdge, edgeTarget);
+	}
+}
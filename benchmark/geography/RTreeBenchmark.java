@@ -0,0 +1,69 @@
+package geography;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times viewport queries over the intersections and road segments of a
+ * map file.  Run from the project root:
+ *
+ *   java geography.RTreeBenchmark [map file] [queries]
+ *
+ * @author Daniel
+ *
+ */
+public class RTreeBenchmark {
+
+	public static void main(String[] args) {
+		String file = args.length > 0 ? args[0] : "data/maps/hollywood_large.map";
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+		HashMap<GeographicPoint, HashSet<RoadSegment>> roads =
+				new HashMap<GeographicPoint, HashSet<RoadSegment>>();
+		HashSet<GeographicPoint> intersections = new HashSet<GeographicPoint>();
+		util.GraphLoader.loadRoadMap(file, new roadgraph.MapGraph(), roads, intersections);
+		List<GeographicPoint> points = new ArrayList<GeographicPoint>(intersections);
+		HashSet<RoadSegment> uniqueSegments = new HashSet<RoadSegment>();
+		for (Collection<RoadSegment> segments : roads.values()) {
+			uniqueSegments.addAll(segments);
+		}
+		List<RoadSegment> segments = new ArrayList<RoadSegment>(uniqueSegments);
+
+		long begin = System.nanoTime();
+		RTree pointTree = RTree.ofPoints(points);
+		RTree segmentTree = RTree.ofSegments(segments);
+		System.out.printf("%s: %d intersections, %d segments, built in %.1f ms%n", file,
+				points.size(), segments.size(), (System.nanoTime() - begin) / 1e6);
+
+		// viewports a tenth of the width and height of the map, anywhere on it
+		double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+		double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+		for (GeographicPoint p : points) {
+			south = Math.min(south, p.getX());
+			north = Math.max(north, p.getX());
+			west = Math.min(west, p.getY());
+			east = Math.max(east, p.getY());
+		}
+		double height = (north - south) / 10;
+		double width = (east - west) / 10;
+		Random random = new Random(42);
+		for (RTree tree : new RTree[] {pointTree, segmentTree}) {
+			long found = 0;
+			long nanos = 0;
+			for (int q = 0; q < queries; q++) {
+				double s = south + random.nextDouble() * (north - south - height);
+				double w = west + random.nextDouble() * (east - west - width);
+				begin = System.nanoTime();
+				found += tree.search(s, w, s + height, w + width).length;
+				nanos += System.nanoTime() - begin;
+			}
+			System.out.printf("  %s: %.1f items per query, %.1f us per query%n",
+					tree == pointTree ? "intersections" : "segments",
+					(double) found / queries, nanos / 1e3 / queries);
+		}
+	}
+}
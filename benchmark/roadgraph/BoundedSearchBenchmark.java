@@ -0,0 +1,101 @@
+package roadgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Compares weighted A* and focal search with Dijkstra's algorithm on the
+ * bundled maps: the ratio of the path cost to the shortest path cost, and
+ * the number of nodes each search settles.  Run from the project root:
+ *
+ *   java roadgraph.BoundedSearchBenchmark [map files...]
+ *
+ * @author Daniel
+ *
+ */
+public class BoundedSearchBenchmark {
+
+	private static final String[] DEFAULT_MAPS = {
+			"data/maps/ucsd.map", "data/maps/utc.map", "data/maps/san_diego.map",
+			"data/maps/hollywood_large.map", "data/maps/new_york.map" };
+	private static final int QUERIES = 500;
+	private static final long SEED = 42;
+	private static final double[] WEIGHTS = { 1.1, 1.5, 2.0 };
+	private static final double[] EPSILONS = { 0.1, 0.5, 1.0 };
+
+	public static void main(String[] args)
+	{
+		String[] maps = args.length > 0 ? args : DEFAULT_MAPS;
+		for (String file : maps) {
+			MapGraph graph = new MapGraph();
+			GraphLoader.loadRoadMap(file, graph);
+			System.out.println(file + ": " + graph.getNumVertices() + " intersections");
+
+			List<GeographicPoint[]> queries = new ArrayList<>();
+			List<PathResult> optimal = new ArrayList<>();
+			for (GeographicPoint[] query : randomQueries(graph, QUERIES)) {
+				PathResult result = graph.findPath(query[0], query[1], SearchAlgorithm.DIJKSTRA);
+				if (result.isFound()) {
+					queries.add(query);
+					optimal.add(result);
+				}
+			}
+			System.out.println(String.format("  %-22s %10s %10s %10s %10s",
+					"algorithm", "mean cost", "max cost", "settled", "reduction"));
+			report(graph, "Dijkstra", SearchAlgorithm.DIJKSTRA, new SearchOptions(), queries, optimal);
+			report(graph, "A*", SearchAlgorithm.A_STAR, new SearchOptions(), queries, optimal);
+			for (double w : WEIGHTS) {
+				report(graph, "weighted A* w=" + w, SearchAlgorithm.WEIGHTED_A_STAR,
+						new SearchOptions().heuristicWeight(w), queries, optimal);
+			}
+			for (double epsilon : EPSILONS) {
+				report(graph, "focal eps=" + epsilon, SearchAlgorithm.FOCAL,
+						new SearchOptions().suboptimality(epsilon), queries, optimal);
+			}
+		}
+	}
+
+	// Print the mean and max cost ratio and the mean settled nodes against Dijkstra
+	private static void report(MapGraph graph, String name, SearchAlgorithm algorithm,
+			SearchOptions options, List<GeographicPoint[]> queries, List<PathResult> optimal)
+	{
+		double ratioSum = 0;
+		double maxRatio = 0;
+		long settled = 0;
+		long dijkstraSettled = 0;
+		for (int i = 0; i < queries.size(); i++) {
+			GeographicPoint[] query = queries.get(i);
+			PathResult result = graph.findPath(query[0], query[1], algorithm, options, (x) -> {});
+			double best = optimal.get(i).getCost();
+			double ratio = best == 0 ? 1.0 : result.getCost() / best;
+			ratioSum += ratio;
+			maxRatio = Math.max(maxRatio, ratio);
+			settled += result.getStats().getNodesVisited();
+			dijkstraSettled += optimal.get(i).getStats().getNodesVisited();
+		}
+		int n = queries.size();
+		System.out.println(String.format("  %-22s %10.4f %10.4f %10.1f %9.1f%%", name,
+				ratioSum / n, maxRatio, (double) settled / n,
+				100.0 * (dijkstraSettled - settled) / dijkstraSettled));
+	}
+
+	private static List<GeographicPoint[]> randomQueries(MapGraph graph, int count)
+	{
+		List<GeographicPoint> vertices = new ArrayList<>(graph.getVertices());
+		// sort so the queries do not depend on HashSet iteration order
+		vertices.sort((a, b) -> a.getX() != b.getX() ? Double.compare(a.getX(), b.getX())
+				: Double.compare(a.getY(), b.getY()));
+		Random random = new Random(SEED);
+		List<GeographicPoint[]> queries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			queries.add(new GeographicPoint[] {
+					vertices.get(random.nextInt(vertices.size())),
+					vertices.get(random.nextInt(vertices.size())) });
+		}
+		return queries;
+	}
+}
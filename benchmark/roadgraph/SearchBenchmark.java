@@ -0,0 +1,78 @@
+package roadgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Measures the throughput of Dijkstra's algorithm on the bundled maps
+ * for each NodeOrder.  Run from the project root:
+ *
+ *   java roadgraph.SearchBenchmark [map files...]
+ *
+ * @author Daniel
+ *
+ */
+public class SearchBenchmark {
+
+	private static final String[] DEFAULT_MAPS = {
+			"data/maps/new_york.map", "data/maps/san_diego.map" };
+	private static final int QUERIES = 2000;
+	private static final int WARMUP_ROUNDS = 3;
+	private static final long SEED = 42;
+
+	public static void main(String[] args)
+	{
+		String[] maps = args.length > 0 ? args : DEFAULT_MAPS;
+		for (String file : maps) {
+			MapGraph graph = new MapGraph();
+			GraphLoader.loadRoadMap(file, graph);
+			System.out.println(file + ": " + graph.getNumVertices() + " intersections, "
+					+ graph.getNumEdges() + " edges");
+
+			List<GeographicPoint[]> queries = randomQueries(graph, QUERIES);
+			for (NodeOrder order : NodeOrder.values()) {
+				graph.setNodeOrder(order);
+				graph.freeze();
+				for (int i = 0; i < WARMUP_ROUNDS; i++) {
+					runQueries(graph, queries);
+				}
+				long begin = System.nanoTime();
+				int found = runQueries(graph, queries);
+				double seconds = (System.nanoTime() - begin) / 1e9;
+				System.out.printf("  %-9s %8.0f queries/s  (%d of %d paths found)%n",
+						order, queries.size() / seconds, found, queries.size());
+			}
+		}
+	}
+
+	private static int runQueries(MapGraph graph, List<GeographicPoint[]> queries)
+	{
+		int found = 0;
+		for (GeographicPoint[] query : queries) {
+			if (graph.dijkstra(query[0], query[1]) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	private static List<GeographicPoint[]> randomQueries(MapGraph graph, int count)
+	{
+		List<GeographicPoint> vertices = new ArrayList<>(graph.getVertices());
+		// sort so the queries do not depend on HashSet iteration order
+		vertices.sort((a, b) -> a.getX() != b.getX() ? Double.compare(a.getX(), b.getX())
+				: Double.compare(a.getY(), b.getY()));
+		Random random = new Random(SEED);
+		List<GeographicPoint[]> queries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			queries.add(new GeographicPoint[] {
+					vertices.get(random.nextInt(vertices.size())),
+					vertices.get(random.nextInt(vertices.size())) });
+		}
+		return queries;
+	}
+}
@@ -0,0 +1,58 @@
+package week2example;
+
+import java.util.Random;
+
+/**
+ * Times both MazeGrid searches on a large warehouse-like grid.  Run from
+ * the project root:
+ *
+ *   java week2example.MazeGridBenchmark [maze file | size]
+ *
+ * @author Daniel
+ *
+ */
+public class MazeGridBenchmark {
+
+	public static void main(String[] args) {
+		MazeGrid grid;
+		if (args.length > 0 && !args[0].matches("\\d+")) {
+			grid = MazeLoader.loadGrid(args[0]);
+		}
+		else {
+			int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+			grid = warehouse(size, size, 42);
+		}
+		System.out.println(grid.getWidth() + " x " + grid.getHeight() + " grid");
+		int lastRow = grid.getHeight() - 1;
+		int lastCol = grid.getWidth() - 1;
+		grid.setOpen(0, 0, true);
+		grid.setOpen(lastRow, lastCol, true);
+
+		long begin = System.nanoTime();
+		int[] path = grid.bidirectionalBfs(0, 0, lastRow, lastCol);
+		System.out.printf("  bidirectional BFS: %8.1f ms, path of %d cells%n",
+				(System.nanoTime() - begin) / 1e6, path.length);
+		begin = System.nanoTime();
+		path = grid.jumpPointSearch(0, 0, lastRow, lastCol);
+		System.out.printf("  jump point search: %8.1f ms, path of %d cells%n",
+				(System.nanoTime() - begin) / 1e6, path.length);
+	}
+
+	// Rows of shelves two cells wide with one cell aisles between them,
+	// a cross aisle every SHELF_LENGTH rows, and a few random obstacles
+	private static final int SHELF_LENGTH = 24;
+
+	private static MazeGrid warehouse(int width, int height, long seed) {
+		MazeGrid grid = new MazeGrid(width, height);
+		Random random = new Random(seed);
+		for (int r = 0; r < height; r++) {
+			boolean crossAisle = r % SHELF_LENGTH < 2;
+			for (int c = 0; c < width; c++) {
+				boolean shelf = !crossAisle && c % 3 != 0;
+				boolean obstacle = random.nextInt(1000) == 0;
+				grid.setOpen(r, c, !shelf && !obstacle);
+			}
+		}
+		return grid;
+	}
+}
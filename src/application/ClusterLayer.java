@@ -0,0 +1,301 @@
+/** Class to show the intersections of a large data set as clusters
+ *
+ * @author Daniel
+ *
+ */
+
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import geography.GeographicPoint;
+import geography.RTree;
+import gmapsfx.javascript.event.MapStateEventType;
+import gmapsfx.javascript.event.UIEventType;
+import gmapsfx.javascript.object.GoogleMap;
+import gmapsfx.javascript.object.LatLong;
+import gmapsfx.javascript.object.LatLongBounds;
+import gmapsfx.javascript.object.Marker;
+import gmapsfx.javascript.object.MarkerOptions;
+
+/**
+ * Shows the part of a ClusterPyramid that is in view.  Below the detail
+ * zoom each cell with more than one point is drawn as one marker labelled
+ * with its count; single points, and every point from the detail zoom on,
+ * get their own selectable marker.  At the detail zoom the points in view
+ * are found with an R-tree, so only the markers inside the view are made.
+ * A pyramid with a detail zoom of 0 shows every point on its own at any
+ * zoom, which suits data sets small enough not to need clusters.
+ *
+ * The layer updates when the map is idle after a pan or zoom.  It only
+ * hides the markers that left the view and shows the ones that entered it,
+ * and both kinds of marker are recycled through pools, so the number of
+ * markers made follows the number in view rather than the size of the data
+ * set.  A point marker handed out by getMarker() is the exception: it stays
+ * with its point, so that its icon and title can be changed.  A layer that
+ * is no longer used must be disposed of, which takes its handlers off the
+ * map.
+ */
+public class ClusterLayer {
+
+    // zoom levels to step in when a cluster is clicked
+    private static final int CLUSTER_CLICK_ZOOM = 2;
+
+    private final GoogleMap map;
+    private final ClusterPyramid pyramid;
+    private final List<GeographicPoint> points;
+    private final RTree pointIndex;
+    private final String icon;
+    private final IntConsumer pointClicked;
+    private boolean enabled = true;
+
+    private final Map<Long, ClusterMarker> shownClusters = new HashMap<Long, ClusterMarker>();
+    // every cluster marker made, by the index its click listener reports
+    private final List<ClusterMarker> clusterMarkers = new ArrayList<ClusterMarker>();
+    private final int clusterClicks;
+    private final int idleHandler;
+    private final List<ClusterMarker> pool = new ArrayList<ClusterMarker>();
+
+    // the point marker of each point that has one, shown or kept
+    private final Map<Integer, PointMarker> boundMarkers = new HashMap<Integer, PointMarker>();
+    // every point marker made, by the index its click listener reports
+    private final List<PointMarker> pointMarkers = new ArrayList<PointMarker>();
+    private final int pointClicks;
+    private final List<PointMarker> pointPool = new ArrayList<PointMarker>();
+    // points whose marker was handed out, and so is never recycled
+    private final Set<Integer> kept = new HashSet<Integer>();
+    private final Set<Integer> shownPoints = new HashSet<Integer>();
+    // points that stay shown wherever the map is, such as the start
+    private final Set<Integer> pinned = new HashSet<Integer>();
+
+    /** A recycled cluster marker and the cluster it shows now */
+    private class ClusterMarker {
+        final Marker marker;
+        double lat, lng;
+
+        ClusterMarker() {
+            MarkerOptions options = new MarkerOptions();
+            options.position(new LatLong(0, 0)).visible(false);
+            marker = new Marker(options);
+            map.addMarker(marker);
+            map.addIndexedListener(marker, clusterClicks, clusterMarkers.size());
+            clusterMarkers.add(this);
+        }
+
+        void show(double lat, double lng, int count) {
+            this.lat = lat;
+            this.lng = lng;
+            marker.setPosition(new LatLong(lat, lng));
+            marker.setLabel(Integer.toString(count));
+            marker.setTitle(count + " intersections");
+            marker.setVisible(true);
+        }
+    }
+
+    /** A recycled point marker and the point it shows now */
+    private class PointMarker {
+        final Marker marker;
+        int point;
+
+        PointMarker(int point) {
+            this.point = point;
+            GeographicPoint p = points.get(point);
+            MarkerOptions options = new MarkerOptions();
+            options.position(new LatLong(p.getX(), p.getY())).icon(icon).visible(false);
+            marker = new Marker(options);
+            map.addMarker(marker);
+            map.addIndexedListener(marker, pointClicks, pointMarkers.size());
+            pointMarkers.add(this);
+        }
+
+        void moveTo(int point) {
+            this.point = point;
+            GeographicPoint p = points.get(point);
+            marker.setPosition(new LatLong(p.getX(), p.getY()));
+        }
+    }
+
+    /**
+     * @param map The map to draw on
+     * @param pyramid The clusters of the points
+     * @param points The points the pyramid was built from
+     * @param icon The icon of the point markers
+     * @param pointClicked Given the index of a point when its marker is
+     * clicked
+     */
+    public ClusterLayer(GoogleMap map, ClusterPyramid pyramid, List<GeographicPoint> points,
+            String icon, IntConsumer pointClicked) {
+        this.map = map;
+        this.pyramid = pyramid;
+        this.points = points;
+        this.pointIndex = RTree.ofPoints(points);
+        this.icon = icon;
+        this.pointClicked = pointClicked;
+        clusterClicks = map.addIndexedEventHandler(UIEventType.click, this::clusterClicked);
+        pointClicks = map.addIndexedEventHandler(UIEventType.click,
+                index -> this.pointClicked.accept(pointMarkers.get(index).point));
+        idleHandler = map.addStateEventHandler(MapStateEventType.idle, () -> update());
+    }
+
+    /**
+     * Hide and remove all the markers of the layer and remove its click
+     * and idle handlers from the map.  The layer cannot be used afterwards.
+     */
+    public void dispose() {
+        setEnabled(false);
+        map.removeEventHandler(clusterClicks);
+        map.removeEventHandler(pointClicks);
+        map.removeEventHandler(idleHandler);
+        for (ClusterMarker cluster : clusterMarkers) {
+            map.removeMarker(cluster.marker);
+        }
+        for (PointMarker point : pointMarkers) {
+            map.removeMarker(point.marker);
+        }
+        clusterMarkers.clear();
+        pool.clear();
+        pointMarkers.clear();
+        pointPool.clear();
+        boundMarkers.clear();
+        kept.clear();
+        pinned.clear();
+    }
+
+    // zoom in on the cluster shown by a cluster marker
+    private void clusterClicked(int index) {
+        ClusterMarker cluster = clusterMarkers.get(index);
+        map.setCenter(new LatLong(cluster.lat, cluster.lng));
+        map.setZoom(map.getZoom() + CLUSTER_CLICK_ZOOM);
+    }
+
+    /**
+     * @param point The index of a point
+     * @return the marker of the point, which keeps showing this point from
+     * now on; it is only visible while the point is in view or pinned
+     */
+    public Marker getMarker(int point) {
+        kept.add(point);
+        return bind(point).marker;
+    }
+
+    // the marker of a point, taken from the pool or made if it has none
+    private PointMarker bind(int point) {
+        PointMarker marker = boundMarkers.get(point);
+        if (marker == null) {
+            if (pointPool.isEmpty()) {
+                marker = new PointMarker(point);
+            }
+            else {
+                marker = pointPool.remove(pointPool.size() - 1);
+                marker.moveTo(point);
+            }
+            boundMarkers.put(point, marker);
+        }
+        return marker;
+    }
+
+    private void showPoint(int point) {
+        bind(point).marker.setVisible(true);
+        shownPoints.add(point);
+    }
+
+    // hide a point's marker, and recycle it unless it was handed out
+    private void hidePoint(int point) {
+        PointMarker marker = boundMarkers.get(point);
+        marker.marker.setVisible(false);
+        if (!kept.contains(point)) {
+            boundMarkers.remove(point);
+            pointPool.add(marker);
+        }
+    }
+
+    /**
+     * Keep a point shown wherever the map is and at any zoom.
+     * @param point The index of the point
+     */
+    public void pin(int point) {
+        pinned.add(point);
+        if (enabled && !shownPoints.contains(point)) {
+            showPoint(point);
+        }
+    }
+
+    public void unpin(int point) {
+        pinned.remove(point);
+        update();
+    }
+
+    /**
+     * Turn the layer off, hiding all its markers, or back on.
+     * @param enabled true to show the clusters in view
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        update();
+    }
+
+    /** Show what is in view now, changing only the markers that differ. */
+    public void update() {
+        Map<Long, double[]> wantedClusters = new HashMap<Long, double[]>();
+        Set<Integer> wantedPoints = new HashSet<Integer>();
+        LatLongBounds bounds = enabled ? map.getBounds() : null;
+        if (enabled) {
+            wantedPoints.addAll(pinned);
+        }
+        if (bounds != null) {
+            int zoom = map.getZoom();
+            LatLong sw = bounds.getSouthWest();
+            LatLong ne = bounds.getNorthEast();
+            double south = sw.getLatitude(), west = sw.getLongitude();
+            double north = ne.getLatitude(), east = ne.getLongitude();
+            if (zoom >= pyramid.getDetailZoom()) {
+                pointIndex.search(south, west, north, east, wantedPoints::add);
+            }
+            else {
+                pyramid.query(zoom, south, west, north, east, (key, first, end, lat, lng) -> {
+                    if (end - first == 1) {
+                        wantedPoints.add(pyramid.getPoint(first));
+                    }
+                    else {
+                        wantedClusters.put(key, new double[] {lat, lng, end - first});
+                    }
+                });
+            }
+        }
+
+        Iterator<Map.Entry<Long, ClusterMarker>> shown = shownClusters.entrySet().iterator();
+        while (shown.hasNext()) {
+            Map.Entry<Long, ClusterMarker> entry = shown.next();
+            if (wantedClusters.remove(entry.getKey()) == null) {
+                entry.getValue().marker.setVisible(false);
+                pool.add(entry.getValue());
+                shown.remove();
+            }
+        }
+        for (Map.Entry<Long, double[]> entry : wantedClusters.entrySet()) {
+            ClusterMarker marker = pool.isEmpty() ? new ClusterMarker() : pool.remove(pool.size() - 1);
+            double[] cluster = entry.getValue();
+            marker.show(cluster[0], cluster[1], (int) cluster[2]);
+            shownClusters.put(entry.getKey(), marker);
+        }
+
+        Iterator<Integer> showing = shownPoints.iterator();
+        while (showing.hasNext()) {
+            Integer point = showing.next();
+            if (!wantedPoints.remove(point)) {
+                hidePoint(point);
+                showing.remove();
+            }
+        }
+        for (Integer point : wantedPoints) {
+            showPoint(point);
+        }
+    }
+}
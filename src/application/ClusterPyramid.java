@@ -0,0 +1,306 @@
+/** Class to group the intersections of a data set into clusters for each
+ *  zoom level of the map
+ *
+ * @author Daniel
+ *
+ */
+
+package application;
+
+import java.util.Arrays;
+import java.util.List;
+
+import geography.GeographicPoint;
+
+/**
+ * A quadtree of clusters over a set of points, with one level per map zoom
+ * level.
+ *
+ * At zoom level z the map (in Web Mercator) is split into square cells of
+ * CELL_PIXELS screen pixels, and a cluster holds all the points of one
+ * cell.  The cells of level z are exactly the 2x2 blocks of cells of level
+ * z + 1, so the points are sorted once by the Z-order (Morton) code of
+ * their cell at the finest level; every cluster of every level is then a
+ * contiguous range of that order, and each level is built by merging runs
+ * of the level below it.
+ */
+public class ClusterPyramid {
+
+	/** Width and height of a cluster cell, in screen pixels */
+	public static final int CELL_PIXELS = 64;
+	/** Zoom level from which points are shown one by one */
+	public static final int DEFAULT_DETAIL_ZOOM = 16;
+	public static final int MAX_DETAIL_ZOOM = 18;
+
+	// a world tile is 256 pixels wide at zoom 0
+	private static final int CELL_BITS_AT_ZOOM_0 = 2;
+
+	/** Called for each cluster found by a query. */
+	public interface ClusterVisitor {
+		/**
+		 * @param key Identifies the cluster across queries: the same cell
+		 * at the same level always has the same key
+		 * @param first The rank of the first point of the cluster
+		 * @param end One past the rank of the last point of the cluster
+		 * @param lat Mean latitude of the points of the cluster
+		 * @param lng Mean longitude of the points of the cluster
+		 */
+		void visit(long key, int first, int end, double lat, double lng);
+	}
+
+	private final int detailZoom;
+	// points in Morton order: order[rank] is the index of the point in the
+	// list the pyramid was built from
+	private final int[] order;
+	private final Level[] levels;
+
+	/** The clusters of one zoom level, sorted by cell code */
+	private static class Level {
+		final long[] code;
+		// cluster i holds the points of rank first[i] to first[i + 1] - 1
+		final int[] first;
+		final double[] lat;
+		final double[] lng;
+
+		Level(long[] code, int[] first, double[] lat, double[] lng) {
+			this.code = code;
+			this.first = first;
+			this.lat = lat;
+			this.lng = lng;
+		}
+
+		int size() {
+			return code.length;
+		}
+	}
+
+	public ClusterPyramid(List<GeographicPoint> points) {
+		this(points, DEFAULT_DETAIL_ZOOM);
+	}
+
+	/**
+	 * Build the clusters of every zoom level up to detailZoom.
+	 * @param points The points to cluster
+	 * @param detailZoom The finest level; at this zoom and above every
+	 * point is shown on its own
+	 */
+	public ClusterPyramid(List<GeographicPoint> points, int detailZoom) {
+		if (detailZoom < 0 || detailZoom > MAX_DETAIL_ZOOM) {
+			throw new IllegalArgumentException("detailZoom must be between 0 and " + MAX_DETAIL_ZOOM);
+		}
+		this.detailZoom = detailZoom;
+		int n = points.size();
+		int codeBits = 2 * (detailZoom + CELL_BITS_AT_ZOOM_0);
+		int indexBits = 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1));
+		if (codeBits + indexBits > 63) {
+			throw new IllegalArgumentException("too many points for detail zoom " + detailZoom);
+		}
+
+		// sort by cell code, carrying the point index in the low bits
+		double[] lat = new double[n];
+		double[] lng = new double[n];
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			GeographicPoint p = points.get(i);
+			lat[i] = p.getX();
+			lng[i] = p.getY();
+			long code = morton(cellX(lng[i], detailZoom), cellY(lat[i], detailZoom));
+			keys[i] = (code << indexBits) | i;
+		}
+		Arrays.sort(keys);
+		order = new int[n];
+		long indexMask = (1L << indexBits) - 1;
+		for (int rank = 0; rank < n; rank++) {
+			order[rank] = (int) (keys[rank] & indexMask);
+			keys[rank] >>>= indexBits;
+		}
+
+		levels = new Level[detailZoom + 1];
+		levels[detailZoom] = finestLevel(keys, lat, lng);
+		for (int z = detailZoom - 1; z >= 0; z--) {
+			levels[z] = parentLevel(levels[z + 1]);
+		}
+	}
+
+	// one cluster per run of equal codes in the sorted points
+	private Level finestLevel(long[] codes, double[] lat, double[] lng) {
+		int runs = 0;
+		for (int rank = 0; rank < codes.length; rank++) {
+			if (rank == 0 || codes[rank] != codes[rank - 1]) runs++;
+		}
+		long[] code = new long[runs];
+		int[] first = new int[runs + 1];
+		double[] meanLat = new double[runs];
+		double[] meanLng = new double[runs];
+		int c = -1;
+		for (int rank = 0; rank < codes.length; rank++) {
+			if (rank == 0 || codes[rank] != codes[rank - 1]) {
+				c++;
+				code[c] = codes[rank];
+				first[c] = rank;
+			}
+			meanLat[c] += lat[order[rank]];
+			meanLng[c] += lng[order[rank]];
+		}
+		first[runs] = codes.length;
+		for (c = 0; c < runs; c++) {
+			int count = first[c + 1] - first[c];
+			meanLat[c] /= count;
+			meanLng[c] /= count;
+		}
+		return new Level(code, first, meanLat, meanLng);
+	}
+
+	// merge the clusters of the 2x2 blocks of child cells
+	private static Level parentLevel(Level child) {
+		int runs = 0;
+		for (int i = 0; i < child.size(); i++) {
+			if (i == 0 || child.code[i] >>> 2 != child.code[i - 1] >>> 2) runs++;
+		}
+		long[] code = new long[runs];
+		int[] first = new int[runs + 1];
+		double[] lat = new double[runs];
+		double[] lng = new double[runs];
+		int c = -1;
+		for (int i = 0; i < child.size(); i++) {
+			if (i == 0 || child.code[i] >>> 2 != child.code[i - 1] >>> 2) {
+				c++;
+				code[c] = child.code[i] >>> 2;
+				first[c] = child.first[i];
+			}
+			int count = child.first[i + 1] - child.first[i];
+			lat[c] += child.lat[i] * count;
+			lng[c] += child.lng[i] * count;
+		}
+		first[runs] = child.first[child.size()];
+		for (c = 0; c < runs; c++) {
+			int count = first[c + 1] - first[c];
+			lat[c] /= count;
+			lng[c] /= count;
+		}
+		return new Level(code, first, lat, lng);
+	}
+
+	public int getNumPoints() {
+		return order.length;
+	}
+
+	public int getDetailZoom() {
+		return detailZoom;
+	}
+
+	/**
+	 * @param zoom A zoom level
+	 * @return the number of clusters at that level
+	 */
+	public int getNumClusters(int zoom) {
+		return levels[clampZoom(zoom)].size();
+	}
+
+	/**
+	 * @param rank The position of a point in the order of the clusters
+	 * @return the index of the point in the list the pyramid was built from
+	 */
+	public int getPoint(int rank) {
+		return order[rank];
+	}
+
+	/**
+	 * Visit the clusters at a zoom level whose cells overlap a box.  Above
+	 * the detail zoom the clusters of the detail level are visited.
+	 * @param zoom The zoom level of the map
+	 * @param south The southern edge of the box
+	 * @param west The western edge of the box; if it is east of the
+	 * eastern edge the box is taken to cover all longitudes
+	 * @param north The northern edge of the box
+	 * @param east The eastern edge of the box
+	 * @param visitor Called once for each cluster in the box
+	 */
+	public void query(int zoom, double south, double west, double north, double east,
+			ClusterVisitor visitor) {
+		int z = clampZoom(zoom);
+		Level level = levels[z];
+		int last = cellsPerAxis(z) - 1;
+		int x0 = west <= east ? cellX(west, z) : 0;
+		int x1 = west <= east ? cellX(east, z) : last;
+		int y0 = cellY(north, z);
+		int y1 = cellY(south, z);
+		long cells = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+		if (cells >= level.size()) {
+			// the box covers more cells than there are clusters
+			for (int i = 0; i < level.size(); i++) {
+				int x = compact(level.code[i]);
+				int y = compact(level.code[i] >>> 1);
+				if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+					visit(z, level, i, visitor);
+				}
+			}
+			return;
+		}
+		for (int y = y0; y <= y1; y++) {
+			for (int x = x0; x <= x1; x++) {
+				int i = Arrays.binarySearch(level.code, morton(x, y));
+				if (i >= 0) {
+					visit(z, level, i, visitor);
+				}
+			}
+		}
+	}
+
+	private static void visit(int z, Level level, int i, ClusterVisitor visitor) {
+		visitor.visit(((long) z << 32) | i, level.first[i], level.first[i + 1],
+				level.lat[i], level.lng[i]);
+	}
+
+	private int clampZoom(int zoom) {
+		return Math.max(0, Math.min(zoom, detailZoom));
+	}
+
+	private static int cellsPerAxis(int zoom) {
+		return 1 << (zoom + CELL_BITS_AT_ZOOM_0);
+	}
+
+	// Web Mercator column and row of the cell holding a point
+	private static int cellX(double lng, int zoom) {
+		double x = (lng + 180) / 360;
+		return clampCell(x, zoom);
+	}
+
+	private static int cellY(double lat, int zoom) {
+		double sin = Math.sin(Math.toRadians(lat));
+		double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+		return clampCell(y, zoom);
+	}
+
+	private static int clampCell(double fraction, int zoom) {
+		int cells = cellsPerAxis(zoom);
+		int cell = (int) Math.floor(fraction * cells);
+		return Math.max(0, Math.min(cell, cells - 1));
+	}
+
+	// interleave the bits of x and y: x in the even bits, y in the odd bits
+	private static long morton(int x, int y) {
+		return spread(x) | (spread(y) << 1);
+	}
+
+	private static long spread(int v) {
+		long x = v & 0xFFFFFFFFL;
+		x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x << 2)) & 0x3333333333333333L;
+		x = (x | (x << 1)) & 0x5555555555555555L;
+		return x;
+	}
+
+	// inverse of spread: gather the even bits
+	private static int compact(long code) {
+		long x = code & 0x5555555555555555L;
+		x = (x | (x >>> 1)) & 0x3333333333333333L;
+		x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+		return (int) x;
+	}
+}
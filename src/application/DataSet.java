@@ -1,10 +1,12 @@
 package application;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 
 import geography.GeographicPoint;
+import geography.MappedEdgeGeometry;
 import util.GraphLoader;
 
 /**
@@ -52,14 +54,39 @@ public class DataSet {
     	}
     }
     
+    /** @return the road segments at each intersection if set, otherwise null; the graph keeps the road shapes */
     public HashMap<geography.GeographicPoint,HashSet<geography.RoadSegment>>  getRoads() { return this.roads; }
 
     public void initializeGraph() {
-        graph = new roadgraph.MapGraph();
-        roads = new HashMap<geography.GeographicPoint, HashSet<geography.RoadSegment>>();
+        close();
+        // road shapes are only read for the routes drawn, so they are
+        // kept in a file rather than as RoadSegments
+        try {
+            graph = new roadgraph.MapGraph(MappedEdgeGeometry.createTemporary());
+        }
+        catch (IOException e) {
+            System.err.println("Problem creating geometry file, keeping roads in memory: " + e);
+            graph = new roadgraph.MapGraph();
+        }
+        roads = null;
         intersections = new HashSet<GeographicPoint>();
         //TODO: change to use intersections for points in graph.
-    	GraphLoader.loadRoadMap(filePath, graph, roads, intersections);
+    	GraphLoader.loadRoadMap(filePath, graph, null, intersections);
+    }
+
+    /**
+     * Release the file holding the road shapes of the loaded graph, when
+     * the data set is replaced or loaded again.
+     */
+    public void close() {
+        if (graph != null) {
+            try {
+                graph.close();
+            }
+            catch (IOException e) {
+                System.err.println("Problem closing geometry file: " + e);
+            }
+        }
     }
 
 	public String getFilePath() {
@@ -68,8 +95,7 @@ public class DataSet {
 
 
     public Object[] getPoints() {
-    	Set<geography.GeographicPoint> pointSet = roads.keySet();
-    	return pointSet.toArray();
+    	return intersections.toArray();
     }
 
     public boolean isDisplayed() {
@@ -17,6 +17,7 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.RadioButton;
+import javafx.scene.control.Slider;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TextField;
@@ -60,6 +61,8 @@ implements MapComponentInitializedListener {
 	// CONSTANTS
 	private static final double MARGIN_VAL = 10;
 	private static final double FETCH_COMPONENT_WIDTH = 160.0;
+	// number of intersections highlighted by "Show Central"
+	private static final int CENTRAL_COUNT = 10;
 
 	public static void main(String[] args){
 		launch(args);
@@ -103,6 +106,11 @@ implements MapComponentInitializedListener {
 		Button hideRouteButton = new Button("Hide Route");
 		Button resetButton = new Button("Reset");
 		Button visualizationButton = new Button("Start Visualization");
+		Button centralButton = new Button("Show Central");
+		Button hideCentralButton = new Button("Hide Central");
+		// playback speed of the visualization, as a power of ten of the
+		// visited points drawn per second
+		Slider speedSlider = new Slider(1, 4, Math.log10(RouteVisualization.DEFAULT_SPEED));
 		Image sImage = new Image(MarkerManager.startURL);
 		Image dImage = new Image(MarkerManager.destinationURL);
 		CLabel<geography.GeographicPoint> startLabel = new CLabel<geography.GeographicPoint>("Empty.", new ImageView(sImage), null);
@@ -128,6 +136,11 @@ implements MapComponentInitializedListener {
 		markerManager.setSelectManager(manager);
 		manager.setMarkerManager(markerManager);
 		markerManager.setVisButton(visualizationButton);
+		speedSlider.valueProperty().addListener((obs, oldValue, newValue) ->
+				markerManager.setVisualizationSpeed(Math.pow(10, newValue.doubleValue())));
+		// highlight the busiest intersections of the displayed data set
+		centralButton.setOnAction(e -> markerManager.displayCentralIntersections(CENTRAL_COUNT));
+		hideCentralButton.setOnAction(e -> markerManager.clearCentralIntersections());
 
 		// create components for route tab
 		CLabel<geography.GeographicPoint> pointLabel = new CLabel<geography.GeographicPoint>("No point Selected.", null);
@@ -135,7 +148,8 @@ implements MapComponentInitializedListener {
 		manager.setStartLabel(startLabel);
 		manager.setDestinationLabel(endLabel);
 		setupRouteTab(routeTab, fetchBox, startLabel, endLabel, pointLabel, routeButton, hideRouteButton,
-				resetButton, visualizationButton, startButton, destinationButton, searchOptions);
+				resetButton, visualizationButton, speedSlider, centralButton, hideCentralButton, startButton,
+				destinationButton, searchOptions);
 
 		// add tabs to pane, give no option to close
 		TabPane tp = new TabPane(routeTab);
@@ -241,7 +255,8 @@ implements MapComponentInitializedListener {
 	 * @param box
 	 */
 	private void setupRouteTab(Tab routeTab, VBox fetchBox, Label startLabel, Label endLabel, Label pointLabel,
-			Button showButton, Button hideButton, Button resetButton, Button vButton, Button startButton,
+			Button showButton, Button hideButton, Button resetButton, Button vButton, Slider speedSlider,
+			Button centralButton, Button hideCentralButton, Button startButton,
 			Button destButton, List<RadioButton> searchOptions) {
 
 		//set up tab layout
@@ -284,6 +299,11 @@ implements MapComponentInitializedListener {
 		showHideBox.getChildren().add(hideButton);
 		showHideBox.setSpacing(2*MARGIN_VAL);
 
+		HBox centralBox = new HBox();
+		centralBox.getChildren().add(centralButton);
+		centralBox.getChildren().add(hideCentralButton);
+		centralBox.setSpacing(2*MARGIN_VAL);
+
 		v.getChildren().add(fetchBox);
 		v.getChildren().add(new Label("Start Position : "));
 		v.getChildren().add(startBox);
@@ -294,8 +314,15 @@ implements MapComponentInitializedListener {
 			v.getChildren().add(rb);
 		}
 		v.getChildren().add(vButton);
+		Label speedLabel = new Label("Visualization Speed : ");
+		v.getChildren().add(speedLabel);
+		v.getChildren().add(speedSlider);
 		VBox.setMargin(showHideBox, new Insets(MARGIN_VAL,MARGIN_VAL,MARGIN_VAL,MARGIN_VAL));
 		VBox.setMargin(vButton, new Insets(MARGIN_VAL,MARGIN_VAL,MARGIN_VAL,MARGIN_VAL));
+		VBox.setMargin(speedLabel, new Insets(0,MARGIN_VAL,0,MARGIN_VAL));
+		VBox.setMargin(speedSlider, new Insets(0,MARGIN_VAL,MARGIN_VAL,MARGIN_VAL));
+		v.getChildren().add(centralBox);
+		VBox.setMargin(centralBox, new Insets(MARGIN_VAL,MARGIN_VAL,MARGIN_VAL,MARGIN_VAL));
 		vButton.setDisable(true);
 		v.getChildren().add(markerBox);
 		//v.getChildren().add(resetButton);
@@ -8,18 +8,14 @@ package application;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 
-import gmapsfx.javascript.event.UIEventType;
-import gmapsfx.javascript.object.Animation;
 import gmapsfx.javascript.object.GoogleMap;
 import gmapsfx.javascript.object.LatLong;
 import gmapsfx.javascript.object.Marker;
 import gmapsfx.javascript.object.MarkerOptions;
 import javafx.scene.control.Button;
 import gmapsfx.javascript.object.LatLongBounds;
-import netscape.javascript.JSObject;
 
 public class MarkerManager {
 
@@ -27,7 +23,11 @@ public class MarkerManager {
     private static final double SELECT_Z = 1;
     private static final double STRTDEST_Z = 3;
 
-    private HashMap<geography.GeographicPoint, Marker> markerMap;
+    // the markers of the data set in view, shown through clusters for large
+    // data sets; markerIndex maps an intersection to its index in
+    // markerPositions, by which the layer knows it
+    private ClusterLayer clusters;
+    private HashMap<geography.GeographicPoint, Integer> markerIndex;
     private ArrayList<geography.GeographicPoint> markerPositions;
     private GoogleMap map;
     protected static String startURL = "http://maps.google.com/mapfiles/kml/pal3/icon40.png";
@@ -35,18 +35,28 @@ public class MarkerManager {
     protected static String SELECTED_URL = "http://maps.google.com/mapfiles/kml/paddle/ltblu-circle.png";
     protected static String markerURL = "http://maps.google.com/mapfiles/kml/paddle/blu-diamond-lv.png";
 	protected static String visURL = "http://maps.google.com/mapfiles/kml/paddle/red-diamond-lv.png";
+    protected static String centralURL = "http://maps.google.com/mapfiles/kml/paddle/orange-diamond-lv.png";
+    // above this many intersections, centrality is estimated from a sample of sources
+    private static final int EXACT_CENTRALITY_LIMIT = 2000;
+    private static final int CENTRALITY_SAMPLES = 500;
+    // above this many intersections, markers are clustered
+    private static final int CLUSTER_LIMIT = 5000;
     private Marker startMarker;
     private Marker destinationMarker;
+    private geography.GeographicPoint startPoint;
+    private geography.GeographicPoint destinationPoint;
     private Marker selectedMarker;
     private DataSet dataSet;
     private LatLongBounds bounds;
     private SelectManager selectManager;
     private RouteVisualization rv;
     private Button vButton;
+    private double visSpeed = RouteVisualization.DEFAULT_SPEED;
     private boolean selectMode = true;
+    private List<geography.GeographicPoint> centralPoints;
 
     public MarkerManager() {
-    	markerMap = new HashMap<geography.GeographicPoint, Marker>();
+    	markerIndex = new HashMap<geography.GeographicPoint, Integer>();
     	this.map = null;
     	this.selectManager = null;
         this.rv = null;
@@ -79,9 +89,17 @@ public class MarkerManager {
     public void setMap(GoogleMap map) { this.map = map; }
     public void setSelectManager(SelectManager selectManager) { this.selectManager = selectManager; }
 
-    public void putMarker(geography.GeographicPoint key, Marker value) {
-    	markerMap.put(key, value);
+    /**
+     * @param point An intersection of the displayed data set
+     * @return The marker of the intersection, or null if it has none
+     */
+    public Marker getMarker(geography.GeographicPoint point) {
+        Integer index = markerIndex.get(point);
+        return index == null ? null : markerAt(index);
+    }
 
+    private Marker markerAt(int index) {
+        return clusters.getMarker(index);
     }
 
     /** Used to initialize new RouteVisualization object
@@ -89,10 +107,23 @@ public class MarkerManager {
      */
     public void initVisualization() {
     	rv = new RouteVisualization(this);
+    	rv.setSpeed(visSpeed);
+    }
+
+    /**
+     * Set the playback speed of search visualizations, including one that
+     * is playing now.
+     * @param pointsPerSecond Visited points drawn per second
+     */
+    public void setVisualizationSpeed(double pointsPerSecond) {
+    	visSpeed = pointsPerSecond;
+    	if(rv != null) {
+    		rv.setSpeed(pointsPerSecond);
+    	}
     }
 
     public void clearVisualization() {
-        rv.clearMarkers();
+        rv.clear();
     	rv = null;
     }
 
@@ -108,18 +139,34 @@ public class MarkerManager {
             changeIcon(startMarker, markerURL);
 //            startMarker.setZIndex(DEFAULT_Z);
     	}
-        startMarker = markerMap.get(point);
+        startMarker = getMarker(point);
 //        startMarker.setZIndex(STRTDEST_Z);
         changeIcon(startMarker, startURL);
+        pin(startPoint, point);
+        startPoint = point;
     }
     public void setDestination(geography.GeographicPoint point) {
     	if(destinationMarker != null) {
     		destinationMarker.setIcon(markerURL);
 //            destinationMarker.setZIndex(DEFAULT_Z);
     	}
-        destinationMarker = markerMap.get(point);
+        destinationMarker = getMarker(point);
 //        destinationMarker.setZIndex(STRTDEST_Z);
         changeIcon(destinationMarker, destinationURL);
+        pin(destinationPoint, point);
+        destinationPoint = point;
+    }
+
+    // keep a selected intersection shown wherever the map is
+    private void pin(geography.GeographicPoint previous, geography.GeographicPoint point) {
+        if(clusters == null) {
+            return;
+        }
+        if(previous != null && markerIndex.containsKey(previous)
+                && (centralPoints == null || !centralPoints.contains(previous))) {
+            clusters.unpin(markerIndex.get(previous));
+        }
+        clusters.pin(markerIndex.get(point));
     }
 
     public void changeIcon(Marker marker, String url) {
@@ -132,34 +179,27 @@ public class MarkerManager {
      * TODO -- Might need to create all new markers and add them??
      */
     public void restoreMarkers() {
-    	Iterator<geography.GeographicPoint> it = markerMap.keySet().iterator();
-        while(it.hasNext()) {
-            Marker marker = markerMap.get(it.next());
-            // destination marker needs to be added because it is added in javascript
-            if(marker != startMarker) {
-                marker.setVisible(false);
-                marker.setVisible(true);
-            }
+        if(clusters != null) {
+            clusters.setEnabled(true);
         }
         selectManager.resetSelect();
     }
 
     public void refreshMarkers() {
-
-    	Iterator<geography.GeographicPoint> it = markerMap.keySet().iterator();
-        while(it.hasNext()) {
-        	Marker marker = markerMap.get(it.next());
-        	marker.setVisible(true);
+        if(clusters != null) {
+        	clusters.setEnabled(true);
         }
     }
     public void clearMarkers() {
         if(rv != null) {
-        	rv.clearMarkers();
+        	rv.clear();
         	rv = null;
         }
-    	Iterator<geography.GeographicPoint> it = markerMap.keySet().iterator();
-    	while(it.hasNext()) {
-    		markerMap.get(it.next()).setVisible(false);
+    	if(clusters != null) {
+    		// the layer's handlers would otherwise stay on the map
+    		clusters.dispose();
+    		clusters = null;
+    		markerIndex.clear();
     	}
     }
 
@@ -184,13 +224,14 @@ public class MarkerManager {
     }
 
     public void hideIntermediateMarkers() {
-        Iterator<geography.GeographicPoint> it = markerMap.keySet().iterator();
-        while(it.hasNext()) {
-            Marker marker = markerMap.get(it.next());
-            if(marker != startMarker && marker != destinationMarker) {
-                marker.setVisible(false);
-            }
-//        	map.addMarker(marker);
+        if(clusters != null) {
+            clusters.setEnabled(false);
+        }
+        if(startMarker != null) {
+            startMarker.setVisible(true);
+        }
+        if(destinationMarker != null) {
+            destinationMarker.setVisible(true);
         }
     }
 
@@ -199,8 +240,8 @@ public class MarkerManager {
     }
 
     public void displayMarker(geography.GeographicPoint point) {
-    	if(markerMap.containsKey(point)) {
-        	Marker marker = markerMap.get(point);
+    	Marker marker = getMarker(point);
+    	if(marker != null) {
             marker.setVisible(true);
             // System.out.println("Marker : " + marker + "set to visible");
     	}
@@ -208,57 +249,133 @@ public class MarkerManager {
     		// System.out.println("no key found for MarkerManager::displayMarker");
     	}
     }
+    /**
+     * Show the intersections of the data set in view and fit the map to
+     * them.  The markers are shown through a ClusterLayer, which finds the
+     * intersections in view when the map is idle and recycles the markers
+     * of those that leave it, so only as many markers are made as are in
+     * view at once.  Data sets with more than CLUSTER_LIMIT intersections
+     * are also grouped into clusters below the layer's detail zoom; smaller
+     * ones show every intersection on its own at any zoom.
+     */
     public void displayDataSet() {
-        markerPositions = new ArrayList<geography.GeographicPoint>();
         dataSet.initializeGraph();
-    	Iterator<geography.GeographicPoint>it = dataSet.getIntersections().iterator();
-        bounds = new LatLongBounds();
-        while(it.hasNext()) {
-        	geography.GeographicPoint point = it.next();
-            LatLong ll = new LatLong(point.getX(), point.getY());
-        	MarkerOptions markerOptions = createDefaultOptions(ll);
-            bounds.extend(ll);
-        	Marker marker = new Marker(markerOptions);
-            registerEvents(marker, point);
-        	map.addMarker(marker);
-        	putMarker(point, marker);
-        	markerPositions.add(point);
-//            marker.setZIndex(DEFAULT_Z);
+        markerPositions = new ArrayList<geography.GeographicPoint>(dataSet.getIntersections());
+        markerIndex = new HashMap<geography.GeographicPoint, Integer>();
+        startPoint = null;
+        destinationPoint = null;
+        centralPoints = null;
+        for(int i = 0; i < markerPositions.size(); i++) {
+        	markerIndex.put(markerPositions.get(i), i);
+        }
+        int detailZoom = markerPositions.size() > CLUSTER_LIMIT ? ClusterPyramid.DEFAULT_DETAIL_ZOOM : 0;
+        clusters = new ClusterLayer(map, new ClusterPyramid(markerPositions, detailZoom),
+        		markerPositions, markerURL, this::markerClicked);
+        bounds = boundsOf(markerPositions);
+        if(bounds != null) {
+        	map.fitBounds(bounds);
         }
-        map.fitBounds(bounds);
         // System.out.println("End of display Intersections");
 
     }
 
 
-    private void registerEvents(Marker marker, geography.GeographicPoint point) {
-        /*map.addUIEventHandler(marker, UIEventType.mouseover, (JSObject o) -> {
-           marker.setVisible(true);
-           //marker.setAnimation(Animation.BOUNCE);
-        });
-
-        map.addUIEventHandler(marker, UIEventType.mouseout, (JSObject o) -> {
-        	marker.setAnimation(null);
-        });*/
-
-        map.addUIEventHandler(marker, UIEventType.click, (JSObject o) -> {
-            //System.out.println("Clicked Marker : " + point.toString());
-            if(selectMode) {
-                	if(selectedMarker != null && selectedMarker != startMarker
-                	   && selectedMarker != destinationMarker) {
-                		selectedMarker.setIcon(markerURL);
-//                		selectedMarker.setZIndex(DEFAULT_Z);
-                	}
-            	selectManager.setPoint(point, marker);
-                selectedMarker = marker;
-                selectedMarker.setIcon(SELECTED_URL);
-//                selectedMarker.setZIndex(SELECT_Z);
-
-                // re add markers to map
-                // slightly glitchy
-//                refreshMarkers();
+    /**
+     * Highlight the intersections that carry the most shortest paths
+     * (highest betweenness centrality) of the displayed data set.  Each
+     * highlighted marker gets the central icon and its rank as its title.
+     * The highlighted intersections are pinned, so they are shown wherever
+     * the map is and at any zoom.
+     *
+     * @param count The number of intersections to highlight
+     * @return the highlighted intersections, most central first
+     */
+    public List<geography.GeographicPoint> displayCentralIntersections(int count) {
+        clearCentralIntersections();
+        if (dataSet == null || markerPositions == null) {
+            return new ArrayList<geography.GeographicPoint>();
+        }
+        roadgraph.MapGraph graph = dataSet.getGraph();
+        roadgraph.Centrality centrality = graph.getNumVertices() > EXACT_CENTRALITY_LIMIT
+                ? graph.betweenness(CENTRALITY_SAMPLES, 0) : graph.betweenness();
+        centralPoints = centrality.top(count);
+        int rank = 1;
+        for (geography.GeographicPoint point : centralPoints) {
+            Integer index = markerIndex.get(point);
+            if (index != null) {
+                if (clusters != null) {
+                    clusters.pin(index);
+                }
+                Marker marker = markerAt(index);
+                marker.setTitle("#" + rank + " centrality " + String.format("%.0f", centrality.getScore(point)));
+                if (marker != startMarker && marker != destinationMarker) {
+                    changeIcon(marker, centralURL);
+                }
+            }
+            rank++;
+        }
+        return centralPoints;
+    }
+
+    /**
+     * Return the markers highlighted by displayCentralIntersections to
+     * the default icon, and unpin them.
+     */
+    public void clearCentralIntersections() {
+        if (centralPoints == null) {
+            return;
+        }
+        for (geography.GeographicPoint point : centralPoints) {
+            Integer index = markerIndex.get(point);
+            if (index != null) {
+                Marker marker = markerAt(index);
+                marker.setTitle(null);
+                if (marker != startMarker && marker != destinationMarker) {
+                    changeIcon(marker, marker == selectedMarker ? SELECTED_URL : markerURL);
+                }
+                // the start and destination stay pinned
+                if (clusters != null && !point.equals(startPoint) && !point.equals(destinationPoint)) {
+                    clusters.unpin(index);
+                }
             }
-        });
+        }
+        centralPoints = null;
+    }
+
+    private static LatLongBounds boundsOf(List<geography.GeographicPoint> points) {
+        if(points.isEmpty()) {
+            return null;
+        }
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for(geography.GeographicPoint point : points) {
+            south = Math.min(south, point.getX());
+            north = Math.max(north, point.getX());
+            west = Math.min(west, point.getY());
+            east = Math.max(east, point.getY());
+        }
+        return new LatLongBounds(new LatLong(south, west), new LatLong(north, east));
+    }
+
+    // click handler shared by all the markers of the data set
+    private void markerClicked(int index) {
+        //System.out.println("Clicked Marker : " + markerPositions.get(index));
+        if(selectMode) {
+            	if(selectedMarker != null && selectedMarker != startMarker
+            	   && selectedMarker != destinationMarker) {
+            		selectedMarker.setIcon(markerURL);
+//            		selectedMarker.setZIndex(DEFAULT_Z);
+            	}
+            Marker marker = markerAt(index);
+        	selectManager.setPoint(markerPositions.get(index), marker);
+            selectedMarker = marker;
+            selectedMarker.setIcon(SELECTED_URL);
+//            selectedMarker.setZIndex(SELECT_Z);
+
+            // re add markers to map
+            // slightly glitchy
+//            refreshMarkers();
+        }
     }
 
     public void disableVisButton(boolean value) {
@@ -267,6 +384,10 @@ public class MarkerManager {
     	}
     }
 	public void setDataSet(DataSet dataSet) {
+		// the replaced data set's graph is not used again
+		if (this.dataSet != null && this.dataSet != dataSet) {
+			this.dataSet.close();
+		}
 		this.dataSet= dataSet;
 	}
 
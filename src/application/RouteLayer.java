@@ -0,0 +1,171 @@
+/** Class to draw the part of a route that is in view
+ *
+ * @author Daniel
+ *
+ */
+
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import geography.PathSimplifier;
+import geography.RTree;
+import gmapsfx.javascript.object.GoogleMap;
+import gmapsfx.javascript.object.LatLong;
+import gmapsfx.javascript.object.LatLongBounds;
+import gmapsfx.shapes.Polyline;
+
+/**
+ * Draws a route, made of road segments in order, as polylines covering
+ * only the segments in view.
+ *
+ * The segments are kept in an R-tree over their bounding boxes.  On each
+ * update the segments in view are found, and each run of consecutive ones
+ * is drawn as one polyline, so a route that is wholly in view is still a
+ * single line.  Runs that are still in view keep their polyline; the
+ * polylines of runs that left the view are hidden and reused for new ones.
+ *
+ * The route is simplified for the zoom level with a PathSimplifier, whose
+ * levels are worked out once when the layer is made, and each run is sent
+ * to the page as an encoded polyline string.  When the zoom changes every
+ * run is drawn again at the new level of detail.
+ */
+public class RouteLayer {
+
+    private final GoogleMap map;
+    private final RTree index;
+    // the route's vertices, the joins of segments appearing once, and the
+    // index of the last vertex of each segment; segment i starts at the
+    // last vertex of segment i - 1
+    private final double[] route;
+    private final int[] segmentEnd;
+    private final PathSimplifier simplifier;
+    private int shownZoom = -1;
+    private boolean removed = false;
+
+    // keyed by first segment << 32 | last segment of the run
+    private final Map<Long, Polyline> shownRuns = new HashMap<Long, Polyline>();
+    private final List<Polyline> pool = new ArrayList<Polyline>();
+
+    /**
+     * @param map The map to draw on
+     * @param route The latitude and longitude of each vertex of the route,
+     * interleaved, the point where one road segment meets the next
+     * appearing once.  The array is kept.
+     * @param segmentEnd The index of the vertex at which each road segment
+     * of the route ends; segment i starts where segment i - 1 ends
+     */
+    public RouteLayer(GoogleMap map, double[] route, int[] segmentEnd) {
+        this.map = map;
+        this.route = route;
+        this.segmentEnd = segmentEnd;
+        int n = segmentEnd.length;
+        double[] minLat = new double[n];
+        double[] minLng = new double[n];
+        double[] maxLat = new double[n];
+        double[] maxLng = new double[n];
+        Arrays.fill(minLat, Double.POSITIVE_INFINITY);
+        Arrays.fill(minLng, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxLat, Double.NEGATIVE_INFINITY);
+        Arrays.fill(maxLng, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            for (int v = i == 0 ? 0 : segmentEnd[i - 1]; v <= segmentEnd[i]; v++) {
+                minLat[i] = Math.min(minLat[i], route[2 * v]);
+                minLng[i] = Math.min(minLng[i], route[2 * v + 1]);
+                maxLat[i] = Math.max(maxLat[i], route[2 * v]);
+                maxLng[i] = Math.max(maxLng[i], route[2 * v + 1]);
+            }
+        }
+        index = new RTree(minLat, minLng, maxLat, maxLng);
+        simplifier = new PathSimplifier(route);
+    }
+
+    /**
+     * @return the smallest bounds holding the whole route, or null if it
+     * has no points
+     */
+    public LatLongBounds getBounds() {
+        double south = Double.POSITIVE_INFINITY, west = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < route.length; i += 2) {
+            south = Math.min(south, route[i]);
+            north = Math.max(north, route[i]);
+            west = Math.min(west, route[i + 1]);
+            east = Math.max(east, route[i + 1]);
+        }
+        if (south > north) {
+            return null;
+        }
+        return new LatLongBounds(new LatLong(south, west), new LatLong(north, east));
+    }
+
+    /** Draw the runs of segments in view now, changing only those that differ. */
+    public void update() {
+        Set<Long> wanted = new HashSet<Long>();
+        LatLongBounds bounds = removed ? null : map.getBounds();
+        int zoom = bounds == null ? shownZoom : map.getZoom();
+        boolean zoomChanged = zoom != shownZoom;
+        shownZoom = zoom;
+        if (bounds != null) {
+            LatLong sw = bounds.getSouthWest();
+            LatLong ne = bounds.getNorthEast();
+            int[] inView = index.search(sw.getLatitude(), sw.getLongitude(),
+                    ne.getLatitude(), ne.getLongitude());
+            Arrays.sort(inView);
+            for (int i = 0; i < inView.length; ) {
+                int last = i;
+                while (last + 1 < inView.length && inView[last + 1] == inView[last] + 1) {
+                    last++;
+                }
+                wanted.add(((long) inView[i] << 32) | inView[last]);
+                i = last + 1;
+            }
+        }
+
+        Iterator<Map.Entry<Long, Polyline>> shown = shownRuns.entrySet().iterator();
+        while (shown.hasNext()) {
+            Map.Entry<Long, Polyline> entry = shown.next();
+            if (zoomChanged || !wanted.remove(entry.getKey())) {
+                entry.getValue().setVisible(false);
+                pool.add(entry.getValue());
+                shown.remove();
+            }
+        }
+        for (Long run : wanted) {
+            Polyline line;
+            if (pool.isEmpty()) {
+                line = new Polyline();
+                map.addMapShape(line);
+            }
+            else {
+                line = pool.remove(pool.size() - 1);
+            }
+            int first = (int) (run >>> 32);
+            int last = (int) (long) run;
+            line.setEncodedPath(simplifier.simplify(first == 0 ? 0 : segmentEnd[first - 1],
+                    segmentEnd[last], zoom));
+            line.setVisible(true);
+            shownRuns.put(run, line);
+        }
+    }
+
+    /** Take the route off the map for good. */
+    public void remove() {
+        removed = true;
+        for (Polyline line : shownRuns.values()) {
+            map.removeMapShape(line);
+        }
+        for (Polyline line : pool) {
+            map.removeMapShape(line);
+        }
+        shownRuns.clear();
+        pool.clear();
+    }
+}
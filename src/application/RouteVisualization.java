@@ -1,90 +1,157 @@
 /** Class to aid with route visualization for search
- *  
+ *
  * @author UCSD MOOC development team
  *
  */
 
 package application;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import gmapsfx.javascript.IJavascriptRuntime;
-import gmapsfx.javascript.JavascriptArray;
 import gmapsfx.javascript.JavascriptRuntime;
-import gmapsfx.javascript.object.GoogleMap;
 import gmapsfx.javascript.object.LatLong;
 import gmapsfx.javascript.object.LatLongBounds;
-import gmapsfx.javascript.object.Marker;
-import gmapsfx.javascript.object.MarkerOptions;
-import javafx.concurrent.Task;
-import javafx.scene.control.Button;
-import netscape.javascript.JSObject;
+import javafx.application.Platform;
 
+/**
+ * Records the nodes a search visits and plays them back on the map.
+ *
+ * The visit hook only writes into a fixed buffer, so the search runs as
+ * fast with the visualization on as with it off.  When the buffer fills,
+ * every other sample is dropped and from then on only every other visit is
+ * kept, so the buffer always holds an even sample of the whole search, in
+ * visit order.  Playback streams the samples to the page in batches of
+ * packed coordinates, one batch per pulse, and visual.js draws them on one
+ * canvas over the map at a speed that can be changed while it plays.
+ */
 public class RouteVisualization {
-	List<geography.GeographicPoint> points;
-    ArrayList<Marker> markerList;
-	MarkerManager manager;
-	JavascriptArray markers;
-    IJavascriptRuntime runtime;
+	/** Most visited points kept for playback */
+	public static final int MAX_SAMPLES = 20000;
+	/** Playback speed used until one is set, in points per second */
+	public static final double DEFAULT_SPEED = 200;
+	// points sent to the page in one script
+	private static final int BATCH_POINTS = 2000;
 
+	MarkerManager manager;
+	IJavascriptRuntime runtime;
 
+	// lat, lng pairs of the kept visits
+	private final double[] samples = new double[2 * MAX_SAMPLES];
+	private int size = 0;
+	// one visit in every stride is kept
+	private int stride = 1;
+	private int visited = 0;
+	private double speed = DEFAULT_SPEED;
+	private boolean started = false;
+	private boolean cleared = false;
 
 
 	public RouteVisualization(MarkerManager manager) {
-        points = new ArrayList<geography.GeographicPoint>();
-        markerList = new ArrayList<Marker>();
 		this.manager = manager;
-
+		runtime = JavascriptRuntime.getInstance();
 	}
 
     public void acceptPoint(geography.GeographicPoint point) {
-    	points.add(point);
+    	if (visited++ % stride != 0) {
+    		return;
+    	}
+    	if (size == MAX_SAMPLES) {
+    		// keep the even samples, which are the visits at twice the stride
+    		for (int i = 0; i < size / 2; i++) {
+    			samples[2 * i] = samples[4 * i];
+    			samples[2 * i + 1] = samples[4 * i + 1];
+    		}
+    		size /= 2;
+    		stride *= 2;
+    		if ((visited - 1) % stride != 0) {
+    			return;
+    		}
+    	}
+    	samples[2 * size] = point.getX();
+    	samples[2 * size + 1] = point.getY();
+    	size++;
+    }
 
-        // System.out.println("accepted point : " + point);
+    /** @return the number of nodes the search visited */
+    public int getNumVisited() {
+    	return visited;
     }
 
+    /** @return the number of visited nodes kept for playback */
+    public int getNumSamples() {
+    	return size;
+    }
 
+    /**
+     * Set the playback speed, also while playing.
+     * @param pointsPerSecond Visited points drawn per second
+     */
+    public void setSpeed(double pointsPerSecond) {
+    	speed = pointsPerSecond;
+    	if (started && !cleared) {
+    		runtime.executeLater(runtime.getFunction("setVisualizationSpeed", speed));
+    	}
+    }
 
     public void startVisualization() {
-
-    	LatLongBounds bounds = new LatLongBounds();
-    	List<LatLong> latLongs = new ArrayList<LatLong>();
-    	JavascriptArray jsArray = new JavascriptArray();
     	manager.hideIntermediateMarkers();
         manager.hideDestinationMarker();
-//    	manager.disableRouteButtons(true);
-
-    	// create JavascriptArray of points
-    	for(geography.GeographicPoint point : points) {
-    		LatLong ll = new LatLong(point.getX(), point.getY());
-    		MarkerOptions options = MarkerManager.createDefaultOptions(ll);
-    		Marker newMarker = new Marker(options);
-            jsArray.push(newMarker);
-            markerList.add(newMarker);
-            bounds.extend(ll);
-    	}
 
     	// fit map bounds to visualization
-    	manager.getMap().fitBounds(bounds);
-
-        // get javascript runtime and execute animation
-    	runtime = JavascriptRuntime.getInstance();
-    	String command = runtime.getFunction("visualizeSearch", manager.getMap(), jsArray);
-    	// System.out.println(command);
+    	LatLongBounds bounds = getBounds();
+    	if (bounds != null) {
+    		manager.getMap().fitBounds(bounds);
+    	}
 
-    	runtime.execute(command);
+    	runtime.executeLater(runtime.getFunction("startVisualization", manager.getMap(), visited, speed));
+    	started = true;
+    	sendBatch(0);
 
-//    	MapApp.showInfoAlert("Nodes visited :"  , latLongs.size() +" nodes were visited in the search");
     	manager.disableVisButton(true);
-//        manager.disableRouteButtons(false);
+    }
 
+    // send the samples from one on, a batch now and the rest on later pulses
+    private void sendBatch(int from) {
+    	if (cleared) {
+    		return;
+    	}
+    	int end = Math.min(size, from + BATCH_POINTS);
+    	StringBuilder batch = new StringBuilder(24 * (end - from) + 32);
+    	batch.append("addVisualizationBatch([");
+    	for (int i = 2 * from; i < 2 * end; i++) {
+    		if (i > 2 * from) {
+    			batch.append(',');
+    		}
+    		batch.append(samples[i]);
+    	}
+    	runtime.executeLater(batch.append("])").toString());
+    	if (end < size) {
+    		Platform.runLater(() -> sendBatch(end));
+    	}
+    	else {
+    		runtime.executeLater("endVisualization()");
+    	}
+    }
 
+    private LatLongBounds getBounds() {
+    	if (size == 0) {
+    		return null;
+    	}
+    	double south = samples[0], north = samples[0];
+    	double west = samples[1], east = samples[1];
+    	for (int i = 1; i < size; i++) {
+    		south = Math.min(south, samples[2 * i]);
+    		north = Math.max(north, samples[2 * i]);
+    		west = Math.min(west, samples[2 * i + 1]);
+    		east = Math.max(east, samples[2 * i + 1]);
+    	}
+    	return new LatLongBounds(new LatLong(south, west), new LatLong(north, east));
     }
 
-    public void clearMarkers() {
-    	for(Marker marker : markerList) {
-    		marker.setVisible(false);
+    /** Stop the playback and take it off the map. */
+    public void clear() {
+    	cleared = true;
+    	if (started) {
+    		runtime.executeLater("clearVisualization()");
     	}
     }
 
@@ -5,7 +5,6 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -13,32 +12,36 @@ import java.util.function.Consumer;
 import application.DataSet;
 import application.MapApp;
 import application.MarkerManager;
+import application.RouteLayer;
 import application.RouteVisualization;
 import application.controllers.RouteController;
 
-import java.util.Iterator;
-
 import geography.GeographicPoint;
-import geography.RoadSegment;
 import gmapsfx.GoogleMapView;
+import gmapsfx.javascript.event.MapStateEventType;
 import gmapsfx.javascript.object.GoogleMap;
-import gmapsfx.javascript.object.LatLong;
 import gmapsfx.javascript.object.LatLongBounds;
-import gmapsfx.javascript.object.MVCArray;
-import gmapsfx.shapes.Polyline;
 import javafx.scene.control.Button;
+import roadgraph.PathResult;
+import roadgraph.SearchAlgorithm;
 
 public class RouteService {
 	private GoogleMap map;
 
     // static variable
     private MarkerManager markerManager;
-    private Polyline routeLine;
+    private RouteLayer routeLine;
     private RouteVisualization rv;
 
 	public RouteService(GoogleMapView mapComponent, MarkerManager manager) {
 		this.map = mapComponent.getMap();
         this.markerManager = manager;
+        // only the part of the route in view is drawn
+        map.addStateEventHandler(MapStateEventType.idle, () -> {
+        	if(routeLine != null) {
+        		routeLine.update();
+        	}
+        });
 
 	}
     // COULD SEPARATE INTO ROUTE SERVICES IF CONTROLLER
@@ -49,23 +52,17 @@ public class RouteService {
 	//DISPLAY ROUTE METHODS
 	/**
 	 * Displays route on Google Map
+	 * @param route the latitude and longitude of each point of the route, interleaved
+	 * @param segmentEnd the index of the point at which each road segment of the route ends
 	 * @return returns false if route fails to display
 	 */
-	private boolean displayRoute(List<LatLong> route) {
+	private boolean displayRoute(double[] route, int[] segmentEnd) {
 
         if(routeLine != null) {
         	removeRouteLine();
         }
-		routeLine = new Polyline();
-		MVCArray path = new MVCArray();
-		LatLongBounds bounds = new LatLongBounds();
-		for(LatLong point : route)  {
-			path.push(point);
-            bounds = bounds.extend(point);
-		}
-		routeLine.setPath(path);
-
-		map.addMapShape(routeLine);
+		routeLine = new RouteLayer(map, route, segmentEnd);
+		LatLongBounds bounds = routeLine.getBounds();
 
 		//System.out.println(bounds.getNorthEast());
 		//EXCEPTION getBounds() messed up??
@@ -73,14 +70,17 @@ public class RouteService {
 
 
 		markerManager.hideIntermediateMarkers();
-		map.fitBounds(bounds);
+		if(bounds != null) {
+			map.fitBounds(bounds);
+		}
+		routeLine.update();
     	markerManager.disableVisButton(false);
 		return true;
 	}
 
     public void hideRoute() {
     	if(routeLine != null) {
-        	map.removeMapShape(routeLine);
+        	routeLine.remove();
         	if(markerManager.getVisualization() != null) {
         		markerManager.clearVisualization();
         	}
@@ -107,32 +107,27 @@ public class RouteService {
         			toggle == RouteController.BFS) {
         		markerManager.initVisualization();
             	Consumer<geography.GeographicPoint> nodeAccepter = markerManager.getVisualization()::acceptPoint;
-            	List<geography.GeographicPoint> path = null;
-            	if (toggle == RouteController.BFS) {
-            		path = markerManager.getDataSet().getGraph().bfs(start, end, nodeAccepter);
-            	}
-            	else if (toggle == RouteController.DIJ) {
-            		path = markerManager.getDataSet().getGraph().dijkstra(start, end, nodeAccepter);
+            	SearchAlgorithm algorithm = SearchAlgorithm.BFS;
+            	if (toggle == RouteController.DIJ) {
+            		algorithm = SearchAlgorithm.DIJKSTRA;
             	}
             	else if (toggle == RouteController.A_STAR) {
-            		path = markerManager.getDataSet().getGraph().aStarSearch(start, end, nodeAccepter);
+            		algorithm = SearchAlgorithm.A_STAR;
             	}
+            	PathResult result = markerManager.getDataSet().getGraph().findPath(start, end,
+            			algorithm, nodeAccepter);
 
-            	if(path == null) {
+            	if(result == null || !result.isFound()) {
                     // System.out.println("In displayRoute : PATH NOT FOUND");
                     MapApp.showInfoAlert("Routing Error : ", "No path found");
                 	return false;
                 }
-                // TODO -- debug road segments
-            	List<LatLong> mapPath = constructMapPath(path);
-                //List<LatLong> mapPath = new ArrayList<LatLong>();
-                //for(geography.GeographicPoint point : path) {
-                //    mapPath.add(new LatLong(point.getX(), point.getY()));
-                //}
-
+            	// the road geometry of the path, read by edge id
+            	int[] segmentEnd = new int[result.size() - 1];
+            	double[] route = result.getGeometry(segmentEnd);
 
                 markerManager.setSelectMode(false);
-                return displayRoute(mapPath);
+                return displayRoute(route, segmentEnd);
     		}
 
     		return false;
@@ -143,64 +138,9 @@ public class RouteService {
 
 
 
-    /**
-     * Construct path including road regments
-     * @param path - path with only intersections
-     * @return list of LatLongs corresponding the path of route
-     */
-    private List<LatLong> constructMapPath(List<geography.GeographicPoint> path) {
-    	List<LatLong> retVal = new ArrayList<LatLong>();
-        List<geography.GeographicPoint> segmentList = null;
-    	geography.GeographicPoint curr;
-    	geography.GeographicPoint next;
-
-    	geography.RoadSegment chosenSegment = null;;
-
-        for(int i = 0; i < path.size() - 1; i++) {
-            double minLength = Double.MAX_VALUE;
-        	curr = path.get(i);
-        	next = path.get(i+1);
-
-        	if(markerManager.getDataSet().getRoads().containsKey(curr)) {
-        		HashSet<geography.RoadSegment> segments = markerManager.getDataSet().getRoads().get(curr);
-        		Iterator<geography.RoadSegment> it = segments.iterator();
-
-        		// get segments which are
-            	geography.RoadSegment currSegment;
-                while(it.hasNext()) {
-                    //System.out.println("new segment");
-                	currSegment = it.next();
-                	if(currSegment.getOtherPoint(curr).equals(next)) {
-                        //System.out.println("1st check passed : other point correct");
-                		if(currSegment.getLength() < minLength) {
-                            //System.out.println("2nd check passed : length less");
-                			chosenSegment = currSegment;
-                		}
-                	}
-                }
-
-                if(chosenSegment != null) {
-                    segmentList = chosenSegment.getPoints(curr, next);
-                    for(geography.GeographicPoint point : segmentList) {
-                        retVal.add(new LatLong(point.getX(), point.getY()));
-                    }
-                }
-                else {
-                	System.err.println("ERROR in constructMapPath : chosenSegment was null");
-                }
-        		// find
-
-        	}
-        }
-
-        // System.out.println("NOW there are " + retVal.size() + " points");
-    	return retVal;
-    }
-
-
 	private void removeRouteLine() {
         if(routeLine != null) {
-    		map.removeMapShape(routeLine);
+    		routeLine.remove();
         }
 	}
 
@@ -0,0 +1,90 @@
+package basicgraph;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, array based snapshot of the edges of a Graph, for
+ * analyses that run over the whole graph at once.
+ *
+ * The out-neighbors of vertex v occupy the index range
+ * firstEdge[v] .. firstEdge[v+1]-1 of edgeTarget (compressed sparse row
+ * layout), once for each edge, in the order getNeighbors returns them.
+ *
+ * @author Daniel
+ *
+ */
+public final class CompactGraph {
+
+	final int numVertices;
+	final int[] firstEdge;
+	final int[] edgeTarget;
+
+	CompactGraph(int[] firstEdge, int[] edgeTarget) {
+		this.numVertices = firstEdge.length - 1;
+		this.firstEdge = firstEdge;
+		this.edgeTarget = edgeTarget;
+	}
+
+	/**
+	 * Take a snapshot of the edges of a graph.  Later changes to the graph
+	 * are not reflected in the snapshot.
+	 * @param graph The graph to copy
+	 * @return the compact representation
+	 */
+	public static CompactGraph of(Graph graph) {
+		int n = graph.getNumVertices();
+		int[] firstEdge = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			firstEdge[v + 1] = firstEdge[v] + graph.getOutDegree(v);
+		}
+		int[] edgeTarget = new int[firstEdge[n]];
+		int[] fill = { 0 };
+		for (int v = 0; v < n; v++) {
+			graph.forEachNeighbor(v, w -> edgeTarget[fill[0]++] = w);
+		}
+		return new CompactGraph(firstEdge, edgeTarget);
+	}
+
+	/**
+	 * Build the transpose of this graph, where the out-neighbors of v are
+	 * the in-neighbors of v in this graph, in increasing order.
+	 * @return the reversed graph
+	 */
+	public CompactGraph transpose() {
+		int[] reverseFirst = new int[numVertices + 1];
+		for (int w : edgeTarget) {
+			reverseFirst[w + 1]++;
+		}
+		for (int v = 0; v < numVertices; v++) {
+			reverseFirst[v + 1] += reverseFirst[v];
+		}
+		int[] fill = Arrays.copyOf(reverseFirst, numVertices);
+		int[] reverseTarget = new int[edgeTarget.length];
+		for (int v = 0; v < numVertices; v++) {
+			for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+				reverseTarget[fill[edgeTarget[e]]++] = v;
+			}
+		}
+		return new CompactGraph(reverseFirst, reverseTarget);
+	}
+
+	public int getNumVertices() {
+		return numVertices;
+	}
+
+	public int getNumEdges() {
+		return edgeTarget.length;
+	}
+
+	public int getOutDegree(int v) {
+		return firstEdge[v + 1] - firstEdge[v];
+	}
+
+	/**
+	 * @param v Index of vertex in question.
+	 * @return A copy of the out-neighbors of v, once for each edge.
+	 */
+	public int[] getNeighbors(int v) {
+		return Arrays.copyOfRange(edgeTarget, firstEdge[v], firstEdge[v + 1]);
+	}
+}
@@ -0,0 +1,105 @@
+package basicgraph;
+
+import java.util.Arrays;
+
+/**
+ * Computes the vertices two hops away from every vertex of a graph at once.
+ *
+ * The two-hop sets are the rows of the boolean product A x A of the
+ * adjacency matrix with itself.  Each row is built from the CSR form of the
+ * graph by marking the out-neighbors of the out-neighbors of the vertex in
+ * a stamp array (Gustavson's sparse matrix product), so a vertex reached
+ * through several middle vertices is counted once.  The vertices are split
+ * into blocks that are processed in parallel, each with its own stamp array.
+ *
+ * Unlike Graph.getDistance2, the results hold each vertex at most once.
+ * A vertex is in its own two-hop set if there is a walk v->u->v.
+ *
+ * @author Daniel
+ *
+ */
+public final class Distance2 {
+
+	private Distance2() {
+	}
+
+	/**
+	 * Count the distinct vertices two hops away from each vertex.
+	 * @param graph The graph
+	 * @return counts[v] is the number of vertices reachable from v by
+	 * following exactly two edges
+	 */
+	public static int[] counts(CompactGraph graph) {
+		int n = graph.numVertices;
+		int[] counts = new int[n];
+		new VertexBlocks(n).forEach((block, from, to) -> {
+			int[] stamp = new int[n];
+			for (int v = from; v < to; v++) {
+				counts[v] = markRow(graph, v, stamp, null);
+			}
+		});
+		return counts;
+	}
+
+	/**
+	 * Find the distinct vertices two hops away from each vertex.
+	 * @param graph The graph
+	 * @return a graph with an edge v->w for each vertex w reachable from v
+	 * by following exactly two edges; the neighbors of each vertex are in
+	 * increasing order
+	 */
+	public static CompactGraph sets(CompactGraph graph) {
+		int n = graph.numVertices;
+		int[][] rows = new int[n][];
+		new VertexBlocks(n).forEach((block, from, to) -> {
+			int[] stamp = new int[n];
+			int[] buffer = new int[16];
+			for (int v = from; v < to; v++) {
+				int size = markRow(graph, v, stamp, null);
+				if (size > buffer.length) {
+					buffer = new int[Math.max(size, buffer.length * 2)];
+				}
+				markRow(graph, v, stamp, buffer);
+				int[] row = Arrays.copyOf(buffer, size);
+				Arrays.sort(row);
+				rows[v] = row;
+			}
+		});
+
+		int[] firstEdge = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			firstEdge[v + 1] = firstEdge[v] + rows[v].length;
+		}
+		int[] edgeTarget = new int[firstEdge[n]];
+		for (int v = 0; v < n; v++) {
+			System.arraycopy(rows[v], 0, edgeTarget, firstEdge[v], rows[v].length);
+		}
+		return new CompactGraph(firstEdge, edgeTarget);
+	}
+
+	/**
+	 * Mark the two-hop neighbors of v.  stamp[w] == mark means w has
+	 * already been seen in this pass; the mark is unique to each pass
+	 * (2v+1 when counting, 2v+2 when collecting), so stamp never needs
+	 * clearing.
+	 * @return the number of distinct two-hop neighbors
+	 */
+	private static int markRow(CompactGraph graph, int v, int[] stamp, int[] out) {
+		int mark = out == null ? 2 * v + 1 : 2 * v + 2;
+		int[] firstEdge = graph.firstEdge;
+		int[] edgeTarget = graph.edgeTarget;
+		int size = 0;
+		for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+			int u = edgeTarget[e];
+			for (int f = firstEdge[u]; f < firstEdge[u + 1]; f++) {
+				int w = edgeTarget[f];
+				if (stamp[w] != mark) {
+					stamp[w] = mark;
+					if (out != null) out[size] = w;
+					size++;
+				}
+			}
+		}
+		return size;
+	}
+}
@@ -1,12 +1,11 @@
 package basicgraph;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.function.IntConsumer;
 
 import util.GraphLoader;
 
@@ -23,10 +22,19 @@ import util.GraphLoader;
 
 public abstract class Graph {
 
+	private static final int DEFAULT_CAPACITY = 8;
+
 	private int numVertices;
 	private int numEdges;
-	//optional association of String labels to vertices 
-	private Map<Integer,String> vertexLabels;
+	//optional association of String labels to vertices, kept in both
+	//directions: labels[v] is the label of v, labelIndex maps back to v
+	private Map<String,Integer> labelIndex;
+	private String[] labels;
+	// degree counters and reverse adjacency, maintained by addEdge.
+	// The first inDegree[v] entries of inNeighbors[v] are the in-neighbors of v.
+	private int[] inDegree;
+	private int[] outDegree;
+	private int[][] inNeighbors;
 	
 	/**
 	 * Create a new empty Graph
@@ -34,7 +42,11 @@ public abstract class Graph {
 	public Graph() {
 		numVertices = 0;
 		numEdges = 0;
-		vertexLabels = null;
+		labelIndex = null;
+		labels = null;
+		inDegree = new int[DEFAULT_CAPACITY];
+		outDegree = new int[DEFAULT_CAPACITY];
+		inNeighbors = new int[DEFAULT_CAPACITY][];
 	}
 
 	
@@ -64,6 +76,12 @@ public abstract class Graph {
 	 */
 	public int addVertex() {
 		implementAddVertex();
+		if (numVertices == inDegree.length) {
+			int capacity = numVertices * 2;
+			inDegree = Arrays.copyOf(inDegree, capacity);
+			outDegree = Arrays.copyOf(outDegree, capacity);
+			inNeighbors = Arrays.copyOf(inNeighbors, capacity);
+		}
 		numVertices ++;
 		return (numVertices-1);
 	}
@@ -80,13 +98,23 @@ public abstract class Graph {
 	 * @param w Index of the end point of the edge to be added. 
 	 */
 	public void addEdge(int v , int w) {
-		numEdges ++;
 		if (v < numVertices && w < numVertices) {
 			implementAddEdge(v , w);			
 		}
 		else {
 			throw new IndexOutOfBoundsException();
 		}
+		numEdges ++;
+		outDegree[v] ++;
+		int[] in = inNeighbors[w];
+		if (in == null) {
+			in = new int[2];
+		}
+		else if (inDegree[w] == in.length) {
+			in = Arrays.copyOf(in, in.length * 2);
+		}
+		in[inDegree[w]++] = v;
+		inNeighbors[w] = in;
 	}
 	
 	/**
@@ -113,6 +141,53 @@ public abstract class Graph {
 	
 	
 
+	/**
+	 * Call action with each (out-)neighbor of a given vertex, once for
+	 * each edge.  Subclasses override this to avoid boxing.
+	 * @param v Index of vertex in question.
+	 * @param action Called with the index of each out-neighbor.
+	 */
+	public void forEachNeighbor(int v, IntConsumer action) {
+		for (int w : getNeighbors(v)) {
+			action.accept(w);
+		}
+	}
+
+	/**
+	 * Call action with each in-neighbor of a given vertex, once for each
+	 * edge, in the order the edges were added.  Takes O(in-degree) time.
+	 * @param v Index of vertex in question.
+	 * @param action Called with the index of each in-neighbor.
+	 */
+	public void forEachInNeighbor(int v, IntConsumer action) {
+		int[] in = inNeighbors[v];
+		for (int i = 0; i < inDegree[v]; i++) {
+			action.accept(in[i]);
+		}
+	}
+
+	/**
+	 * @param v Index of vertex in question.
+	 * @return The number of edges into v.
+	 */
+	public int getInDegree(int v) {
+		checkVertex(v);
+		return inDegree[v];
+	}
+
+	/**
+	 * @param v Index of vertex in question.
+	 * @return The number of edges out of v.
+	 */
+	public int getOutDegree(int v) {
+		checkVertex(v);
+		return outDegree[v];
+	}
+
+	private void checkVertex(int v) {
+		if (v < 0 || v >= numVertices) throw new IndexOutOfBoundsException();
+	}
+
 	/** 
 	 * The degree sequence of a graph is a sorted (organized in numerical order 
 	 * from largest to smallest, possibly with repetitions) list of the degrees 
@@ -121,34 +196,37 @@ public abstract class Graph {
 	 * @return The degree sequence of this graph.
 	 */
 	public List<Integer> degreeSequence() {
-		// XXX: Implement in part 1 of week 1
-		Map<Integer, Integer> degrees = new TreeMap<>();
-		for (Integer i : getVertices()) {
-			List<Integer> inNeighbours = getInNeighbors(i);
-			//count the in-degrees
-			for (Integer in : inNeighbours) {
-				updateDegreeCount(degrees, in);
-			}
-			List<Integer> neighbours = getNeighbors(i);
-			//count the out-degrees
-			for (Integer n : neighbours) {
-				updateDegreeCount(degrees, n);
-			}
+		List<Integer> degSeq = new ArrayList<>(numVertices);
+		for (int degree : degreeSequenceArray()) {
+			degSeq.add(degree);
 		}
-		List<Integer> degSeq = new ArrayList<>();
-		degSeq.addAll(degrees.values());
-		Collections.sort(degSeq);
-		Collections.reverse(degSeq);
 		return degSeq;
 	}
 
-
-	private void updateDegreeCount(Map<Integer, Integer> degrees, Integer in) {
-		if (degrees.containsKey(in)) {
-			degrees.put(in, degrees.get(in) + 1);
-		} else {
-			degrees.put(in, 1);
+	/**
+	 * The degree sequence (in-degree plus out-degree of every vertex, from
+	 * largest to smallest) as a primitive array.  Built from the degree
+	 * counters with a counting sort, in O(V + max degree) time.
+	 * 
+	 * @return The degree sequence of this graph.
+	 */
+	public int[] degreeSequenceArray() {
+		int maxDegree = 0;
+		for (int v = 0; v < numVertices; v++) {
+			maxDegree = Math.max(maxDegree, inDegree[v] + outDegree[v]);
+		}
+		int[] counts = new int[maxDegree + 1];
+		for (int v = 0; v < numVertices; v++) {
+			counts[inDegree[v] + outDegree[v]]++;
+		}
+		int[] degSeq = new int[numVertices];
+		int i = 0;
+		for (int degree = maxDegree; degree >= 0; degree--) {
+			for (int c = 0; c < counts[degree]; c++) {
+				degSeq[i++] = degree;
+			}
 		}
+		return degSeq;
 	}
 
 	/**
@@ -191,7 +269,8 @@ public abstract class Graph {
 	 * (Optional: only if using labeled vertices.)
 	 */
 	public void initializeLabels() {
-		vertexLabels = new HashMap<Integer,String>();
+		labelIndex = new HashMap<String,Integer>();
+		labels = new String[Math.max(getNumVertices(), DEFAULT_CAPACITY)];
 	}	
 	/**
 	 * Test whether some vertex in the graph is labeled 
@@ -212,7 +291,7 @@ public abstract class Graph {
 	 */
 	public boolean hasVertex(String s)
 	{
-		return vertexLabels.containsValue(s);
+		return labelIndex.containsKey(s);
 	}
 	
 	/**
@@ -221,23 +300,44 @@ public abstract class Graph {
 	 * @param The label to be assigned to this vertex.
 	 */
 	public void addLabel(int v, String s) {
-		if (v < getNumVertices() && !vertexLabels.containsKey(v)) 
+		if (v < getNumVertices() && (v >= labels.length || labels[v] == null)) 
 		{
-			vertexLabels.put(v, s);
+			if (v >= labels.length) {
+				labels = Arrays.copyOf(labels, Math.max(v + 1, labels.length * 2));
+			}
+			labels[v] = s;
+			labelIndex.putIfAbsent(s, v);
 		}
 		else {
 			System.out.println("ERROR: tried to label a vertex that is out of range or already labeled");
 		}
 	}
 	
+	/**
+	 * Find the vertex with a given label, adding a new labeled vertex
+	 * if there is none.  Takes a single hash lookup when the label exists.
+	 * (Only if using labeled vertices.)
+	 * @param The String label of the vertex
+	 * @return The integer index of the vertex with this label
+	 */
+	public int getOrAddVertex(String s) {
+		Integer v = labelIndex.get(s);
+		if (v != null) {
+			return v;
+		}
+		int added = addVertex();
+		addLabel(added, s);
+		return added;
+	}
+	
 	/**
 	 * Report label of vertex with given index
 	 * @param The integer index of the vertex
 	 * @return The String label of this vertex 
 	 */
 	public String getLabel(int v) {
-		if (vertexLabels.containsKey(v)) {
-			return vertexLabels.get(v);
+		if (v >= 0 && v < labels.length) {
+			return labels[v];
 		}
 		else return null;
 	}
@@ -249,9 +349,9 @@ public abstract class Graph {
 	 * @return The integer index of this vertex 
 	 */
 	public int getIndex(String s) {
-		for (Map.Entry<Integer,String> entry : vertexLabels.entrySet()) {
-			if (entry.getValue().equals(s))
-				return entry.getKey();
+		Integer v = labelIndex.get(s);
+		if (v != null) {
+			return v;
 		}
 		System.out.println("ERROR: No vertex with this label");
 		return -1;
@@ -1,9 +1,9 @@
 package basicgraph;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.function.IntConsumer;
 
 /** A class that implements a directed graph. 
  * The graph may have self-loops, parallel edges. 
@@ -18,19 +18,24 @@ import java.util.Map;
 public class GraphAdjList extends Graph {
 
 
-	private Map<Integer,ArrayList<Integer>> adjListsMap;
+	// the first adjSizes[v] entries of adjLists[v] are the out-neighbors of v
+	private int[][] adjLists;
+	private int[] adjSizes;
 	
 	/** 
 	 * Create a new empty Graph
 	 */
 	public GraphAdjList () {
-		adjListsMap = new HashMap<Integer,ArrayList<Integer>>();
+		adjLists = new int[8][];
+		adjSizes = new int[8];
 	}
 
 	@Override
 	public List<Integer> getVertices() {
-		List<Integer> vertices = new ArrayList<>();
-		vertices.addAll(adjListsMap.keySet());
+		List<Integer> vertices = new ArrayList<>(getNumVertices());
+		for (int v = 0; v < getNumVertices(); v++) {
+			vertices.add(v);
+		}
 		return vertices;
 	}
 
@@ -39,8 +44,11 @@ public class GraphAdjList extends Graph {
 	 */
 	public void implementAddVertex() {
 		int v = getNumVertices();
-		ArrayList<Integer> neighbors = new ArrayList<Integer>();
-		adjListsMap.put(v,  neighbors);
+		if (v == adjLists.length) {
+			adjLists = Arrays.copyOf(adjLists, v * 2);
+			adjSizes = Arrays.copyOf(adjSizes, v * 2);
+		}
+		adjLists[v] = new int[2];
 	}
 	
 	/** 
@@ -49,8 +57,10 @@ public class GraphAdjList extends Graph {
 	 * @param w the index of the end point for the edge.  
 	 */
 	public void implementAddEdge(int v, int w) {
-		(adjListsMap.get(v)).add(w);
-
+		if (adjSizes[v] == adjLists[v].length) {
+			adjLists[v] = Arrays.copyOf(adjLists[v], adjSizes[v] * 2);
+		}
+		adjLists[v][adjSizes[v]++] = w;
 	}
 	
 	/** 
@@ -64,7 +74,17 @@ public class GraphAdjList extends Graph {
 	 * @return List<Integer> a list of indices of vertices.  
 	 */	
 	public List<Integer> getNeighbors(int v) {
-		return new ArrayList<Integer>(adjListsMap.get(v));
+		List<Integer> neighbors = new ArrayList<Integer>(adjSizes[v]);
+		forEachNeighbor(v, neighbors::add);
+		return neighbors;
+	}
+
+	@Override
+	public void forEachNeighbor(int v, IntConsumer action) {
+		int[] adj = adjLists[v];
+		for (int i = 0; i < adjSizes[v]; i++) {
+			action.accept(adj[i]);
+		}
 	}
 
 	/** 
@@ -73,22 +93,15 @@ public class GraphAdjList extends Graph {
 	 * If there are multiple edges from another vertex
 	 * to this one, the neighbor
 	 * appears once in the list for each of these edges.
+	 * Uses the reverse adjacency kept by Graph, so it takes
+	 * O(in-degree) time instead of scanning every edge.
 	 * 
 	 * @param v the index of vertex.
 	 * @return List<Integer> a list of indices of vertices.  
 	 */	
 	public List<Integer> getInNeighbors(int v) {
-		List<Integer> inNeighbors = new ArrayList<Integer>();
-		for (int u : adjListsMap.keySet()) {
-			//iterate through all edges in u's adjacency list and 
-			//add u to the inNeighbor list of v whenever an edge
-			//with startpoint u has endpoint v.
-			for (int w : adjListsMap.get(u)) {
-				if (v == w) {
-					inNeighbors.add(u);
-				}
-			}
-		}
+		List<Integer> inNeighbors = new ArrayList<Integer>(getInDegree(v));
+		forEachInNeighbor(v, inNeighbors::add);
 		return inNeighbors;
 	}
 	 
@@ -101,14 +114,9 @@ public class GraphAdjList extends Graph {
 	 * @return List<Integer> a list of indices of vertices.  
 	 */		
 	 public List<Integer> getDistance2(int v) {
-		 List<Integer> oneHop = new ArrayList<>();
-		 oneHop.addAll(adjListsMap.get(v));
 		 List<Integer> twoHop = new ArrayList<>();
-		 for (Integer n : oneHop) {
-			 twoHop.addAll(adjListsMap.get(n));
-		 }
-		 
-		 return new ArrayList<Integer>(twoHop);
+		 forEachNeighbor(v, n -> forEachNeighbor(n, twoHop::add));
+		 return twoHop;
 	}
 	
 	/**
@@ -119,10 +127,10 @@ public class GraphAdjList extends Graph {
 		String s = "Adjacency list";
 		s += " (size " + getNumVertices() + "+" + getNumEdges() + " integers):";
 
-		for (int v : adjListsMap.keySet()) {
+		for (int v = 0; v < getNumVertices(); v++) {
 			s += "\n\t"+v+": ";
-			for (int w : adjListsMap.get(v)) {
-				s += w+", ";
+			for (int i = 0; i < adjSizes[v]; i++) {
+				s += adjLists[v][i]+", ";
 			}
 		}
 		return s;
@@ -1,15 +1,19 @@
 package basicgraph;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
 
 /** A class that implements a directed graph. 
  * The graph may have self-loops, parallel edges. 
  * Vertices are labeled by integers 0 .. n-1
  * and may also have String labels.
  * The edges of the graph are not labeled.
- * Representation of edges via an adjacency matrix.
+ * Representation of edges via an adjacency matrix,
+ * stored as one bit per entry in words of 64 bits.
  * 
  * @author UCSD MOOC development team and YOU
  *
@@ -17,17 +21,32 @@ import java.util.List;
 public class GraphAdjMatrix extends Graph {
 
 	private final int defaultNumVertices = 5;
-	private int[][] adjMatrix;
+	private static final int WORD_BITS = 64;
+
+	// Number of vertex slots.  Doubled when full; only the arrays of row and
+	// column references are copied, never the bits themselves.
+	private int capacity;
+	// Bit w of rows[v] is set if there is an edge v->w; bit v of columns[w]
+	// is set for the same edge.  A row or column is null until it has a bit
+	// set, and grows by doubling when a higher bit is set.
+	private long[][] rows;
+	private long[][] columns;
+	// Number of edges v->w for the pairs with more than one edge, keyed by
+	// (v << 32 | w).  Pairs with a single edge are only recorded in the bits.
+	private Map<Long,Integer> multiEdges;
 	
 	/** Create a new empty Graph */
 	public GraphAdjMatrix () {
-		adjMatrix = new int[defaultNumVertices][defaultNumVertices];
+		capacity = defaultNumVertices;
+		rows = new long[capacity][];
+		columns = new long[capacity][];
+		multiEdges = new HashMap<Long,Integer>();
 	}
 
 	@Override
 	public List<Integer> getVertices() {
 		List<Integer> vertices = new ArrayList<Integer>();
-		for (int i = 0; i < adjMatrix.length; i++) {
+		for (int i = 0; i < capacity; i++) {
 			vertices.add(i);
 		}
 		return vertices;
@@ -40,26 +59,29 @@ public class GraphAdjMatrix extends Graph {
 	 */
 	public void implementAddVertex() {
 		int v = getNumVertices();
-		if (v >= adjMatrix.length) {
-			int[][] newAdjMatrix = new int[v*2][v*2];
-			for (int i = 0; i < adjMatrix.length; i ++) {
-				for (int j = 0; j < adjMatrix.length; j ++) {
-					newAdjMatrix[i][j] = adjMatrix[i][j];
-				}
-			}
-			adjMatrix = newAdjMatrix;
+		if (v >= capacity) {
+			capacity = v * 2;
+			rows = Arrays.copyOf(rows, capacity);
+			columns = Arrays.copyOf(columns, capacity);
 		}
 	}
 	
 	/** 
 	 * Implement the abstract method for adding an edge.
 	 * Allows for multiple edges between two points:
-	 * the entry at row v, column w stores the number of such edges.
+	 * the bit at row v, column w records the first edge and
+	 * the side table counts any further ones.
 	 * @param v the index of the start point for the edge.
 	 * @param w the index of the end point for the edge.  
 	 */	
 	public void implementAddEdge(int v, int w) {
-		adjMatrix[v][w] += 1;
+		if (testBit(rows[v], w)) {
+			multiEdges.merge(pairKey(v, w), 2, (count, one) -> count + 1);
+		}
+		else {
+			rows[v] = setBit(rows[v], w);
+			columns[w] = setBit(columns[w], v);
+		}
 	}
 	
 	/** 
@@ -74,12 +96,31 @@ public class GraphAdjMatrix extends Graph {
 	 */	
 	public List<Integer> getNeighbors(int v) {
 		List<Integer> neighbors = new ArrayList<Integer>();
-		for (int i = 0; i < getNumVertices(); i ++) {
-			for (int j=0; j< adjMatrix[v][i]; j ++) {
-				neighbors.add(i);
+		addWithMultiplicity(rows[v], v, true, neighbors);
+		return neighbors;
+	}
+	
+	/**
+	 * Call action with each out-neighbor of v, once for each edge, by
+	 * walking the bits of v's row.  The side table is only looked up
+	 * when there are parallel edges in the graph.
+	 * @param v the index of vertex.
+	 * @param action Called with the index of each out-neighbor.
+	 */
+	@Override
+	public void forEachNeighbor(int v, IntConsumer action) {
+		long[] row = rows[v];
+		if (row == null) return;
+		boolean parallel = !multiEdges.isEmpty();
+		for (int word = 0; word < row.length; word++) {
+			for (long b = row[word]; b != 0; b &= b - 1) {
+				int w = word * WORD_BITS + Long.numberOfTrailingZeros(b);
+				Integer count = parallel ? multiEdges.get(pairKey(v, w)) : null;
+				for (int j = count == null ? 1 : count; j > 0; j--) {
+					action.accept(w);
+				}
 			}
 		}
-		return neighbors;
 	}
 	
 	/** 
@@ -94,52 +135,134 @@ public class GraphAdjMatrix extends Graph {
 	 */
 	public List<Integer> getInNeighbors(int v) {
 		List<Integer> inNeighbors = new ArrayList<Integer>();
-		for (int i = 0; i < getNumVertices(); i ++) {
-			for (int j=0; j< adjMatrix[i][v]; j++) {
-				inNeighbors.add(i);
-			}
-		}
+		addWithMultiplicity(columns[v], v, false, inNeighbors);
 		return inNeighbors;
 	}
 	
 	/** 
 	 * Implement the abstract method for finding all 
 	 * vertices reachable by two hops from v.
-	 * Use matrix multiplication to record length 2 paths.
+	 * A vertex appears once for each distinct middle vertex
+	 * it can be reached through.
 	 * 
 	 * @param v the index of vertex.
 	 * @return List<Integer> a list of indices of vertices.  
 	 */	
 	public List<Integer> getDistance2(int v) {
-		List<Integer> oneHop = new ArrayList<>();
-		addVertex(v, oneHop);
 		List<Integer> twoHop = new ArrayList<Integer>();
-		for (Integer n : oneHop) {
-			addVertex(n, twoHop);
+		long[] oneHop = rows[v];
+		if (oneHop == null) return twoHop;
+		for (int word = 0; word < oneHop.length; word++) {
+			for (long bits = oneHop[word]; bits != 0; bits &= bits - 1) {
+				int n = word * WORD_BITS + Long.numberOfTrailingZeros(bits);
+				addBits(rows[n], twoHop);
+			}
+		}
+		return twoHop;
+	}
+
+	/**
+	 * Find the distinct vertices reachable by two hops from v, by OR-ing
+	 * together the rows of v's out-neighbors one word at a time.
+	 * 
+	 * @param v the index of vertex.
+	 * @return List<Integer> the indices of the vertices, in increasing order.
+	 */
+	public List<Integer> getDistance2Set(int v) {
+		List<Integer> twoHop = new ArrayList<Integer>();
+		long[] oneHop = rows[v];
+		if (oneHop == null) return twoHop;
+		long[] reached = new long[wordsFor(capacity)];
+		for (int word = 0; word < oneHop.length; word++) {
+			for (long bits = oneHop[word]; bits != 0; bits &= bits - 1) {
+				long[] row = rows[word * WORD_BITS + Long.numberOfTrailingZeros(bits)];
+				if (row == null) continue;
+				for (int i = 0; i < row.length; i++) {
+					reached[i] |= row[i];
+				}
+			}
 		}
-		return new ArrayList<Integer>(twoHop);
+		addBits(reached, twoHop);
+		return twoHop;
+	}
+
+	/**
+	 * Report the number of edges from v to w.
+	 * @param v the index of the start point.
+	 * @param w the index of the end point.
+	 * @return the number of edges v->w.
+	 */
+	public int getEdgeCount(int v, int w) {
+		if (!testBit(rows[v], w)) return 0;
+		Integer count = multiEdges.get(pairKey(v, w));
+		return count == null ? 1 : count;
 	}
 
-	private void addVertex(int v, Collection<Integer> vertices) {
-		for (int i = 0; i < getNumVertices(); i++) {
-			if (adjMatrix[v][i] > 0) {
-				vertices.add(i);
+	// Add the index of every set bit to the list.
+	private static void addBits(long[] bits, List<Integer> list) {
+		if (bits == null) return;
+		for (int word = 0; word < bits.length; word++) {
+			for (long b = bits[word]; b != 0; b &= b - 1) {
+				list.add(word * WORD_BITS + Long.numberOfTrailingZeros(b));
 			}
 		}
 	}
+
+	// Add the index of every set bit of a row (outgoing) or column (incoming)
+	// of vertex v to the list, once per parallel edge.
+	private void addWithMultiplicity(long[] bits, int v, boolean outgoing, List<Integer> list) {
+		if (bits == null) return;
+		for (int word = 0; word < bits.length; word++) {
+			for (long b = bits[word]; b != 0; b &= b - 1) {
+				int i = word * WORD_BITS + Long.numberOfTrailingZeros(b);
+				int count = outgoing ? getEdgeCount(v, i) : getEdgeCount(i, v);
+				for (int j = 0; j < count; j++) {
+					list.add(i);
+				}
+			}
+		}
+	}
+
+	private static boolean testBit(long[] bits, int i) {
+		int word = i / WORD_BITS;
+		return bits != null && word < bits.length && (bits[word] & (1L << i)) != 0;
+	}
+
+	// Set bit i, growing (or creating) the array if needed.  Arrays grow to
+	// the width of the matrix, never beyond, so no row or column is longer
+	// than wordsFor(capacity).
+	private long[] setBit(long[] bits, int i) {
+		int word = i / WORD_BITS;
+		if (bits == null) {
+			bits = new long[wordsFor(capacity)];
+		}
+		else if (word >= bits.length) {
+			bits = Arrays.copyOf(bits, wordsFor(capacity));
+		}
+		bits[word] |= 1L << i;
+		return bits;
+	}
+
+	private static int wordsFor(int numBits) {
+		return (numBits + WORD_BITS - 1) / WORD_BITS;
+	}
+
+	private static long pairKey(int v, int w) {
+		return ((long) v << 32) | (w & 0xffffffffL);
+	}
 	
 	/**
 	 * Generate string representation of adjacency matrix
 	 * @return the String
 	 */
 	public String adjacencyString() {
-		int dim = adjMatrix.length;
+		int dim = capacity;
 		String s = "Adjacency matrix";
-		s += " (size " + dim + "x" + dim + " = " + dim* dim + " integers):";
+		s += " (size " + dim + "x" + dim + " = " + dim* dim + " bits):";
 		for (int i = 0; i < dim; i ++) {
 			s += "\n\t"+i+": ";
-			for (int j = 0; j < adjMatrix[i].length; j++) {
-			s += adjMatrix[i][j] + ", ";
+			for (int j = 0; j < dim; j++) {
+			s += getEdgeCount(i, j) + ", ";
 			}
 		}
 		return s;
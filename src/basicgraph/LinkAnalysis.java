@@ -0,0 +1,234 @@
+package basicgraph;
+
+import java.util.Arrays;
+
+/**
+ * PageRank and HITS (hubs and authorities) over the CSR form of a graph,
+ * for example to find the hub airports of the route network loaded by
+ * GraphLoader.loadRoutes.
+ *
+ * Scores are held in primitive double arrays, one slot per vertex.  Each
+ * iteration pulls the scores of a vertex's in-neighbors from the
+ * transposed graph, so every vertex is written by exactly one task and the
+ * vertex blocks can run in parallel without locking.  Sums over all the
+ * vertices are taken per block and added up in block order, so the
+ * results do not depend on the number of threads.
+ *
+ * @author Daniel
+ *
+ */
+public final class LinkAnalysis {
+
+	public static final double DEFAULT_DAMPING = 0.85;
+	public static final double DEFAULT_TOLERANCE = 1e-9;
+	public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+	private LinkAnalysis() {
+	}
+
+	/**
+	 * PageRank with the default damping, tolerance and iteration limit.
+	 * @see #pageRank(CompactGraph, double, double, int)
+	 */
+	public static Ranking pageRank(CompactGraph graph) {
+		return pageRank(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+	}
+
+	/**
+	 * Compute the PageRank of every vertex.  The rank of a vertex with no
+	 * out-edges is spread evenly over all the vertices, so the ranks
+	 * always sum to 1.
+	 * @param graph The graph
+	 * @param damping The probability of following an edge rather than
+	 * jumping to a random vertex, between 0 and 1
+	 * @param tolerance Stop once the ranks change by less than this in
+	 * total (L1 norm) in one iteration
+	 * @param maxIterations Stop after this many iterations
+	 * @return the ranks
+	 */
+	public static Ranking pageRank(CompactGraph graph, double damping, double tolerance,
+			int maxIterations) {
+		if (damping < 0 || damping > 1) {
+			throw new IllegalArgumentException("damping must be between 0 and 1");
+		}
+		int n = graph.numVertices;
+		CompactGraph reverse = graph.transpose();
+		VertexBlocks blocks = new VertexBlocks(n);
+		double[] partial = new double[blocks.numBlocks];
+		double[] contribution = new double[n];
+		double[] rank = new double[n];
+		double[] next = new double[n];
+		Arrays.fill(rank, 1.0 / n);
+		long[] nanos = new long[maxIterations];
+
+		int iterations = 0;
+		boolean converged = n == 0;
+		while (!converged && iterations < maxIterations) {
+			long begin = System.nanoTime();
+			double dangling = spreadRank(graph, blocks, rank, contribution, partial);
+			double base = (1 - damping) / n + damping * dangling / n;
+			double delta = pullRank(reverse, blocks, base, damping, contribution, rank, next, partial);
+			double[] swap = rank;
+			rank = next;
+			next = swap;
+			nanos[iterations++] = System.nanoTime() - begin;
+			converged = delta < tolerance;
+		}
+		return new Ranking(rank, iterations, converged, graph.getNumEdges(), nanos);
+	}
+
+	// contribution[v] = rank[v] / outdegree(v); returns the rank of the
+	// vertices with no out-edges
+	private static double spreadRank(CompactGraph graph, VertexBlocks blocks, double[] rank,
+			double[] contribution, double[] partial) {
+		int[] firstEdge = graph.firstEdge;
+		blocks.forEach((block, from, to) -> {
+			double dangling = 0;
+			for (int v = from; v < to; v++) {
+				int degree = firstEdge[v + 1] - firstEdge[v];
+				if (degree == 0) {
+					dangling += rank[v];
+					contribution[v] = 0;
+				}
+				else {
+					contribution[v] = rank[v] / degree;
+				}
+			}
+			partial[block] = dangling;
+		});
+		return sum(partial);
+	}
+
+	// next[v] = base + damping * (sum of the in-neighbors' contributions);
+	// returns the L1 distance between next and rank
+	private static double pullRank(CompactGraph reverse, VertexBlocks blocks, double base,
+			double damping, double[] contribution, double[] rank, double[] next, double[] partial) {
+		int[] firstEdge = reverse.firstEdge;
+		int[] edgeTarget = reverse.edgeTarget;
+		blocks.forEach((block, from, to) -> {
+			double delta = 0;
+			for (int v = from; v < to; v++) {
+				double sum = 0;
+				for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+					sum += contribution[edgeTarget[e]];
+				}
+				next[v] = base + damping * sum;
+				delta += Math.abs(next[v] - rank[v]);
+			}
+			partial[block] = delta;
+		});
+		return sum(partial);
+	}
+
+	/** The hub and authority scores computed by HITS. */
+	public static class HubsAndAuthorities {
+		private final Ranking hubs;
+		private final Ranking authorities;
+
+		HubsAndAuthorities(Ranking hubs, Ranking authorities) {
+			this.hubs = hubs;
+			this.authorities = authorities;
+		}
+
+		/** @return the hub scores: high for vertices with edges to good authorities */
+		public Ranking getHubs() {
+			return hubs;
+		}
+
+		/** @return the authority scores: high for vertices with edges from good hubs */
+		public Ranking getAuthorities() {
+			return authorities;
+		}
+	}
+
+	/**
+	 * HITS with the default tolerance and iteration limit.
+	 * @see #hits(CompactGraph, double, int)
+	 */
+	public static HubsAndAuthorities hits(CompactGraph graph) {
+		return hits(graph, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+	}
+
+	/**
+	 * Compute the hub and authority score of every vertex with Kleinberg's
+	 * HITS algorithm.  Both score vectors are scaled to unit length after
+	 * every step.
+	 * @param graph The graph
+	 * @param tolerance Stop once the hub and authority scores change by
+	 * less than this in total (L1 norm) in one iteration
+	 * @param maxIterations Stop after this many iterations
+	 * @return the hub and authority scores
+	 */
+	public static HubsAndAuthorities hits(CompactGraph graph, double tolerance, int maxIterations) {
+		int n = graph.numVertices;
+		CompactGraph reverse = graph.transpose();
+		VertexBlocks blocks = new VertexBlocks(n);
+		double[] partial = new double[blocks.numBlocks];
+		double[] hub = new double[n];
+		double[] authority = new double[n];
+		double[] nextHub = new double[n];
+		double[] nextAuthority = new double[n];
+		Arrays.fill(hub, 1.0 / Math.sqrt(n));
+		Arrays.fill(authority, 1.0 / Math.sqrt(n));
+		long[] nanos = new long[maxIterations];
+
+		int iterations = 0;
+		boolean converged = n == 0;
+		while (!converged && iterations < maxIterations) {
+			long begin = System.nanoTime();
+			// authorities are pointed to by hubs, hubs point to authorities
+			double delta = pullSum(reverse, blocks, hub, nextAuthority, authority, partial);
+			delta += pullSum(graph, blocks, nextAuthority, nextHub, hub, partial);
+			double[] swap = hub;
+			hub = nextHub;
+			nextHub = swap;
+			swap = authority;
+			authority = nextAuthority;
+			nextAuthority = swap;
+			nanos[iterations++] = System.nanoTime() - begin;
+			converged = delta < tolerance;
+		}
+		long edges = 2L * graph.getNumEdges();
+		return new HubsAndAuthorities(new Ranking(hub, iterations, converged, edges, nanos),
+				new Ranking(authority, iterations, converged, edges, nanos));
+	}
+
+	// next[v] = sum of source[w] over the out-neighbors w of v, scaled to
+	// unit length; returns the L1 distance between next and previous
+	private static double pullSum(CompactGraph graph, VertexBlocks blocks, double[] source,
+			double[] next, double[] previous, double[] partial) {
+		int[] firstEdge = graph.firstEdge;
+		int[] edgeTarget = graph.edgeTarget;
+		blocks.forEach((block, from, to) -> {
+			double squares = 0;
+			for (int v = from; v < to; v++) {
+				double sum = 0;
+				for (int e = firstEdge[v]; e < firstEdge[v + 1]; e++) {
+					sum += source[edgeTarget[e]];
+				}
+				next[v] = sum;
+				squares += sum * sum;
+			}
+			partial[block] = squares;
+		});
+		double norm = Math.sqrt(sum(partial));
+		double scale = norm == 0 ? 0 : 1 / norm;
+		blocks.forEach((block, from, to) -> {
+			double delta = 0;
+			for (int v = from; v < to; v++) {
+				next[v] *= scale;
+				delta += Math.abs(next[v] - previous[v]);
+			}
+			partial[block] = delta;
+		});
+		return sum(partial);
+	}
+
+	private static double sum(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,97 @@
+package basicgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import util.TopScores;
+
+/**
+ * The scores computed by one of the LinkAnalysis methods, with the
+ * number of iterations it took and how fast each iteration ran.
+ *
+ * @author Daniel
+ *
+ */
+public class Ranking {
+
+	private final double[] scores;
+	private final int iterations;
+	private final boolean converged;
+	private final long numEdges;
+	private final long[] iterationNanos;
+
+	Ranking(double[] scores, int iterations, boolean converged, long numEdges, long[] iterationNanos) {
+		this.scores = scores;
+		this.iterations = iterations;
+		this.converged = converged;
+		this.numEdges = numEdges;
+		this.iterationNanos = Arrays.copyOf(iterationNanos, iterations);
+	}
+
+	/**
+	 * @return the score of each vertex, indexed by vertex
+	 */
+	public double[] getScores() {
+		return scores.clone();
+	}
+
+	public double getScore(int v) {
+		return scores[v];
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return true if the scores changed by less than the tolerance in the
+	 * last iteration, false if the iteration limit was reached first
+	 */
+	public boolean hasConverged() {
+		return converged;
+	}
+
+	/**
+	 * @return the time taken by each iteration, in nanoseconds
+	 */
+	public long[] getIterationNanos() {
+		return iterationNanos.clone();
+	}
+
+	/**
+	 * @return the mean number of edges processed per second over all
+	 * iterations
+	 */
+	public double getEdgesPerSecond() {
+		long total = 0;
+		for (long nanos : iterationNanos) {
+			total += nanos;
+		}
+		return total == 0 ? 0 : numEdges * (double) iterations / (total / 1e9);
+	}
+
+	/**
+	 * The vertices with the highest scores, highest first.  Ties are
+	 * broken by vertex index.
+	 * @param count The number of vertices wanted
+	 * @return the indices of up to count vertices
+	 */
+	public int[] top(int count) {
+		return TopScores.of(scores, count);
+	}
+
+	/**
+	 * The labels of the vertices with the highest scores, highest first.
+	 * @param graph The labeled graph the scores were computed for
+	 * @param count The number of labels wanted
+	 * @return the labels of up to count vertices
+	 */
+	public List<String> topLabels(Graph graph, int count) {
+		List<String> labels = new ArrayList<String>();
+		for (int v : top(count)) {
+			labels.add(graph.getLabel(v));
+		}
+		return labels;
+	}
+}
@@ -0,0 +1,42 @@
+package basicgraph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Splits the vertices 0..n-1 into contiguous blocks and processes the
+ * blocks in parallel on the common ForkJoin pool.  There are a few blocks
+ * per worker thread so uneven blocks still balance out.
+ *
+ * @author Daniel
+ *
+ */
+final class VertexBlocks {
+
+	// Smallest number of vertices handed to one task
+	private static final int MIN_BLOCK_SIZE = 256;
+
+	interface Block {
+		void run(int block, int from, int to);
+	}
+
+	final int numVertices;
+	final int blockSize;
+	final int numBlocks;
+
+	VertexBlocks(int numVertices) {
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		this.numVertices = numVertices;
+		this.blockSize = Math.max(MIN_BLOCK_SIZE, numVertices / (4 * parallelism) + 1);
+		this.numBlocks = (numVertices + blockSize - 1) / blockSize;
+	}
+
+	/**
+	 * Run the block over every range of vertices, in parallel.
+	 * @param block Called with the block number and its vertex range [from, to)
+	 */
+	void forEach(Block block) {
+		IntStream.range(0, numBlocks).parallel().forEach(b ->
+				block.run(b, b * blockSize, Math.min(numVertices, (b + 1) * blockSize)));
+	}
+}
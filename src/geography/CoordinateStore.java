@@ -0,0 +1,217 @@
+package geography;
+
+import java.util.Arrays;
+
+/**
+ * A compact, growable store of geographic coordinates.
+ *
+ * Latitudes and longitudes are held as fixed point integers in units of
+ * 1e-7 degrees (about 1cm) in two primitive arrays, so a coordinate costs
+ * 8 bytes instead of a GeographicPoint object plus a reference to it.
+ * The map files use at most 7 decimal places, so coordinates read from
+ * them round trip exactly.  GeographicPoint objects are only created when
+ * a caller asks for one.
+ *
+ * Each coordinate gets the next index (0, 1, 2, ...) when it is added.
+ * The store also keeps an open addressing hash index so the index of a
+ * coordinate can be looked up without creating any objects.
+ *
+ * @author Daniel
+ *
+ */
+public class CoordinateStore {
+
+	/** Number of fixed point units per degree. */
+	public static final double SCALE = 1e7;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] latitudes;
+	private int[] longitudes;
+	private int size;
+
+	// hash slots hold index+1 of a stored coordinate, 0 for an empty slot
+	private int[] slots;
+
+	/** Create a new empty store */
+	public CoordinateStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new empty store with room for the given number of coordinates.
+	 * @param capacity The expected number of coordinates
+	 */
+	public CoordinateStore(int capacity) {
+		capacity = Math.max(capacity, DEFAULT_CAPACITY);
+		latitudes = new int[capacity];
+		longitudes = new int[capacity];
+		slots = new int[tableSize(capacity)];
+		size = 0;
+	}
+
+	/** Convert degrees to fixed point units. */
+	public static int toFixed(double degrees) {
+		return (int) Math.round(degrees * SCALE);
+	}
+
+	/** Convert fixed point units to degrees. */
+	public static double toDegrees(int fixed) {
+		return fixed / SCALE;
+	}
+
+	/**
+	 * @return the number of coordinates in the store
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Add a coordinate to the store, even if it is already present.
+	 * @param latitude The latitude in degrees
+	 * @param longitude The longitude in degrees
+	 * @return the index of the new coordinate
+	 */
+	public int add(double latitude, double longitude) {
+		return addFixed(toFixed(latitude), toFixed(longitude));
+	}
+
+	/**
+	 * Add a coordinate given in fixed point units, even if it is already present.
+	 * @return the index of the new coordinate
+	 */
+	public int addFixed(int latitude, int longitude) {
+		if (size == latitudes.length) {
+			latitudes = Arrays.copyOf(latitudes, size * 2);
+			longitudes = Arrays.copyOf(longitudes, size * 2);
+		}
+		latitudes[size] = latitude;
+		longitudes[size] = longitude;
+		size++;
+		if (size * 2 > slots.length) {
+			rehash(tableSize(size * 2));
+		}
+		else {
+			insertSlot(size - 1);
+		}
+		return size - 1;
+	}
+
+	/**
+	 * Find the index of a coordinate.  If the same coordinate was added more
+	 * than once, the index of the first one is returned.
+	 * @param latitude The latitude in degrees
+	 * @param longitude The longitude in degrees
+	 * @return the index, or -1 if the coordinate is not in the store
+	 */
+	public int indexOf(double latitude, double longitude) {
+		return indexOfFixed(toFixed(latitude), toFixed(longitude));
+	}
+
+	/**
+	 * Find the index of a point.
+	 * @param point The point to look for
+	 * @return the index, or -1 if the point is null or not in the store
+	 */
+	public int indexOf(GeographicPoint point) {
+		if (point == null) return -1;
+		return indexOf(point.getX(), point.getY());
+	}
+
+	/**
+	 * Find the index of a coordinate given in fixed point units.
+	 * @return the index, or -1 if the coordinate is not in the store
+	 */
+	public int indexOfFixed(int latitude, int longitude) {
+		int mask = slots.length - 1;
+		int slot = hash(latitude, longitude) & mask;
+		int found = -1;
+		while (slots[slot] != 0) {
+			int i = slots[slot] - 1;
+			if (latitudes[i] == latitude && longitudes[i] == longitude
+					&& (found < 0 || i < found)) {
+				found = i;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return found;
+	}
+
+	public double getLatitude(int index) {
+		return toDegrees(latitudes[index]);
+	}
+
+	public double getLongitude(int index) {
+		return toDegrees(longitudes[index]);
+	}
+
+	public int getFixedLatitude(int index) {
+		return latitudes[index];
+	}
+
+	public int getFixedLongitude(int index) {
+		return longitudes[index];
+	}
+
+	/**
+	 * Create a GeographicPoint for a stored coordinate.
+	 * @param index The index of the coordinate
+	 * @return a new GeographicPoint
+	 */
+	public GeographicPoint getPoint(int index) {
+		if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+		return new GeographicPoint(getLatitude(index), getLongitude(index));
+	}
+
+	/**
+	 * Distance in km between two stored coordinates.
+	 */
+	public double distance(int i, int j) {
+		return GeographicPoint.getDist(getLatitude(i), getLongitude(i),
+				getLatitude(j), getLongitude(j));
+	}
+
+	/**
+	 * Build a new store holding the coordinates of this store in a different order.
+	 * @param newToOld newToOld[i] is the index in this store of coordinate i
+	 * @return the permuted copy
+	 */
+	public CoordinateStore permute(int[] newToOld) {
+		CoordinateStore copy = new CoordinateStore(newToOld.length);
+		for (int old : newToOld) {
+			copy.addFixed(latitudes[old], longitudes[old]);
+		}
+		return copy;
+	}
+
+	private void insertSlot(int index) {
+		int mask = slots.length - 1;
+		int slot = hash(latitudes[index], longitudes[index]) & mask;
+		while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = index + 1;
+	}
+
+	private void rehash(int tableSize) {
+		slots = new int[tableSize];
+		for (int i = 0; i < size; i++) {
+			insertSlot(i);
+		}
+	}
+
+	private static int hash(int latitude, int longitude) {
+		int h = latitude * 0x9E3779B9 + longitude;
+		return h ^ (h >>> 16);
+	}
+
+	// smallest power of two holding capacity entries at most half full
+	private static int tableSize(int capacity) {
+		int size = 1;
+		while (size < capacity * 2) {
+			size <<= 1;
+		}
+		return size;
+	}
+}
@@ -0,0 +1,103 @@
+package geography;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The shapes of the road segments of a map, addressed by edge id.
+ *
+ * Each edge is stored as its points in order, the first and last of them
+ * being the intersections the edge joins.  A route given as edge ids is
+ * turned into its full polyline with one pass over the edges, without
+ * hashing points or making a list per segment.
+ *
+ * Edge ids are handed out in the order the edges are added, starting at 0.
+ * MemoryEdgeGeometry keeps the points on the heap; MappedEdgeGeometry keeps
+ * them in a file.  A store that holds a file or other resource releases it
+ * when closed.
+ *
+ * @author Daniel
+ *
+ */
+public abstract class EdgeGeometry implements Closeable {
+
+	/**
+	 * Add the shape of an edge.
+	 * @param from The intersection the edge starts at
+	 * @param between The points along the road between the intersections,
+	 *   in order from start to end
+	 * @param to The intersection the edge ends at
+	 * @return the id of the edge
+	 */
+	public abstract int add(GeographicPoint from, List<GeographicPoint> between, GeographicPoint to);
+
+	/** @return the number of edges in the store */
+	public abstract int getNumEdges();
+
+	/**
+	 * @param edge The id of an edge
+	 * @return the number of points of the edge, including both ends
+	 */
+	public abstract int getNumPoints(int edge);
+
+	/**
+	 * @param edge The id of an edge
+	 * @param k The position of a point along the edge, 0 for its start
+	 */
+	public abstract double getLatitude(int edge, int k);
+
+	/**
+	 * @param edge The id of an edge
+	 * @param k The position of a point along the edge, 0 for its start
+	 */
+	public abstract double getLongitude(int edge, int k);
+
+	/**
+	 * The polyline of a route: the points of its edges in order, the point
+	 * where one edge meets the next appearing once.
+	 * @param edges The ids of the edges of the route, each starting where
+	 *   the one before it ends
+	 * @param edgeEnds If not null, edgeEnds[i] is set to the number of the
+	 *   point in the result at which edges[i] ends
+	 * @return the latitude and longitude of each point, interleaved:
+	 *   lat0, lng0, lat1, lng1, ...
+	 */
+	public double[] getPath(int[] edges, int[] edgeEnds) {
+		if (edges.length == 0) {
+			return new double[0];
+		}
+		int points = 1;
+		for (int e : edges) {
+			points += getNumPoints(e) - 1;
+		}
+		double[] path = new double[2 * points];
+		int n = 0;
+		for (int i = 0; i < edges.length; i++) {
+			n = copyPoints(edges[i], i == 0 ? 0 : 1, path, n);
+			if (edgeEnds != null) {
+				edgeEnds[i] = n - 1;
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Copy the points of an edge into a path.
+	 * @param edge The id of the edge
+	 * @param from The position along the edge of the first point to copy
+	 * @param path The interleaved latitudes and longitudes to copy into
+	 * @param n The number of the point in path to copy the first point to
+	 * @return the number of the point in path after the last one copied
+	 */
+	protected abstract int copyPoints(int edge, int from, double[] path, int n);
+
+	/**
+	 * Release whatever the store holds besides memory.  The store cannot be
+	 * used afterwards.  Does nothing unless overridden.
+	 * @throws IOException if a resource cannot be released
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+}
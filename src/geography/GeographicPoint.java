@@ -22,8 +22,11 @@ public class GeographicPoint extends Double {
                 other.getX(), other.getY());     
 	}
 	
-    
-    private double getDist(double lat1, double lon1, double lat2, double lon2)
+    /**
+     * Calculates the geographic distance in km between two lat, lon pairs.
+     * @return The distance between the two points
+     */
+    public static double getDist(double lat1, double lon1, double lat2, double lon2)
     {
     	int R = 6373; // radius of the earth in kilometres
     	double lat1rad = Math.toRadians(lat1);
@@ -0,0 +1,225 @@
+package geography;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An EdgeGeometry which keeps the points of the roads in a file instead of
+ * on the heap.
+ *
+ * While a map loads, the points of each edge are appended to the file as
+ * fixed point latitude, longitude pairs, and only the offset of each edge
+ * is kept in memory.  When geometry is first asked for, the file is mapped
+ * into memory, and the points of an edge are decoded the first time the
+ * edge is drawn.  The most recently used edges are kept decoded in a cache
+ * of bounded size, so the heap used for geometry depends on the routes
+ * drawn and not on the size of the map.
+ *
+ * The file is mapped in one piece, which bounds it to 2GB: some 268 million
+ * points.  Edges may still be added after geometry has been read; the file
+ * is mapped again when an edge beyond the mapped part is read.
+ *
+ * @author Daniel
+ *
+ */
+public class MappedEdgeGeometry extends EdgeGeometry {
+
+	/** Number of edges kept decoded when no cache size is given */
+	public static final int DEFAULT_CACHE_EDGES = 4096;
+
+	// a latitude and a longitude, 4 bytes each
+	private static final int POINT_BYTES = 8;
+	private static final int MAX_POINTS = Integer.MAX_VALUE / POINT_BYTES;
+	private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+	private final File file;
+	private final FileChannel channel;
+	// points added but not yet written to the file
+	private final ByteBuffer pending = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+	private long written = 0;
+	// the file as mapped, and the number of points it held then
+	private IntBuffer mapped;
+	private int mappedPoints = 0;
+
+	// the points of edge e are points first[e] .. first[e + 1] - 1 of the file
+	private int[] first = new int[17];
+	private int numEdges = 0;
+	private int numPoints = 0;
+
+	// decoded edges, least recently used first
+	private final Map<Integer, double[]> cache;
+
+	/**
+	 * Create a store backed by a new temporary file, which is deleted when
+	 * the store is closed or the program exits.
+	 * @throws IOException if the file cannot be created
+	 */
+	public static MappedEdgeGeometry createTemporary() throws IOException {
+		File file = File.createTempFile("roads", ".geometry");
+		file.deleteOnExit();
+		return new MappedEdgeGeometry(file, DEFAULT_CACHE_EDGES);
+	}
+
+	/**
+	 * @param file The file to keep the points in; anything in it is replaced
+	 * @param cacheEdges The most edges to keep decoded at once
+	 * @throws IOException if the file cannot be opened
+	 */
+	public MappedEdgeGeometry(File file, int cacheEdges) throws IOException {
+		if (cacheEdges < 1) {
+			throw new IllegalArgumentException("cacheEdges must be positive");
+		}
+		this.file = file;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		cache = new LinkedHashMap<Integer, double[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+				return size() > cacheEdges;
+			}
+		};
+	}
+
+	@Override
+	public synchronized int add(GeographicPoint from, List<GeographicPoint> between,
+			GeographicPoint to) {
+		checkOpen();
+		if (numPoints + between.size() + 2 > MAX_POINTS) {
+			throw new IllegalStateException("geometry file is full");
+		}
+		if (numEdges + 1 == first.length) {
+			first = Arrays.copyOf(first, first.length * 2);
+		}
+		writePoint(from);
+		for (GeographicPoint p : between) {
+			writePoint(p);
+		}
+		writePoint(to);
+		first[++numEdges] = numPoints;
+		return numEdges - 1;
+	}
+
+	private void writePoint(GeographicPoint p) {
+		if (pending.remaining() < POINT_BYTES) {
+			flush();
+		}
+		pending.putInt(CoordinateStore.toFixed(p.getX()));
+		pending.putInt(CoordinateStore.toFixed(p.getY()));
+		numPoints++;
+	}
+
+	private void flush() {
+		pending.flip();
+		try {
+			while (pending.hasRemaining()) {
+				written += channel.write(pending, written);
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Problem writing geometry file: " + file, e);
+		}
+		pending.clear();
+	}
+
+	private void checkOpen() {
+		if (!channel.isOpen()) {
+			throw new IllegalStateException("geometry store is closed");
+		}
+	}
+
+	// the points of an edge, as interleaved latitudes and longitudes
+	private double[] decode(int edge) {
+		checkOpen();
+		double[] points = cache.get(edge);
+		if (points != null) {
+			return points;
+		}
+		if (first[edge + 1] > mappedPoints) {
+			flush();
+			try {
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						(long) numPoints * POINT_BYTES).asIntBuffer();
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("Problem mapping geometry file: " + file, e);
+			}
+			mappedPoints = numPoints;
+		}
+		int start = 2 * first[edge];
+		points = new double[2 * (first[edge + 1] - first[edge])];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = CoordinateStore.toDegrees(mapped.get(start + i));
+		}
+		cache.put(edge, points);
+		return points;
+	}
+
+	@Override
+	public synchronized int getNumEdges() {
+		return numEdges;
+	}
+
+	@Override
+	public synchronized int getNumPoints(int edge) {
+		return first[edge + 1] - first[edge];
+	}
+
+	@Override
+	public synchronized double getLatitude(int edge, int k) {
+		return decode(edge)[2 * k];
+	}
+
+	@Override
+	public synchronized double getLongitude(int edge, int k) {
+		return decode(edge)[2 * k + 1];
+	}
+
+	@Override
+	public synchronized double[] getPath(int[] edges, int[] edgeEnds) {
+		return super.getPath(edges, edgeEnds);
+	}
+
+	@Override
+	protected int copyPoints(int edge, int from, double[] path, int n) {
+		double[] points = decode(edge);
+		System.arraycopy(points, 2 * from, path, 2 * n, points.length - 2 * from);
+		return n + points.length / 2 - from;
+	}
+
+	/** @return the number of edges decoded and held in the cache */
+	public synchronized int getNumCached() {
+		return cache.size();
+	}
+
+	/**
+	 * Close and delete the file, and drop the decoded edges and the store's
+	 * reference to the mapping.  Java has no way to unmap a file, so the
+	 * mapped pages are only released when the mapping is garbage collected;
+	 * until then the file may not be deletable on Windows.  Reading or
+	 * adding edges afterwards throws an IllegalStateException; closing
+	 * again does nothing.
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		mapped = null;
+		mappedPoints = 0;
+		cache.clear();
+		if (channel.isOpen()) {
+			channel.close();
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package geography;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An EdgeGeometry which keeps the points of the roads on the heap.
+ *
+ * Every point of every segment is kept, in order, as fixed point integers
+ * (see CoordinateStore) in two primitive arrays, and the points of edge e
+ * are entries first[e] to first[e + 1] - 1.
+ *
+ * @author Daniel
+ *
+ */
+public class MemoryEdgeGeometry extends EdgeGeometry {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] latitudes = new int[DEFAULT_CAPACITY];
+	private int[] longitudes = new int[DEFAULT_CAPACITY];
+	private int numPoints = 0;
+	// the points of edge e are entries first[e] .. first[e + 1] - 1
+	private int[] first = new int[DEFAULT_CAPACITY + 1];
+	private int numEdges = 0;
+
+	@Override
+	public int add(GeographicPoint from, List<GeographicPoint> between, GeographicPoint to) {
+		if (numEdges + 1 == first.length) {
+			first = Arrays.copyOf(first, first.length * 2);
+		}
+		addPoint(from);
+		for (GeographicPoint p : between) {
+			addPoint(p);
+		}
+		addPoint(to);
+		first[++numEdges] = numPoints;
+		return numEdges - 1;
+	}
+
+	private void addPoint(GeographicPoint p) {
+		if (numPoints == latitudes.length) {
+			latitudes = Arrays.copyOf(latitudes, numPoints * 2);
+			longitudes = Arrays.copyOf(longitudes, numPoints * 2);
+		}
+		latitudes[numPoints] = CoordinateStore.toFixed(p.getX());
+		longitudes[numPoints] = CoordinateStore.toFixed(p.getY());
+		numPoints++;
+	}
+
+	@Override
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	@Override
+	public int getNumPoints(int edge) {
+		return first[edge + 1] - first[edge];
+	}
+
+	@Override
+	public double getLatitude(int edge, int k) {
+		return CoordinateStore.toDegrees(latitudes[first[edge] + k]);
+	}
+
+	@Override
+	public double getLongitude(int edge, int k) {
+		return CoordinateStore.toDegrees(longitudes[first[edge] + k]);
+	}
+
+	@Override
+	protected int copyPoints(int edge, int from, double[] path, int n) {
+		for (int k = first[edge] + from; k < first[edge + 1]; k++) {
+			path[2 * n] = CoordinateStore.toDegrees(latitudes[k]);
+			path[2 * n + 1] = CoordinateStore.toDegrees(longitudes[k]);
+			n++;
+		}
+		return n;
+	}
+}
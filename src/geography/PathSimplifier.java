@@ -0,0 +1,160 @@
+package geography;
+
+import java.util.Arrays;
+
+/**
+ * Simplifies a path for drawing at any map zoom level, with levels worked
+ * out once per path.
+ *
+ * The path is run through Douglas-Peucker once, in Web Mercator
+ * coordinates, recording for each vertex the distance at which it was
+ * kept.  A vertex is never given more weight than the vertex whose split
+ * produced it, so the vertices kept for a tolerance always form the
+ * Douglas-Peucker simplification for that tolerance.  From this each
+ * vertex gets the lowest zoom at which leaving it out would move the line
+ * by TOLERANCE_PIXELS or more; drawing at a zoom is then a single pass
+ * keeping the vertices whose level is at or below it.
+ *
+ * @author Daniel
+ *
+ */
+public class PathSimplifier {
+
+	/** Screen pixels a simplified line may stray from the path */
+	public static final double TOLERANCE_PIXELS = 1;
+	/** Zoom level from which every vertex is kept */
+	public static final int MAX_ZOOM = 22;
+
+	// a world tile is 256 pixels wide at zoom 0
+	private static final double WORLD_PIXELS = 256;
+
+	private final double[] latLngs;
+	// lowest zoom at which each vertex is drawn
+	private final byte[] minZoom;
+
+	/**
+	 * @param latLngs The latitude and longitude of each vertex of the path,
+	 * interleaved: lat0, lng0, lat1, lng1, ...  The array is kept.
+	 */
+	public PathSimplifier(double[] latLngs) {
+		if (latLngs.length % 2 != 0) {
+			throw new IllegalArgumentException("latLngs must hold latitude, longitude pairs");
+		}
+		this.latLngs = latLngs;
+		int n = latLngs.length / 2;
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = (latLngs[2 * i + 1] + 180) / 360;
+			double sin = Math.sin(Math.toRadians(latLngs[2 * i]));
+			sin = Math.max(-0.9999, Math.min(0.9999, sin));
+			y[i] = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+		}
+
+		double[] weight = new double[n];
+		Arrays.fill(weight, Double.POSITIVE_INFINITY);
+		if (n > 2) {
+			// ranges still to split, as first, last and the weight of the
+			// vertex that split them off
+			int[] first = new int[n];
+			int[] last = new int[n];
+			double[] cap = new double[n];
+			first[0] = 0;
+			last[0] = n - 1;
+			cap[0] = Double.POSITIVE_INFINITY;
+			int top = 1;
+			while (top > 0) {
+				top--;
+				int a = first[top], b = last[top];
+				double limit = cap[top];
+				int farthest = -1;
+				double distance = -1;
+				for (int k = a + 1; k < b; k++) {
+					double d = segmentDistance(x[k], y[k], x[a], y[a], x[b], y[b]);
+					if (d > distance) {
+						distance = d;
+						farthest = k;
+					}
+				}
+				weight[farthest] = Math.min(distance, limit);
+				if (farthest - a > 1) {
+					first[top] = a;
+					last[top] = farthest;
+					cap[top++] = weight[farthest];
+				}
+				if (b - farthest > 1) {
+					first[top] = farthest;
+					last[top] = b;
+					cap[top++] = weight[farthest];
+				}
+			}
+		}
+
+		minZoom = new byte[n];
+		for (int i = 0; i < n; i++) {
+			minZoom[i] = (byte) zoomFor(weight[i]);
+		}
+	}
+
+	// lowest zoom at which a vertex of this weight is TOLERANCE_PIXELS off
+	// the simplified line
+	private static int zoomFor(double weight) {
+		if (weight * WORLD_PIXELS >= TOLERANCE_PIXELS) {
+			return 0;
+		}
+		if (weight <= 0) {
+			return MAX_ZOOM;
+		}
+		int zoom = (int) Math.ceil(Math.log(TOLERANCE_PIXELS / (weight * WORLD_PIXELS)) / Math.log(2));
+		return Math.min(zoom, MAX_ZOOM);
+	}
+
+	// distance from (px, py) to the segment from (ax, ay) to (bx, by)
+	private static double segmentDistance(double px, double py, double ax, double ay,
+			double bx, double by) {
+		double dx = bx - ax, dy = by - ay;
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+		double ex = ax + t * dx - px, ey = ay + t * dy - py;
+		return Math.sqrt(ex * ex + ey * ey);
+	}
+
+	/** @return the number of vertices of the path */
+	public int size() {
+		return minZoom.length;
+	}
+
+	/**
+	 * @param vertex The index of a vertex
+	 * @return the lowest zoom level at which the vertex is drawn
+	 */
+	public int getMinZoom(int vertex) {
+		return minZoom[vertex];
+	}
+
+	/**
+	 * The vertices to draw of part of the path.
+	 * @param from The index of the first vertex of the part, always kept
+	 * @param to The index of the last vertex of the part, always kept
+	 * @param zoom The zoom level of the map
+	 * @return the latitude and longitude of each vertex kept, interleaved
+	 */
+	public double[] simplify(int from, int to, int zoom) {
+		int kept = 0;
+		for (int i = from; i <= to; i++) {
+			if (i == from || i == to || minZoom[i] <= zoom) {
+				kept++;
+			}
+		}
+		double[] simplified = new double[2 * kept];
+		int n = 0;
+		for (int i = from; i <= to; i++) {
+			if (i == from || i == to || minZoom[i] <= zoom) {
+				simplified[n++] = latLngs[2 * i];
+				simplified[n++] = latLngs[2 * i + 1];
+			}
+		}
+		return simplified;
+	}
+}
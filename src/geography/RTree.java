@@ -0,0 +1,268 @@
+package geography;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A static R-tree over latitude/longitude boxes, for finding the points
+ * and road segments inside the visible part of a map.
+ *
+ * The tree is bulk loaded once with Sort-Tile-Recursive (STR) packing:
+ * the boxes are sorted by the longitude of their centres into vertical
+ * slices, each slice is sorted by latitude, and runs of NODE_CAPACITY
+ * boxes become the nodes of the next level up, which are packed the same
+ * way until a single root remains.  Nodes are full and do not overlap
+ * much, and every level is kept as primitive arrays, so a query touches
+ * few nodes and creates no objects.
+ *
+ * Items are named by their index in the lists or arrays the tree was
+ * built from.
+ *
+ * @author Daniel
+ *
+ */
+public class RTree {
+
+	/** Most children of one node */
+	public static final int NODE_CAPACITY = 16;
+
+	// level 0 holds the item boxes in leaf order and the last level the
+	// root; the children of node j of level l > 0 are the entries
+	// childStart[l][j] to childEnd[l][j] - 1 of level l - 1
+	private final double[][] minLat;
+	private final double[][] minLng;
+	private final double[][] maxLat;
+	private final double[][] maxLng;
+	private final int[][] childStart;
+	private final int[][] childEnd;
+	// ids[k] is the item index of entry k of level 0
+	private final int[] ids;
+
+	/**
+	 * Build a tree over boxes, item i having corners (minLat[i], minLng[i])
+	 * and (maxLat[i], maxLng[i]).  The arrays are not kept.
+	 */
+	public RTree(double[] minLat, double[] minLng, double[] maxLat, double[] maxLng) {
+		int n = minLat.length;
+		List<double[][]> boxes = new ArrayList<double[][]>();
+		List<int[][]> children = new ArrayList<int[][]>();
+
+		int[] order = strOrder(minLat, minLng, maxLat, maxLng, n);
+		ids = order;
+		double[][] level = {permute(minLat, order), permute(minLng, order),
+				permute(maxLat, order), permute(maxLng, order)};
+		boxes.add(level);
+		children.add(new int[][] {null, null});
+
+		int count = n;
+		while (count > 1) {
+			int parents = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			double[][] parent = new double[4][parents];
+			int[] start = new int[parents];
+			int[] end = new int[parents];
+			for (int j = 0; j < parents; j++) {
+				start[j] = j * NODE_CAPACITY;
+				end[j] = Math.min(count, start[j] + NODE_CAPACITY);
+				parent[0][j] = min(level[0], start[j], end[j]);
+				parent[1][j] = min(level[1], start[j], end[j]);
+				parent[2][j] = max(level[2], start[j], end[j]);
+				parent[3][j] = max(level[3], start[j], end[j]);
+			}
+			order = strOrder(parent[0], parent[1], parent[2], parent[3], parents);
+			for (int k = 0; k < 4; k++) {
+				parent[k] = permute(parent[k], order);
+			}
+			boxes.add(parent);
+			children.add(new int[][] {permute(start, order), permute(end, order)});
+			level = parent;
+			count = parents;
+		}
+
+		int levels = boxes.size();
+		this.minLat = new double[levels][];
+		this.minLng = new double[levels][];
+		this.maxLat = new double[levels][];
+		this.maxLng = new double[levels][];
+		this.childStart = new int[levels][];
+		this.childEnd = new int[levels][];
+		for (int l = 0; l < levels; l++) {
+			this.minLat[l] = boxes.get(l)[0];
+			this.minLng[l] = boxes.get(l)[1];
+			this.maxLat[l] = boxes.get(l)[2];
+			this.maxLng[l] = boxes.get(l)[3];
+			this.childStart[l] = children.get(l)[0];
+			this.childEnd[l] = children.get(l)[1];
+		}
+	}
+
+	/**
+	 * Build a tree over points.
+	 * @param points The points; item i is points.get(i)
+	 */
+	public static RTree ofPoints(List<GeographicPoint> points) {
+		double[] lat = new double[points.size()];
+		double[] lng = new double[points.size()];
+		for (int i = 0; i < lat.length; i++) {
+			lat[i] = points.get(i).getX();
+			lng[i] = points.get(i).getY();
+		}
+		return new RTree(lat, lng, lat, lng);
+	}
+
+	/**
+	 * Build a tree over the bounding boxes of road segments.
+	 * @param segments The segments; item i is segments.get(i)
+	 */
+	public static RTree ofSegments(List<RoadSegment> segments) {
+		int n = segments.size();
+		double[] minLat = new double[n];
+		double[] minLng = new double[n];
+		double[] maxLat = new double[n];
+		double[] maxLng = new double[n];
+		for (int i = 0; i < n; i++) {
+			double[] bounds = segments.get(i).getBounds();
+			minLat[i] = bounds[0];
+			minLng[i] = bounds[1];
+			maxLat[i] = bounds[2];
+			maxLng[i] = bounds[3];
+		}
+		return new RTree(minLat, minLng, maxLat, maxLng);
+	}
+
+	/** @return the number of items in the tree */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Find the items whose boxes meet a box.  If west is greater than east
+	 * the box is taken to cross the 180th meridian.
+	 * @param south The southern edge of the box
+	 * @param west The western edge of the box
+	 * @param north The northern edge of the box
+	 * @param east The eastern edge of the box
+	 * @param visitor Given the index of each item found, in no
+	 * particular order
+	 */
+	public void search(double south, double west, double north, double east, IntConsumer visitor) {
+		if (ids.length == 0) {
+			return;
+		}
+		if (west > east) {
+			searchRoots(south, west, north, 180, visitor);
+			searchRoots(south, -180, north, east, visitor);
+		}
+		else {
+			searchRoots(south, west, north, east, visitor);
+		}
+	}
+
+	private void searchRoots(double south, double west, double north, double east, IntConsumer visitor) {
+		int top = minLat.length - 1;
+		for (int j = 0; j < minLat[top].length; j++) {
+			search(top, j, south, west, north, east, visitor);
+		}
+	}
+
+	private void search(int level, int j, double south, double west, double north, double east,
+			IntConsumer visitor) {
+		if (minLat[level][j] > north || maxLat[level][j] < south
+				|| minLng[level][j] > east || maxLng[level][j] < west) {
+			return;
+		}
+		if (level == 0) {
+			visitor.accept(ids[j]);
+			return;
+		}
+		for (int c = childStart[level][j]; c < childEnd[level][j]; c++) {
+			search(level - 1, c, south, west, north, east, visitor);
+		}
+	}
+
+	/**
+	 * Find the items whose boxes meet a box.
+	 * @see #search(double, double, double, double, IntConsumer)
+	 * @return the indices of the items found
+	 */
+	public int[] search(double south, double west, double north, double east) {
+		int[][] found = {new int[NODE_CAPACITY]};
+		int[] count = {0};
+		search(south, west, north, east, item -> {
+			if (count[0] == found[0].length) {
+				found[0] = Arrays.copyOf(found[0], 2 * count[0]);
+			}
+			found[0][count[0]++] = item;
+		});
+		return Arrays.copyOf(found[0], count[0]);
+	}
+
+	// STR packing order of the first n boxes: vertical slices by centre
+	// longitude, each sorted by centre latitude
+	private static int[] strOrder(double[] minLat, double[] minLng, double[] maxLat, double[] maxLng,
+			int n) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		int nodes = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int slices = (int) Math.ceil(Math.sqrt(nodes));
+		int sliceSize = slices * NODE_CAPACITY;
+		sortByCentre(order, 0, n, minLng, maxLng);
+		for (int from = 0; from < n; from += sliceSize) {
+			sortByCentre(order, from, Math.min(n, from + sliceSize), minLat, maxLat);
+		}
+		return order;
+	}
+
+	// Sort order[from..to) by the centre of [min, max].  Each entry is
+	// packed into a long with the centre, as an order preserving float,
+	// in the high half and the entry in the low half; float precision is
+	// plenty for choosing how to pack the nodes.
+	private static void sortByCentre(int[] order, int from, int to, double[] min, double[] max) {
+		long[] keys = new long[to - from];
+		for (int k = from; k < to; k++) {
+			int i = order[k];
+			int bits = Float.floatToIntBits((float) ((min[i] + max[i]) / 2));
+			bits ^= (bits >> 31) & 0x7FFFFFFF;
+			keys[k - from] = ((long) bits << 32) | i;
+		}
+		Arrays.sort(keys);
+		for (int k = from; k < to; k++) {
+			order[k] = (int) keys[k - from];
+		}
+	}
+
+	private static double[] permute(double[] values, int[] order) {
+		double[] permuted = new double[order.length];
+		for (int k = 0; k < order.length; k++) {
+			permuted[k] = values[order[k]];
+		}
+		return permuted;
+	}
+
+	private static int[] permute(int[] values, int[] order) {
+		int[] permuted = new int[order.length];
+		for (int k = 0; k < order.length; k++) {
+			permuted[k] = values[order[k]];
+		}
+		return permuted;
+	}
+
+	private static double min(double[] values, int from, int to) {
+		double min = Double.POSITIVE_INFINITY;
+		for (int k = from; k < to; k++) {
+			min = Math.min(min, values[k]);
+		}
+		return min;
+	}
+
+	private static double max(double[] values, int from, int to) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int k = from; k < to; k++) {
+			max = Math.max(max, values[k]);
+		}
+		return max;
+	}
+}
@@ -108,6 +108,25 @@ public class RoadSegment {
 
 	// get the length of the road segment
 	public double getLength() { return this.length; }
+
+	/** Return the smallest box holding the whole segment, including its
+	 * intermediate geometry.
+	 * @return {min latitude, min longitude, max latitude, max longitude}
+	 */
+	public double[] getBounds()
+	{
+		double[] bounds = {Math.min(point1.getX(), point2.getX()),
+				Math.min(point1.getY(), point2.getY()),
+				Math.max(point1.getX(), point2.getX()),
+				Math.max(point1.getY(), point2.getY())};
+		for (GeographicPoint p : geometryPoints) {
+			bounds[0] = Math.min(bounds[0], p.getX());
+			bounds[1] = Math.min(bounds[1], p.getY());
+			bounds[2] = Math.max(bounds[2], p.getX());
+			bounds[3] = Math.max(bounds[3], p.getY());
+		}
+		return bounds;
+	}
 	
 	
 	// given one end, return the other.
@@ -125,6 +125,9 @@ public class GoogleMapView extends AnchorPane {
         //System.out.println("webview : " + webview);
         webengine = new JavaFxWebEngine(webview.getEngine());
         JavascriptRuntime.setDefaultWebEngine(webengine);
+        // queue calls whose results are not needed and send them to the
+        // WebEngine together, once per pulse
+        JavascriptRuntime.getInstance().setBatching(true);
 
         setTopAnchor(webview, 0.0);
         setLeftAnchor(webview, 0.0);
@@ -34,6 +34,33 @@ public interface IJavascriptRuntime {
      */
     JSObject execute(String command);
 
+    /**
+     * Execute a command whose result is not needed.  While batching is on
+     * the command is queued and run later together with the others queued
+     * since the last flush; otherwise it is run at once.
+     *
+     * @param command The JavaScript command to execute
+     */
+    void executeLater(String command);
+
+    /**
+     * Run every queued command now, as one script.
+     */
+    void flush();
+
+    /**
+     * Turn the queueing of executeLater() commands on or off.  Turning it
+     * off runs anything already queued.
+     *
+     * @param batching true to queue commands
+     */
+    void setBatching(boolean batching);
+
+    /**
+     * @return true if executeLater() commands are being queued
+     */
+    boolean isBatching();
+
     /**
      * Gets a constructor as a string which then can be passed to the execute().
      *
@@ -93,4 +120,29 @@ public interface IJavascriptRuntime {
      */
     String getArrayFunction(String function, Object[] ary);
 
+    /**
+     * Gets an expression building a Javascript array of google.maps.LatLng
+     * from coordinates packed into one numeric array, so a whole path
+     * crosses into the Javascript environment as a single literal.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     * @return A string which can be passed to the JavaScript environment to
+     * create the array.
+     */
+    String getLatLngArray(double[] latLngs);
+
+    /**
+     * Gets an expression building a Javascript array of google.maps.LatLng
+     * from coordinates sent as an encoded polyline string, which is about a
+     * quarter of the size of the same coordinates written out as numbers.
+     * The coordinates are rounded to five decimal places.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     * @return A string which can be passed to the JavaScript environment to
+     * create the array.
+     */
+    String getEncodedLatLngArray(double[] latLngs);
+
 }
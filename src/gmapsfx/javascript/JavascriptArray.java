@@ -36,8 +36,8 @@ public class JavascriptArray extends JavascriptObject {
     private final Map<JSObject, JavascriptObject> content = new HashMap<>();
     
     public JavascriptArray() {
-        runtime.execute("var " + variableName + " = []");
-        jsObject = runtime.execute(variableName);
+        runtime.executeLater("var " + variableName + " = []");
+        declared = true;
     }
     
     public Object  get(int idx) {
@@ -126,6 +126,17 @@ public class JavascriptArray extends JavascriptObject {
         return checkInteger(invokeJavascript("unshift", obj), 0);
     }
     
+    /** Adds a google.maps.LatLng for each of the supplied points to the end
+     * of the array. The points cross into Javascript as one numeric array.
+     * 
+     * @param latLngs The latitude and longitude of each point, interleaved: 
+     * lat0, lng0, lat1, lng1, ...
+     */
+    public void pushAll(double[] latLngs) {
+        runtime.executeLater(runtime.getLatLngArray(latLngs) 
+                + ".forEach(function(p) {" + variableName + ".push(p);})");
+    }
+    
     //valueOf()
     
     /** Get the length of the array. This returns the value from the underlying 
@@ -34,6 +34,9 @@ public class JavascriptObject {
     protected JSObject jsObject;
     protected static int objectCounter = 0;
     protected String variableName;
+    // true when variableName refers to this object in the Javascript runtime,
+    // so scripts can be queued against it
+    protected boolean declared;
 
     /**
      */
@@ -61,9 +64,8 @@ public class JavascriptObject {
     protected JavascriptObject( String type, String stringRepresentation ) {
         runtime = JavascriptRuntime.getInstance();
         variableName = getNextVariableName();
-        runtime.execute( "var " + variableName + " = " + stringRepresentation );
-        jsObject = runtime.execute(variableName);
-        peerRegistry.put(jsObject, this);
+        runtime.executeLater( "var " + variableName + " = " + stringRepresentation );
+        declared = true;
     }
 
     /**
@@ -73,9 +75,8 @@ public class JavascriptObject {
     protected JavascriptObject(String type, Object... args) {
         runtime = JavascriptRuntime.getInstance();
         variableName = getNextVariableName();
-        runtime.execute("var " + variableName + " = " + runtime.getConstructor(type, args));
-        jsObject = runtime.execute(variableName);
-        peerRegistry.put(jsObject, this);
+        runtime.executeLater("var " + variableName + " = " + runtime.getConstructor(type, args));
+        declared = true;
     }
 
     /**
@@ -88,9 +89,8 @@ public class JavascriptObject {
     protected JavascriptObject(String type, Object[] ary, boolean isArray) {
         runtime = JavascriptRuntime.getInstance();
         variableName = getNextVariableName();
-        runtime.execute("var " + variableName + " = " + runtime.getArrayConstructor(type, ary));
-        jsObject = runtime.execute(variableName);
-        peerRegistry.put(jsObject, this);
+        runtime.executeLater("var " + variableName + " = " + runtime.getArrayConstructor(type, ary));
+        declared = true;
     }
 
 
@@ -108,11 +108,18 @@ public class JavascriptObject {
     }
 
     /**
-     * Get the underlying object used by the Javascript runtime.
+     * Get the underlying object used by the Javascript runtime.  Any queued
+     * scripts are run first, and an object whose constructor was queued is
+     * looked up the first time it is needed.
      *
      * @return The underlying Javascript object
      */
     protected JSObject getJSObject() {
+        runtime.flush();
+        if (jsObject == null) {
+            jsObject = runtime.execute(variableName);
+            peerRegistry.put(jsObject, this);
+        }
         return jsObject;
     }
 
@@ -143,7 +150,12 @@ public class JavascriptObject {
      * @param propertyValue The property value.
      */
     protected void setProperty(String propertyName, Object propertyValue) {
-        jsObject.setMember(propertyName, propertyValue);
+        String literal = declared ? toLiteral(propertyValue) : null;
+        if (literal != null) {
+            runtime.executeLater(variableName + "." + propertyName + " = " + literal);
+        } else {
+            getJSObject().setMember(propertyName, propertyValue);
+        }
     }
 
     /**
@@ -154,7 +166,11 @@ public class JavascriptObject {
      * @param propertyValue The value of the property.
      */
     protected void setProperty(String propertyName, JavascriptObject propertyValue) {
-        jsObject.setMember(propertyName, propertyValue.getJSObject());
+        if (declared && propertyValue.declared) {
+            runtime.executeLater(variableName + "." + propertyName + " = " + propertyValue.variableName);
+        } else {
+            getJSObject().setMember(propertyName, propertyValue.getJSObject());
+        }
     }
 
     /**
@@ -167,7 +183,11 @@ public class JavascriptObject {
      * @param propertyValue The value of the property.
      */
     protected void setProperty(String propertyName, JavascriptEnum propertyValue) {
-        jsObject.setMember(propertyName, propertyValue.getEnumValue());
+        if (declared) {
+            runtime.executeLater(variableName + "." + propertyName + " = " + toLiteral(propertyValue));
+        } else {
+            getJSObject().setMember(propertyName, propertyValue.getEnumValue());
+        }
     }
 
 
@@ -178,7 +198,7 @@ public class JavascriptObject {
      * @return The value of the property
      */
     protected Object getProperty(String key) {
-        return checkUndefined(jsObject.getMember(key));
+        return checkUndefined(getJSObject().getMember(key));
     }
 
     /**
@@ -206,7 +226,7 @@ public class JavascriptObject {
      * @return The return value of the function call.
      */
     protected Object invokeJavascript(String function) {
-        return checkUndefined(jsObject.call(function));
+        return checkUndefined(getJSObject().call(function));
     }
 
     /**
@@ -228,7 +248,68 @@ public class JavascriptObject {
                 jsArgs[i] = args[i];
             }
         }
-        return checkUndefined(jsObject.call(function, (Object[]) jsArgs));
+        return checkUndefined(getJSObject().call(function, (Object[]) jsArgs));
+    }
+
+    /**
+     * Invoke a JavaScript function whose result is not needed.  When this
+     * object and every argument can be written as Javascript source the
+     * call is queued on the runtime, to be run in a batch with others;
+     * otherwise it is invoked at once.
+     *
+     * @param function The function to invoke
+     * @param args Any arguments to pass to the function
+     */
+    protected void invokeJavascriptLater(String function, Object... args) {
+        if (declared) {
+            StringBuilder call = new StringBuilder(variableName).append('.').append(function).append('(');
+            boolean literals = true;
+            for (int i = 0; i < args.length && literals; i++) {
+                String literal = toLiteral(args[i]);
+                literals = literal != null;
+                call.append(i == 0 ? "" : ",").append(literal);
+            }
+            if (literals) {
+                runtime.executeLater(call.append(')').toString());
+                return;
+            }
+        }
+        invokeJavascript(function, args);
+    }
+
+    /**
+     * Writes a value as Javascript source.
+     *
+     * @param value A String, Number, Boolean, JavascriptEnum, declared
+     * JavascriptObject or null.
+     * @return The source, or null if the value has no source form.
+     */
+    protected static String toLiteral(Object value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof String) {
+            String text = (String) value;
+            StringBuilder literal = new StringBuilder(text.length() + 2).append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    literal.append('\\').append(c);
+                } else if (c < ' ' || c == '\u2028' || c == '\u2029') {
+                    literal.append(String.format("\\u%04x", (int) c));
+                } else {
+                    literal.append(c);
+                }
+            }
+            return literal.append('"').toString();
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        } else if (value instanceof JavascriptEnum) {
+            JavascriptEnum e = (JavascriptEnum) value;
+            return e.getType() + "." + e.getName();
+        } else if (value instanceof JavascriptObject && ((JavascriptObject) value).declared) {
+            return ((JavascriptObject) value).variableName;
+        }
+        return null;
     }
 
     /**
@@ -274,7 +355,7 @@ public class JavascriptObject {
 
 
     protected boolean isMemberDefined(String member) {
-        Object res = jsObject.getMember(member);
+        Object res = getJSObject().getMember(member);
         return (res instanceof String && ! ((String) res).equals("undefined"));
 
     }
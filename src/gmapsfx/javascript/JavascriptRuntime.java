@@ -15,6 +15,11 @@
  */
 package gmapsfx.javascript;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
 import netscape.javascript.JSObject;
 
 /**
@@ -30,6 +35,29 @@ public class JavascriptRuntime implements IJavascriptRuntime {
 
     public static IWebEngine engine;
 
+    private static final Logger LOG = Logger.getLogger(JavascriptRuntime.class.getName());
+
+    // commands queued by executeLater(), run as one script by flush(), and
+    // for each the stack of the call that queued it, to report errors against
+    protected final List<String> pending = new ArrayList<>();
+    protected final List<Throwable> pendingCallers = new ArrayList<>();
+    protected boolean batching = false;
+    protected boolean flushScheduled = false;
+
+    // turns an array of lat, lng pairs into an array of LatLngs
+    protected static final String LAT_LNG_DECODER = "(function(c) {var a = new Array(c.length / 2);"
+            + "for (var i = 0; i < a.length; i++) {a[i] = new google.maps.LatLng(c[2 * i], c[2 * i + 1]);}"
+            + "return a;})";
+
+    // turns an encoded polyline string into an array of LatLngs
+    protected static final String POLYLINE_DECODER = "(function(s) {var a = [], i = 0, lat = 0, lng = 0;"
+            + "function next() {var b, shift = 0, result = 0;"
+            + "do {b = s.charCodeAt(i++) - 63; result |= (b & 31) << shift; shift += 5;} while (b >= 32);"
+            + "return (result & 1) ? ~(result >> 1) : (result >> 1);}"
+            + "while (i < s.length) {lat += next(); lng += next();"
+            + "a.push(new google.maps.LatLng(lat / 1e5, lng / 1e5));}"
+            + "return a;})";
+
     /**
      * Gets a singleton instance of this class, creating one if it doesn't yet
      * exist.
@@ -60,6 +88,7 @@ public class JavascriptRuntime implements IJavascriptRuntime {
      */
     @Override
     public JSObject execute(String command) {
+        flush();
         Object returnValue = engine.executeScript(command);
         if (returnValue instanceof JSObject) {
             return (JSObject) returnValue;
@@ -68,6 +97,101 @@ public class JavascriptRuntime implements IJavascriptRuntime {
         return null;
     }
 
+    /**
+     * Execute a command whose result is not needed.  While batching is on
+     * the command is queued, and the queue is flushed on the next pulse of
+     * the JavaFX application thread, or sooner if execute() is called, so
+     * everything changed while handling one event reaches the WebEngine in a
+     * single script.
+     *
+     * A queued command that fails does not stop the others.  Its error is
+     * logged together with the stack of the executeLater() call that
+     * queued it, and is not thrown from the later call that flushed it.
+     *
+     * @param command The JavaScript command to execute
+     */
+    @Override
+    public void executeLater(String command) {
+        if (!batching) {
+            engine.executeScript(command);
+            return;
+        }
+        pending.add(command);
+        pendingCallers.add(new Throwable("queued here"));
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Platform.runLater(() -> {
+                flushScheduled = false;
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Run every queued command now, as one script.  Each command runs in
+     * its own try block, so one that throws does not stop the rest, and
+     * the script returns the errors.  If the script as a whole fails, for
+     * instance because a command does not parse, the commands are run one
+     * at a time instead.
+     */
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> commands = new ArrayList<>(pending);
+        List<Throwable> callers = new ArrayList<>(pendingCallers);
+        pending.clear();
+        pendingCallers.clear();
+
+        StringBuilder script = new StringBuilder("var gfxBatchErrors = [];\n");
+        for (int i = 0; i < commands.size(); i++) {
+            script.append("try {\n").append(commands.get(i)).append("\n;} catch (e) {")
+                    .append("gfxBatchErrors.push(").append(i)
+                    .append(" + ' ' + String(e).replace(/\\n/g, ' '));}\n");
+        }
+        script.append("gfxBatchErrors.join('\\n');");
+        Object errors;
+        try {
+            errors = engine.executeScript(script.toString());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < commands.size(); i++) {
+                try {
+                    engine.executeScript(commands.get(i));
+                } catch (RuntimeException commandError) {
+                    reportError(commands.get(i), String.valueOf(commandError.getMessage()),
+                            callers.get(i));
+                }
+            }
+            return;
+        }
+        if (errors instanceof String && !((String) errors).isEmpty()) {
+            for (String error : ((String) errors).split("\n")) {
+                int space = error.indexOf(' ');
+                int i = Integer.parseInt(error.substring(0, space));
+                reportError(commands.get(i), error.substring(space + 1), callers.get(i));
+            }
+        }
+    }
+
+    // log the failure of a queued command against the call that queued it
+    private static void reportError(String command, String error, Throwable caller) {
+        LOG.log(Level.SEVERE, "Queued script failed: " + error + "\n" + command, caller);
+    }
+
+    @Override
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+        if (!batching) {
+            flush();
+        }
+    }
+
+    @Override
+    public boolean isBatching() {
+        return batching;
+    }
+
     /**
      * Gets a constructor as a string which then can be passed to the execute().
      *
@@ -163,6 +287,84 @@ public class JavascriptRuntime implements IJavascriptRuntime {
         return sb.toString();
     }
 
+    /**
+     * Gets an expression building a Javascript array of google.maps.LatLng
+     * from coordinates packed into one numeric array.  The numbers are
+     * written out as one array literal and decoded by a single function
+     * call, instead of one constructor call per point.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     * @return A string which can be passed to the JavaScript environment to
+     * create the array.
+     */
+    @Override
+    public String getLatLngArray(double[] latLngs) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs must hold latitude, longitude pairs");
+        }
+        StringBuilder sb = new StringBuilder(LAT_LNG_DECODER.length() + latLngs.length * 12);
+        sb.append(LAT_LNG_DECODER).append("([");
+        for (int i = 0; i < latLngs.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(latLngs[i]);
+        }
+        return sb.append("])").toString();
+    }
+
+    /**
+     * Gets an expression building a Javascript array of google.maps.LatLng
+     * from coordinates sent as an encoded polyline string: each coordinate is
+     * rounded to five decimal places and written as the difference from the
+     * previous point in base 64 text, the format of the Google encoded
+     * polyline algorithm.  The string is decoded with one function call.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     * @return A string which can be passed to the JavaScript environment to
+     * create the array.
+     */
+    @Override
+    public String getEncodedLatLngArray(double[] latLngs) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs must hold latitude, longitude pairs");
+        }
+        StringBuilder sb = new StringBuilder(POLYLINE_DECODER.length() + latLngs.length * 4);
+        sb.append(POLYLINE_DECODER).append("(\"");
+        long lat = 0;
+        long lng = 0;
+        for (int i = 0; i < latLngs.length; i += 2) {
+            long nextLat = Math.round(latLngs[i] * 1e5);
+            long nextLng = Math.round(latLngs[i + 1] * 1e5);
+            encodeSigned(nextLat - lat, sb);
+            encodeSigned(nextLng - lng, sb);
+            lat = nextLat;
+            lng = nextLng;
+        }
+        return sb.append("\")").toString();
+    }
+
+    // one value of the encoded polyline format, in chunks of five bits from
+    // the lowest, each but the last flagged with 0x20; escapes the
+    // backslash, the only character it makes that needs it in a string
+    private static void encodeSigned(long value, StringBuilder sb) {
+        long bits = value < 0 ? ~(value << 1) : value << 1;
+        while (bits >= 0x20) {
+            appendEncoded((char) ((0x20 | (bits & 0x1f)) + 63), sb);
+            bits >>= 5;
+        }
+        appendEncoded((char) (bits + 63), sb);
+    }
+
+    private static void appendEncoded(char c, StringBuilder sb) {
+        if (c == '\\') {
+            sb.append('\\');
+        }
+        sb.append(c);
+    }
+
     /**
      * Takes the specified object and converts the argument to a String.
      *
@@ -16,9 +16,8 @@
 
 package gmapsfx.javascript.event;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 import netscape.javascript.JSObject;
 
 /** This object forms the bridge between Javascript events and the Java events.
@@ -31,10 +30,11 @@ import netscape.javascript.JSObject;
  * instance of the {@link GFXEventHandler} interface against a certain event 
  * type in the Google Maps event model. See addUIEventHandler and addStateEventHandler.
  * <p>
- * This class uses a key based on a UUID to map the Javascript event handlers 
- * registered against the Google Maps model back to our Java event handlers 
- * stored here. The addXXEventHandler methods in GoogleMap create functions 
- * that call back into this class using the supplied key.
+ * This class gives each handler an int id, its position in a list, to map 
+ * the Javascript event handlers registered against the Google Maps model 
+ * back to our Java event handlers stored here. The addXXEventHandler methods 
+ * in GoogleMap create functions that call back into this class using the 
+ * supplied id, so dispatching an event is an array lookup.
  * <p>
  * Currently an instance of this class is registered as:
  * <code>document.jsHandlers</code>
@@ -44,37 +44,65 @@ import netscape.javascript.JSObject;
  * {@link gmapsfx.javascript.object.GoogleMap#addUIEventHandler}
  * <p><blockquote><pre><code>
  * google.maps.event.addListener(map, 'event_type', function(event) {
- *      document.jsHandlers.handleUIEvent('key', event.latLng);
+ *      document.jsHandlers.handleUIEvent(id, event.latLng);
  * });
  * </code></pre></blockquote>
  * <p>
  * {@link gmapsfx.javascript.object.GoogleMap#addStateEventHandler}
  * <p><blockquote><pre><code>
  *  google.maps.event.addListener(map, 'event_type', function() {
- *      document.jsHandlers.handleStateEvent('key');
+ *      document.jsHandlers.handleStateEvent(id);
  *  });
  * </code></pre></blockquote>
+ * <p>
+ * {@link gmapsfx.javascript.object.GoogleMap#addIndexedEventHandler} 
+ * creates one listener that is shared by many objects, each of which holds 
+ * its own index:
+ * <p><blockquote><pre><code>
+ *  var gfxDispatcher<i>id</i> = function() {
+ *      document.jsHandlers.handleIndexedEvent(id, this.gfxIndex<i>id</i>);
+ *  };
+ * </code></pre></blockquote>
  * 
  * @author Geoff Capper
  * 
  */
 public class EventHandlers {
 	
-	private final Map<String, GFXEventHandler> handlers = new HashMap<>();
+	// a handler's id is its index
+	private final List<GFXEventHandler> handlers = new ArrayList<>();
     
 	public EventHandlers() {
 	}
 	
-	/** Registers a handler and returns the callback key to be passed to 
+	/** Registers a handler and returns the callback id to be passed to 
 	 * Javascript.
 	 * 
 	 * @param handler Handler to be registered.
-	 * @return A String random UUID that can be used as the callback key.
+	 * @return The id to use as the callback key.
+	 */
+	public int registerHandler(GFXEventHandler handler) {
+		handlers.add(handler);
+		return handlers.size() - 1;
+	}
+
+	/** Forgets a handler, so that it can be collected.  The ids of the 
+	 * other handlers do not change, and the id is not given out again.
+	 * 
+	 * @param callbackKey Id returned by the call to registerHandler.
 	 */
-	public String registerHandler(GFXEventHandler handler) {
-		String uuid = UUID.randomUUID().toString();
-		handlers.put(uuid, handler);
-		return uuid;
+	public void removeHandler(int callbackKey) {
+		if (callbackKey >= 0 && callbackKey < handlers.size()) {
+			handlers.set(callbackKey, null);
+		}
+	}
+
+	// the handler with the given id, if it is of the given type
+	private <T extends GFXEventHandler> T getHandler(int callbackKey, Class<T> type) {
+		if (callbackKey >= 0 && callbackKey < handlers.size() && type.isInstance(handlers.get(callbackKey))) {
+			return type.cast(handlers.get(callbackKey));
+		}
+		return null;
 	}
 	
     /** This method is called from Javascript, passing in the previously 
@@ -84,12 +112,13 @@ public class EventHandlers {
      * It may be more useful to return the MouseEvent and let clients go from 
      * there, but there is only the stop() method on the MouseEvent?
      * 
-     * @param callbackKey Key generated by the call to registerHandler.
+     * @param callbackKey Id returned by the call to registerHandler.
      * @param result Currently the LatLng object from the Google Maps event.
      */
-	public void handleUIEvent(String callbackKey, JSObject result) {
-		if (handlers.containsKey(callbackKey) && handlers.get(callbackKey) instanceof UIEventHandler) {
-			((UIEventHandler) handlers.get(callbackKey)).handle(result);
+	public void handleUIEvent(int callbackKey, JSObject result) {
+		UIEventHandler handler = getHandler(callbackKey, UIEventHandler.class);
+		if (handler != null) {
+			handler.handle(result);
 		} else {
 			System.err.println("Error in handle: " + callbackKey + " for result: " + result);
 		}
@@ -100,14 +129,31 @@ public class EventHandlers {
      * then passes on the call. State events in the Google Maps API don't pass 
      * any parameters.
      * 
-     * @param callbackKey Key generated by the call to registerHandler.
+     * @param callbackKey Id returned by the call to registerHandler.
      */
-    public void handleStateEvent(String callbackKey) {
-		if (handlers.containsKey(callbackKey) && handlers.get(callbackKey) instanceof StateEventHandler) {
-			((StateEventHandler) handlers.get(callbackKey)).handle();
+    public void handleStateEvent(int callbackKey) {
+		StateEventHandler handler = getHandler(callbackKey, StateEventHandler.class);
+		if (handler != null) {
+			handler.handle();
 		} else {
 			System.err.println("Error in handle: " + callbackKey + " for state handler ");
 		}
 	}
+
+    /** This method is called from Javascript, passing in the previously
+     * created callback key and the index of the object within its group
+     * that raised the event.
+     *
+     * @param callbackKey Id returned by the call to registerHandler.
+     * @param index The index of the object that raised the event.
+     */
+    public void handleIndexedEvent(int callbackKey, int index) {
+		IndexedEventHandler handler = getHandler(callbackKey, IndexedEventHandler.class);
+		if (handler != null) {
+			handler.handle(index);
+		} else {
+			System.err.println("Error in handle: " + callbackKey + " for index: " + index);
+		}
+	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package gmapsfx.javascript.event;
+
+/** Handles an event raised by one object of a group that shares a single
+ * handler, such as the markers of a
+ * {@link gmapsfx.javascript.object.MarkerGroup}.
+ *
+ * @author Daniel
+ */
+public interface IndexedEventHandler extends GFXEventHandler {
+    /**
+     * @param index The index of the object within its group.
+     */
+	public void handle(int index);
+}
@@ -15,9 +15,13 @@
  */
 package gmapsfx.javascript.object;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import gmapsfx.javascript.JavascriptObject;
 import gmapsfx.javascript.event.EventHandlers;
 import gmapsfx.javascript.event.GFXEventHandler;
+import gmapsfx.javascript.event.IndexedEventHandler;
 import gmapsfx.javascript.event.MapStateEventType;
 import gmapsfx.javascript.event.StateEventHandler;
 import gmapsfx.javascript.event.UIEventHandler;
@@ -45,6 +49,8 @@ public class GoogleMap extends JavascriptObject {
     private IntegerProperty zoom;
 
     private final EventHandlers jsHandlers = new EventHandlers();
+    // event type of each dispatcher created by addIndexedEventHandler
+    private final Map<Integer, UIEventType> dispatcherTypes = new HashMap<>();
     private boolean registeredOnJS;
 
     public GoogleMap() {
@@ -68,7 +74,7 @@ public class GoogleMap extends JavascriptObject {
     }
 
     private void internalSetZoom(int zoom) {
-        invokeJavascript("setZoom", zoom);
+        invokeJavascriptLater("setZoom", zoom);
     }
 
     public IntegerProperty zoomProperty() {
@@ -93,7 +99,7 @@ public class GoogleMap extends JavascriptObject {
     }
 
     public void setCenter(LatLong latLong) {
-        invokeJavascript("setCenter", latLong);
+        invokeJavascriptLater("setCenter", latLong);
     }
 
     public LatLong getLatLong() {
@@ -101,7 +107,7 @@ public class GoogleMap extends JavascriptObject {
     }
 
     public void fitBounds( LatLongBounds bounds ) {
-        invokeJavascript("fitBounds", bounds );
+        invokeJavascriptLater("fitBounds", bounds );
     }
 
 
@@ -121,7 +127,7 @@ public class GoogleMap extends JavascriptObject {
 
 
     public void setHeading( double heading ) {
-        invokeJavascript("setHeading", heading);
+        invokeJavascriptLater("setHeading", heading);
     }
 
     public double getHeading() {
@@ -136,8 +142,23 @@ public class GoogleMap extends JavascriptObject {
         marker.setMap(null);
     }
 
+    /**
+     * Adds one marker per coordinate pair to the map, creating all of them
+     * with a single script rather than several calls per marker.
+     *
+     * @param latLngs The latitude and longitude of each marker, interleaved.
+     * @param icon The icon of every marker.
+     * @param clickHandler Called with the index of a marker when it is
+     * clicked, or null if clicks should not be handled.
+     * @return The markers, in the order of their coordinates.
+     */
+    public MarkerGroup addMarkers(double[] latLngs, String icon, IndexedEventHandler clickHandler) {
+        int key = clickHandler == null ? -1 : registerEventHandler(clickHandler);
+        return new MarkerGroup(this, latLngs, icon, key);
+    }
+
     public void setMapType(MapTypeIdEnum type) {
-        invokeJavascript("setMapTypeId", type);
+        invokeJavascriptLater("setMapTypeId", type);
     }
 
     public void addMapShape(MapShape shape) {
@@ -206,7 +227,7 @@ public class GoogleMap extends JavascriptObject {
      */
     public void panBy(double x, double y) {
 //        System.out.println("panBy x: " + x + ", y: " + y);
-        invokeJavascript("panBy", new Object[]{x, y});
+        invokeJavascriptLater("panBy", x, y);
     }
 
     /**
@@ -216,7 +237,7 @@ public class GoogleMap extends JavascriptObject {
      * @param h Event handler to be registered.
      * @return Callback key that Javascript will use to find this handler.
      */
-    private String registerEventHandler(GFXEventHandler h) {
+    private int registerEventHandler(GFXEventHandler h) {
         //checkInitialized();
         if (!registeredOnJS) {
             JSObject doc = (JSObject) runtime.execute("document");
@@ -231,9 +252,10 @@ public class GoogleMap extends JavascriptObject {
      *
      * @param type Type of the event to register against.
      * @param h Handler that will be called when the event occurs.
+     * @return The id of the handler, to pass to removeEventHandler().
      */
-    public void addUIEventHandler(UIEventType type, UIEventHandler h) {
-        this.addUIEventHandler(this, type, h);
+    public int addUIEventHandler(UIEventType type, UIEventHandler h) {
+        return this.addUIEventHandler(this, type, h);
     }
 
     /**
@@ -242,13 +264,57 @@ public class GoogleMap extends JavascriptObject {
      * @param obj The object that the event should be registered on.
      * @param type Type of the event to register against.
      * @param h Handler that will be called when the event occurs.
+     * @return The id of the handler, to pass to removeEventHandler().
      */
-    public void addUIEventHandler(JavascriptObject obj, UIEventType type, UIEventHandler h) {
-        String key = registerEventHandler(h);
-        String mcall = "google.maps.event.addListener(" + obj.getVariableName() + ", '" + type.name() + "', "
-                + "function(event) {document.jsHandlers.handleUIEvent('" + key + "', event);});";//.latLng
+    public int addUIEventHandler(JavascriptObject obj, UIEventType type, UIEventHandler h) {
+        int key = registerEventHandler(h);
+        String mcall = "var gfxListener" + key + " = google.maps.event.addListener(" + obj.getVariableName() + ", '" + type.name() + "', "
+                + "function(event) {document.jsHandlers.handleUIEvent(" + key + ", event);});";//.latLng
         //System.out.println("addUIEventHandler mcall: " + mcall);
-        runtime.execute(mcall);
+        runtime.executeLater(mcall);
+        return key;
+    }
+
+    /**
+     * Adds one handler for a mouse type event on many objects, such as the
+     * markers of a large data set, which are told apart by an index.
+     * <p>
+     * A single Javascript listener function is created here and shared by
+     * every object passed to addIndexedListener(), which stores the object's
+     * index on the object itself. A click then makes one call into Java with
+     * the dispatcher id and the index, without a callback key or a closure
+     * for each object.
+     *
+     * @param type Type of the event to register against.
+     * @param h Handler that will be given the index of the object on which
+     * the event occurred.
+     * @return The id of the dispatcher, to pass to addIndexedListener().
+     */
+    public int addIndexedEventHandler(UIEventType type, IndexedEventHandler h) {
+        int key = registerEventHandler(h);
+        dispatcherTypes.put(key, type);
+        runtime.executeLater("var gfxListeners" + key + " = [];"
+                + "var gfxDispatcher" + key + " = function() {"
+                + "document.jsHandlers.handleIndexedEvent(" + key + ", this.gfxIndex" + key + ");}");
+        return key;
+    }
+
+    /**
+     * Attaches the shared listener of a dispatcher to an object.
+     *
+     * @param obj The object that the event should be registered on.
+     * @param dispatcher The id returned by addIndexedEventHandler().
+     * @param index The index the handler is given when the event occurs on
+     * this object.
+     */
+    public void addIndexedListener(JavascriptObject obj, int dispatcher, int index) {
+        UIEventType type = dispatcherTypes.get(dispatcher);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown dispatcher: " + dispatcher);
+        }
+        runtime.executeLater(obj.getVariableName() + ".gfxIndex" + dispatcher + " = " + index + ";"
+                + "gfxListeners" + dispatcher + ".push(google.maps.event.addListener("
+                + obj.getVariableName() + ", '" + type.name() + "', gfxDispatcher" + dispatcher + "))");
     }
 
     /**
@@ -261,14 +327,34 @@ public class GoogleMap extends JavascriptObject {
      *
      * @param type Type of the event to register against.
      * @param h Handler that will be called when the event occurs.
+     * @return The id of the handler, to pass to removeEventHandler().
      */
-    public void addStateEventHandler(MapStateEventType type, StateEventHandler h) {
-        String key = registerEventHandler(h);
-        String mcall = "google.maps.event.addListener(" + getVariableName() + ", '" + type.name() + "', "
-                + "function() {document.jsHandlers.handleStateEvent('" + key + "');});";
+    public int addStateEventHandler(MapStateEventType type, StateEventHandler h) {
+        int key = registerEventHandler(h);
+        String mcall = "var gfxListener" + key + " = google.maps.event.addListener(" + getVariableName() + ", '" + type.name() + "', "
+                + "function() {document.jsHandlers.handleStateEvent(" + key + ");});";
         //System.out.println("addStateEventHandler mcall: " + mcall);
-        runtime.execute(mcall);
+        runtime.executeLater(mcall);
+        return key;
+    }
 
+    /**
+     * Removes a handler added by addUIEventHandler(), addStateEventHandler()
+     * or addIndexedEventHandler(), together with its Javascript listeners,
+     * so that neither the listeners nor the handler are kept alive by the
+     * map.  For an indexed handler this removes the listener of every
+     * object passed to addIndexedListener().
+     *
+     * @param key The id returned when the handler was added.
+     */
+    public void removeEventHandler(int key) {
+        if (dispatcherTypes.remove(key) != null) {
+            runtime.executeLater("gfxListeners" + key + ".forEach(google.maps.event.removeListener);"
+                    + "gfxListeners" + key + " = []");
+        } else {
+            runtime.executeLater("google.maps.event.removeListener(gfxListener" + key + ")");
+        }
+        jsHandlers.removeHandler(key);
     }
 
 }
@@ -98,11 +98,31 @@ public class LatLong extends JavascriptObject {
      * @return A new LatLong indicating the end point.
      */
     public LatLong getDestinationPoint(double bearing, double distance) {
+        double[] end = new double[2];
+        getDestinationPoint(getLatitude(), getLongitude(), bearing, distance, end, 0);
+        return new LatLong(end[0], end[1]);
+    }
+
+    /**
+     * Calculates the end point of a line the specified distance from a
+     * point, along the provided bearing, without going through the
+     * Javascript runtime.
+     *
+     * @param latitude The latitude of the start point, in degrees.
+     * @param longitude The longitude of the start point, in degrees.
+     * @param bearing The bearing, in degrees, with North as 0, East as 90 etc.
+     * @param distance The distance in metres.
+     * @param latLngs Receives the latitude and longitude of the end point.
+     * @param index Where in latLngs to put the latitude; the longitude
+     * follows it.
+     */
+    public static void getDestinationPoint(double latitude, double longitude, double bearing,
+            double distance, double[] latLngs, int index) {
 
         double brng = Math.toRadians(bearing);
 
-        double lat1 = latToRadians();
-        double lon1 = longToRadians();
+        double lat1 = Math.toRadians(latitude);
+        double lon1 = Math.toRadians(longitude);
 
         double lat2 = Math.asin(Math.sin(lat1)
                 * Math.cos(distance / EarthRadiusMeters)
@@ -114,7 +134,8 @@ public class LatLong extends JavascriptObject {
                 Math.cos(distance / EarthRadiusMeters)
                 - Math.sin(lat1) * Math.sin(lat2));
 
-        return new LatLong(Math.toDegrees(lat2), Math.toDegrees(lon2));
+        latLngs[index] = Math.toDegrees(lat2);
+        latLngs[index + 1] = Math.toDegrees(lon2);
 
     }
 
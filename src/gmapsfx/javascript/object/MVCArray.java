@@ -16,6 +16,7 @@
 package gmapsfx.javascript.object;
 
 import gmapsfx.javascript.JavascriptObject;
+import gmapsfx.javascript.JavascriptRuntime;
 import netscape.javascript.JSObject;
 
 /**
@@ -34,6 +35,18 @@ public class MVCArray extends JavascriptObject {
         super(GMapObjectType.MVC_ARRAY, ary, true);
     }
 
+    /**
+     * Creates an array of LatLngs from packed coordinates, sent to the
+     * Javascript runtime as one numeric array.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     */
+    public MVCArray(double[] latLngs) {
+        super(GMapObjectType.MVC_ARRAY, "new " + GMapObjectType.MVC_ARRAY + "("
+                + JavascriptRuntime.getInstance().getLatLngArray(latLngs) + ")");
+    }
+
     public MVCArray(JSObject obj) {
         super(GMapObjectType.MVC_ARRAY, obj);
     }
@@ -116,6 +129,27 @@ public class MVCArray extends JavascriptObject {
         return (int) invokeJavascript("push", obj);
     }
 
+    /**
+     * Adds a LatLng for each of the supplied points onto the end of the
+     * array.  The points are sent as one numeric array.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     */
+    public void pushAll(double[] latLngs) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs must hold latitude, longitude pairs");
+        }
+        if (declared) {
+            runtime.executeLater(runtime.getLatLngArray(latLngs)
+                    + ".forEach(function(p) {" + variableName + ".push(p);})");
+        } else {
+            for (int i = 0; i < latLngs.length; i += 2) {
+                push(new LatLong(latLngs[i], latLngs[i + 1]));
+            }
+        }
+    }
+
     /**
      * Removes and discards the item at the specified index.
      *
@@ -41,7 +41,7 @@ public abstract class MapShape extends JavascriptObject {
      * @param map The map to add this Polygon to.
      */
     protected void setMap(GoogleMap map) {
-        invokeJavascript("setMap", map);
+        invokeJavascriptLater("setMap", map);
     }
     
     // LatLngBounds Gets the LatLngBounds of this Circle.
@@ -66,17 +66,17 @@ public abstract class MapShape extends JavascriptObject {
     
     //If set to true, the user can drag this circle over the map.
     public void setDraggable(boolean draggable) {
-        invokeJavascript("setDraggable", draggable);
+        invokeJavascriptLater("setDraggable", draggable);
     }
     
     //If set to true, the user can edit this circle by dragging the control points shown at the center and around the circumference of the circle.
     public void setEditable(boolean editable) {
-        invokeJavascript("setEditable", editable);
+        invokeJavascriptLater("setEditable", editable);
     }
     
     //Hides this circle if set to false.
     public void setVisible(boolean visible) {
-        invokeJavascript("setVisible", visible);
+        invokeJavascriptLater("setVisible", visible);
     }
     
     
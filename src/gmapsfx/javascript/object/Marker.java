@@ -17,6 +17,7 @@
 package gmapsfx.javascript.object;
 
 import gmapsfx.javascript.JavascriptObject;
+import netscape.javascript.JSObject;
 
 /**
  * Marker which can be placed on a GoogleMap.
@@ -39,13 +40,26 @@ public class Marker extends JavascriptObject {
         this.markerOptions = markerOptions;
     }
 
+    /**
+     * Wraps a marker that was created on the Javascript side, for example
+     * by a MarkerGroup.
+     * @param jsObject The Javascript marker.
+     * @param variableName An expression that refers to the marker in the
+     * Javascript runtime.
+     */
+    protected Marker(JSObject jsObject, String variableName) {
+        super(GMapObjectType.MARKER, jsObject);
+        this.variableName = variableName;
+        this.declared = true;
+    }
+
 
     /**
      * Sets the title of this Marker
      * @param title The Marker's new title
      */
     public void setTitle( String title ) {
-        invokeJavascript("setTitle", title);
+        invokeJavascriptLater("setTitle", title);
         this.title = title;
     }
 
@@ -58,8 +72,10 @@ public class Marker extends JavascriptObject {
      * @param icon The Marker's new icon
      */
     public void setIcon( String icon ) {
-        invokeJavascript("setIcon", icon);
-        getMarkerOptions().icon = icon;
+        invokeJavascriptLater("setIcon", icon);
+        if (markerOptions != null) {
+            markerOptions.icon = icon;
+        }
     }
     /**
      * This method is called from the GoogleMap.addMarker() method, it should not be invoked directly.
@@ -67,7 +83,7 @@ public class Marker extends JavascriptObject {
      * @param map The map to add this Marker to.
      */
     protected void setMap( GoogleMap map ) {
-        invokeJavascript("setMap", map);
+        invokeJavascriptLater("setMap", map);
     }
 
 
@@ -76,23 +92,31 @@ public class Marker extends JavascriptObject {
      * @param animation The animation to use for this marker.
      */
     public void setAnimation( Animation animation ) {
-        invokeJavascript("setAnimation", animation);
+        invokeJavascriptLater("setAnimation", animation);
+    }
+
+    /**
+     * Sets the text label drawn on this Marker
+     * @param label The Marker's new label
+     */
+    public void setLabel( String label ) {
+        invokeJavascriptLater("setLabel", label);
     }
 
     public void setZIndex(double index) {
-    	invokeJavascript("setZIndex", index);
+    	invokeJavascriptLater("setZIndex", index);
     }
 
     public void setPosition( LatLong latLong ) {
-        invokeJavascript( "setPosition", latLong );
+        invokeJavascriptLater("setPosition", latLong );
     }
 
 	public void setOptions(MarkerOptions markerOptions2) {
-		invokeJavascript("setOptions", markerOptions2);
+		invokeJavascriptLater("setOptions", markerOptions2);
 	}
 
 	public void setVisible(boolean visible) {
-		invokeJavascript("setVisible", visible);
+		invokeJavascriptLater("setVisible", visible);
 	}
 
 	public boolean getVisible() {
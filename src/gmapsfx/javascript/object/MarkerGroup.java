@@ -0,0 +1,122 @@
+package gmapsfx.javascript.object;
+
+import gmapsfx.javascript.JavascriptObject;
+import gmapsfx.javascript.event.IndexedEventHandler;
+import netscape.javascript.JSObject;
+
+/**
+ * A set of markers that share an icon and are all created by one script.
+ * <p>
+ * Creating a Marker one at a time takes several round trips into the
+ * Javascript runtime for the LatLong, the MarkerOptions and the Marker
+ * itself, plus one more for each event listener.  A MarkerGroup instead
+ * writes all the coordinates into a single array literal and builds every
+ * marker in a loop on the Javascript side.  Each marker holds its index and
+ * they all share one click listener, which passes that index to Java.  The
+ * markers live in a Javascript array; the Java Marker for an index is only
+ * created the first time it is asked for.
+ *
+ * @author Daniel
+ */
+public class MarkerGroup extends JavascriptObject {
+
+    private final Marker[] markers;
+    private final double minLat, minLng, maxLat, maxLng;
+
+    /**
+     * Creates one marker for each coordinate pair and adds them to the map.
+     *
+     * @param map The map to add the markers to.
+     * @param latLngs The latitude and longitude of each marker, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     * @param icon The icon of every marker.
+     * @param clickKey The callback key of an IndexedEventHandler, which is
+     * given the index of a marker when it is clicked, or -1 for no listener.
+     */
+    MarkerGroup(GoogleMap map, double[] latLngs, String icon, int clickKey) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("latLngs must hold latitude, longitude pairs");
+        }
+        markers = new Marker[latLngs.length / 2];
+
+        double south = Double.POSITIVE_INFINITY, west = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        StringBuilder coords = new StringBuilder(latLngs.length * 12);
+        coords.append('[');
+        for (int i = 0; i < latLngs.length; i += 2) {
+            double lat = latLngs[i];
+            double lng = latLngs[i + 1];
+            south = Math.min(south, lat);
+            north = Math.max(north, lat);
+            west = Math.min(west, lng);
+            east = Math.max(east, lng);
+            if (i > 0) {
+                coords.append(',');
+            }
+            coords.append(lat).append(',').append(lng);
+        }
+        coords.append(']');
+        minLat = south;
+        minLng = west;
+        maxLat = north;
+        maxLng = east;
+
+        String script = "var " + variableName + " = (function(map, c, icon, key) {"
+                + "var markers = new Array(c.length / 2);"
+                + "var clicked = function() {document.jsHandlers.handleIndexedEvent(key, this.gfxIndex);};"
+                + "for (var i = 0; i < markers.length; i++) {"
+                + "var m = new google.maps.Marker({position: new google.maps.LatLng(c[2 * i], c[2 * i + 1]),"
+                + " icon: icon, visible: true, map: map});"
+                + "m.gfxIndex = i;"
+                + "if (key >= 0) {google.maps.event.addListener(m, 'click', clicked);}"
+                + "markers[i] = m;"
+                + "}"
+                + "return markers;"
+                + "})(" + map.getVariableName() + ", " + coords + ", " + toLiteral(icon) + ", " + clickKey + ");";
+        runtime.executeLater(script);
+        declared = true;
+    }
+
+    /**
+     * @return The number of markers in this group.
+     */
+    public int size() {
+        return markers.length;
+    }
+
+    /**
+     * Gets the marker created from the given coordinate pair.
+     *
+     * @param index The index of the coordinate pair.
+     * @return The marker at that index.
+     */
+    public Marker get(int index) {
+        if (markers[index] == null) {
+            markers[index] = new Marker((JSObject) getJSObject().getSlot(index), variableName + "[" + index + "]");
+        }
+        return markers[index];
+    }
+
+    /**
+     * Shows or hides every marker in the group with one script.
+     *
+     * @param visible true to show the markers, false to hide them.
+     */
+    public void setVisible(boolean visible) {
+        runtime.executeLater("for (var i = 0; i < " + variableName + ".length; i++) {"
+                + variableName + "[i].setVisible(" + visible + ");}");
+    }
+
+    /**
+     * Gets the smallest bounds holding every marker, computed in Java from
+     * the coordinates the group was created from.
+     *
+     * @return The bounds, or null if the group is empty.
+     */
+    public LatLongBounds getBounds() {
+        if (markers.length == 0) {
+            return null;
+        }
+        return new LatLongBounds(new LatLong(minLat, minLng), new LatLong(maxLat, maxLng));
+    }
+}
@@ -61,6 +61,16 @@ public class MarkerOptions extends JavascriptObject {
         return this;
     }
     
+    /**
+     * Sets a text label drawn on the marker, such as a count.
+     * @param label The text of the label.
+     * @return This options object.
+     */
+    public MarkerOptions label( String label ) {
+        setProperty("label", label);
+        return this;
+    }
+    
     public MarkerOptions animation( Animation animation ) {
         setProperty("animation", animation);
         return this;
@@ -23,10 +23,20 @@ public class LocationElevationRequest extends JavascriptObject {
     
     public LocationElevationRequest(LatLong[] locations) {
         super(GMapObjectType.OBJECT);
-        getJSObject().setMember("locations", getJSObject().eval("[]"));
+        StringBuilder points = new StringBuilder("[");
         for (int i = 0; i < locations.length; i++) {
-            getJSObject().eval(getVariableName()+".locations.push("+locations[i].getVariableName()+")");
+            points.append(i == 0 ? "" : ",").append(locations[i].getVariableName());
         }
+        runtime.executeLater(getVariableName() + ".locations = " + points.append(']'));
+    }
+    
+    /**
+     * @param latLngs The latitude and longitude of each location, 
+     * interleaved: lat0, lng0, lat1, lng1, ...
+     */
+    public LocationElevationRequest(double[] latLngs) {
+        super(GMapObjectType.OBJECT);
+        runtime.executeLater(getVariableName() + ".locations = " + runtime.getLatLngArray(latLngs));
     }
     
 }
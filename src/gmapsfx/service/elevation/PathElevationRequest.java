@@ -22,11 +22,23 @@ public class PathElevationRequest extends JavascriptObject {
     
     public PathElevationRequest(LatLong[] path, int samples) {
         super(GMapObjectType.OBJECT);
-        getJSObject().setMember("path", getJSObject().eval("[]"));
+        StringBuilder points = new StringBuilder("[");
         for (int i = 0; i < path.length; i++) {
-            getJSObject().eval(getVariableName()+".path.push("+path[i].getVariableName()+")");
+            points.append(i == 0 ? "" : ",").append(path[i].getVariableName());
         }
-        getJSObject().setMember("samples", samples);
+        runtime.executeLater(getVariableName() + ".path = " + points.append(']'));
+        setProperty("samples", samples);
+    }
+    
+    /**
+     * @param latLngs The latitude and longitude of each point of the path, 
+     * interleaved: lat0, lng0, lat1, lng1, ...
+     * @param samples The number of points to sample along the path.
+     */
+    public PathElevationRequest(double[] latLngs, int samples) {
+        super(GMapObjectType.OBJECT);
+        runtime.executeLater(getVariableName() + ".path = " + runtime.getLatLngArray(latLngs));
+        setProperty("samples", samples);
     }
     
 }
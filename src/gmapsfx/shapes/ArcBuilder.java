@@ -71,18 +71,20 @@ public class ArcBuilder {
     public static final MVCArray buildArcPoints(LatLong center, double startBearing, double endBearing, double radius) {
         int points = DEFAULT_ARC_POINTS;
 
-        MVCArray res = new MVCArray();
-
         if (startBearing > endBearing) {
             endBearing += 360.0;
         }
         double deltaBearing = endBearing - startBearing;
         deltaBearing = deltaBearing / points;
+        // computed here and sent to the map as one array
+        double lat = center.getLatitude();
+        double lng = center.getLongitude();
+        double[] latLngs = new double[2 * (points + 1)];
         for (int i = 0; (i < points + 1); i++) {
-            res.push(center.getDestinationPoint(startBearing + i * deltaBearing, radius));
+            LatLong.getDestinationPoint(lat, lng, startBearing + i * deltaBearing, radius, latLngs, 2 * i);
         }
 
-        return res;
+        return new MVCArray(latLngs);
 
     }
 
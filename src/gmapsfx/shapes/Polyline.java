@@ -39,8 +39,34 @@ public class Polyline extends MapShape {
         return new MVCArray((JSObject) invokeJavascript("getPath"));
     }
     
+    /**
+     * Sets the path from packed coordinates, sent as one numeric array.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     */
+    public void setPath(double[] latLngs) {
+        setPath(new MVCArray(latLngs));
+    }
+
+    /**
+     * Sets the path from packed coordinates sent as an encoded polyline
+     * string, rounding them to five decimal places.  This is the most
+     * compact way to send a long path.
+     *
+     * @param latLngs The latitude and longitude of each point, interleaved:
+     * lat0, lng0, lat1, lng1, ...
+     */
+    public void setEncodedPath(double[] latLngs) {
+        if (declared) {
+            runtime.executeLater(variableName + ".setPath(" + runtime.getEncodedLatLngArray(latLngs) + ")");
+        } else {
+            setPath(new MVCArray(latLngs));
+        }
+    }
+
     public void setPath(MVCArray path) {
-        invokeJavascript("setPath", path);
+        invokeJavascriptLater("setPath", path);
     }
     
 }
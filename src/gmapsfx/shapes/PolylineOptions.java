@@ -37,6 +37,13 @@ public class PolylineOptions extends MapShapeOptions<PolylineOptions> {
         return this;
     }
 
+    /**
+     * Sets the path from packed coordinates: lat0, lng0, lat1, lng1, ...
+     */
+    public PolylineOptions path(double[] latLngs) {
+        return path(new MVCArray(latLngs));
+    }
+
     @Override
     protected PolylineOptions getMe() {
         return this;
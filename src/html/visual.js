@@ -1,33 +1,127 @@
-var delay = 300;
-var map, markers;
-var markerURL = "http://maps.google.com/mapfiles/kml/paddle/red-diamond-lv.png";
-var destURL = "http://maps.google.com/mapfiles/kml/pal2/icon5.png";
-
-function visualizeSearch(mapParam, markersParam) {
-	markers = markersParam;
-	map = mapParam;	
-	drop();
+// Playback of the nodes visited by a search.  The visited points are drawn
+// as translucent dots on a single canvas laid over the map, so where the
+// search spent its time shows up as a heat map.  Java streams the points in
+// batches of packed lat, lng pairs, in visit order, while playback runs.
+
+var visualization = null;
+var VisitOverlay = null;
+
+// define the overlay class once the Maps API has loaded
+function defineVisitOverlay() {
+	if (VisitOverlay != null) {
+		return;
+	}
+	VisitOverlay = function(map, visited, speed) {
+		this.coords = [];        // lat, lng pairs received so far
+		this.visited = visited;  // nodes the search visited, before sampling
+		this.complete = false;   // true once the last batch has arrived
+		this.shown = 0;          // points drawn so far
+		this.position = 0;       // playback position, in points
+		this.speed = speed;      // points per second
+		this.lastTime = null;
+		this.canvas = null;
+		this.setMap(map);
+	};
+	VisitOverlay.prototype = new google.maps.OverlayView();
+
+	VisitOverlay.prototype.onAdd = function() {
+		this.canvas = document.createElement('canvas');
+		this.canvas.style.position = 'absolute';
+		this.canvas.style.pointerEvents = 'none';
+		this.getPanes().overlayLayer.appendChild(this.canvas);
+		var self = this;
+		window.requestAnimationFrame(function(time) { self.animate(time); });
+	};
+
+	VisitOverlay.prototype.onRemove = function() {
+		this.canvas.parentNode.removeChild(this.canvas);
+		this.canvas = null;
+	};
+
+	// the map moved or zoomed: cover the view again and redraw what is shown
+	VisitOverlay.prototype.draw = function() {
+		var projection = this.getProjection();
+		var bounds = this.getMap().getBounds();
+		if (!projection || !bounds || !this.canvas) {
+			return;
+		}
+		var div = this.getMap().getDiv();
+		var sw = projection.fromLatLngToDivPixel(bounds.getSouthWest());
+		var ne = projection.fromLatLngToDivPixel(bounds.getNorthEast());
+		this.left = sw.x;
+		this.top = ne.y;
+		this.canvas.style.left = this.left + 'px';
+		this.canvas.style.top = this.top + 'px';
+		this.canvas.width = div.offsetWidth;
+		this.canvas.height = div.offsetHeight;
+		this.plot(0, this.shown);
+	};
+
+	VisitOverlay.prototype.plot = function(from, to) {
+		var projection = this.getProjection();
+		if (!projection || !this.canvas || from >= to) {
+			return;
+		}
+		var context = this.canvas.getContext('2d');
+		context.fillStyle = 'rgba(220, 30, 30, 0.35)';
+		for (var i = from; i < to; i++) {
+			var p = projection.fromLatLngToDivPixel(
+					new google.maps.LatLng(this.coords[2 * i], this.coords[2 * i + 1]));
+			context.fillRect(p.x - this.left - 2, p.y - this.top - 2, 4, 4);
+		}
+	};
+
+	VisitOverlay.prototype.animate = function(time) {
+		if (this.canvas == null) {
+			return;
+		}
+		if (this.lastTime != null) {
+			this.position += this.speed * (time - this.lastTime) / 1000;
+		}
+		this.lastTime = time;
+		var received = this.coords.length / 2;
+		this.position = Math.min(this.position, received);
+		var end = Math.floor(this.position);
+		this.plot(this.shown, end);
+		this.shown = end;
+		if (this.complete && this.shown == received) {
+			alert(this.visited + " nodes visited in search.");
+			return;
+		}
+		var self = this;
+		window.requestAnimationFrame(function(time) { self.animate(time); });
+	};
 }
 
-function displayMarker(marker, timeout, URL) {
-	window.setTimeout(function() {
-		marker.setIcon(URL);
-		marker.setMap(map);
-	}, timeout);
+function startVisualization(map, visited, speed) {
+	clearVisualization();
+	defineVisitOverlay();
+	visualization = new VisitOverlay(map, visited, speed);
 }
 
-function drop() {
-	var i;
-	for(i = 1; i < markers.length - 1; ++i) {
-		displayMarker(markers[i], i*delay, markerURL);
+function addVisualizationBatch(coords) {
+	if (visualization != null) {
+		for (var i = 0; i < coords.length; i++) {
+			visualization.coords.push(coords[i]);
+		}
 	}
-	displayMarker(markers[markers.length - 1], i*delay, destURL);
-	i++;
-	displayAlert(markers.length, i*delay);
 }
 
-function displayAlert(length, delay) {
-	////window.setTimeout(function() {
-		alert(length + " nodes visited in search.");
-	//}, delay);
-}
\ No newline at end of file
+function endVisualization() {
+	if (visualization != null) {
+		visualization.complete = true;
+	}
+}
+
+function setVisualizationSpeed(speed) {
+	if (visualization != null) {
+		visualization.speed = speed;
+	}
+}
+
+function clearVisualization() {
+	if (visualization != null) {
+		visualization.setMap(null);
+		visualization = null;
+	}
+}
@@ -1,33 +1,57 @@
 package mapmaker;
 
 import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import javax.json.*;
 
 public class DataFetcher {
+    /** The public Overpass API endpoint */
+    public static final String OVERPASS_URL = "http://overpass-api.de/api/interpreter";
+
     private final String[] HIGHWAYS = {"motorway", "trunk", "primary", "secondary", "tertiary", "unclassified", "residential", "motorway_link", "trunk_link", "primary_link", "secondary_link", "tertiary_link", "living_street"};
 
     private String query;
+    private String endpoint;
     public DataFetcher(float[] bounds) {
+        this(bounds, OVERPASS_URL);
+    }
+
+    /**
+     * @param bounds [south, west, north, east]
+     * @param endpoint The URL of the Overpass API interpreter to query
+     */
+    public DataFetcher(float[] bounds, String endpoint) {
         this.query = this.constructQuery(bounds);
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Send the query and return the response as it arrives, for reading
+     * with a streaming parser.  The caller closes the stream.
+     */
+    public InputStream openStream() throws IOException {
+        URL url = new URL(endpoint);
+        HttpURLConnection conn = (HttpURLConnection)url.openConnection();
+        conn.setDoOutput(true);
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Accept-Charset", "utf-8;q=0.7,*;q=0.7");
+
+        DataOutputStream wr = new DataOutputStream(conn.getOutputStream());
+        wr.writeBytes(this.query);
+        wr.close();
+
+        return conn.getInputStream();
     }
 
+    /**
+     * Read the whole response into memory.  For large areas use
+     * openStream instead.
+     */
     public JsonObject getData() {
-        HttpURLConnection conn = null;
-        try {
-            URL url = new URL("http://overpass-api.de/api/interpreter");
-            conn = (HttpURLConnection)url.openConnection();
-            conn.setDoOutput(true);
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Accept-Charset", "utf-8;q=0.7,*;q=0.7");
-            
-            DataOutputStream wr = new DataOutputStream(conn.getOutputStream());
-            wr.writeBytes(this.query);
-            wr.close();
-
-            InputStream is = conn.getInputStream();
+        try (InputStream is = openStream()) {
             JsonReader rdr = Json.createReader(is);
         
             return rdr.readObject();
@@ -1,29 +1,49 @@
 package mapmaker;
 
+import java.io.InputStream;
 import java.io.PrintWriter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.json.*;
-
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+/**
+ * Makes a .map file of the roads in a bounding box from OpenStreetMap data,
+ * fetched with the Overpass API.
+ *
+ * The response is read with a streaming parser, one element at a time, so
+ * it is never held in memory whole.  Node coordinates go into a NodeTable,
+ * and each way is written out as soon as it has been read.  Overpass lists
+ * the nodes before the ways; a way that comes before some of its nodes is
+ * kept back and written at the end.
+ */
 public class MapMaker {
     float[] bounds;
-    HashMap<Integer, Location> nodes = new HashMap<Integer, Location>();
+    String endpoint;
+    NodeTable nodes = new NodeTable();
+    // ways read before all of their nodes
+    private List<Way> deferred = new ArrayList<Way>();
+
+    // node ids of the way being read
+    private long[] refs = new long[64];
 
     public MapMaker(float[] bounds) {
+        this(bounds, DataFetcher.OVERPASS_URL);
+    }
+
+    /**
+     * @param bounds [south, west, north, east]
+     * @param endpoint The URL of the Overpass API interpreter to query
+     */
+    public MapMaker(float[] bounds, String endpoint) {
         this.bounds = bounds;
+        this.endpoint = endpoint;
     }
 
     public boolean parseData(String filename) {
-        DataFetcher fetcher = new DataFetcher(bounds);
-        JsonObject data = fetcher.getData();
-
-        JsonArray elements = data.getJsonArray("elements");
-
-        for (JsonObject elem : elements.getValuesAs(JsonObject.class)) {
-            if (elem.getString("type").equals("node")) {
-                nodes.put(elem.getInt("id"), new Location(elem.getJsonNumber("lat").doubleValue(), elem.getJsonNumber("lon").doubleValue()));
-            }
-        }
+        DataFetcher fetcher = new DataFetcher(bounds, endpoint);
 
         PrintWriter outfile;
         try {
@@ -33,28 +53,158 @@ public class MapMaker {
             return false;
         }
 
-        for (JsonObject elem : elements.getValuesAs(JsonObject.class)) {
-            if (elem.getString("type").equals("way")) {
-                String street = elem.getJsonObject("tags").getString("name", "");
-                String type = elem.getJsonObject("tags").getString("highway", "");
-                String oneway = elem.getJsonObject("tags").getString("oneway", "no");
-                List<JsonNumber> nodelist = elem.getJsonArray("nodes").getValuesAs(JsonNumber.class);
-                for (int i = 0; i < nodelist.size() - 1; i++) {
-                    Location start = nodes.get(nodelist.get(i).intValue());
-                    Location end = nodes.get(nodelist.get(i + 1).intValue());
-                    if (start.outsideBounds(bounds) || end.outsideBounds(bounds)) {
-                        continue;
+        try (InputStream in = fetcher.openStream()) {
+            writeMap(in, outfile);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            outfile.close();
+        }
+        return true;
+    }
+
+    /**
+     * Write the roads of an Overpass JSON response as .map lines.
+     * @param in The response
+     * @param out Where to write the lines
+     */
+    public void writeMap(InputStream in, PrintWriter out) {
+        nodes = new NodeTable();
+        deferred.clear();
+        JsonParser parser = Json.createParser(in);
+        if (parser.next() != Event.START_OBJECT) {
+            throw new JsonException("Overpass response is not a JSON object");
+        }
+        while (parser.next() == Event.KEY_NAME) {
+            String key = parser.getString();
+            Event event = parser.next();
+            if (key.equals("elements") && event == Event.START_ARRAY) {
+                while ((event = parser.next()) != Event.END_ARRAY) {
+                    if (event == Event.START_OBJECT) {
+                        readElement(parser, out);
+                    } else {
+                        skipValue(parser, event);
                     }
+                }
+            } else {
+                skipValue(parser, event);
+            }
+        }
+        parser.close();
 
-                    outfile.println("" + start + end + "\"" + street + "\" " + type);
-                    if (oneway.equals("no")) {
-                        outfile.println("" + end + start + "\"" + street + "\" " + type);
+        for (Way way : deferred) {
+            writeWay(out, way.refs, way.refs.length, way.street, way.type, way.oneway);
+        }
+        deferred.clear();
+    }
+
+    // read one element, the parser being just inside it
+    private void readElement(JsonParser parser, PrintWriter out) {
+        String elementType = null;
+        long id = 0;
+        double lat = Double.NaN;
+        double lon = Double.NaN;
+        int numRefs = 0;
+        String street = "";
+        String type = "";
+        String oneway = "no";
+
+        while (parser.next() == Event.KEY_NAME) {
+            String key = parser.getString();
+            Event event = parser.next();
+            if (key.equals("type") && event == Event.VALUE_STRING) {
+                elementType = parser.getString();
+            } else if (key.equals("id") && event == Event.VALUE_NUMBER) {
+                id = parser.getLong();
+            } else if (key.equals("lat") && event == Event.VALUE_NUMBER) {
+                lat = Double.parseDouble(parser.getString());
+            } else if (key.equals("lon") && event == Event.VALUE_NUMBER) {
+                lon = Double.parseDouble(parser.getString());
+            } else if (key.equals("nodes") && event == Event.START_ARRAY) {
+                while (parser.next() == Event.VALUE_NUMBER) {
+                    if (numRefs == refs.length) {
+                        refs = Arrays.copyOf(refs, 2 * refs.length);
                     }
+                    refs[numRefs++] = parser.getLong();
                 }
+            } else if (key.equals("tags") && event == Event.START_OBJECT) {
+                while (parser.next() == Event.KEY_NAME) {
+                    String tag = parser.getString();
+                    event = parser.next();
+                    if (event != Event.VALUE_STRING) {
+                        skipValue(parser, event);
+                    } else if (tag.equals("name")) {
+                        street = parser.getString();
+                    } else if (tag.equals("highway")) {
+                        type = parser.getString();
+                    } else if (tag.equals("oneway")) {
+                        oneway = parser.getString();
+                    }
+                }
+            } else {
+                skipValue(parser, event);
+            }
+        }
+
+        if ("node".equals(elementType)) {
+            nodes.put(id, lat, lon);
+        } else if ("way".equals(elementType)) {
+            for (int i = 0; i < numRefs; i++) {
+                if (nodes.indexOf(refs[i]) < 0) {
+                    deferred.add(new Way(Arrays.copyOf(refs, numRefs), street, type, oneway));
+                    return;
+                }
+            }
+            writeWay(out, refs, numRefs, street, type, oneway);
+        }
+    }
+
+    // skip the value that starts with event, nested values and all
+    private static void skipValue(JsonParser parser, Event event) {
+        if (event != Event.START_OBJECT && event != Event.START_ARRAY) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            event = parser.next();
+            if (event == Event.START_OBJECT || event == Event.START_ARRAY) {
+                depth++;
+            } else if (event == Event.END_OBJECT || event == Event.END_ARRAY) {
+                depth--;
+            }
+        }
+    }
+
+    private void writeWay(PrintWriter out, long[] wayRefs, int numRefs, String street,
+            String type, String oneway) {
+        for (int i = 0; i < numRefs - 1; i++) {
+            int start = nodes.indexOf(wayRefs[i]);
+            int end = nodes.indexOf(wayRefs[i + 1]);
+            if (start < 0 || end < 0 || outsideBounds(start) || outsideBounds(end)) {
+                continue;
+            }
+
+            writeLine(out, start, end, street, type);
+            if (oneway.equals("no")) {
+                writeLine(out, end, start, street, type);
             }
         }
-        outfile.close();
-        return true;
+    }
+
+    private void writeLine(PrintWriter out, int start, int end, String street, String type) {
+        out.println(nodes.getLatitude(start) + " " + nodes.getLongitude(start) + " "
+                + nodes.getLatitude(end) + " " + nodes.getLongitude(end) + " "
+                + "\"" + street + "\" " + type);
+    }
+
+    /**
+     * @param node The index of the node in the NodeTable
+     */
+    private boolean outsideBounds(int node) {
+        double lat = nodes.getLatitude(node);
+        double lon = nodes.getLongitude(node);
+        return (lat < bounds[0] || lat > bounds[2] || lon < bounds[1] || lon > bounds[3]);
     }
 
     public static void main(String[] args) {
@@ -79,24 +229,17 @@ public class MapMaker {
     }
 }
 
-class Location {
-    private double lat;
-    private double lon;
-
-    public Location(double lat, double lon) {
-        this.lat = lat;
-        this.lon = lon;
-    }
-
-    public String toString() {
-        return "" + lat + " " + lon + " ";
-    }
-
-    /**
-     * @param bounds [south, west, north, east]
-     */
-    public boolean outsideBounds(float[] bounds) {
-        return (lat < bounds[0] || lat > bounds[2] || lon < bounds[1] || lon > bounds[3]);
+// A way read before all of its nodes
+class Way {
+    long[] refs;
+    String street;
+    String type;
+    String oneway;
+
+    Way(long[] refs, String street, String type, String oneway) {
+        this.refs = refs;
+        this.street = street;
+        this.type = type;
+        this.oneway = oneway;
     }
-        
 }
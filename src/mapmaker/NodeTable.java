@@ -0,0 +1,110 @@
+package mapmaker;
+
+import java.util.Arrays;
+
+import geography.CoordinateStore;
+
+/**
+ * The coordinates of OpenStreetMap nodes, by node id.
+ *
+ * A hash table with open addressing over primitive arrays, so a node costs
+ * a long and two ints rather than a boxed key, a Location and a table
+ * entry.  OSM ids are 64 bit and are kept whole.  Coordinates are kept in
+ * CoordinateStore's fixed point units, the 7 decimal places OSM has.
+ */
+class NodeTable {
+    // marks an unused slot; not a valid node id
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] ids;
+    private int[] latitudes;
+    private int[] longitudes;
+    private int size = 0;
+
+    NodeTable() {
+        this(1024);
+    }
+
+    /**
+     * @param expected The number of nodes expected, to size the table
+     */
+    NodeTable(int expected) {
+        int capacity = 16;
+        while (3 * capacity < 4 * expected) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        Arrays.fill(ids, EMPTY);
+        latitudes = new int[capacity];
+        longitudes = new int[capacity];
+    }
+
+    // the slot holding id, or the empty slot where it would go
+    private int slot(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        int mask = ids.length - 1;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (ids[i] != EMPTY && ids[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Add a node, or move it if it is already present.
+     */
+    void put(long id, double latitude, double longitude) {
+        if (id == EMPTY) {
+            throw new IllegalArgumentException("invalid node id " + id);
+        }
+        if (4 * (size + 1) > 3 * ids.length) {
+            long[] oldIds = ids;
+            int[] oldLatitudes = latitudes;
+            int[] oldLongitudes = longitudes;
+            allocate(2 * ids.length);
+            for (int k = 0; k < oldIds.length; k++) {
+                if (oldIds[k] != EMPTY) {
+                    int i = slot(oldIds[k]);
+                    ids[i] = oldIds[k];
+                    latitudes[i] = oldLatitudes[k];
+                    longitudes[i] = oldLongitudes[k];
+                }
+            }
+        }
+        int i = slot(id);
+        if (ids[i] == EMPTY) {
+            ids[i] = id;
+            size++;
+        }
+        latitudes[i] = CoordinateStore.toFixed(latitude);
+        longitudes[i] = CoordinateStore.toFixed(longitude);
+    }
+
+    /**
+     * @return the index of the node for getLatitude and getLongitude, or
+     * -1 if there is no such node
+     */
+    int indexOf(long id) {
+        if (id == EMPTY) {
+            return -1;
+        }
+        int i = slot(id);
+        return ids[i] == id ? i : -1;
+    }
+
+    double getLatitude(int index) {
+        return CoordinateStore.toDegrees(latitudes[index]);
+    }
+
+    double getLongitude(int index) {
+        return CoordinateStore.toDegrees(longitudes[index]);
+    }
+
+    int size() {
+        return size;
+    }
+}
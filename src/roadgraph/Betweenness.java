@@ -0,0 +1,162 @@
+package roadgraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Brandes' algorithm for betweenness centrality on a CompactGraph, with
+ * the shortest paths weighted by edge length.
+ *
+ * One single source shortest path pass is run from each source and the
+ * pair dependencies are accumulated back along the order in which nodes
+ * were settled.  The sources are split into ranges that run as ForkJoin
+ * tasks; each leaf task owns its workspace and accumulator arrays, and the
+ * accumulators are added together as the tasks are joined, so no two
+ * threads ever write to the same array.
+ *
+ * @author Daniel
+ *
+ */
+final class Betweenness {
+
+	// Fewest sources handled by one leaf task
+	private static final int MIN_SOURCES_PER_TASK = 16;
+
+	private Betweenness() {
+	}
+
+	/**
+	 * Compute the betweenness of every node.
+	 * @param graph The graph
+	 * @param sources The sources to run from: every node for the exact
+	 * result, or a sample of them
+	 * @param pool The pool to run the tasks on
+	 * @return the sum over the sources of the dependency of each node
+	 */
+	static double[] compute(CompactGraph graph, int[] sources, ForkJoinPool pool) {
+		int leafSize = Math.max(MIN_SOURCES_PER_TASK,
+				sources.length / (4 * pool.getParallelism()) + 1);
+		return pool.invoke(new SourceTask(graph, sources, 0, sources.length, leafSize));
+	}
+
+	private static class SourceTask extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final CompactGraph graph;
+		private final int[] sources;
+		private final int from;
+		private final int to;
+		private final int leafSize;
+
+		SourceTask(CompactGraph graph, int[] sources, int from, int to, int leafSize) {
+			this.graph = graph;
+			this.sources = sources;
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (to - from <= leafSize) {
+				Workspace workspace = new Workspace(graph.numNodes);
+				for (int i = from; i < to; i++) {
+					workspace.accumulate(graph, sources[i]);
+				}
+				return workspace.centrality;
+			}
+			int middle = (from + to) >>> 1;
+			SourceTask left = new SourceTask(graph, sources, from, middle, leafSize);
+			left.fork();
+			double[] right = new SourceTask(graph, sources, middle, to, leafSize).compute();
+			double[] sum = left.join();
+			for (int v = 0; v < sum.length; v++) {
+				sum[v] += right[v];
+			}
+			return sum;
+		}
+	}
+
+	/** The arrays used by one task, reused for every source it runs. */
+	private static class Workspace {
+		final double[] centrality;
+		final double[] distance;
+		final double[] pathCount;
+		final double[] dependency;
+		final boolean[] settled;
+		// nodes in the order they were settled
+		final int[] order;
+		final NodeHeap open;
+
+		Workspace(int n) {
+			centrality = new double[n];
+			distance = new double[n];
+			pathCount = new double[n];
+			dependency = new double[n];
+			settled = new boolean[n];
+			order = new int[n];
+			open = new NodeHeap(n);
+			Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		}
+
+		/** Add the dependencies of source s to the centrality of each node. */
+		void accumulate(CompactGraph graph, int s) {
+			int[] firstEdge = graph.firstEdge;
+			int[] edgeTarget = graph.edgeTarget;
+			double[] edgeLength = graph.edgeLength;
+
+			// Dijkstra from s, counting the shortest paths to each node
+			int settledCount = 0;
+			distance[s] = 0;
+			pathCount[s] = 1;
+			open.add(s, 0);
+			while (!open.isEmpty()) {
+				int u = open.poll();
+				if (settled[u]) continue;
+				settled[u] = true;
+				order[settledCount++] = u;
+				for (int e = firstEdge[u]; e < firstEdge[u + 1]; e++) {
+					int v = edgeTarget[e];
+					double d = distance[u] + edgeLength[e];
+					if (d < distance[v]) {
+						distance[v] = d;
+						pathCount[v] = pathCount[u];
+						open.add(v, d);
+					}
+					else if (d == distance[v] && v != u) {
+						pathCount[v] += pathCount[u];
+					}
+				}
+			}
+
+			// Back along the settled order: an edge u->v is on a shortest
+			// path when distance[u] + length == distance[v], and v was
+			// settled after u so its dependency is already complete.
+			for (int i = settledCount - 1; i >= 0; i--) {
+				int u = order[i];
+				double sum = 0;
+				for (int e = firstEdge[u]; e < firstEdge[u + 1]; e++) {
+					int v = edgeTarget[e];
+					if (v != u && distance[u] + edgeLength[e] == distance[v]) {
+						sum += (1 + dependency[v]) / pathCount[v];
+					}
+				}
+				dependency[u] = pathCount[u] * sum;
+				if (u != s) {
+					centrality[u] += dependency[u];
+				}
+			}
+
+			// reset only what this source touched
+			for (int i = 0; i < settledCount; i++) {
+				int u = order[i];
+				distance[u] = Double.POSITIVE_INFINITY;
+				pathCount[u] = 0;
+				dependency[u] = 0;
+				settled[u] = false;
+			}
+			open.clear();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package roadgraph;
+
+/**
+ * A flag which tells a running search to stop.  The search checks the flag
+ * every few node expansions, so it stops shortly after cancel is called.
+ * A token may be shared by several searches and may be cancelled from any
+ * thread.
+ *
+ * A child token is cancelled along with its parent, but cancelling the
+ * child leaves the parent and the other searches using it running.
+ *
+ * @author Daniel
+ *
+ */
+public class CancellationToken {
+
+	private final CancellationToken parent;
+	private volatile boolean cancelled = false;
+
+	public CancellationToken() {
+		this(null);
+	}
+
+	/**
+	 * @param parent A token whose cancellation also cancels this one, or
+	 *   null for none
+	 */
+	public CancellationToken(CancellationToken parent) {
+		this.parent = parent;
+	}
+
+	/** Ask every search using this token to stop. */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return true if cancel has been called on this token or its parent
+	 */
+	public boolean isCancelled() {
+		return cancelled || (parent != null && parent.isCancelled());
+	}
+}
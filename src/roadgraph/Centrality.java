@@ -0,0 +1,74 @@
+package roadgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import geography.GeographicPoint;
+import util.TopScores;
+
+/**
+ * The betweenness centrality of the intersections of a MapGraph: for each
+ * intersection, the number of shortest paths between other intersections
+ * that pass through it.  Paths are weighted by road length.
+ *
+ * A sampled result runs shortest paths from only some of the
+ * intersections and scales the counts up, so its scores are estimates.
+ *
+ * @author Daniel
+ *
+ */
+public class Centrality {
+
+	private final CompactGraph graph;
+	private final double[] scores;
+	private final int sources;
+	private final long elapsedNanos;
+
+	Centrality(CompactGraph graph, double[] scores, int sources, long elapsedNanos) {
+		this.graph = graph;
+		this.scores = scores;
+		this.sources = sources;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @param location The location of an intersection
+	 * @return its centrality, or 0 if there is no intersection there
+	 */
+	public double getScore(GeographicPoint location) {
+		int id = graph.getId(location);
+		return id < 0 ? 0 : scores[id];
+	}
+
+	/**
+	 * @return true if the scores were estimated from a sample of sources
+	 */
+	public boolean isSampled() {
+		return sources < graph.numNodes;
+	}
+
+	/**
+	 * @return the number of sources shortest paths were run from
+	 */
+	public int getSources() {
+		return sources;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * The intersections with the highest centrality, highest first.  Ties
+	 * are broken by node id so the order is repeatable.
+	 * @param count The number of intersections wanted
+	 * @return up to count intersections
+	 */
+	public List<GeographicPoint> top(int count) {
+		List<GeographicPoint> ranked = new ArrayList<GeographicPoint>();
+		for (int v : TopScores.of(scores, count)) {
+			ranked.add(graph.coordinates.getPoint(v));
+		}
+		return ranked;
+	}
+}
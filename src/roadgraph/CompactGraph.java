@@ -0,0 +1,145 @@
+package roadgraph;
+
+import java.util.Arrays;
+import java.util.List;
+
+import geography.CoordinateStore;
+import geography.EdgeGeometry;
+import geography.GeographicPoint;
+
+/**
+ * An immutable, array based snapshot of a MapGraph that the searches run on.
+ *
+ * Nodes are numbered 0..numNodes-1.  The outgoing edges of node u occupy the
+ * index range firstEdge[u] .. firstEdge[u+1]-1 of the edge arrays (compressed
+ * sparse row layout), in the same order as they were added to the MapNode.
+ * The index of an edge in these arrays is only its position in this
+ * snapshot and changes with the node order; edges[e].getId() is the stable
+ * MapEdge id, under which the edge's shape is kept in the EdgeGeometry.
+ * Likewise nodeIds[u] is the stable MapNode id of node u.
+ *
+ * @author Daniel
+ *
+ */
+class CompactGraph {
+
+	final int numNodes;
+	final int numEdges;
+
+	// node locations, indexed by node id
+	final CoordinateStore coordinates;
+	// the MapNode id of each node, which does not change with the order
+	final int[] nodeIds;
+
+	final int[] firstEdge;
+	final int[] edgeSource;
+	final int[] edgeTarget;
+	final double[] edgeLength;
+	final MapEdge[] edges;
+	// road shapes, indexed by MapEdge id
+	final EdgeGeometry geometry;
+
+	private CompactGraph(CoordinateStore coordinates, int[] nodeIds, int[] firstEdge, int[] edgeTarget,
+			double[] edgeLength, MapEdge[] edges, EdgeGeometry geometry) {
+		this.numNodes = coordinates.size();
+		this.numEdges = edgeTarget.length;
+		this.coordinates = coordinates;
+		this.nodeIds = nodeIds;
+		this.firstEdge = firstEdge;
+		this.edgeSource = new int[numEdges];
+		for (int u = 0; u < numNodes; u++) {
+			Arrays.fill(edgeSource, firstEdge[u], firstEdge[u + 1], u);
+		}
+		this.edgeTarget = edgeTarget;
+		this.edgeLength = edgeLength;
+		this.edges = edges;
+		this.geometry = geometry;
+	}
+
+	/**
+	 * Freeze the nodes of a MapGraph, numbering them in the given order.
+	 * @param nodes The nodes of the graph, indexed by id
+	 * @param coordinates The locations of the nodes, indexed by id
+	 * @param geometry The shapes of the edges, indexed by MapEdge id
+	 * @param order The order in which to number the nodes
+	 * @return the compact representation
+	 */
+	static CompactGraph build(List<MapNode> nodes, CoordinateStore coordinates, EdgeGeometry geometry,
+			NodeOrder order) {
+		int n = nodes.size();
+		int m = 0;
+		for (MapNode node : nodes) {
+			m += node.getEdgeCount();
+		}
+
+		int[] firstEdge = new int[n + 1];
+		int[] edgeTarget = new int[m];
+		double[] edgeLength = new double[m];
+		MapEdge[] edges = new MapEdge[m];
+		int e = 0;
+		for (int i = 0; i < n; i++) {
+			firstEdge[i] = e;
+			MapNode node = nodes.get(i);
+			for (int k = 0; k < node.getEdgeCount(); k++) {
+				MapEdge edge = node.getEdge(k);
+				edgeTarget[e] = edge.getToId();
+				edgeLength[e] = edge.getLength();
+				edges[e] = edge;
+				e++;
+			}
+		}
+		firstEdge[n] = e;
+
+		// copy the coordinates so later changes to the MapGraph do not leak in
+		CoordinateStore copy = coordinates.permute(NodeReordering.identity(n));
+		CompactGraph graph = new CompactGraph(copy, NodeReordering.identity(n), firstEdge, edgeTarget,
+				edgeLength, edges, geometry);
+		if (order == NodeOrder.INSERTION) {
+			return graph;
+		}
+		return graph.renumber(NodeReordering.permutation(order, copy, firstEdge, edgeTarget));
+	}
+
+	/**
+	 * Build a copy of this graph with the nodes renumbered.  All node ids,
+	 * coordinates and edge arrays are remapped; the outgoing edges of each
+	 * node keep their relative order.
+	 * @param newToOld newToOld[i] is the current id of the node that becomes node i
+	 * @return the renumbered graph
+	 */
+	CompactGraph renumber(int[] newToOld) {
+		int[] oldToNew = new int[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			oldToNew[newToOld[i]] = i;
+		}
+		int[] newNodeIds = new int[numNodes];
+		int[] newFirstEdge = new int[numNodes + 1];
+		int[] newEdgeTarget = new int[numEdges];
+		double[] newEdgeLength = new double[numEdges];
+		MapEdge[] newEdges = new MapEdge[numEdges];
+		int e = 0;
+		for (int i = 0; i < numNodes; i++) {
+			int old = newToOld[i];
+			newNodeIds[i] = nodeIds[old];
+			newFirstEdge[i] = e;
+			for (int k = firstEdge[old]; k < firstEdge[old + 1]; k++) {
+				newEdgeTarget[e] = oldToNew[edgeTarget[k]];
+				newEdgeLength[e] = edgeLength[k];
+				newEdges[e] = edges[k];
+				e++;
+			}
+		}
+		newFirstEdge[numNodes] = e;
+		return new CompactGraph(coordinates.permute(newToOld), newNodeIds, newFirstEdge, newEdgeTarget,
+				newEdgeLength, newEdges, geometry);
+	}
+
+	/**
+	 * Look up the id of the node at a location.
+	 * @param location The location of the intersection
+	 * @return the node id, or -1 if there is no node at that location
+	 */
+	int getId(GeographicPoint location) {
+		return coordinates.indexOf(location);
+	}
+}
@@ -1,137 +1,224 @@
 package roadgraph;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import geography.CoordinateStore;
 import geography.GeographicPoint;
 
+/**
+ * A directed graph of intersections for quick degree statistics.
+ *
+ * Each vertex gets an integer id (0, 1, 2, ...) when it is added; its
+ * location lives in a CoordinateStore, which also maps a location back to
+ * its id.  The graph keeps both the forward (out) and reverse (in)
+ * adjacency of every vertex as growable int arrays, so in-neighbors and
+ * degrees are available without scanning the other vertices.
+ */
 public class GraphAdjList {
-	private Map<GeographicPoint, List<GeographicPoint>> adjListMap;
+	private CoordinateStore coordinates;
+	// the first outSize[v] entries of out[v] are the out-neighbors of v,
+	// the first inSize[v] entries of in[v] its in-neighbors
+	private int[][] out;
+	private int[] outSize;
+	private int[][] in;
+	private int[] inSize;
 	private int numOfEdges = 0;
 
 	public GraphAdjList() {
-		this.adjListMap = new HashMap<GeographicPoint, List<GeographicPoint>>();
+		this.coordinates = new CoordinateStore();
+		this.out = new int[16][];
+		this.outSize = new int[16];
+		this.in = new int[16][];
+		this.inSize = new int[16];
 	}
 
 	public int getNumVertices() {
-		return this.adjListMap.size();
+		return this.coordinates.size();
 	}
 
+	/**
+	 * @return a read-only set of the locations of all the vertices
+	 */
 	public Set<GeographicPoint> getVertices() {
-		return this.adjListMap.keySet();
+		Set<GeographicPoint> vertices = new HashSet<GeographicPoint>();
+		for (int v = 0; v < getNumVertices(); v++) {
+			vertices.add(this.coordinates.getPoint(v));
+		}
+		return Collections.unmodifiableSet(vertices);
 	}
 
 	public int getNumOfEdges() {
 		return numOfEdges;
 	}
 
-	/** 
+	/**
 	 * Count the number of edges per node in the map and return it as list.
-	 * 
+	 * Only the nodes that some edge starts from are included.
+	 * Takes a single pass over the vertices.
+	 *
 	 * @return edge counts of all nodes
 	 */
 	public Map<GeographicPoint, Integer> getEdgeCounts() {
 		Map<GeographicPoint, Integer> edgeCounts = new HashMap<>();
-		for (GeographicPoint i : getVertices()) {
-			List<GeographicPoint> inNeighbours = getInNeighbors(i);
-			//count the in-degrees
-			for (GeographicPoint in : inNeighbours) {
-				updateEdgeCounts(edgeCounts, in);
+		for (int v = 0; v < getNumVertices(); v++) {
+			if (outSize[v] > 0) {
+				edgeCounts.put(this.coordinates.getPoint(v), outSize[v]);
 			}
 		}
-
 		return edgeCounts;
 	}
 
-	private void updateEdgeCounts(Map<GeographicPoint, Integer> edgeCounts, GeographicPoint in) {
-		if (edgeCounts.containsKey(in)) {
-			edgeCounts.put(in, edgeCounts.get(in) + 1);
-		} else {
-			edgeCounts.put(in, 1);
-		}
+	/**
+	 * Count the edges into every vertex in a single pass.
+	 *
+	 * @return inDegrees[id] is the number of edges into the vertex with that id
+	 */
+	public int[] getInDegrees() {
+		return Arrays.copyOf(inSize, getNumVertices());
+	}
+
+	/**
+	 * @param v the location of a vertex
+	 * @return the number of edges into v, or 0 if v is not in the graph
+	 */
+	public int getInDegree(GeographicPoint v) {
+		int id = this.coordinates.indexOf(v);
+		return id < 0 ? 0 : inSize[id];
+	}
+
+	/**
+	 * @param v the location of a vertex
+	 * @return the number of edges out of v, or 0 if v is not in the graph
+	 */
+	public int getOutDegree(GeographicPoint v) {
+		int id = this.coordinates.indexOf(v);
+		return id < 0 ? 0 : outSize[id];
+	}
+
+	/**
+	 * @param v the location of a vertex
+	 * @return the id of the vertex, or -1 if v is not in the graph
+	 */
+	public int getId(GeographicPoint v) {
+		return this.coordinates.indexOf(v);
 	}
 
-	/** 
-	 * Implement the abstract method for finding all 
+	/**
+	 * Implement the abstract method for finding all
 	 * out-neighbors of a vertex.
 	 * If there are multiple edges between the vertex
 	 * and one of its out-neighbors, this neighbor
 	 * appears once in the list for each of these edges.
-	 * 
+	 *
 	 * @param v the index of vertex.
-	 * @return List<GeographicPoint> a list of indices of vertices.  
-	 */	
+	 * @return List<GeographicPoint> a read-only view of the out-neighbors,
+	 *   which sees edges added later.
+	 */
 	public List<GeographicPoint> getNeighbors(GeographicPoint v) {
-		return new ArrayList<GeographicPoint>(this.adjListMap.get(v));
+		return new NeighborView(this.coordinates.indexOf(v), false);
 	}
 
-	/** 
-	 * Implement the abstract method for finding all 
+	/**
+	 * Implement the abstract method for finding all
 	 * in-neighbors of a vertex.
 	 * If there are multiple edges from another vertex
 	 * to this one, the neighbor
 	 * appears once in the list for each of these edges.
-	 * 
+	 *
 	 * @param v the index of vertex.
-	 * @return List<GeographicPoint> a list of indices of vertices.  
-	 */	
+	 * @return List<GeographicPoint> a read-only view of the in-neighbors,
+	 *   which sees edges added later.
+	 */
 	public List<GeographicPoint> getInNeighbors(GeographicPoint v) {
-		List<GeographicPoint> inNeighbors = new ArrayList<>();
-		for (GeographicPoint u : this.adjListMap.keySet()) {
-			//iterate through all edges in u's adjacency list and 
-			//add u to the inNeighbor list of v whenever an edge
-			//with startpoint u has endpoint v.
-			for (GeographicPoint w : this.adjListMap.get(u)) {
-				if (GraphUtil.isSameNode(v, w)) {
-					inNeighbors.add(u);
-				}
-			}
+		return new NeighborView(this.coordinates.indexOf(v), true);
+	}
+
+	// Read-only list of the out- or in-neighbors of a vertex; points are
+	// created as they are read
+	private class NeighborView extends AbstractList<GeographicPoint> {
+		private final int id;
+		private final boolean reverse;
+
+		NeighborView(int id, boolean reverse) {
+			this.id = id;
+			this.reverse = reverse;
+		}
+
+		@Override
+		public GeographicPoint get(int index) {
+			if (index < 0 || index >= size()) throw new IndexOutOfBoundsException();
+			return coordinates.getPoint(reverse ? in[id][index] : out[id][index]);
+		}
+
+		@Override
+		public int size() {
+			if (id < 0) return 0;
+			return reverse ? inSize[id] : outSize[id];
 		}
-		return inNeighbors;
 	}
 
 	/** Add a node corresponding to an intersection at a Geographic Point
-	 * If the location is already in the graph or null, this method does 
+	 * If the location is already in the graph or null, this method does
 	 * not change the graph.
 	 * @param location  The location of the intersection
 	 * @return true if a node was added, false if it was not (the node
 	 * was already in the graph, or the parameter is null).
 	 */
 	public boolean addVertex(GeographicPoint location) {
-		if (location == null || this.adjListMap.containsKey(location)) return false;
-		this.adjListMap.put(location, new ArrayList<GeographicPoint>());
+		if (location == null || this.coordinates.indexOf(location) >= 0) return false;
+		int v = this.coordinates.add(location.getX(), location.getY());
+		if (v == out.length) {
+			out = Arrays.copyOf(out, v * 2);
+			outSize = Arrays.copyOf(outSize, v * 2);
+			in = Arrays.copyOf(in, v * 2);
+			inSize = Arrays.copyOf(inSize, v * 2);
+		}
+		out[v] = new int[2];
+		in[v] = new int[2];
 		return true;
 	}
 
 	/**
-	 * Adds a directed edge to the graph from pt1 to pt2.  
+	 * Adds a directed edge to the graph from pt1 to pt2.
 	 * Precondition: Both GeographicPoints have already been added to the graph
 	 * @param from The starting point of the edge
 	 * @param to The ending point of the edge
 	 * @param roadName The name of the road
 	 * @param roadType The type of the road
 	 * @param length The length of the road, in km
-	 * @throws IllegalArgumentException If the points have not already been
-	 *   added as nodes to the graph, if any of the arguments is null,
-	 *   or if the length is less than 0.
 	 */
 	public void addEdge(GeographicPoint from, GeographicPoint to, String roadName, String roadType, double length) {
-		if (this.adjListMap.containsKey(from) && this.adjListMap.containsKey(to)) {
-			this.adjListMap.get(from).add(to);
+		int v = this.coordinates.indexOf(from);
+		int w = this.coordinates.indexOf(to);
+		if (v >= 0 && w >= 0) {
+			out[v] = append(out[v], outSize[v]++, w);
+			in[w] = append(in[w], inSize[w]++, v);
 			numOfEdges++;
 		}
 	}
 
+	// store value at index, growing the array if it is full
+	private static int[] append(int[] array, int index, int value) {
+		if (index == array.length) {
+			array = Arrays.copyOf(array, array.length * 2);
+		}
+		array[index] = value;
+		return array;
+	}
+
 	/**
 	 * Check that a vertex is in the map.
 	 * @param v
 	 * @return true if exists, else false
 	 */
 	public boolean contains(GeographicPoint v) {
-		return this.adjListMap.containsKey(v);
+		return this.coordinates.indexOf(v) >= 0;
 	}
-}
\ No newline at end of file
+}
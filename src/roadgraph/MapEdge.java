@@ -11,14 +11,16 @@ import geography.GeographicPoint;
  */
 public class MapEdge {
 
-	private GeographicPoint from;
-	private GeographicPoint to;
+	private MapNode from;
+	private MapNode to;
 	private String roadName;
 	private String roadType;
 	private double length;
+	private int id;
 
-	public MapEdge(GeographicPoint from, GeographicPoint to, String roadName, String roadType, double length)
+	MapEdge(MapNode from, MapNode to, String roadName, String roadType, double length, int id)
 	{
+		this.id = id;
 		this.from = from;
 		this.to = to;
 		this.roadName = roadName;
@@ -27,11 +29,19 @@ public class MapEdge {
 	}
 
 	public GeographicPoint getFrom() {
-		return from;
+		return from.getLocation();
 	}
 
 	public GeographicPoint getTo() {
-		return to;
+		return to.getLocation();
+	}
+
+	int getFromId() {
+		return from.getId();
+	}
+
+	int getToId() {
+		return to.getId();
 	}
 
 	public String getRoadName() {
@@ -46,5 +56,13 @@ public class MapEdge {
 		return length;
 	}
 
+	/**
+	 * @return the id of the edge in its graph's EdgeGeometry, which is the
+	 *   order in which the edge was added
+	 */
+	public int getId() {
+		return id;
+	}
+
 	
 }
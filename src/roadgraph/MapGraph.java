@@ -8,18 +8,22 @@
 package roadgraph;
 
 
-import java.util.ArrayDeque;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 
+import geography.CoordinateStore;
+import geography.EdgeGeometry;
+import geography.MemoryEdgeGeometry;
 import geography.GeographicPoint;
 import util.GraphLoader;
 
@@ -33,13 +37,36 @@ import util.GraphLoader;
 public class MapGraph {
 	private int numEdges = 0;
 	private List<MapNode> nodes;
+	// intersection locations, indexed by node id
+	private CoordinateStore coordinates;
+	// road shapes, indexed by edge id
+	private EdgeGeometry geometry;
+	private NodeOrder nodeOrder = NodeOrder.INSERTION;
+	// query representation, rebuilt after the graph changes
+	private CompactGraph frozen;
 	
 	/** 
 	 * Create a new empty MapGraph 
 	 */
 	public MapGraph()
 	{
+		this(new MemoryEdgeGeometry());
+	}
+
+	/**
+	 * Create a new empty MapGraph which keeps the shapes of its roads in
+	 * the given store, for instance a MappedEdgeGeometry so they stay off
+	 * the heap until a route is drawn.
+	 * @param geometry An empty store for the road shapes
+	 */
+	public MapGraph(EdgeGeometry geometry)
+	{
+		if (geometry == null || geometry.getNumEdges() != 0) {
+			throw new IllegalArgumentException("geometry must be an empty store");
+		}
 		nodes = new ArrayList<MapNode>();
+		coordinates = new CoordinateStore();
+		this.geometry = geometry;
 	}
 	
 	/**
@@ -58,8 +85,8 @@ public class MapGraph {
 	public Set<GeographicPoint> getVertices()
 	{
 		Set<GeographicPoint> vertices = new HashSet<>();
-		for (MapNode n : nodes) {
-			vertices.add(n.getLocation());
+		for (int i = 0; i < coordinates.size(); i++) {
+			vertices.add(coordinates.getPoint(i));
 		}
 		return vertices;
 	}
@@ -82,18 +109,13 @@ public class MapGraph {
 	 */
 	public boolean addVertex(GeographicPoint location)
 	{
-		for (MapNode n : nodes) {
-			if(isSameLocation(location, n.getLocation())) return false;
-		}
-		MapNode node = new MapNode(location);
-		nodes.add(node);
+		if (location == null || coordinates.indexOf(location) >= 0) return false;
+		int id = coordinates.add(location.getX(), location.getY());
+		nodes.add(new MapNode(id, coordinates));
+		frozen = null;
 		return true;
 	}
 
-	private boolean isSameLocation(GeographicPoint a, GeographicPoint b) {
-		return (a.getX() == b.getX()) && (a.getY() == b.getY());
-	}
-
 	/**
 	 * Adds a directed edge to the graph from pt1 to pt2.  
 	 * Precondition: Both GeographicPoints have already been added to the graph
@@ -108,35 +130,56 @@ public class MapGraph {
 	 */
 	public void addEdge(GeographicPoint from, GeographicPoint to, String roadName,
 			String roadType, double length) throws IllegalArgumentException {
-		boolean added = false;
-		added = addEdgeFrom(from, to, roadName, roadType, length, added);
-		if (!added) {
-			added = addEdgeTo(from, to, roadName, roadType, length, added);
-			if (!added) return; // should not happen, but just in case
+		addEdge(from, to, roadName, roadType, length, Collections.emptyList());
+	}
+
+	/**
+	 * Adds a directed edge to the graph from pt1 to pt2, following the
+	 * road through the given points.
+	 * Precondition: Both GeographicPoints have already been added to the graph
+	 * @param from The starting point of the edge
+	 * @param to The ending point of the edge
+	 * @param roadName The name of the road
+	 * @param roadType The type of the road
+	 * @param length The length of the road, in km
+	 * @param between The points along the road between from and to, in order
+	 * @throws IllegalArgumentException If the points have not already been
+	 *   added as nodes to the graph, if any of the arguments is null,
+	 *   or if the length is less than 0.
+	 */
+	public void addEdge(GeographicPoint from, GeographicPoint to, String roadName,
+			String roadType, double length, List<GeographicPoint> between)
+			throws IllegalArgumentException {
+		int fromId = coordinates.indexOf(from);
+		int toId = coordinates.indexOf(to);
+		if (fromId < 0 || toId < 0 || roadName == null || roadType == null || length < 0
+				|| between == null) {
+			throw new IllegalArgumentException();
 		}
+		int id = geometry.add(from, between, to);
+		nodes.get(fromId).addEdge(nodes.get(toId), roadName, roadType, length, id);
 		++numEdges;
+		frozen = null;
 	}
 
-	private boolean addEdgeTo(GeographicPoint from, GeographicPoint to, String roadName, String roadType, double length,
-			boolean added) {
-		for (MapNode node : nodes) {
-			if (isSameLocation(to, node.getLocation())) {
-				node.addEdge(from, to, roadName, roadType, length);
-				added = true;
-			}
-		}
-		return added;
+	/**
+	 * @return the shapes of the roads of the graph, indexed by edge id
+	 * @see MapEdge#getId()
+	 */
+	public EdgeGeometry getGeometry()
+	{
+		return geometry;
 	}
 
-	private boolean addEdgeFrom(GeographicPoint from, GeographicPoint to, String roadName, String roadType,
-			double length, boolean added) {
-		for (MapNode node : nodes) {
-			if (isSameLocation(from, node.getLocation())) {
-				node.addEdge(from, to, roadName, roadType, length);
-				added = true;
-			}
-		}
-		return added;
+	/**
+	 * Release what the road shapes hold besides memory, such as the file
+	 * of a MappedEdgeGeometry.  The graph can still be searched, but the
+	 * shapes of its roads cannot be read afterwards.
+	 * @throws IOException if the geometry store cannot be closed
+	 */
+	public void close() throws IOException
+	{
+		geometry.close();
 	}
 	
 
@@ -165,73 +208,7 @@ public class MapGraph {
 	public List<GeographicPoint> bfs(GeographicPoint start, 
 			 					     GeographicPoint goal, Consumer<GeographicPoint> nodeSearched)
 	{
-		boolean found = false;
-		for (MapNode node : nodes) {
-			if (isSameLocation(node.getLocation(), start)) {
-				found = true;
-				break;
-			}
-		}
-		if (!found) return null;
-
-		Queue<GeographicPoint> next = new ArrayDeque<>();
-		Set<GeographicPoint> visited = new HashSet<>();
-		Map<GeographicPoint, GeographicPoint> parentMap = new HashMap<>();
-
-		next.add(start);
-		visited.add(start);
-		while (!next.isEmpty()) {
-			GeographicPoint current = next.remove();
-			if (isSameLocation(current, goal)) {
-				return reconstructPath(start, current, parentMap);
-			}
-			//get neighbours of current node
-			List<MapEdge> edges = getEdges(current);
-			for (MapEdge edge : edges) {
-				if (visited.contains(edge.getTo())) {
-					continue;
-				}
-				visited.add(edge.getTo());
-				parentMap.put(edge.getTo(), current);
-				next.add(edge.getTo());
-			}
-		}
-
-		// Hook for visualization.  See writeup.
-		//nodeSearched.accept(next.getLocation());
-		return null;
-	}
-
-	private List<MapEdge> getEdges(GeographicPoint current) {
-		MapNode currNode = null;
-		for (MapNode node : nodes) {
-			if (isSameLocation(node.getLocation(), current)) {
-				currNode = node;
-				break;
-			}
-		}
-		List<MapEdge> edges = currNode.getEdges();
-		return edges;
-	}
-
-	/**
-	 * Searching the starting node, beginning from the current node, and return the path.
-	 * @param start
-	 * @param current
-	 * @param parentMap
-	 * @return path
-	 */
-	private List<GeographicPoint> reconstructPath(GeographicPoint start, GeographicPoint current,
-			Map<GeographicPoint, GeographicPoint> parentMap) {
-		List<GeographicPoint> path = new ArrayList<>();
-		GeographicPoint currv = current;
-		while (!isSameLocation(currv, start)) {
-			path.add(currv);
-			currv = parentMap.get(currv);
-		}
-		path.add(start);
-		Collections.reverse(path);
-		return path;
+		return toList(findPath(start, goal, SearchAlgorithm.BFS, nodeSearched));
 	}
 
 	/** Find the path from start to goal using Dijkstra's algorithm
@@ -259,48 +236,7 @@ public class MapGraph {
 	public List<GeographicPoint> dijkstra(GeographicPoint start, 
 										  GeographicPoint goal, Consumer<GeographicPoint> nodeSearched)
 	{
-		// TODO: Implement this method in WEEK 3
-		Queue<Route> pq = new PriorityQueue<>();
-		Set<GeographicPoint> visited = new HashSet<>();
-		Map<GeographicPoint, GeographicPoint> parentMap = new HashMap<>();
-
-		Map<GeographicPoint, Route> routeMap = new HashMap<>();
-		routeMap.put(start, new Route(start, start, 0.0));
-		pq.add(routeMap.get(start));
-
-		Set<GeographicPoint> vertices = getVertices();
-		for (GeographicPoint v : vertices) {
-			routeMap.put(v, new Route(start, v));
-		}
-
-		while (!pq.isEmpty()) {
-			GeographicPoint curr = pq.remove().getLocation();
-
-			if (visited.contains(curr)) continue;
-
-			visited.add(curr);
-			if (GraphUtil.isSameNode(curr, goal)) return reconstructPath(start, curr, parentMap);
-			//get neighbours of current node
-			List<MapEdge> edges = getEdges(curr);
-			for (MapEdge edge : edges) {
-				if (visited.contains(edge.getTo())) {
-					continue;
-				}
-				Route n = routeMap.get(edge.getTo());
-				double distance = routeMap.get(curr).getDistanceFromOrigin() + edge.getLength();
-				if (distance < n.getDistanceFromOrigin()) {
-					n.setDistanceFromOrigin(distance);
-					routeMap.put(n.getLocation(), n);
-				}
-				parentMap.put(n.getLocation(), curr);
-				pq.add(n);
-			}
-		}
-
-		// Hook for visualization.  See writeup.
-		//nodeSearched.accept(next.getLocation());
-		
-		return null;
+		return toList(findPath(start, goal, SearchAlgorithm.DIJKSTRA, nodeSearched));
 	}
 
 	/** Find the path from start to goal using A-Star search
@@ -327,12 +263,430 @@ public class MapGraph {
 	public List<GeographicPoint> aStarSearch(GeographicPoint start, 
 											 GeographicPoint goal, Consumer<GeographicPoint> nodeSearched)
 	{
-		// TODO: Implement this method in WEEK 3
-		
-		// Hook for visualization.  See writeup.
-		//nodeSearched.accept(next.getLocation());
-		
-		return null;
+		return toList(findPath(start, goal, SearchAlgorithm.A_STAR, nodeSearched));
+	}
+
+	// The list form of a search result, or null if there is no path
+	private static List<GeographicPoint> toList(PathResult result)
+	{
+		return result != null && result.isFound() ? result.getPoints() : null;
+	}
+
+	/** Find the path from start to goal with the given algorithm
+	 * 
+	 * @param start The starting location
+	 * @param goal The goal location
+	 * @param algorithm The search algorithm to use
+	 * @return The path with its cost and search statistics, or null if
+	 *   start or goal is not an intersection in this graph.
+	 */
+	public PathResult findPath(GeographicPoint start, GeographicPoint goal,
+			SearchAlgorithm algorithm)
+	{
+		Consumer<GeographicPoint> temp = (x) -> {};
+		return findPath(start, goal, algorithm, temp);
+	}
+
+	/** Find the path from start to goal with the given algorithm
+	 * 
+	 * @param start The starting location
+	 * @param goal The goal location
+	 * @param algorithm The search algorithm to use
+	 * @param nodeSearched A hook for visualization, called for each node the search expands.
+	 * @return The path with its cost and search statistics, or null if
+	 *   start or goal is not an intersection in this graph.
+	 */
+	public PathResult findPath(GeographicPoint start, GeographicPoint goal,
+			SearchAlgorithm algorithm, Consumer<GeographicPoint> nodeSearched)
+	{
+		return findPath(start, goal, algorithm, new SearchOptions(), nodeSearched);
+	}
+
+	/** Find the path from start to goal with the given algorithm, stopping
+	 * early if the deadline or cancellation token in the options says so.
+	 * 
+	 * @param start The starting location
+	 * @param goal The goal location
+	 * @param algorithm The search algorithm to use
+	 * @param options The deadline and cancellation token of this query
+	 * @param nodeSearched A hook for visualization, called for each node the search expands.
+	 * @return The result of the search (see PathResult.Status), or null if
+	 *   start or goal is not an intersection in this graph.
+	 */
+	public PathResult findPath(GeographicPoint start, GeographicPoint goal,
+			SearchAlgorithm algorithm, SearchOptions options, Consumer<GeographicPoint> nodeSearched)
+	{
+		long begin = System.nanoTime();
+		CompactGraph graph = freeze();
+		int s = graph.getId(start);
+		int g = graph.getId(goal);
+		if (s < 0 || g < 0) return null;
+
+		SearchStats stats = new SearchStats();
+		SearchLimit limit = new SearchLimit(options, begin);
+		PathResult result;
+		switch (algorithm) {
+		case BFS:
+			result = breadthFirst(graph, s, g, nodeSearched, limit, stats);
+			break;
+		case DIJKSTRA:
+			result = shortestPath(graph, s, g, nodeSearched, 0.0, limit, stats);
+			break;
+		case A_STAR:
+			result = shortestPath(graph, s, g, nodeSearched, 1.0, limit, stats);
+			break;
+		case WEIGHTED_A_STAR:
+			result = shortestPath(graph, s, g, nodeSearched, options.getHeuristicWeight(), limit, stats);
+			break;
+		case FOCAL:
+			result = focalSearch(graph, s, g, nodeSearched, options.getSuboptimality(), limit, stats);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown search algorithm " + algorithm);
+		}
+		stats.elapsedNanos = System.nanoTime() - begin;
+		return result;
+	}
+
+	/** Run a search in the background on the common fork-join pool.
+	 * 
+	 * @see #findPathAsync(GeographicPoint, GeographicPoint, SearchAlgorithm, SearchOptions, Executor)
+	 */
+	public CompletableFuture<PathResult> findPathAsync(GeographicPoint start, GeographicPoint goal,
+			SearchAlgorithm algorithm, SearchOptions options)
+	{
+		return findPathAsync(start, goal, algorithm, options, ForkJoinPool.commonPool());
+	}
+
+	/** Run a search in the background.
+	 * 
+	 * Cancelling the returned future also stops the search.  It does not
+	 * cancel the token in options, which other searches may share;
+	 * cancelling that token stops this search too.  The graph must not be
+	 * changed while background searches are running.
+	 * 
+	 * @param start The starting location
+	 * @param goal The goal location
+	 * @param algorithm The search algorithm to use
+	 * @param options The deadline and cancellation token of this query
+	 * @param executor The executor to run the search on
+	 * @return A future completed with the result of the search (null if
+	 *   start or goal is not an intersection in this graph).
+	 */
+	public CompletableFuture<PathResult> findPathAsync(GeographicPoint start, GeographicPoint goal,
+			SearchAlgorithm algorithm, SearchOptions options, Executor executor)
+	{
+		// cancelling the future stops only this query, not the others
+		// sharing the caller's token
+		SearchOptions queryOptions = new SearchOptions(options);
+		CancellationToken token = new CancellationToken(queryOptions.getCancellation());
+		queryOptions.cancellation(token);
+		Consumer<GeographicPoint> temp = (x) -> {};
+
+		CompletableFuture<PathResult> future = CompletableFuture.supplyAsync(
+				() -> findPath(start, goal, algorithm, queryOptions, temp), executor);
+		future.whenComplete((result, e) -> {
+			if (future.isCancelled()) {
+				token.cancel();
+			}
+		});
+		return future;
+	}
+
+	/** Compute the exact betweenness centrality of every intersection,
+	 * running a shortest path search from each of them on the common
+	 * fork-join pool.
+	 * 
+	 * @return the centrality of each intersection; empty if there are none
+	 */
+	public Centrality betweenness()
+	{
+		// an empty graph has no sources; asking for one gives an empty result
+		return betweenness(Math.max(getNumVertices(), 1), 0);
+	}
+
+	/** Estimate the betweenness centrality of every intersection from the
+	 * shortest paths out of a random sample of intersections.  The counts
+	 * are scaled by (intersections / samples), so they estimate the exact
+	 * scores.  Takes time proportional to samples rather than to the
+	 * number of intersections.
+	 * 
+	 * @param samples The number of source intersections to use; the exact
+	 *   result is computed if this is at least the number of intersections
+	 * @param seed The seed used to choose the sources
+	 * @return the centrality of each intersection
+	 */
+	public Centrality betweenness(int samples, long seed)
+	{
+		if (samples <= 0) {
+			throw new IllegalArgumentException("samples must be positive");
+		}
+		long begin = System.nanoTime();
+		CompactGraph graph = freeze();
+		int n = graph.numNodes;
+		int[] sources = NodeReordering.identity(n);
+		if (samples < n) {
+			// partial Fisher-Yates shuffle picks samples distinct sources
+			Random random = new Random(seed);
+			for (int i = 0; i < samples; i++) {
+				int j = i + random.nextInt(n - i);
+				int t = sources[i];
+				sources[i] = sources[j];
+				sources[j] = t;
+			}
+			sources = Arrays.copyOf(sources, samples);
+		}
+		double[] scores = Betweenness.compute(graph, sources, ForkJoinPool.commonPool());
+		if (sources.length < n) {
+			double scale = (double) n / sources.length;
+			for (int v = 0; v < n; v++) {
+				scores[v] *= scale;
+			}
+		}
+		return new Centrality(graph, scores, sources.length, System.nanoTime() - begin);
+	}
+
+	private PathResult breadthFirst(CompactGraph graph, int s, int g,
+			Consumer<GeographicPoint> nodeSearched, SearchLimit limit, SearchStats stats)
+	{
+		int[] parentEdge = new int[graph.numNodes];
+		Arrays.fill(parentEdge, -1);
+		boolean[] visited = new boolean[graph.numNodes];
+		int[] queue = new int[graph.numNodes];
+		int head = 0;
+		int tail = 0;
+
+		queue[tail++] = s;
+		visited[s] = true;
+		while (head < tail) {
+			int current = queue[head++];
+			if (stats.nodesVisited % SearchOptions.CHECK_INTERVAL == 0) {
+				PathResult.Status stop = limit.check();
+				if (stop != null) return PathResult.withoutPath(graph, stats, stop);
+			}
+			stats.nodesVisited++;
+			// Hook for visualization.  See writeup.
+			nodeSearched.accept(graph.coordinates.getPoint(current));
+			if (current == g) {
+				return PathResult.fromParents(graph, s, g, parentEdge, stats, PathResult.Status.FOUND);
+			}
+			//get neighbours of current node
+			for (int e = graph.firstEdge[current]; e < graph.firstEdge[current + 1]; e++) {
+				stats.edgesRelaxed++;
+				int next = graph.edgeTarget[e];
+				if (visited[next]) {
+					continue;
+				}
+				visited[next] = true;
+				parentEdge[next] = e;
+				queue[tail++] = next;
+			}
+		}
+
+		return PathResult.withoutPath(graph, stats, PathResult.Status.NO_PATH);
+	}
+
+	/**
+	 * Best first search ordered by f = g + weight * h, where h is the straight
+	 * line distance to the goal.  A weight of 0 gives Dijkstra's algorithm,
+	 * 1 gives A*, and a weight w > 1 gives weighted A*, which finds a path at
+	 * most w times as long as the shortest one (h is consistent, so no node
+	 * needs to be expanded twice).  On timeout the heuristic searches return
+	 * the path to the reached node closest to the goal.
+	 */
+	private PathResult shortestPath(CompactGraph graph, int s, int g,
+			Consumer<GeographicPoint> nodeSearched, double heuristicWeight,
+			SearchLimit limit, SearchStats stats)
+	{
+		boolean useHeuristic = heuristicWeight > 0;
+		double[] distance = new double[graph.numNodes];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		int[] parentEdge = new int[graph.numNodes];
+		Arrays.fill(parentEdge, -1);
+		boolean[] visited = new boolean[graph.numNodes];
+		NodeHeap pq = new NodeHeap(graph.numNodes);
+
+		// reached node closest to the goal, for best-effort results
+		int closest = s;
+		double closestDistance = graph.coordinates.distance(s, g);
+
+		distance[s] = 0.0;
+		pq.add(s, 0.0);
+		while (!pq.isEmpty()) {
+			int curr = pq.poll();
+			if (visited[curr]) continue;
+			visited[curr] = true;
+			if (stats.nodesVisited % SearchOptions.CHECK_INTERVAL == 0) {
+				PathResult.Status stop = limit.check();
+				if (stop == PathResult.Status.TIMED_OUT && useHeuristic) {
+					return PathResult.fromParents(graph, s, closest, parentEdge, stats,
+							PathResult.Status.BEST_EFFORT);
+				}
+				if (stop != null) return PathResult.withoutPath(graph, stats, stop);
+			}
+			stats.nodesVisited++;
+			// Hook for visualization.  See writeup.
+			nodeSearched.accept(graph.coordinates.getPoint(curr));
+			if (curr == g) return PathResult.fromParents(graph, s, g, parentEdge, stats, PathResult.Status.FOUND);
+
+			//relax the neighbours of current node
+			for (int e = graph.firstEdge[curr]; e < graph.firstEdge[curr + 1]; e++) {
+				stats.edgesRelaxed++;
+				int next = graph.edgeTarget[e];
+				if (visited[next]) {
+					continue;
+				}
+				double d = distance[curr] + graph.edgeLength[e];
+				if (d < distance[next]) {
+					distance[next] = d;
+					parentEdge[next] = e;
+					double priority = d;
+					if (useHeuristic) {
+						double h = graph.coordinates.distance(next, g);
+						if (h < closestDistance) {
+							closest = next;
+							closestDistance = h;
+						}
+						priority += heuristicWeight * h;
+					}
+					pq.add(next, priority);
+				}
+			}
+		}
+
+		return PathResult.withoutPath(graph, stats, PathResult.Status.NO_PATH);
+	}
+
+	/**
+	 * Focal search (A*-epsilon).  OPEN is ordered by f = g + h as in A*; the
+	 * FOCAL list holds the open nodes with f <= (1 + epsilon) * min f, and the
+	 * node expanded next is the one in FOCAL closest to the goal.  The path
+	 * found is at most (1 + epsilon) times as long as the shortest one.
+	 * Closed nodes are reopened when a shorter path to them is found, which
+	 * the bound relies on.
+	 */
+	private PathResult focalSearch(CompactGraph graph, int s, int g,
+			Consumer<GeographicPoint> nodeSearched, double epsilon,
+			SearchLimit limit, SearchStats stats)
+	{
+		double[] distance = new double[graph.numNodes];
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		double[] heuristic = new double[graph.numNodes];
+		int[] parentEdge = new int[graph.numNodes];
+		Arrays.fill(parentEdge, -1);
+		boolean[] closed = new boolean[graph.numNodes];
+
+		// every open node by f; FOCAL by h; open nodes above the bound by f.
+		// All three are lazy: entries for closed nodes or old f values are skipped.
+		NodeHeap open = new NodeHeap(graph.numNodes);
+		NodeHeap focal = new NodeHeap(graph.numNodes);
+		NodeHeap waiting = new NodeHeap(graph.numNodes);
+
+		heuristic[s] = graph.coordinates.distance(s, g);
+		distance[s] = 0.0;
+		open.add(s, heuristic[s]);
+		focal.add(s, heuristic[s]);
+		double bound = (1 + epsilon) * heuristic[s];
+		int closest = s;
+
+		while (true) {
+			while (!open.isEmpty() && isStale(open.peek(), open.peekKey(), distance, heuristic, closed)) {
+				open.poll();
+			}
+			if (open.isEmpty()) break;
+			double newBound = (1 + epsilon) * open.peekKey();
+			if (newBound > bound) {
+				bound = newBound;
+				while (!waiting.isEmpty() && waiting.peekKey() <= bound) {
+					int n = waiting.peek();
+					double f = waiting.peekKey();
+					waiting.poll();
+					if (!isStale(n, f, distance, heuristic, closed)) {
+						focal.add(n, heuristic[n]);
+					}
+				}
+			}
+			while (!focal.isEmpty() && closed[focal.peek()]) {
+				focal.poll();
+			}
+			if (focal.isEmpty()) continue;
+
+			int curr = focal.poll();
+			closed[curr] = true;
+			if (stats.nodesVisited % SearchOptions.CHECK_INTERVAL == 0) {
+				PathResult.Status stop = limit.check();
+				if (stop == PathResult.Status.TIMED_OUT) {
+					return PathResult.fromParents(graph, s, closest, parentEdge, stats,
+							PathResult.Status.BEST_EFFORT);
+				}
+				if (stop != null) return PathResult.withoutPath(graph, stats, stop);
+			}
+			stats.nodesVisited++;
+			// Hook for visualization.  See writeup.
+			nodeSearched.accept(graph.coordinates.getPoint(curr));
+			if (curr == g) return PathResult.fromParents(graph, s, g, parentEdge, stats, PathResult.Status.FOUND);
+
+			for (int e = graph.firstEdge[curr]; e < graph.firstEdge[curr + 1]; e++) {
+				stats.edgesRelaxed++;
+				int next = graph.edgeTarget[e];
+				double d = distance[curr] + graph.edgeLength[e];
+				if (d < distance[next]) {
+					if (distance[next] == Double.POSITIVE_INFINITY) {
+						heuristic[next] = graph.coordinates.distance(next, g);
+						if (heuristic[next] < heuristic[closest]) {
+							closest = next;
+						}
+					}
+					distance[next] = d;
+					parentEdge[next] = e;
+					closed[next] = false;
+					double f = d + heuristic[next];
+					open.add(next, f);
+					if (f <= bound) {
+						focal.add(next, heuristic[next]);
+					}
+					else {
+						waiting.add(next, f);
+					}
+				}
+			}
+		}
+
+		return PathResult.withoutPath(graph, stats, PathResult.Status.NO_PATH);
+	}
+
+	// A lazy heap entry is stale if its node is closed or its f value is out of date
+	private static boolean isStale(int node, double f, double[] distance, double[] heuristic,
+			boolean[] closed)
+	{
+		return closed[node] || f != distance[node] + heuristic[node];
+	}
+
+	/**
+	 * Set the order in which intersections are numbered when the graph is
+	 * frozen for searching.  Orders which keep neighbouring intersections
+	 * close together in memory make the searches more cache friendly.
+	 * @param order The node order to use from the next search on
+	 */
+	public void setNodeOrder(NodeOrder order)
+	{
+		if (order == null) throw new IllegalArgumentException("order must not be null");
+		if (order != nodeOrder) {
+			nodeOrder = order;
+			frozen = null;
+		}
+	}
+
+	/**
+	 * Return the array based query representation of this graph, building
+	 * it if the graph has changed since it was last built.
+	 */
+	synchronized CompactGraph freeze()
+	{
+		if (frozen == null) {
+			frozen = CompactGraph.build(nodes, coordinates, geometry, nodeOrder);
+		}
+		return frozen;
 	}
 
 	
@@ -4,8 +4,10 @@
 package roadgraph;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import geography.CoordinateStore;
 import geography.GeographicPoint;
 
 /**
@@ -14,23 +16,50 @@ import geography.GeographicPoint;
  */
 public class MapNode {
 
-	private GeographicPoint location;
+	private int id;
+	// the node's location is entry id of the graph's coordinate store
+	private CoordinateStore coordinates;
 	private List<MapEdge> neighbours;
 
-	public MapNode(GeographicPoint gp) {
-		this.location = gp;
+	MapNode(int id, CoordinateStore coordinates) {
+		this.id = id;
+		this.coordinates = coordinates;
 		this.neighbours = new ArrayList<MapEdge>();
 	}
 
+	public int getId() {
+		return id;
+	}
+
 	public GeographicPoint getLocation() {
-		return location;
+		return coordinates.getPoint(id);
 	}
 
+	/**
+	 * @return a read-only view of the edges leaving this node, in the
+	 *   order they were added
+	 */
 	public List<MapEdge> getEdges() {
-		return new ArrayList<MapEdge>(this.neighbours);
+		return Collections.unmodifiableList(this.neighbours);
+	}
+
+	/**
+	 * @return the number of edges leaving this node
+	 */
+	public int getEdgeCount() {
+		return this.neighbours.size();
+	}
+
+	/**
+	 * Get an edge leaving this node without copying the edge list.
+	 * @param index The position of the edge, 0 .. getEdgeCount()-1
+	 * @return the edge
+	 */
+	public MapEdge getEdge(int index) {
+		return this.neighbours.get(index);
 	}
 
-	public void addEdge(GeographicPoint from, GeographicPoint to, String roadName, String roadType, double length) {
-		this.neighbours.add(new MapEdge(from, to, roadName, roadType, length));
+	void addEdge(MapNode to, String roadName, String roadType, double length, int id) {
+		this.neighbours.add(new MapEdge(this, to, roadName, roadType, length, id));
 	}
 }
@@ -0,0 +1,88 @@
+package roadgraph;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of node ids keyed by a double priority, stored in two
+ * primitive arrays.  A node may be added more than once (no decrease-key);
+ * callers skip entries for nodes that have already been settled.
+ *
+ * @author Daniel
+ *
+ */
+class NodeHeap {
+
+	private double[] keys;
+	private int[] nodes;
+	private int size;
+
+	NodeHeap(int capacity) {
+		keys = new double[Math.max(capacity, 16)];
+		nodes = new int[keys.length];
+		size = 0;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	/** The smallest key in the heap.  Precondition: the heap is not empty. */
+	double peekKey() {
+		return keys[0];
+	}
+
+	/** The node with the smallest key.  Precondition: the heap is not empty. */
+	int peek() {
+		return nodes[0];
+	}
+
+	void add(int node, double key) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			nodes = Arrays.copyOf(nodes, size * 2);
+		}
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[parent] <= key) break;
+			keys[i] = keys[parent];
+			nodes[i] = nodes[parent];
+			i = parent;
+		}
+		keys[i] = key;
+		nodes[i] = node;
+	}
+
+	/** Remove and return the node with the smallest key. */
+	int poll() {
+		int top = nodes[0];
+		size--;
+		if (size > 0) {
+			double key = keys[size];
+			int node = nodes[size];
+			int i = 0;
+			int half = size >>> 1;
+			while (i < half) {
+				int child = 2 * i + 1;
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (key <= keys[child]) break;
+				keys[i] = keys[child];
+				nodes[i] = nodes[child];
+				i = child;
+			}
+			keys[i] = key;
+			nodes[i] = node;
+		}
+		return top;
+	}
+}
@@ -0,0 +1,20 @@
+package roadgraph;
+
+/**
+ * The order in which intersections are numbered when a MapGraph is frozen
+ * into its array-based query representation.  Nodes which are numbered
+ * close together are stored close together in memory, so an order that
+ * keeps neighbouring intersections together makes searches more cache
+ * friendly.
+ *
+ * @author Daniel
+ *
+ */
+public enum NodeOrder {
+	/** Keep the order in which the intersections were added (file order). */
+	INSERTION,
+	/** Sort the intersections along a Hilbert curve over latitude/longitude. */
+	HILBERT,
+	/** Reverse Cuthill-McKee: breadth first from low degree nodes, reversed. */
+	RCM
+}
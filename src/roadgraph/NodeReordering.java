@@ -0,0 +1,184 @@
+package roadgraph;
+
+import java.util.Arrays;
+
+import geography.CoordinateStore;
+
+/**
+ * Computes node permutations for the orders described by NodeOrder.
+ * Every method returns an array newToOld where newToOld[i] is the old id
+ * of the node that becomes node i.
+ *
+ * @author Daniel
+ *
+ */
+final class NodeReordering {
+
+	// Resolution of the Hilbert curve grid in each dimension (2^16 cells)
+	private static final int HILBERT_BITS = 16;
+
+	private NodeReordering() {
+	}
+
+	/**
+	 * Compute the permutation for the given order.
+	 * @param order The requested order
+	 * @param coordinates Location of each node, by old id
+	 * @param firstEdge CSR offsets of the outgoing edges, by old id
+	 * @param edgeTarget Target node (old id) of each edge
+	 * @return the newToOld permutation
+	 */
+	static int[] permutation(NodeOrder order, CoordinateStore coordinates,
+			int[] firstEdge, int[] edgeTarget) {
+		switch (order) {
+		case HILBERT:
+			return hilbert(coordinates);
+		case RCM:
+			return reverseCuthillMcKee(firstEdge, edgeTarget);
+		default:
+			return identity(coordinates.size());
+		}
+	}
+
+	static int[] identity(int n) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		return order;
+	}
+
+	/**
+	 * Order the nodes by their position along a Hilbert curve laid over the
+	 * bounding box of all the nodes.
+	 */
+	static int[] hilbert(CoordinateStore coordinates) {
+		int n = coordinates.size();
+		if (n == 0) return new int[0];
+		double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+		double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			minLat = Math.min(minLat, coordinates.getLatitude(i));
+			maxLat = Math.max(maxLat, coordinates.getLatitude(i));
+			minLon = Math.min(minLon, coordinates.getLongitude(i));
+			maxLon = Math.max(maxLon, coordinates.getLongitude(i));
+		}
+		int cells = 1 << HILBERT_BITS;
+		double latScale = (cells - 1) / Math.max(maxLat - minLat, Double.MIN_NORMAL);
+		double lonScale = (cells - 1) / Math.max(maxLon - minLon, Double.MIN_NORMAL);
+
+		// pack (curve index, node id) into one long so a primitive sort does the work
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			int x = (int) ((coordinates.getLongitude(i) - minLon) * lonScale);
+			int y = (int) ((coordinates.getLatitude(i) - minLat) * latScale);
+			keys[i] = (hilbertIndex(cells, x, y) << 31) | i;
+		}
+		Arrays.sort(keys);
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+		}
+		return order;
+	}
+
+	// Distance along the Hilbert curve of cell (x, y) in a cells x cells grid
+	private static long hilbertIndex(int cells, int x, int y) {
+		long d = 0;
+		for (int s = cells / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Reverse Cuthill-McKee order over the undirected version of the graph.
+	 * Each connected component is explored breadth first from its lowest
+	 * degree node, visiting neighbours in order of increasing degree.
+	 */
+	static int[] reverseCuthillMcKee(int[] firstEdge, int[] edgeTarget) {
+		int n = firstEdge.length - 1;
+
+		// build the undirected adjacency (out edges plus in edges)
+		int[] degree = new int[n];
+		for (int u = 0; u < n; u++) {
+			for (int e = firstEdge[u]; e < firstEdge[u + 1]; e++) {
+				degree[u]++;
+				degree[edgeTarget[e]]++;
+			}
+		}
+		int[] first = new int[n + 1];
+		for (int u = 0; u < n; u++) {
+			first[u + 1] = first[u] + degree[u];
+		}
+		int[] fill = Arrays.copyOf(first, n);
+		int[] adj = new int[first[n]];
+		for (int u = 0; u < n; u++) {
+			for (int e = firstEdge[u]; e < firstEdge[u + 1]; e++) {
+				int v = edgeTarget[e];
+				adj[fill[u]++] = v;
+				adj[fill[v]++] = u;
+			}
+		}
+
+		Integer[] byDegree = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			byDegree[i] = i;
+		}
+		Arrays.sort(byDegree, (a, b) -> Integer.compare(degree[a], degree[b]));
+
+		int[] order = new int[n];
+		boolean[] visited = new boolean[n];
+		int head = 0;
+		int tail = 0;
+		for (int seed : byDegree) {
+			if (visited[seed]) continue;
+			visited[seed] = true;
+			order[tail++] = seed;
+			while (head < tail) {
+				int u = order[head++];
+				int levelStart = tail;
+				for (int i = first[u]; i < first[u + 1]; i++) {
+					int v = adj[i];
+					if (!visited[v]) {
+						visited[v] = true;
+						order[tail++] = v;
+					}
+				}
+				sortByDegree(order, levelStart, tail, degree);
+			}
+		}
+
+		// reverse
+		for (int i = 0, j = n - 1; i < j; i++, j--) {
+			int t = order[i];
+			order[i] = order[j];
+			order[j] = t;
+		}
+		return order;
+	}
+
+	// Insertion sort of a[from..to) by degree; neighbour lists are short
+	private static void sortByDegree(int[] a, int from, int to, int[] degree) {
+		for (int i = from + 1; i < to; i++) {
+			int v = a[i];
+			int j = i - 1;
+			while (j >= from && degree[a[j]] > degree[v]) {
+				a[j + 1] = a[j];
+				j--;
+			}
+			a[j + 1] = v;
+		}
+	}
+}
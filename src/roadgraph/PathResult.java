@@ -0,0 +1,234 @@
+package roadgraph;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import geography.GeographicPoint;
+
+/**
+ * The result of a search on a MapGraph.
+ *
+ * A path is held as the positions of its nodes and edges in the
+ * CompactGraph that was searched, together with its total length and the
+ * search statistics.  Those positions change when the graph is frozen in
+ * another node order, so getNodeIds and getEdgeIds translate them to the
+ * stable MapNode and MapEdge ids.
+ * The list views returned by getPoints and getEdges are read-only and
+ * build their elements on demand, so callers that only need the cost or
+ * the statistics do not pay for a list of GeographicPoints.
+ *
+ * A search that is stopped by its deadline or cancellation token returns
+ * a result with status TIMED_OUT or CANCELLED.  A* returns a BEST_EFFORT
+ * result on timeout instead: the path to the node it reached which is
+ * closest to the goal.
+ *
+ * @author Daniel
+ *
+ */
+public class PathResult {
+
+	/** How a search ended. */
+	public enum Status {
+		/** A path from start to goal was found. */
+		FOUND,
+		/** The search finished and the goal cannot be reached. */
+		NO_PATH,
+		/** The deadline passed; the path leads towards, but not to, the goal. */
+		BEST_EFFORT,
+		/** The deadline passed before a path was found. */
+		TIMED_OUT,
+		/** The search was cancelled. */
+		CANCELLED
+	}
+
+	private static final int[] NO_IDS = new int[0];
+
+	private final CompactGraph graph;
+	// positions in graph of the nodes and edges of the path
+	private final int[] pathNodes;
+	private final int[] pathEdges;
+	private final double cost;
+	private final SearchStats stats;
+	private final Status status;
+
+	private PathResult(CompactGraph graph, int[] pathNodes, int[] pathEdges, double cost,
+			SearchStats stats, Status status) {
+		this.graph = graph;
+		this.status = status;
+		this.pathNodes = pathNodes;
+		this.pathEdges = pathEdges;
+		this.cost = cost;
+		this.stats = stats;
+	}
+
+	/**
+	 * Build the result for a path found by a search.
+	 * @param graph The graph that was searched
+	 * @param start The id of the starting node
+	 * @param goal The id of the last node of the path
+	 * @param parentEdge The edge each reached node was reached by (-1 for none)
+	 * @param stats The statistics of the search
+	 * @param status FOUND, or BEST_EFFORT if goal is not the real goal
+	 * @return the path from start to goal
+	 */
+	static PathResult fromParents(CompactGraph graph, int start, int goal, int[] parentEdge,
+			SearchStats stats, Status status) {
+		int length = 0;
+		for (int curr = goal; curr != start; curr = graph.edgeSource[parentEdge[curr]]) {
+			length++;
+		}
+		int[] pathNodes = new int[length + 1];
+		int[] pathEdges = new int[length];
+		double cost = 0.0;
+		int curr = goal;
+		for (int i = length; i > 0; i--) {
+			int e = parentEdge[curr];
+			pathNodes[i] = curr;
+			pathEdges[i - 1] = e;
+			cost += graph.edgeLength[e];
+			curr = graph.edgeSource[e];
+		}
+		pathNodes[0] = start;
+		return new PathResult(graph, pathNodes, pathEdges, cost, stats, status);
+	}
+
+	/**
+	 * Build the result for a search which ended without a path.
+	 * @param status NO_PATH, TIMED_OUT or CANCELLED
+	 */
+	static PathResult withoutPath(CompactGraph graph, SearchStats stats, Status status) {
+		return new PathResult(graph, NO_IDS, NO_IDS, Double.POSITIVE_INFINITY, stats, status);
+	}
+
+	/**
+	 * @return how the search ended
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return true if a path from start to goal was found
+	 */
+	public boolean isFound() {
+		return status == Status.FOUND;
+	}
+
+	/**
+	 * @return true if this result holds a path, either to the goal or,
+	 *   for a BEST_EFFORT result, towards it
+	 */
+	public boolean hasPath() {
+		return pathNodes.length > 0;
+	}
+
+	/**
+	 * @return the total length of the path in km, or infinity if there is no path
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * @return the statistics of the search that produced this result
+	 */
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * @return the number of intersections on the path, including start and goal
+	 */
+	public int size() {
+		return pathNodes.length;
+	}
+
+	/**
+	 * @return the MapNode ids of the intersections on the path, from start
+	 *   to goal; a node's id is the order in which it was added to the graph
+	 */
+	public int[] getNodeIds() {
+		int[] ids = new int[pathNodes.length];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = graph.nodeIds[pathNodes[i]];
+		}
+		return ids;
+	}
+
+	/**
+	 * @return the MapEdge ids of the road segments on the path, from start
+	 *   to goal, which can be passed to EdgeGeometry.getPath
+	 */
+	public int[] getEdgeIds() {
+		int[] ids = new int[pathEdges.length];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = graph.edges[pathEdges[i]].getId();
+		}
+		return ids;
+	}
+
+	/**
+	 * @return a read-only view of the intersections on the path, from start
+	 *   to goal (including both start and goal)
+	 */
+	public List<GeographicPoint> getPoints() {
+		return new AbstractList<GeographicPoint>() {
+			@Override
+			public GeographicPoint get(int index) {
+				return graph.coordinates.getPoint(pathNodes[index]);
+			}
+
+			@Override
+			public int size() {
+				return pathNodes.length;
+			}
+		};
+	}
+
+	/**
+	 * @return a read-only view of the road segments on the path, in order
+	 */
+	public List<MapEdge> getEdges() {
+		return new AbstractList<MapEdge>() {
+			@Override
+			public MapEdge get(int index) {
+				return graph.edges[pathEdges[index]];
+			}
+
+			@Override
+			public int size() {
+				return pathEdges.length;
+			}
+		};
+	}
+
+	/**
+	 * @return the polyline of the path along its roads, as the latitude and
+	 *   longitude of each point interleaved: lat0, lng0, lat1, lng1, ...
+	 */
+	public double[] getGeometry() {
+		return getGeometry(null);
+	}
+
+	/**
+	 * @param edgeEnds If not null, an array of at least size() - 1 entries;
+	 *   edgeEnds[i] is set to the number of the point at which the i-th
+	 *   road segment of the path ends
+	 * @return the polyline of the path along its roads, as the latitude and
+	 *   longitude of each point interleaved: lat0, lng0, lat1, lng1, ...
+	 */
+	public double[] getGeometry(int[] edgeEnds) {
+		int[] ids = getEdgeIds();
+		if (ids.length == 0 && pathNodes.length == 1) {
+			// a path from a node to itself is just that node
+			GeographicPoint p = graph.coordinates.getPoint(pathNodes[0]);
+			return new double[] { p.getX(), p.getY() };
+		}
+		return graph.geometry.getPath(ids, edgeEnds);
+	}
+
+	public String toString() {
+		if (!hasPath()) return status + " (" + stats + ")";
+		return status + ": " + pathNodes.length + " intersections, " + cost + " km (" + stats + ")";
+	}
+}
@@ -0,0 +1,26 @@
+package roadgraph;
+
+/**
+ * The search algorithms MapGraph can use to find a path.
+ *
+ * @author Daniel
+ *
+ */
+public enum SearchAlgorithm {
+	/** Breadth first search: fewest intersections, ignores road lengths. */
+	BFS,
+	/** Dijkstra's algorithm: shortest path by road length. */
+	DIJKSTRA,
+	/** A* with the straight line distance to the goal as heuristic. */
+	A_STAR,
+	/**
+	 * Weighted A*: f = g + w * h with w from SearchOptions.heuristicWeight.
+	 * The path is at most w times as long as the shortest path.
+	 */
+	WEIGHTED_A_STAR,
+	/**
+	 * Focal search (A*-epsilon) with epsilon from SearchOptions.suboptimality.
+	 * The path is at most (1 + epsilon) times as long as the shortest path.
+	 */
+	FOCAL
+}
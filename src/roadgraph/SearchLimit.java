@@ -0,0 +1,39 @@
+package roadgraph;
+
+/**
+ * The deadline and cancellation token of one running search.
+ *
+ * @author Daniel
+ *
+ */
+final class SearchLimit {
+
+	private final boolean hasDeadline;
+	private final long deadline;
+	private final CancellationToken token;
+
+	/**
+	 * @param options The options of the search
+	 * @param begin The System.nanoTime at which the search started
+	 */
+	SearchLimit(SearchOptions options, long begin) {
+		hasDeadline = options.getTimeoutNanos() >= 0;
+		deadline = begin + options.getTimeoutNanos();
+		token = options.getCancellation();
+	}
+
+	/**
+	 * Check whether the search has to stop.  Cheap enough to call every
+	 * SearchOptions.CHECK_INTERVAL expansions.
+	 * @return null to keep searching, otherwise CANCELLED or TIMED_OUT
+	 */
+	PathResult.Status check() {
+		if (token != null && token.isCancelled()) {
+			return PathResult.Status.CANCELLED;
+		}
+		if (hasDeadline && System.nanoTime() - deadline > 0) {
+			return PathResult.Status.TIMED_OUT;
+		}
+		return null;
+	}
+}
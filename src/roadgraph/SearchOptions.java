@@ -0,0 +1,109 @@
+package roadgraph;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per query settings for MapGraph.findPath.  The setters return this
+ * object so options can be chained:
+ *
+ *   new SearchOptions().timeout(50, TimeUnit.MILLISECONDS).cancellation(token)
+ *
+ * @author Daniel
+ *
+ */
+public class SearchOptions {
+
+	// how often (in node expansions) a search checks its deadline and token
+	static final int CHECK_INTERVAL = 64;
+
+	private long timeoutNanos = -1;
+	private CancellationToken cancellation = null;
+	private double heuristicWeight = 1.1;
+	private double suboptimality = 0.1;
+
+	/** Create options with no time limit and no cancellation token. */
+	public SearchOptions() {
+	}
+
+	/** Create a copy of other. */
+	public SearchOptions(SearchOptions other) {
+		this.timeoutNanos = other.timeoutNanos;
+		this.cancellation = other.cancellation;
+		this.heuristicWeight = other.heuristicWeight;
+		this.suboptimality = other.suboptimality;
+	}
+
+	/**
+	 * Limit the time a search may run.  When the limit is reached the search
+	 * stops and returns a best-effort or timed out result.
+	 * @param amount The time limit, counted from the start of the search
+	 * @param unit The unit of amount
+	 * @return this
+	 */
+	public SearchOptions timeout(long amount, TimeUnit unit) {
+		if (amount < 0) throw new IllegalArgumentException("timeout must not be negative");
+		timeoutNanos = unit.toNanos(amount);
+		return this;
+	}
+
+	/**
+	 * Set the token which can be used to cancel the search.
+	 * @param token The cancellation token, or null for none
+	 * @return this
+	 */
+	public SearchOptions cancellation(CancellationToken token) {
+		cancellation = token;
+		return this;
+	}
+
+	/**
+	 * Set the weight w of the heuristic for weighted A* (default 1.1).
+	 * @param weight The weight, at least 1
+	 * @return this
+	 */
+	public SearchOptions heuristicWeight(double weight) {
+		if (!(weight >= 1.0)) throw new IllegalArgumentException("weight must be at least 1");
+		heuristicWeight = weight;
+		return this;
+	}
+
+	/**
+	 * Set the suboptimality bound epsilon for focal search (default 0.1):
+	 * paths are at most (1 + epsilon) times as long as the shortest path.
+	 * @param epsilon The bound, at least 0
+	 * @return this
+	 */
+	public SearchOptions suboptimality(double epsilon) {
+		if (!(epsilon >= 0.0)) throw new IllegalArgumentException("epsilon must not be negative");
+		suboptimality = epsilon;
+		return this;
+	}
+
+	/**
+	 * @return the time limit in nanoseconds, or -1 if there is none
+	 */
+	public long getTimeoutNanos() {
+		return timeoutNanos;
+	}
+
+	/**
+	 * @return the cancellation token, or null if there is none
+	 */
+	public CancellationToken getCancellation() {
+		return cancellation;
+	}
+
+	/**
+	 * @return the heuristic weight for weighted A*
+	 */
+	public double getHeuristicWeight() {
+		return heuristicWeight;
+	}
+
+	/**
+	 * @return the suboptimality bound epsilon for focal search
+	 */
+	public double getSuboptimality() {
+		return suboptimality;
+	}
+}
@@ -0,0 +1,43 @@
+package roadgraph;
+
+/**
+ * Counters collected while a search runs.
+ *
+ * @author Daniel
+ *
+ */
+public class SearchStats {
+
+	int nodesVisited;
+	int edgesRelaxed;
+	long elapsedNanos;
+
+	SearchStats() {
+	}
+
+	/**
+	 * @return the number of nodes taken off the frontier and expanded
+	 */
+	public int getNodesVisited() {
+		return nodesVisited;
+	}
+
+	/**
+	 * @return the number of edges examined while expanding nodes
+	 */
+	public int getEdgesRelaxed() {
+		return edgesRelaxed;
+	}
+
+	/**
+	 * @return the wall clock time the search took, in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public String toString() {
+		return "visited " + nodesVisited + " nodes, relaxed " + edgesRelaxed
+				+ " edges in " + (elapsedNanos / 1000) + " us";
+	}
+}
@@ -10,6 +10,7 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -28,6 +29,10 @@ import roadgraph.MapGraph;
 
 public class GraphLoader 
 {
+	// Fields of a line of a route file holding the airport labels
+	private static final int ROUTE_SOURCE_FIELD = 2;
+	private static final int ROUTE_DESTINATION_FIELD = 4;
+
 	
 	/** 
 	 * 	 * The file contains data lines as follows:
@@ -128,7 +133,11 @@ public class GraphLoader
 	 * @param filename The file containing the road data, in the format 
 	 *   described.
 	 * @param map The graph to load the map into.  The graph is
-	 *   assumed to be directed.
+	 *   assumed to be directed.  The shape of each road is kept in the
+	 *   graph's EdgeGeometry.
+	 * @param segments If not null, the RoadSegments of each intersection
+	 *   are also added here.  Pass null to load only what routing needs.
+	 * @param intersectionsToLoad If not null, the intersections are added here
 	 */
 	public static void loadRoadMap(String filename, roadgraph.MapGraph map,  
 			HashMap<GeographicPoint,HashSet<RoadSegment>> segments, 
@@ -221,54 +230,68 @@ public class GraphLoader
 	 */
 	public static void loadRoutes(String filename, Graph graph)
 	{
-		String source;
-		String destination;
-		int sourceIndex;
-		int destinationIndex;
-		
-		int lineCount = 0; //for debugging
-		
 		//Initialize vertex label HashMap in graph
 		graph.initializeLabels();
 		
-		//Read in flights from file
-		BufferedReader reader = null;
-		try {
-            String nextLine;
-            reader = new BufferedReader(new FileReader(filename));
-            while ((nextLine = reader.readLine()) != null) {
-            	String[] flightInfo = nextLine.split(",");
-//           	//Only count nonstop flights
-//            	if (Integer.parseInt(flightInfo[7])==0) {
-            		source = flightInfo[2];
-            		destination = flightInfo[4];
-            		//Add edge for this flight, if both source & destination are already vertices.
-            		//If one of these airports is missing, add vertex for it and then place edge.
-            		if (!graph.hasVertex(source)) {
-            			sourceIndex = graph.addVertex();
-            			graph.addLabel(sourceIndex, source);
-            		}
-            		else {
-            			sourceIndex = graph.getIndex(source);
-            		}
-            		if (!graph.hasVertex(destination)) {
-            			destinationIndex = graph.addVertex();
-            			graph.addLabel(destinationIndex, destination);
-            		}
-            		else {
-            			destinationIndex = graph.getIndex(destination);
-            		}
-            		graph.addEdge(sourceIndex, destinationIndex);
-            	}
-            	lineCount ++;
-//           }
-    		reader.close();
+		//Read in flights from file, one character buffer at a time.
+		//Only the source and destination fields of each line are turned
+		//into Strings; the other fields are skipped.
+		try (Reader reader = new FileReader(filename)) {
+			char[] buffer = new char[1 << 16];
+			StringBuilder field = new StringBuilder();
+			String source = null;
+			String destination = null;
+			int fieldNum = 0;
+			int read;
+			while ((read = reader.read(buffer)) > 0) {
+				for (int i = 0; i < read; i++) {
+					char c = buffer[i];
+					if (c == ',' || c == '\n') {
+						if (fieldNum == ROUTE_SOURCE_FIELD) {
+							source = field.toString();
+						}
+						else if (fieldNum == ROUTE_DESTINATION_FIELD) {
+							destination = field.toString();
+						}
+						field.setLength(0);
+						fieldNum++;
+						if (c == '\n') {
+							addRoute(graph, source, destination);
+							source = null;
+							destination = null;
+							fieldNum = 0;
+						}
+					}
+					else if (c != '\r' && (fieldNum == ROUTE_SOURCE_FIELD
+							|| fieldNum == ROUTE_DESTINATION_FIELD)) {
+						field.append(c);
+					}
+				}
+			}
+			//last line may not end with a newline
+			if (fieldNum == ROUTE_DESTINATION_FIELD) {
+				destination = field.toString();
+			}
+			addRoute(graph, source, destination);
 		} catch (IOException e) {
             System.err.println("Problem loading route file: " + filename);
             e.printStackTrace();
         }
 
 	}
+
+	//Add edge for this flight, adding a vertex for the source or
+	//destination airport if it is not in the graph yet.
+	//Lines without both airports are skipped.
+	private static void addRoute(Graph graph, String source, String destination)
+	{
+		if (source == null || destination == null) {
+			return;
+		}
+		int sourceIndex = graph.getOrAddVertex(source);
+		int destinationIndex = graph.getOrAddVertex(destination);
+		graph.addEdge(sourceIndex, destinationIndex);
+	}
 		
 	
 	/**
@@ -343,7 +366,7 @@ public class GraphLoader
 						findPointsOnEdge(pointMap, info, nodes);
 				GeographicPoint end = pointsOnEdge.remove(pointsOnEdge.size()-1);
 				double length = getRoadLength(pt, end, pointsOnEdge);
-				map.addEdge(pt, end, info.roadName, info.roadType, length);
+				map.addEdge(pt, end, info.roadName, info.roadType, length, pointsOnEdge);
 
 				// If the segments variable is not null, then we 
 				// save the road geometry
@@ -525,12 +548,18 @@ public class GraphLoader
 		BufferedReader reader = null;
         HashMap<GeographicPoint,List<LinkedList<RoadLineInfo>>> pointMap = 
         		new HashMap<GeographicPoint,List<LinkedList<RoadLineInfo>>>();
+        // One shared instance per coordinate, so the lines, edges and road
+        // segments built from this map do not hold duplicate points.
+        HashMap<GeographicPoint,GeographicPoint> canonical = 
+        		new HashMap<GeographicPoint,GeographicPoint>();
 		try {
             String nextLine;
             reader = new BufferedReader(new FileReader(filename));
             // Read the lines out of the file and put them in a HashMap by points
             while ((nextLine = reader.readLine()) != null) {
             	RoadLineInfo line = splitInputString(nextLine);
+            	line.point1 = canonicalPoint(line.point1, canonical);
+            	line.point2 = canonicalPoint(line.point2, canonical);
             	addToPointsMapOneWay(line, pointMap);
             }
             reader.close();
@@ -543,6 +572,15 @@ public class GraphLoader
 	}
 
 
+	// Return the shared instance for this coordinate, registering pt if
+	// it is the first point seen at that coordinate.
+	private static GeographicPoint canonicalPoint(GeographicPoint pt,
+			HashMap<GeographicPoint,GeographicPoint> canonical)
+	{
+		GeographicPoint existing = canonical.putIfAbsent(pt, pt);
+		return existing == null ? pt : existing;
+	}
+
 	// Add the next line read from the file to the points map.
 	private static void 
 	addToPointsMapOneWay(RoadLineInfo line,
@@ -0,0 +1,45 @@
+package util;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the highest scores out of an array of scores indexed by vertex,
+ * for the rankings computed over whole graphs.
+ *
+ * @author Daniel
+ *
+ */
+public final class TopScores {
+
+	private TopScores() {
+	}
+
+	/**
+	 * The indices with the highest scores, highest first.  Ties are broken
+	 * by index, lowest first, so the order is repeatable.
+	 * @param scores The score of each index
+	 * @param count The number of indices wanted
+	 * @return up to count indices
+	 */
+	public static int[] of(double[] scores, int count) {
+		// keep the best count indices seen so far, worst at the head
+		Comparator<Integer> better = (a, b) -> scores[a] != scores[b]
+				? Double.compare(scores[a], scores[b]) : Integer.compare(b, a);
+		PriorityQueue<Integer> best = new PriorityQueue<Integer>(better);
+		for (int v = 0; v < scores.length && count > 0; v++) {
+			if (best.size() < count) {
+				best.add(v);
+			}
+			else if (better.compare(v, best.peek()) > 0) {
+				best.poll();
+				best.add(v);
+			}
+		}
+		int[] top = new int[best.size()];
+		for (int i = top.length - 1; i >= 0; i--) {
+			top[i] = best.poll();
+		}
+		return top;
+	}
+}
@@ -0,0 +1,502 @@
+package week2example;
+
+import java.util.Arrays;
+
+/**
+ * A maze stored as one bit per cell, for grids far too large for one
+ * MazeNode object per cell.  A set bit is an open cell; moves are up,
+ * down, left and right, as in Maze.
+ *
+ * Each row starts on a 64 bit word boundary, so 64 neighbouring cells of
+ * a row can be read with one or two word operations.  A 10000 x 10000 grid
+ * takes about 12.5MB.  Cells are named by their index row * width + col.
+ *
+ * Two shortest path searches are provided: bidirectional breadth first
+ * search, which keeps only two bits of parent direction per cell, and
+ * Jump Point Search, which skips along straight corridors and only stores
+ * the cells where a shortest path may turn.
+ *
+ * @author Daniel
+ *
+ */
+public class MazeGrid {
+
+	private static final int[] NO_PATH = new int[0];
+
+	// moves by direction code; the parent of a cell is one move away
+	private static final int[] ROW_STEP = { -1, 1, 0, 0 };
+	private static final int[] COL_STEP = { 0, 0, -1, 1 };
+
+	private final int width;
+	private final int height;
+	private final int rowWords;
+	private final long[] open;
+
+	/** Create a new grid with every cell blocked */
+	public MazeGrid(int width, int height) {
+		if ((long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("grid has too many cells");
+		}
+		this.width = width;
+		this.height = height;
+		this.rowWords = (width + 63) >>> 6;
+		this.open = new long[Math.multiplyExact(rowWords, height)];
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int cell(int row, int col) {
+		return row * width + col;
+	}
+
+	public int rowOf(int cell) {
+		return cell / width;
+	}
+
+	public int colOf(int cell) {
+		return cell % width;
+	}
+
+	/**
+	 * @return true if the cell is inside the grid and open
+	 */
+	public boolean isOpen(int row, int col) {
+		if (row < 0 || row >= height || col < 0 || col >= width) return false;
+		return (open[row * rowWords + (col >>> 6)] & (1L << col)) != 0;
+	}
+
+	public void setOpen(int row, int col, boolean isOpen) {
+		if (row < 0 || row >= height || col < 0 || col >= width) {
+			throw new IndexOutOfBoundsException();
+		}
+		int word = row * rowWords + (col >>> 6);
+		if (isOpen) {
+			open[word] |= 1L << col;
+		}
+		else {
+			open[word] &= ~(1L << col);
+		}
+	}
+
+	/**
+	 * Read 64 cells of a row: bit i of the result is cell (row, col + i).
+	 * Cells outside the grid read as blocked.
+	 */
+	private long bits(int row, int col) {
+		if (row < 0 || row >= height) return 0;
+		int word = Math.floorDiv(col, 64);
+		int offset = Math.floorMod(col, 64);
+		long low = word(row, word);
+		if (offset == 0) return low;
+		return (low >>> offset) | (word(row, word + 1) << (64 - offset));
+	}
+
+	private long word(int row, int word) {
+		if (word < 0 || word >= rowWords) return 0;
+		return open[row * rowWords + word];
+	}
+
+	// ---------------------------------------------------------------------
+	// Bidirectional breadth first search
+
+	/** Shortest path by breadth first search from both ends at once.
+	 *
+	 * @return the cells of a shortest path from start to goal, or an empty
+	 *   array if there is none
+	 */
+	public int[] bidirectionalBfs(int startRow, int startCol, int goalRow, int goalCol) {
+		if (!isOpen(startRow, startCol) || !isOpen(goalRow, goalCol)) {
+			return NO_PATH;
+		}
+		int start = cell(startRow, startCol);
+		int goal = cell(goalRow, goalCol);
+		if (start == goal) {
+			return new int[] { start };
+		}
+		int cells = width * height;
+		Side forward = new Side(cells, start);
+		Side backward = new Side(cells, goal);
+		while (forward.size > 0 && backward.size > 0) {
+			// grow the smaller frontier by one level
+			Side grow = forward.size <= backward.size ? forward : backward;
+			Side other = grow == forward ? backward : forward;
+			int meeting = expandLevel(grow, other);
+			if (meeting >= 0) {
+				int[] first = forward.pathTo(meeting);
+				int[] second = backward.pathTo(meeting);
+				int[] path = Arrays.copyOf(first, first.length + second.length - 1);
+				for (int i = 1; i < second.length; i++) {
+					path[first.length - 1 + i] = second[second.length - 1 - i];
+				}
+				return path;
+			}
+		}
+		return NO_PATH;
+	}
+
+	// Expand every cell of grow's frontier by one move.  Returns a cell
+	// reached by both searches, or -1.  A cell met this way lies on a
+	// shortest path: had the searches touched at an earlier level, they
+	// would have met when that cell was first visited.
+	private int expandLevel(Side grow, Side other) {
+		int[] frontier = grow.frontier;
+		int size = grow.size;
+		int meeting = -1;
+		for (int i = 0; i < size && meeting < 0; i++) {
+			int u = frontier[i];
+			int row = u / width;
+			int col = u % width;
+			for (int d = 0; d < 4; d++) {
+				int r = row + ROW_STEP[d];
+				int c = col + COL_STEP[d];
+				if (!isOpen(r, c)) continue;
+				int v = r * width + c;
+				if (grow.visited(v)) continue;
+				// the parent of v is one move back, in the opposite direction
+				grow.visit(v, d ^ 1);
+				if (other.visited(v)) {
+					meeting = v;
+					break;
+				}
+			}
+		}
+		grow.nextLevel();
+		return meeting;
+	}
+
+	/** The visited cells and parent directions of one end of the search. */
+	private class Side {
+		final long[] visited;
+		// two bits per cell: direction code of the move back to the parent
+		final long[] parent;
+		final int root;
+		int[] frontier;
+		int size;
+		int[] next;
+		int nextSize;
+
+		Side(int cells, int root) {
+			this.visited = new long[(cells + 63) >>> 6];
+			this.parent = new long[(cells + 31) >>> 5];
+			this.root = root;
+			this.frontier = new int[16];
+			this.next = new int[16];
+			visited[root >>> 6] |= 1L << root;
+			frontier[0] = root;
+			size = 1;
+		}
+
+		boolean visited(int cell) {
+			return (visited[cell >>> 6] & (1L << cell)) != 0;
+		}
+
+		void visit(int cell, int direction) {
+			visited[cell >>> 6] |= 1L << cell;
+			parent[cell >>> 5] |= (long) direction << ((cell & 31) << 1);
+			if (nextSize == next.length) {
+				next = Arrays.copyOf(next, nextSize * 2);
+			}
+			next[nextSize++] = cell;
+		}
+
+		int parentOf(int cell) {
+			int direction = (int) (parent[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+			return cell + ROW_STEP[direction] * width + COL_STEP[direction];
+		}
+
+		// the cells visited in the last level become the frontier
+		void nextLevel() {
+			int[] swap = frontier;
+			frontier = next;
+			next = swap;
+			size = nextSize;
+			nextSize = 0;
+		}
+
+		// number of moves from the root to a visited cell
+		int depthOf(int cell) {
+			int moves = 0;
+			while (cell != root) {
+				cell = parentOf(cell);
+				moves++;
+			}
+			return moves;
+		}
+
+		// cells from the root to the given cell
+		int[] pathTo(int cell) {
+			int[] path = new int[depthOf(cell) + 1];
+			for (int i = path.length - 1; i >= 0; i--) {
+				path[i] = cell;
+				if (i > 0) cell = parentOf(cell);
+			}
+			return path;
+		}
+	}
+
+	// ---------------------------------------------------------------------
+	// Jump Point Search
+
+	/** Shortest path by A* over jump points (Jump Point Search adapted to
+	 * moves without diagonals).  From each expanded cell the search jumps
+	 * along a straight line until it reaches the goal, a wall, or a cell
+	 * with a forced neighbour, and only that cell is added to the open set.
+	 *
+	 * @return the cells of a shortest path from start to goal, or an empty
+	 *   array if there is none
+	 */
+	public int[] jumpPointSearch(int startRow, int startCol, int goalRow, int goalCol) {
+		if (!isOpen(startRow, startCol) || !isOpen(goalRow, goalCol)) {
+			return NO_PATH;
+		}
+		int start = cell(startRow, startCol);
+		int goal = cell(goalRow, goalCol);
+		JumpPoints points = new JumpPoints();
+		CellHeap open = new CellHeap();
+		points.put(start, 0, -1);
+		open.add(start, 0, manhattan(start, goal));
+		while (!open.isEmpty()) {
+			int u = open.poll();
+			int slot = points.find(u);
+			if (points.closed[slot]) continue;
+			points.closed[slot] = true;
+			if (u == goal) {
+				return jumpPath(points, goal);
+			}
+			int row = u / width;
+			int col = u % width;
+			int parent = points.parent[slot];
+			int cost = points.cost[slot];
+			for (int d = 0; d < 4; d++) {
+				if (parent >= 0 && isPruned(d, parent, row, col)) continue;
+				int jump = ROW_STEP[d] == 0
+						? jumpHorizontal(row, col, COL_STEP[d], goal)
+						: jumpVertical(row, col, ROW_STEP[d], goal);
+				if (jump < 0) continue;
+				int jumpCost = cost + manhattan(u, jump);
+				int jumpSlot = points.find(jump);
+				if (jumpSlot < 0 || jumpCost < points.cost[jumpSlot]) {
+					points.put(jump, jumpCost, u);
+					open.add(jump, jumpCost, manhattan(jump, goal));
+				}
+			}
+		}
+		return NO_PATH;
+	}
+
+	// Only the straight on and sideways moves are followed from a jump
+	// point; going back the way the search came is never shorter
+	private boolean isPruned(int direction, int parent, int row, int col) {
+		int fromRow = Integer.signum(row - parent / width);
+		int fromCol = Integer.signum(col - parent % width);
+		return ROW_STEP[direction] == -fromRow && COL_STEP[direction] == -fromCol;
+	}
+
+	/**
+	 * Jump from (row, col) along the row in direction step (+1 or -1).
+	 * Stops at the goal or at a cell with an open cell above or below it
+	 * whose neighbour back towards the start is blocked.  Tests 64 cells
+	 * at a time.
+	 * @return the cell jumped to, or -1 if a wall is reached first
+	 */
+	private int jumpHorizontal(int row, int col, int step, int goal) {
+		int goalRow = goal / width;
+		int goalCol = goal % width;
+		if (step > 0) {
+			for (int from = col + 1; ; from += 64) {
+				long forced = (bits(row - 1, from) & ~bits(row - 1, from - 1))
+						| (bits(row + 1, from) & ~bits(row + 1, from - 1));
+				long stop = ~bits(row, from) | forced;
+				if (row == goalRow && goalCol >= from && goalCol < from + 64) {
+					stop |= 1L << (goalCol - from);
+				}
+				if (stop != 0) {
+					int c = from + Long.numberOfTrailingZeros(stop);
+					return isOpen(row, c) ? row * width + c : -1;
+				}
+			}
+		}
+		else {
+			// bit 63 of each window is the cell nearest the start of the jump
+			for (int to = col - 1; ; to -= 64) {
+				int from = to - 63;
+				long forced = (bits(row - 1, from) & ~bits(row - 1, from + 1))
+						| (bits(row + 1, from) & ~bits(row + 1, from + 1));
+				long stop = ~bits(row, from) | forced;
+				if (row == goalRow && goalCol >= from && goalCol <= to) {
+					stop |= 1L << (goalCol - from);
+				}
+				if (stop != 0) {
+					int c = to - Long.numberOfLeadingZeros(stop);
+					return isOpen(row, c) ? row * width + c : -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Jump from (row, col) along the column in direction step (+1 or -1).
+	 * Stops at the goal, at a cell with a forced neighbour to the left or
+	 * right, or at a cell from which a horizontal jump finds a jump point.
+	 * @return the cell jumped to, or -1 if a wall is reached first
+	 */
+	private int jumpVertical(int row, int col, int step, int goal) {
+		for (int r = row + step; isOpen(r, col); r += step) {
+			int c = r * width + col;
+			if (c == goal
+					|| (isOpen(r, col - 1) && !isOpen(r - step, col - 1))
+					|| (isOpen(r, col + 1) && !isOpen(r - step, col + 1))
+					|| jumpHorizontal(r, col, 1, goal) >= 0
+					|| jumpHorizontal(r, col, -1, goal) >= 0) {
+				return c;
+			}
+		}
+		return -1;
+	}
+
+	private int manhattan(int a, int b) {
+		return Math.abs(a / width - b / width) + Math.abs(a % width - b % width);
+	}
+
+	// Fill in the straight runs between the jump points on the path
+	private int[] jumpPath(JumpPoints points, int goal) {
+		int length = points.cost[points.find(goal)] + 1;
+		int[] path = new int[length];
+		int i = length - 1;
+		int cell = goal;
+		path[i] = cell;
+		int parent = points.parent[points.find(cell)];
+		while (parent >= 0) {
+			int step = Integer.signum(parent / width - cell / width) * width
+					+ Integer.signum(parent % width - cell % width);
+			while (cell != parent) {
+				cell += step;
+				path[--i] = cell;
+			}
+			parent = points.parent[points.find(cell)];
+		}
+		return path;
+	}
+
+	/** Cost, parent and closed flag of the jump points reached so far, in
+	 * an open addressing hash table keyed by cell.
+	 */
+	private static class JumpPoints {
+		int[] keys = new int[1024];
+		int[] cost = new int[1024];
+		int[] parent = new int[1024];
+		boolean[] closed = new boolean[1024];
+		int size;
+
+		JumpPoints() {
+			Arrays.fill(keys, -1);
+		}
+
+		// the slot holding cell, or -1
+		int find(int cell) {
+			int mask = keys.length - 1;
+			for (int slot = hash(cell) & mask; keys[slot] >= 0; slot = (slot + 1) & mask) {
+				if (keys[slot] == cell) return slot;
+			}
+			return -1;
+		}
+
+		void put(int cell, int newCost, int newParent) {
+			if ((size + 1) * 2 > keys.length) {
+				grow();
+			}
+			int mask = keys.length - 1;
+			int slot = hash(cell) & mask;
+			while (keys[slot] >= 0 && keys[slot] != cell) {
+				slot = (slot + 1) & mask;
+			}
+			if (keys[slot] < 0) {
+				keys[slot] = cell;
+				size++;
+			}
+			cost[slot] = newCost;
+			parent[slot] = newParent;
+			closed[slot] = false;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			int[] oldCost = cost;
+			int[] oldParent = parent;
+			boolean[] oldClosed = closed;
+			keys = new int[oldKeys.length * 2];
+			cost = new int[keys.length];
+			parent = new int[keys.length];
+			closed = new boolean[keys.length];
+			Arrays.fill(keys, -1);
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] >= 0) {
+					put(oldKeys[i], oldCost[i], oldParent[i]);
+					closed[find(oldKeys[i])] = oldClosed[i];
+				}
+			}
+		}
+
+		private static int hash(int cell) {
+			int h = cell * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+
+	/** A binary min-heap of cells ordered by f = cost + estimate, and among
+	 * equal f by larger cost, so the search follows one of the many equally
+	 * short grid paths instead of widening across all of them.  The order
+	 * is packed into one long per entry.  Cells may be added more than once.
+	 */
+	private static class CellHeap {
+		long[] keys = new long[256];
+		int[] cells = new int[256];
+		int size;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void add(int cell, int cost, int estimate) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				cells = Arrays.copyOf(cells, size * 2);
+			}
+			long key = ((long) (cost + estimate) << 32) | (Integer.MAX_VALUE - cost);
+			int i = size++;
+			while (i > 0 && keys[(i - 1) >>> 1] > key) {
+				keys[i] = keys[(i - 1) >>> 1];
+				cells[i] = cells[(i - 1) >>> 1];
+				i = (i - 1) >>> 1;
+			}
+			keys[i] = key;
+			cells[i] = cell;
+		}
+
+		int poll() {
+			int cell = cells[0];
+			long lastKey = keys[--size];
+			int lastCell = cells[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) break;
+				if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+				if (keys[child] >= lastKey) break;
+				keys[i] = keys[child];
+				cells[i] = cells[child];
+				i = child;
+			}
+			keys[i] = lastKey;
+			cells[i] = lastCell;
+			return cell;
+		}
+	}
+}
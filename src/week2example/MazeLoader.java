@@ -62,4 +62,47 @@ public class MazeLoader {
 		maze.linkEdges();
 	}
 	
+	/**
+	 * Load a maze file into a bit-packed grid.  The file format is the same
+	 * as for loadMaze: a line with the width and height, then one line per
+	 * row where '*' is a wall; missing cells at the end of a row and
+	 * missing rows are open.  Rows are read one at a time, so no per-cell
+	 * objects are created.
+	 * @param filename The maze file
+	 * @return the grid, or null if the file could not be read
+	 */
+	public static MazeGrid loadGrid(String filename)
+	{
+		try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+			String nextLine = reader.readLine();
+			if (nextLine == null) {
+				return null;
+			}
+			String[] dims = nextLine.split(" ");
+			int width = Integer.parseInt(dims[0]);
+			int height = Integer.parseInt(dims[1]);
+			MazeGrid grid = new MazeGrid(width, height);
+			int currRow = 0;
+			while ((nextLine = reader.readLine()) != null && currRow < height) {
+				for (int c = 0; c < width; c++) {
+					if (c >= nextLine.length() || nextLine.charAt(c) != '*') {
+						grid.setOpen(currRow, c, true);
+					}
+				}
+				currRow++;
+			}
+			while (currRow < height) {
+				for (int c = 0; c < width; c++) {
+					grid.setOpen(currRow, c, true);
+				}
+				currRow++;
+			}
+			return grid;
+		} catch (IOException e) {
+			System.err.println("Problem loading maze file: " + filename);
+			e.printStackTrace();
+			return null;
+		}
+	}
+
 }
@@ -0,0 +1,271 @@
+/**
+ *
+ */
+package application;
+
+import static org.junit.Assert.*;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import geography.GeographicPoint;
+
+/**
+ * Tests the clusters of a ClusterPyramid against grouping the points by
+ * their Web Mercator cell one level at a time.
+ *
+ * @author Daniel
+ *
+ */
+public class ClusterPyramidTest {
+
+    private static final int DETAIL_ZOOM = 12;
+
+    private List<GeographicPoint> points;
+    private ClusterPyramid pyramid;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        points = new ArrayList<GeographicPoint>();
+        for (int i = 0; i < 2000; i++) {
+            // most points in one city, some on either side of the antimeridian
+            if (i % 10 == 0) {
+                double lng = 179 + 2 * random.nextDouble();
+                points.add(new GeographicPoint(-17 + random.nextDouble(), lng > 180 ? lng - 360 : lng));
+            }
+            else {
+                points.add(new GeographicPoint(32.7 + 0.3 * random.nextDouble(),
+                        -117.3 + 0.3 * random.nextDouble()));
+            }
+        }
+        // some points repeated, so that cells hold points at the same place
+        for (int i = 0; i < 100; i++) {
+            points.add(points.get(random.nextInt(points.size())));
+        }
+        pyramid = new ClusterPyramid(points, DETAIL_ZOOM);
+    }
+
+    // the cell of a point at a zoom level, as a column and a row
+    private static int[] cell(GeographicPoint p, int zoom) {
+        int cells = 1 << (zoom + 2);
+        double x = (p.getY() + 180) / 360;
+        double sin = Math.sin(Math.toRadians(p.getX()));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return new int[] { clamp((int) Math.floor(x * cells), cells), clamp((int) Math.floor(y * cells), cells) };
+    }
+
+    private static int clamp(int cell, int cells) {
+        return Math.max(0, Math.min(cell, cells - 1));
+    }
+
+    // the points of each cell that overlaps the box, grouped one point at a time
+    private Map<List<Integer>, TreeSet<Integer>> bruteForce(int zoom, double south, double west,
+            double north, double east) {
+        GeographicPoint southWest = new GeographicPoint(south, west <= east ? west : -180);
+        GeographicPoint northEast = new GeographicPoint(north, west <= east ? east : 180);
+        int[] low = cell(southWest, zoom);
+        int[] high = cell(northEast, zoom);
+        Map<List<Integer>, TreeSet<Integer>> groups = new HashMap<List<Integer>, TreeSet<Integer>>();
+        for (int i = 0; i < points.size(); i++) {
+            int[] c = cell(points.get(i), zoom);
+            if (c[0] >= low[0] && c[0] <= high[0] && c[1] >= high[1] && c[1] <= low[1]) {
+                List<Integer> key = new ArrayList<Integer>();
+                key.add(c[0]);
+                key.add(c[1]);
+                groups.computeIfAbsent(key, k -> new TreeSet<Integer>()).add(i);
+            }
+        }
+        return groups;
+    }
+
+    // the points of each cluster the pyramid visits, checking each mean
+    private List<TreeSet<Integer>> query(int zoom, double south, double west, double north, double east) {
+        List<TreeSet<Integer>> clusters = new ArrayList<TreeSet<Integer>>();
+        pyramid.query(zoom, south, west, north, east, (key, first, end, lat, lng) -> {
+            TreeSet<Integer> cluster = new TreeSet<Integer>();
+            double sumLat = 0, sumLng = 0;
+            for (int rank = first; rank < end; rank++) {
+                int point = pyramid.getPoint(rank);
+                cluster.add(point);
+                sumLat += points.get(point).getX();
+                sumLng += points.get(point).getY();
+            }
+            assertEquals(end - first, cluster.size());
+            assertEquals(sumLat / cluster.size(), lat, 1e-9);
+            assertEquals(sumLng / cluster.size(), lng, 1e-9);
+            clusters.add(cluster);
+        });
+        return clusters;
+    }
+
+    private void assertMatches(int zoom, double south, double west, double north, double east) {
+        Map<List<Integer>, TreeSet<Integer>> expected = bruteForce(zoom, south, west, north, east);
+        List<TreeSet<Integer>> actual = query(zoom, south, west, north, east);
+        assertEquals("zoom " + zoom, expected.size(), actual.size());
+        assertEquals("zoom " + zoom, new ArrayList<TreeSet<Integer>>(sorted(expected.values())), sorted(actual));
+    }
+
+    private static List<TreeSet<Integer>> sorted(Iterable<TreeSet<Integer>> clusters) {
+        List<TreeSet<Integer>> list = new ArrayList<TreeSet<Integer>>();
+        for (TreeSet<Integer> cluster : clusters) {
+            list.add(cluster);
+        }
+        list.sort((a, b) -> Integer.compare(a.first(), b.first()));
+        return list;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        assertEquals(points.size(), pyramid.getNumPoints());
+        Random random = new Random(7);
+        for (int zoom = 0; zoom <= DETAIL_ZOOM; zoom++) {
+            assertMatches(zoom, -85, -180, 85, 180);
+            assertEquals(bruteForce(zoom, -85, -180, 85, 180).size(), pyramid.getNumClusters(zoom));
+            for (int q = 0; q < 20; q++) {
+                // boxes of many sizes over the city
+                double size = 0.4 * random.nextDouble() / (1 + zoom);
+                double south = 32.6 + 0.4 * random.nextDouble();
+                double west = -117.4 + 0.4 * random.nextDouble();
+                assertMatches(zoom, south, west, south + size, west + size);
+            }
+        }
+    }
+
+    /**
+     * Every cluster is the union of clusters of the level below it.
+     */
+    @Test
+    public void testLevelsMerge() {
+        for (int zoom = 0; zoom < DETAIL_ZOOM; zoom++) {
+            List<TreeSet<Integer>> parents = query(zoom, -85, -180, 85, 180);
+            List<TreeSet<Integer>> children = query(zoom + 1, -85, -180, 85, 180);
+            assertTrue(parents.size() <= children.size());
+            int covered = 0;
+            for (TreeSet<Integer> child : children) {
+                int holders = 0;
+                for (TreeSet<Integer> parent : parents) {
+                    if (parent.containsAll(child)) {
+                        holders++;
+                    }
+                }
+                assertEquals("zoom " + zoom, 1, holders);
+                covered += child.size();
+            }
+            int total = 0;
+            for (TreeSet<Integer> parent : parents) {
+                total += parent.size();
+            }
+            assertEquals(points.size(), total);
+            assertEquals(points.size(), covered);
+        }
+    }
+
+    /**
+     * A box whose western edge is east of its eastern edge, as the map
+     * reports when the view crosses the antimeridian, covers all
+     * longitudes.
+     */
+    @Test
+    public void testAntimeridian() {
+        for (int zoom = 0; zoom <= DETAIL_ZOOM; zoom++) {
+            assertMatches(zoom, -18, 178, -16, -178);
+        }
+        TreeSet<Integer> found = new TreeSet<Integer>();
+        for (TreeSet<Integer> cluster : query(DETAIL_ZOOM, -18, 178, -16, -178)) {
+            found.addAll(cluster);
+        }
+        boolean east = false, west = false;
+        for (int point : found) {
+            east |= points.get(point).getY() > 0;
+            west |= points.get(point).getY() < 0;
+        }
+        assertTrue(east && west);
+    }
+
+    /**
+     * The same cluster has the same key in every query, and clusters of
+     * different levels have different keys.
+     */
+    @Test
+    public void testStableKeys() {
+        Map<Long, TreeSet<Integer>> keys = new HashMap<Long, TreeSet<Integer>>();
+        Random random = new Random(7);
+        for (int q = 0; q < 200; q++) {
+            int zoom = random.nextInt(DETAIL_ZOOM + 3);
+            double south = 32.6 + 0.4 * random.nextDouble();
+            double west = -117.4 + 0.4 * random.nextDouble();
+            double size = 0.2 * random.nextDouble();
+            pyramid.query(zoom, south, west, south + size, west + size, (key, first, end, lat, lng) -> {
+                TreeSet<Integer> cluster = new TreeSet<Integer>();
+                for (int rank = first; rank < end; rank++) {
+                    cluster.add(pyramid.getPoint(rank));
+                }
+                TreeSet<Integer> before = keys.putIfAbsent(key, cluster);
+                if (before != null) {
+                    assertEquals(before, cluster);
+                }
+            });
+        }
+        // above the detail zoom the detail clusters are given
+        List<TreeSet<Integer>> detail = query(DETAIL_ZOOM, -85, -180, 85, 180);
+        assertEquals(detail, query(DETAIL_ZOOM + 4, -85, -180, 85, 180));
+        assertEquals(pyramid.getNumClusters(DETAIL_ZOOM), pyramid.getNumClusters(DETAIL_ZOOM + 4));
+    }
+
+    @Test
+    public void testEmpty() {
+        ClusterPyramid empty = new ClusterPyramid(new ArrayList<GeographicPoint>());
+        assertEquals(0, empty.getNumPoints());
+        assertEquals(0, empty.getNumClusters(3));
+        empty.query(3, -85, -180, 85, 180, (key, first, end, lat, lng) -> fail("cluster in empty pyramid"));
+    }
+
+    /**
+     * The cell code and the point index must fit in one long together.
+     */
+    @Test
+    public void testTooManyPoints() {
+        // 2 * (18 + 2) bits of cell code leave 23 bits for the index
+        List<GeographicPoint> many = new AbstractList<GeographicPoint>() {
+            @Override
+            public GeographicPoint get(int index) {
+                return new GeographicPoint(0, 0);
+            }
+
+            @Override
+            public int size() {
+                return (1 << 23) + 1;
+            }
+        };
+        try {
+            new ClusterPyramid(many, ClusterPyramid.MAX_DETAIL_ZOOM);
+            fail("index does not fit");
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            new ClusterPyramid(points, ClusterPyramid.MAX_DETAIL_ZOOM + 1);
+            fail("detail zoom too high");
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            new ClusterPyramid(points, -1);
+            fail("negative detail zoom");
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+}
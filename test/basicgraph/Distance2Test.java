@@ -0,0 +1,85 @@
+/**
+ *
+ */
+package basicgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import util.GraphLoader;
+
+/**
+ * Tests the batch two-hop computation of Distance2 against
+ * Graph.getDistance2.
+ *
+ * @author Daniel
+ *
+ */
+public class Distance2Test {
+
+	// the distinct two-hop neighbors of every vertex must match getDistance2
+	private static void assertMatches(Graph graph) {
+		CompactGraph compact = CompactGraph.of(graph);
+		int[] counts = Distance2.counts(compact);
+		CompactGraph sets = Distance2.sets(compact);
+		assertEquals(graph.getNumVertices(), counts.length);
+		assertEquals(graph.getNumVertices(), sets.getNumVertices());
+		long total = 0;
+		for (int v = 0; v < graph.getNumVertices(); v++) {
+			TreeSet<Integer> expected = new TreeSet<Integer>(graph.getDistance2(v));
+			int[] row = sets.getNeighbors(v);
+			assertEquals(expected.size(), counts[v]);
+			assertEquals(expected.size(), row.length);
+			int i = 0;
+			for (int w : expected) {
+				assertEquals(w, row[i++]);
+			}
+			total += counts[v];
+		}
+		assertEquals(total, sets.getNumEdges());
+	}
+
+	@Test
+	public void testSimpleTest() {
+		GraphAdjList graph = new GraphAdjList();
+		GraphLoader.loadRoadMap("data/testdata/simpletest.map", graph);
+		assertMatches(graph);
+	}
+
+	@Test
+	public void testAirports() {
+		GraphAdjList graph = new GraphAdjList();
+		GraphLoader.loadRoutes("data/airports/routesUA.dat", graph);
+		assertMatches(graph);
+	}
+
+	/**
+	 * A random graph large enough to be split into several blocks, with
+	 * self-loops, parallel edges and vertices without edges.
+	 */
+	@Test
+	public void testRandom() {
+		Random random = new Random(42);
+		GraphAdjList graph = new GraphAdjList();
+		int n = 5000;
+		for (int v = 0; v < n; v++) {
+			graph.addVertex();
+		}
+		for (int e = 0; e < 4 * n; e++) {
+			int v = random.nextInt(n / 2) * 2;
+			graph.addEdge(v, random.nextInt(50) == 0 ? v : random.nextInt(n / 10));
+		}
+		assertMatches(graph);
+	}
+
+	@Test
+	public void testEmpty() {
+		CompactGraph empty = CompactGraph.of(new GraphAdjList());
+		assertEquals(0, Distance2.counts(empty).length);
+		assertEquals(0, Distance2.sets(empty).getNumVertices());
+	}
+}
@@ -5,6 +5,12 @@ package basicgraph;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -55,4 +61,102 @@ public class GraphAdjListTest {
 			[4, 7, 8, 8, 1, 3]
 		 */
 	}
+
+	/**
+	 * Test method for {@link basicgraph.Graph#getInDegree(int)} and
+	 * {@link basicgraph.Graph#getOutDegree(int)}.
+	 */
+	@Test
+	public void testDegrees() {
+		int inSum = 0;
+		int outSum = 0;
+		for (int v : graphFromFile.getVertices()) {
+			assertEquals(graphFromFile.getNeighbors(v).size(), graphFromFile.getOutDegree(v));
+			assertEquals(graphFromFile.getInNeighbors(v).size(), graphFromFile.getInDegree(v));
+			inSum += graphFromFile.getInDegree(v);
+			outSum += graphFromFile.getOutDegree(v);
+		}
+		assertEquals(graphFromFile.getNumEdges(), inSum);
+		assertEquals(graphFromFile.getNumEdges(), outSum);
+		try {
+			graphFromFile.getInDegree(graphFromFile.getNumVertices());
+			fail("no such vertex");
+		}
+		catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	/**
+	 * Test method for {@link basicgraph.Graph#degreeSequence()}.
+	 */
+	@Test
+	public void testDegreeSequence() {
+		GraphAdjList graph = new GraphAdjList();
+		for (int i = 0; i < 4; i++) graph.addVertex();
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 2);
+		graph.addEdge(2, 2);
+		// vertex 3 is isolated and still counted
+		assertEquals(Arrays.asList(3, 3, 2, 0), graph.degreeSequence());
+		assertArrayEquals(new int[] {3, 3, 2, 0}, graph.degreeSequenceArray());
+		assertTrue(new GraphAdjList().degreeSequence().isEmpty());
+
+		// an edge to a missing vertex is not counted
+		try {
+			graph.addEdge(0, 4);
+			fail("no such vertex");
+		}
+		catch (IndexOutOfBoundsException e) {
+		}
+		assertEquals(4, graph.getNumEdges());
+		assertEquals(2, graph.getOutDegree(0));
+	}
+
+	/**
+	 * The counters and reverse adjacency agree with the edges added, in
+	 * the order they were added, as the graph grows.
+	 */
+	@Test
+	public void testReverseAdjacency() {
+		Random random = new Random(42);
+		GraphAdjList graph = new GraphAdjList();
+		int n = 500;
+		List<List<Integer>> in = new ArrayList<List<Integer>>();
+		List<List<Integer>> out = new ArrayList<List<Integer>>();
+		for (int e = 0; e < 5000; e++) {
+			if (graph.getNumVertices() < n && (graph.getNumVertices() < 2 || random.nextInt(10) == 0)) {
+				graph.addVertex();
+				in.add(new ArrayList<Integer>());
+				out.add(new ArrayList<Integer>());
+			}
+			int v = random.nextInt(graph.getNumVertices());
+			int w = random.nextInt(graph.getNumVertices());
+			graph.addEdge(v, w);
+			out.get(v).add(w);
+			in.get(w).add(v);
+		}
+		assertEquals(5000, graph.getNumEdges());
+		int[] degrees = new int[graph.getNumVertices()];
+		for (int v = 0; v < graph.getNumVertices(); v++) {
+			assertEquals(out.get(v), graph.getNeighbors(v));
+			assertEquals(in.get(v), graph.getInNeighbors(v));
+			List<Integer> visited = new ArrayList<Integer>();
+			graph.forEachInNeighbor(v, visited::add);
+			assertEquals(in.get(v), visited);
+			visited.clear();
+			graph.forEachNeighbor(v, visited::add);
+			assertEquals(out.get(v), visited);
+			assertEquals(in.get(v).size(), graph.getInDegree(v));
+			assertEquals(out.get(v).size(), graph.getOutDegree(v));
+			degrees[v] = in.get(v).size() + out.get(v).size();
+		}
+		Arrays.sort(degrees);
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int degree : degrees) {
+			expected.add(degree);
+		}
+		Collections.reverse(expected);
+		assertEquals(expected, graph.degreeSequence());
+	}
 }
@@ -2,6 +2,13 @@ package basicgraph;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -41,4 +48,103 @@ public class GraphAdjMatrixTest {
 			[4, 7, 8, 8, 1, 3]
 		 */
 	}
+
+	/**
+	 * Rows that grow while the matrix grows must still fit the set
+	 * that getDistance2Set ORs them into.
+	 */
+	@Test
+	public void testDistance2SetGrowingRows() {
+		GraphAdjMatrix graph = new GraphAdjMatrix();
+		graph.addVertex();
+		graph.addVertex();
+		graph.addEdge(0, 1);
+		while (graph.getNumVertices() < 66) graph.addVertex();
+		graph.addEdge(1, 65);
+		while (graph.getNumVertices() < 131) graph.addVertex();
+		graph.addEdge(1, 130);
+		while (graph.getNumVertices() < 140) graph.addVertex();
+		assertEquals(Arrays.asList(65, 130), graph.getDistance2Set(0));
+		assertEquals(Arrays.asList(65, 130), graph.getDistance2(0));
+	}
+
+	@Test
+	public void testGetDistance2Set() {
+		for (int v = 0; v < graphFromFile.getNumVertices(); v++) {
+			TreeSet<Integer> expected = new TreeSet<Integer>(graphFromFile.getDistance2(v));
+			assertEquals(new ArrayList<Integer>(expected),
+					graphFromFile.getDistance2Set(v));
+		}
+	}
+
+	private static List<Integer> sorted(List<Integer> list) {
+		List<Integer> copy = new ArrayList<Integer>(list);
+		Collections.sort(copy);
+		return copy;
+	}
+
+	/**
+	 * Self-loops and parallel edges are kept with their multiplicity.
+	 */
+	@Test
+	public void testParallelEdges() {
+		GraphAdjMatrix graph = new GraphAdjMatrix();
+		for (int i = 0; i < 3; i++) graph.addVertex();
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 1);
+		graph.addEdge(1, 1);
+		graph.addEdge(1, 2);
+		assertEquals(5, graph.getNumEdges());
+		assertEquals(3, graph.getEdgeCount(0, 1));
+		assertEquals(1, graph.getEdgeCount(1, 1));
+		assertEquals(0, graph.getEdgeCount(1, 0));
+		assertEquals(Arrays.asList(1, 1, 1), graph.getNeighbors(0));
+		assertEquals(Arrays.asList(1, 2), graph.getNeighbors(1));
+		assertEquals(Arrays.asList(0, 0, 0, 1), graph.getInNeighbors(1));
+		assertEquals(Arrays.asList(1), graph.getInNeighbors(2));
+		assertEquals(Arrays.asList(1, 2), graph.getDistance2(0));
+		assertEquals(Arrays.asList(1, 2), graph.getDistance2Set(0));
+		assertTrue(graph.getNeighbors(2).isEmpty());
+		assertTrue(graph.getDistance2Set(2).isEmpty());
+	}
+
+	/**
+	 * The bit matrix agrees with the adjacency list on random graphs with
+	 * self-loops and parallel edges, across several word boundaries.
+	 */
+	@Test
+	public void testMatchesAdjList() {
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			GraphAdjMatrix matrix = new GraphAdjMatrix();
+			GraphAdjList list = new GraphAdjList();
+			int n = 1 + random.nextInt(300);
+			for (int v = 0; v < n; v++) {
+				matrix.addVertex();
+				list.addVertex();
+			}
+			int m = random.nextInt(4 * n);
+			for (int e = 0; e < m; e++) {
+				int v = random.nextInt(n);
+				// some vertices get many edges, to the same few vertices
+				int w = v % 7 == 0 ? random.nextInt(Math.min(n, 3)) : random.nextInt(n);
+				matrix.addEdge(v, w);
+				list.addEdge(v, w);
+			}
+			assertEquals(list.getNumEdges(), matrix.getNumEdges());
+			for (int v = 0; v < n; v++) {
+				assertEquals(sorted(list.getNeighbors(v)), matrix.getNeighbors(v));
+				List<Integer> visited = new ArrayList<Integer>();
+				matrix.forEachNeighbor(v, visited::add);
+				assertEquals(matrix.getNeighbors(v), visited);
+				assertEquals(sorted(list.getInNeighbors(v)), matrix.getInNeighbors(v));
+				assertEquals(list.getOutDegree(v), matrix.getOutDegree(v));
+				assertEquals(list.getInDegree(v), matrix.getInDegree(v));
+				TreeSet<Integer> twoHop = new TreeSet<Integer>(list.getDistance2(v));
+				assertEquals(new ArrayList<Integer>(twoHop), matrix.getDistance2Set(v));
+				assertEquals(twoHop, new TreeSet<Integer>(matrix.getDistance2(v)));
+			}
+		}
+	}
 }
@@ -0,0 +1,261 @@
+/**
+ *
+ */
+package basicgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import util.GraphLoader;
+
+/**
+ * Tests PageRank and HITS against a plain power iteration over the
+ * adjacency lists.
+ *
+ * @author Daniel
+ *
+ */
+public class LinkAnalysisTest {
+
+	private GraphAdjList airports;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		airports = new GraphAdjList();
+		GraphLoader.loadRoutes("data/airports/routesUA.dat", airports);
+	}
+
+	// a sequential PageRank that pushes each vertex's rank along its edges
+	private static double[] referencePageRank(Graph graph, double damping, int iterations) {
+		int n = graph.getNumVertices();
+		double[] rank = new double[n];
+		Arrays.fill(rank, 1.0 / n);
+		for (int i = 0; i < iterations; i++) {
+			double[] next = new double[n];
+			double dangling = 0;
+			for (int v = 0; v < n; v++) {
+				List<Integer> neighbors = graph.getNeighbors(v);
+				if (neighbors.isEmpty()) {
+					dangling += rank[v];
+				}
+				for (int w : neighbors) {
+					next[w] += damping * rank[v] / neighbors.size();
+				}
+			}
+			for (int v = 0; v < n; v++) {
+				next[v] += (1 - damping) / n + damping * dangling / n;
+			}
+			rank = next;
+		}
+		return rank;
+	}
+
+	// a sequential HITS; returns the hub and authority scores
+	private static double[][] referenceHits(Graph graph, int iterations) {
+		int n = graph.getNumVertices();
+		double[] hub = new double[n];
+		Arrays.fill(hub, 1.0 / Math.sqrt(n));
+		double[] authority = null;
+		for (int i = 0; i < iterations; i++) {
+			authority = new double[n];
+			for (int v = 0; v < n; v++) {
+				for (int w : graph.getNeighbors(v)) {
+					authority[w] += hub[v];
+				}
+			}
+			normalize(authority);
+			hub = new double[n];
+			for (int v = 0; v < n; v++) {
+				for (int w : graph.getNeighbors(v)) {
+					hub[v] += authority[w];
+				}
+			}
+			normalize(hub);
+		}
+		return new double[][] { hub, authority };
+	}
+
+	private static void normalize(double[] scores) {
+		double squares = 0;
+		for (double score : scores) {
+			squares += score * score;
+		}
+		for (int v = 0; v < scores.length; v++) {
+			scores[v] = squares == 0 ? 0 : scores[v] / Math.sqrt(squares);
+		}
+	}
+
+	private static double sum(double[] scores) {
+		double sum = 0;
+		for (double score : scores) {
+			sum += score;
+		}
+		return sum;
+	}
+
+	// a random graph big enough to be split into several vertex blocks,
+	// with vertices that have no out-edges
+	private static GraphAdjList randomGraph(int n, int m, long seed) {
+		Random random = new Random(seed);
+		GraphAdjList graph = new GraphAdjList();
+		for (int v = 0; v < n; v++) {
+			graph.addVertex();
+		}
+		for (int e = 0; e < m; e++) {
+			int v = random.nextInt(n);
+			if (v % 7 != 0) {
+				graph.addEdge(v, random.nextInt(n));
+			}
+		}
+		return graph;
+	}
+
+	@Test
+	public void testCycle() {
+		GraphAdjList cycle = new GraphAdjList();
+		for (int v = 0; v < 5; v++) {
+			cycle.addVertex();
+		}
+		for (int v = 0; v < 5; v++) {
+			cycle.addEdge(v, (v + 1) % 5);
+		}
+		Ranking rank = LinkAnalysis.pageRank(CompactGraph.of(cycle));
+		assertTrue(rank.hasConverged());
+		assertArrayEquals(new double[] { 0.2, 0.2, 0.2, 0.2, 0.2 }, rank.getScores(), 1e-12);
+
+		LinkAnalysis.HubsAndAuthorities hits = LinkAnalysis.hits(CompactGraph.of(cycle));
+		double uniform = 1 / Math.sqrt(5);
+		for (int v = 0; v < 5; v++) {
+			assertEquals(uniform, hits.getHubs().getScore(v), 1e-12);
+			assertEquals(uniform, hits.getAuthorities().getScore(v), 1e-12);
+		}
+	}
+
+	/**
+	 * Every vertex links to vertex 0, which links nowhere: its rank is
+	 * spread evenly over all the vertices.
+	 */
+	@Test
+	public void testStar() {
+		GraphAdjList star = new GraphAdjList();
+		for (int v = 0; v < 4; v++) {
+			star.addVertex();
+		}
+		for (int v = 1; v < 4; v++) {
+			star.addEdge(v, 0);
+		}
+		double[] scores = LinkAnalysis.pageRank(CompactGraph.of(star)).getScores();
+		assertEquals(1, sum(scores), 1e-12);
+		// r0 = b + 3d * r1 and r1 = b with b = (1 - d) / 4 + d * r0 / 4
+		double d = LinkAnalysis.DEFAULT_DAMPING;
+		double leaf = 1 / (4 + 3 * d);
+		assertArrayEquals(new double[] { 1 - 3 * leaf, leaf, leaf, leaf }, scores, 1e-9);
+		assertArrayEquals(new int[] { 0, 1, 2 }, LinkAnalysis.pageRank(CompactGraph.of(star)).top(3));
+
+		LinkAnalysis.HubsAndAuthorities hits = LinkAnalysis.hits(CompactGraph.of(star));
+		assertArrayEquals(new double[] { 1, 0, 0, 0 }, hits.getAuthorities().getScores(), 1e-12);
+		double hub = 1 / Math.sqrt(3);
+		assertArrayEquals(new double[] { 0, hub, hub, hub }, hits.getHubs().getScores(), 1e-12);
+	}
+
+	@Test
+	public void testMatchesReference() {
+		for (Graph graph : new Graph[] { airports, randomGraph(20000, 100000, 42) }) {
+			Ranking rank = LinkAnalysis.pageRank(CompactGraph.of(graph), 0.85, 0, 30);
+			assertEquals(30, rank.getIterations());
+			assertFalse(rank.hasConverged());
+			assertEquals(1, sum(rank.getScores()), 1e-9);
+			assertArrayEquals(referencePageRank(graph, 0.85, 30), rank.getScores(), 1e-12);
+
+			LinkAnalysis.HubsAndAuthorities hits = LinkAnalysis.hits(CompactGraph.of(graph), 0, 30);
+			double[][] expected = referenceHits(graph, 30);
+			assertArrayEquals(expected[0], hits.getHubs().getScores(), 1e-12);
+			assertArrayEquals(expected[1], hits.getAuthorities().getScores(), 1e-12);
+		}
+	}
+
+	@Test
+	public void testConvergence() {
+		Ranking rank = LinkAnalysis.pageRank(CompactGraph.of(airports));
+		assertTrue(rank.hasConverged());
+		assertTrue(rank.getIterations() < LinkAnalysis.DEFAULT_MAX_ITERATIONS);
+		assertEquals(rank.getIterations(), rank.getIterationNanos().length);
+		assertEquals(1, sum(rank.getScores()), 1e-9);
+		assertTrue(rank.getEdgesPerSecond() >= 0);
+
+		// one more iteration moves the ranks by less than the tolerance
+		double[] next = LinkAnalysis.pageRank(CompactGraph.of(airports), LinkAnalysis.DEFAULT_DAMPING,
+				0, rank.getIterations() + 1).getScores();
+		double delta = 0;
+		for (int v = 0; v < next.length; v++) {
+			delta += Math.abs(next[v] - rank.getScore(v));
+		}
+		assertTrue(delta < LinkAnalysis.DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * The scores do not depend on how the vertex blocks are scheduled.
+	 */
+	@Test
+	public void testDeterministic() {
+		CompactGraph graph = CompactGraph.of(randomGraph(50000, 200000, 7));
+		double[] first = LinkAnalysis.pageRank(graph).getScores();
+		double[] hubs = LinkAnalysis.hits(graph).getHubs().getScores();
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(first, LinkAnalysis.pageRank(graph).getScores(), 0);
+			assertArrayEquals(hubs, LinkAnalysis.hits(graph).getHubs().getScores(), 0);
+		}
+	}
+
+	@Test
+	public void testTop() {
+		Ranking rank = LinkAnalysis.pageRank(CompactGraph.of(airports));
+		int[] top = rank.top(10);
+		assertEquals(10, top.length);
+		Integer[] sorted = new Integer[airports.getNumVertices()];
+		for (int v = 0; v < sorted.length; v++) {
+			sorted[v] = v;
+		}
+		Arrays.sort(sorted, (a, b) -> rank.getScore(a) != rank.getScore(b)
+				? Double.compare(rank.getScore(b), rank.getScore(a)) : Integer.compare(a, b));
+		List<String> labels = rank.topLabels(airports, 10);
+		for (int i = 0; i < 10; i++) {
+			assertEquals((int) sorted[i], top[i]);
+			assertEquals(airports.getLabel(top[i]), labels.get(i));
+		}
+		assertEquals(airports.getNumVertices(), rank.top(airports.getNumVertices() + 5).length);
+		assertEquals(0, rank.top(0).length);
+	}
+
+	@Test
+	public void testEmpty() {
+		CompactGraph empty = CompactGraph.of(new GraphAdjList());
+		Ranking rank = LinkAnalysis.pageRank(empty);
+		assertEquals(0, rank.getScores().length);
+		assertTrue(rank.hasConverged());
+		assertEquals(0, rank.getIterations());
+		assertEquals(0, LinkAnalysis.hits(empty).getHubs().getScores().length);
+	}
+
+	@Test
+	public void testInvalidDamping() {
+		CompactGraph graph = CompactGraph.of(airports);
+		for (double damping : new double[] { -0.1, 1.5 }) {
+			try {
+				LinkAnalysis.pageRank(graph, damping, LinkAnalysis.DEFAULT_TOLERANCE, 10);
+				fail("damping " + damping);
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ *
+ */
+package geography;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the fixed point coordinates of CoordinateStore.
+ *
+ * @author Daniel
+ *
+ */
+public class CoordinateStoreTest {
+
+	private static final String[] MAPS = {
+			"data/maps/hollywood_large.map", "data/maps/hollywood_small.map",
+			"data/maps/new_york.map", "data/maps/newbury_small.map",
+			"data/maps/newbury_verysmall.map", "data/maps/san_diego.map",
+			"data/maps/ucsd.map", "data/maps/utc.map", "data/testdata/simpletest.map" };
+
+	private CoordinateStore store;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		store = new CoordinateStore();
+	}
+
+	@Test
+	public void testAddAndFind() {
+		assertEquals(0, store.size());
+		assertEquals(-1, store.indexOf(32.8709815, -117.2434254));
+		assertEquals(0, store.add(32.8709815, -117.2434254));
+		assertEquals(1, store.add(-33.8688197, 151.2092955));
+		assertEquals(2, store.size());
+
+		assertEquals(0, store.indexOf(32.8709815, -117.2434254));
+		assertEquals(1, store.indexOf(new GeographicPoint(-33.8688197, 151.2092955)));
+		assertEquals(-1, store.indexOf(null));
+		assertEquals(-1, store.indexOf(32.8709816, -117.2434254));
+		assertEquals(new GeographicPoint(32.8709815, -117.2434254), store.getPoint(0));
+		assertEquals(-33.8688197, store.getLatitude(1), 0);
+		assertEquals(151.2092955, store.getLongitude(1), 0);
+		assertEquals(CoordinateStore.toFixed(151.2092955), store.getFixedLongitude(1));
+
+		// a coordinate added twice is found at its first index
+		assertEquals(2, store.add(32.8709815, -117.2434254));
+		assertEquals(0, store.indexOf(32.8709815, -117.2434254));
+		assertEquals(0, store.indexOfFixed(store.getFixedLatitude(2), store.getFixedLongitude(2)));
+
+		try {
+			store.getPoint(3);
+			fail("out of range");
+		}
+		catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testFixedPoint() {
+		assertEquals(0, CoordinateStore.toFixed(0));
+		assertEquals(1, CoordinateStore.toFixed(1e-7));
+		assertEquals(-1800000000, CoordinateStore.toFixed(-180));
+		assertEquals(1800000000, CoordinateStore.toFixed(180));
+		assertEquals(-117.2434254, CoordinateStore.toDegrees(-1172434254), 0);
+		// rounded to the nearest unit
+		assertEquals(12, CoordinateStore.toFixed(0.00000115));
+		assertEquals(-12, CoordinateStore.toFixed(-0.00000118));
+	}
+
+	@Test
+	public void testGrowth() {
+		Random random = new Random(42);
+		int n = 100000;
+		int[] lat = new int[n];
+		int[] lng = new int[n];
+		for (int i = 0; i < n; i++) {
+			lat[i] = random.nextInt(1800000000) - 900000000;
+			lng[i] = random.nextInt();
+			assertEquals(i, store.addFixed(lat[i], lng[i]));
+		}
+		assertEquals(n, store.size());
+		for (int i = 0; i < n; i++) {
+			assertEquals(i, store.indexOfFixed(lat[i], lng[i]));
+			assertEquals(lat[i], store.getFixedLatitude(i));
+			assertEquals(lng[i], store.getFixedLongitude(i));
+		}
+	}
+
+	@Test
+	public void testPermute() {
+		for (int i = 0; i < 50; i++) {
+			store.add(i * 0.5, -i * 0.25);
+		}
+		int[] newToOld = new int[50];
+		for (int i = 0; i < 50; i++) {
+			newToOld[i] = 49 - i;
+		}
+		CoordinateStore permuted = store.permute(newToOld);
+		assertEquals(50, permuted.size());
+		for (int i = 0; i < 50; i++) {
+			assertEquals(store.getPoint(49 - i), permuted.getPoint(i));
+			assertEquals(i, permuted.indexOf(store.getPoint(49 - i)));
+		}
+		assertEquals(store.distance(3, 7), permuted.distance(46, 42), 0);
+		assertEquals(new GeographicPoint(1.5, -0.75).distance(new GeographicPoint(3.5, -1.75)),
+				store.distance(3, 7), 1e-9);
+	}
+
+	/**
+	 * Every coordinate of the bundled maps has at most 7 decimal places,
+	 * so it is stored exactly.
+	 */
+	@Test
+	public void testMapsRoundTrip() throws IOException {
+		for (String map : MAPS) {
+			try (BufferedReader reader = new BufferedReader(new FileReader(map))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.trim().split(" +");
+					if (fields.length < 4) continue;
+					for (int k = 0; k < 4; k++) {
+						double degrees = Double.parseDouble(fields[k]);
+						assertEquals(map + " " + fields[k], degrees,
+								CoordinateStore.toDegrees(CoordinateStore.toFixed(degrees)), 0);
+					}
+				}
+			}
+		}
+	}
+}
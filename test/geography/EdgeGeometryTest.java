@@ -0,0 +1,158 @@
+/**
+ *
+ */
+package geography;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import roadgraph.MapEdge;
+import roadgraph.MapGraph;
+import roadgraph.PathResult;
+import roadgraph.SearchAlgorithm;
+import util.GraphLoader;
+
+/**
+ * Tests the in-memory EdgeGeometry and the route polylines read from it.
+ *
+ * @author Daniel
+ *
+ */
+public class EdgeGeometryTest {
+
+	private EdgeGeometry geometry;
+	private GeographicPoint a, b, c, d;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		geometry = new MemoryEdgeGeometry();
+		a = new GeographicPoint(32.8709815, -117.2434254);
+		b = new GeographicPoint(32.8712, -117.2431);
+		c = new GeographicPoint(32.8716, -117.2429);
+		d = new GeographicPoint(32.872, -117.2425);
+	}
+
+	@Test
+	public void testAdd() {
+		assertEquals(0, geometry.getNumEdges());
+		assertEquals(0, geometry.add(a, Collections.emptyList(), b));
+		assertEquals(1, geometry.add(b, Arrays.asList(new GeographicPoint(32.8714, -117.2431),
+				new GeographicPoint(32.8715, -117.243)), c));
+		assertEquals(2, geometry.getNumEdges());
+		assertEquals(2, geometry.getNumPoints(0));
+		assertEquals(4, geometry.getNumPoints(1));
+		assertEquals(a.getX(), geometry.getLatitude(0, 0), 0);
+		assertEquals(a.getY(), geometry.getLongitude(0, 0), 0);
+		assertEquals(32.8714, geometry.getLatitude(1, 1), 0);
+		assertEquals(-117.243, geometry.getLongitude(1, 2), 0);
+		assertEquals(c.getY(), geometry.getLongitude(1, 3), 0);
+	}
+
+	/**
+	 * The point where one edge meets the next appears once, and edgeEnds
+	 * marks where each edge ends.
+	 */
+	@Test
+	public void testGetPath() {
+		geometry.add(a, Collections.emptyList(), b);
+		geometry.add(b, Arrays.asList(new GeographicPoint(32.8714, -117.2431)), c);
+		geometry.add(c, Collections.emptyList(), d);
+		int[] edgeEnds = new int[3];
+		double[] path = geometry.getPath(new int[] { 0, 1, 2 }, edgeEnds);
+		assertArrayEquals(new double[] { a.getX(), a.getY(), b.getX(), b.getY(), 32.8714, -117.2431,
+				c.getX(), c.getY(), d.getX(), d.getY() }, path, 0);
+		assertArrayEquals(new int[] { 1, 3, 4 }, edgeEnds);
+		assertArrayEquals(new double[] { b.getX(), b.getY(), 32.8714, -117.2431, c.getX(), c.getY() },
+				geometry.getPath(new int[] { 1 }, null), 0);
+		assertEquals(0, geometry.getPath(new int[0], null).length);
+	}
+
+	@Test
+	public void testGrowth() {
+		Random random = new Random(42);
+		List<List<GeographicPoint>> edges = new ArrayList<List<GeographicPoint>>();
+		for (int e = 0; e < 1000; e++) {
+			List<GeographicPoint> points = new ArrayList<GeographicPoint>();
+			int count = 2 + random.nextInt(6);
+			for (int k = 0; k < count; k++) {
+				points.add(new GeographicPoint(
+						CoordinateStore.toDegrees(random.nextInt(1800000000) - 900000000),
+						CoordinateStore.toDegrees(random.nextInt())));
+			}
+			edges.add(points);
+			assertEquals(e, geometry.add(points.get(0), points.subList(1, points.size() - 1),
+					points.get(points.size() - 1)));
+		}
+		for (int e = 0; e < edges.size(); e++) {
+			List<GeographicPoint> points = edges.get(e);
+			assertEquals(points.size(), geometry.getNumPoints(e));
+			for (int k = 0; k < points.size(); k++) {
+				assertEquals(points.get(k).getX(), geometry.getLatitude(e, k), 0);
+				assertEquals(points.get(k).getY(), geometry.getLongitude(e, k), 0);
+			}
+		}
+	}
+
+	/**
+	 * The polyline of a route follows the road segments the loader built
+	 * for the edges of the route, and is what the store gives for the
+	 * route's edge ids.
+	 */
+	@Test
+	public void testRoutesFollowRoads() {
+		HashMap<GeographicPoint, HashSet<RoadSegment>> roads =
+				new HashMap<GeographicPoint, HashSet<RoadSegment>>();
+		HashSet<GeographicPoint> intersections = new HashSet<GeographicPoint>();
+		MapGraph graph = new MapGraph();
+		GraphLoader.loadRoadMap("data/maps/hollywood_small.map", graph, roads, intersections);
+		List<GeographicPoint> points = new ArrayList<GeographicPoint>(intersections);
+		Collections.sort(points, (p, q) -> p.getX() != q.getX()
+				? Double.compare(p.getX(), q.getX()) : Double.compare(p.getY(), q.getY()));
+		Random random = new Random(42);
+		int curved = 0;
+		for (int q = 0; q < 100; q++) {
+			PathResult result = graph.findPath(points.get(random.nextInt(points.size())),
+					points.get(random.nextInt(points.size())), SearchAlgorithm.DIJKSTRA);
+			if (!result.hasPath() || result.getEdges().isEmpty()) continue;
+			List<MapEdge> edges = result.getEdges();
+			int[] edgeEnds = new int[edges.size()];
+			double[] path = result.getGeometry(edgeEnds);
+			// the route's edge ids expand to the same polyline in the store
+			int[] storeEnds = new int[edges.size()];
+			assertArrayEquals(path, graph.getGeometry().getPath(result.getEdgeIds(), storeEnds), 0);
+			assertArrayEquals(edgeEnds, storeEnds);
+			int start = 0;
+			for (int i = 0; i < edges.size(); i++) {
+				MapEdge edge = edges.get(i);
+				List<GeographicPoint> drawn = new ArrayList<GeographicPoint>();
+				for (int k = start; k <= edgeEnds[i]; k++) {
+					drawn.add(new GeographicPoint(path[2 * k], path[2 * k + 1]));
+				}
+				boolean found = false;
+				for (RoadSegment segment : roads.get(edge.getFrom())) {
+					if (segment.getOtherPoint(edge.getFrom()).equals(edge.getTo())) {
+						found |= segment.getPoints(edge.getFrom(), edge.getTo()).equals(drawn);
+					}
+				}
+				assertTrue("query " + q + " edge " + i, found);
+				if (drawn.size() > 2) curved++;
+				start = edgeEnds[i];
+			}
+			assertEquals(2 * (edgeEnds[edges.size() - 1] + 1), path.length);
+		}
+		assertTrue(curved > 0);
+	}
+}
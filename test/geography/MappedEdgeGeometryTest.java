@@ -0,0 +1,224 @@
+/**
+ *
+ */
+package geography;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import roadgraph.MapGraph;
+import roadgraph.PathResult;
+import roadgraph.SearchAlgorithm;
+import util.GraphLoader;
+
+/**
+ * Tests that MappedEdgeGeometry reads back the same roads as
+ * MemoryEdgeGeometry, and the life cycle of its file.
+ *
+ * @author Daniel
+ *
+ */
+public class MappedEdgeGeometryTest {
+
+	private File file;
+	private MappedEdgeGeometry mapped;
+	private MemoryEdgeGeometry memory;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("roads", ".geometry");
+		mapped = new MappedEdgeGeometry(file, 8);
+		memory = new MemoryEdgeGeometry();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		mapped.close();
+		file.delete();
+	}
+
+	// add the same random edges to both stores, each starting where the
+	// one before it ends
+	private void addEdges(Random random, int count) {
+		GeographicPoint from = new GeographicPoint(32.87, -117.24);
+		for (int e = 0; e < count; e++) {
+			List<GeographicPoint> between = new ArrayList<GeographicPoint>();
+			GeographicPoint to = step(from, random);
+			for (int k = random.nextInt(6); k > 0; k--) {
+				between.add(to);
+				to = step(to, random);
+			}
+			assertEquals(memory.add(from, between, to), mapped.add(from, between, to));
+			from = to;
+		}
+	}
+
+	// a point up to 100m from p, on the fixed point grid
+	private static GeographicPoint step(GeographicPoint p, Random random) {
+		int lat = CoordinateStore.toFixed(p.getX()) + random.nextInt(2001) - 1000;
+		int lng = CoordinateStore.toFixed(p.getY()) + random.nextInt(2001) - 1000;
+		return new GeographicPoint(CoordinateStore.toDegrees(lat), CoordinateStore.toDegrees(lng));
+	}
+
+	private void assertSameEdges() {
+		assertEquals(memory.getNumEdges(), mapped.getNumEdges());
+		for (int e = 0; e < memory.getNumEdges(); e++) {
+			assertEquals(memory.getNumPoints(e), mapped.getNumPoints(e));
+			for (int k = 0; k < memory.getNumPoints(e); k++) {
+				assertEquals(memory.getLatitude(e, k), mapped.getLatitude(e, k), 0);
+				assertEquals(memory.getLongitude(e, k), mapped.getLongitude(e, k), 0);
+			}
+		}
+	}
+
+	/**
+	 * Enough points to take several flushes of the write buffer.
+	 */
+	@Test
+	public void testMatchesMemory() {
+		Random random = new Random(42);
+		addEdges(random, 20000);
+		assertSameEdges();
+		for (int q = 0; q < 200; q++) {
+			int from = random.nextInt(memory.getNumEdges() - 50);
+			int[] edges = new int[1 + random.nextInt(50)];
+			for (int i = 0; i < edges.length; i++) {
+				edges[i] = from + i;
+			}
+			int[] memoryEnds = new int[edges.length];
+			int[] mappedEnds = new int[edges.length];
+			assertArrayEquals(memory.getPath(edges, memoryEnds), mapped.getPath(edges, mappedEnds), 0);
+			assertArrayEquals(memoryEnds, mappedEnds);
+		}
+	}
+
+	@Test
+	public void testCacheBound() {
+		addEdges(new Random(42), 100);
+		assertEquals(0, mapped.getNumCached());
+		for (int e = 0; e < 100; e++) {
+			mapped.getLatitude(e, 0);
+			assertEquals(Math.min(e + 1, 8), mapped.getNumCached());
+		}
+		mapped.getPath(new int[] { 10, 11, 12, 13, 14, 15, 16, 17, 18, 19 }, null);
+		assertEquals(8, mapped.getNumCached());
+	}
+
+	/**
+	 * Edges added after geometry was first read are found when the file is
+	 * mapped again.
+	 */
+	@Test
+	public void testAddAfterRead() {
+		Random random = new Random(42);
+		addEdges(random, 50);
+		assertSameEdges();
+		addEdges(random, 50);
+		assertSameEdges();
+		addEdges(random, 1);
+		assertEquals(memory.getLatitude(100, 1), mapped.getLatitude(100, 1), 0);
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		addEdges(new Random(42), 10);
+		mapped.getLatitude(0, 0);
+		assertTrue(file.exists());
+		mapped.close();
+		assertFalse(file.exists());
+		assertEquals(0, mapped.getNumCached());
+		// closing again does nothing
+		mapped.close();
+
+		// the store cannot be read or added to once closed
+		try {
+			mapped.getLatitude(0, 0);
+			fail("read after close");
+		}
+		catch (IllegalStateException e) {
+		}
+		try {
+			mapped.getPath(new int[] { 1, 2 }, null);
+			fail("path after close");
+		}
+		catch (IllegalStateException e) {
+		}
+		try {
+			mapped.add(new GeographicPoint(1, 2), new ArrayList<GeographicPoint>(), new GeographicPoint(3, 4));
+			fail("add after close");
+		}
+		catch (IllegalStateException e) {
+		}
+		new MemoryEdgeGeometry().close();
+	}
+
+	@Test
+	public void testCreateTemporary() throws IOException {
+		MappedEdgeGeometry temporary = MappedEdgeGeometry.createTemporary();
+		GeographicPoint a = new GeographicPoint(1, 2);
+		GeographicPoint b = new GeographicPoint(3, 4);
+		assertEquals(0, temporary.add(a, new ArrayList<GeographicPoint>(), b));
+		assertEquals(3, temporary.getLatitude(0, 1), 0);
+		temporary.close();
+	}
+
+	@Test
+	public void testInvalidCache() throws IOException {
+		try {
+			new MappedEdgeGeometry(file, 0);
+			fail("empty cache");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * A map loaded into a graph on the mapped store draws the same routes.
+	 */
+	@Test
+	public void testMapGraph() throws IOException {
+		MapGraph inMemory = new MapGraph();
+		MapGraph onFile = new MapGraph(mapped);
+		GraphLoader.loadRoadMap("data/maps/hollywood_small.map", inMemory);
+		GraphLoader.loadRoadMap("data/maps/hollywood_small.map", onFile);
+		assertSame(mapped, onFile.getGeometry());
+		List<GeographicPoint> points = new ArrayList<GeographicPoint>(inMemory.getVertices());
+		points.sort((p, q) -> p.getX() != q.getX()
+				? Double.compare(p.getX(), q.getX()) : Double.compare(p.getY(), q.getY()));
+		Random random = new Random(42);
+		for (int q = 0; q < 100; q++) {
+			GeographicPoint start = points.get(random.nextInt(points.size()));
+			GeographicPoint goal = points.get(random.nextInt(points.size()));
+			PathResult expected = inMemory.findPath(start, goal, SearchAlgorithm.A_STAR);
+			PathResult actual = onFile.findPath(start, goal, SearchAlgorithm.A_STAR);
+			assertEquals(expected.getStatus(), actual.getStatus());
+			if (expected.hasPath()) {
+				assertArrayEquals(expected.getGeometry(), actual.getGeometry(), 0);
+			}
+		}
+		onFile.close();
+		assertFalse(file.exists());
+
+		try {
+			new MapGraph(onFile.getGeometry());
+			fail("store is not empty");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ *
+ */
+package geography;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the zoom levels of PathSimplifier against Douglas-Peucker run
+ * separately for each zoom.
+ *
+ * @author Daniel
+ *
+ */
+public class PathSimplifierTest {
+
+	private double[] walk;
+	private PathSimplifier simplifier;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		// a random walk of 5000 vertices that turns gradually, with steps
+		// of about 10m
+		Random random = new Random(42);
+		walk = new double[2 * 5000];
+		double lat = 32.8, lng = -117.2, heading = 0;
+		for (int i = 0; i < 5000; i++) {
+			walk[2 * i] = lat;
+			walk[2 * i + 1] = lng;
+			heading += random.nextGaussian() * 0.3;
+			lat += 1e-4 * Math.cos(heading);
+			lng += 1e-4 * Math.sin(heading);
+		}
+		simplifier = new PathSimplifier(walk);
+	}
+
+	private static double x(double[] latLngs, int i) {
+		return (latLngs[2 * i + 1] + 180) / 360;
+	}
+
+	private static double y(double[] latLngs, int i) {
+		double sin = Math.sin(Math.toRadians(latLngs[2 * i]));
+		sin = Math.max(-0.9999, Math.min(0.9999, sin));
+		return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+	}
+
+	// distance in pixels at a zoom from vertex k to the line from a to b
+	private static double pixels(double[] latLngs, int k, int a, int b, int zoom) {
+		double px = x(latLngs, k), py = y(latLngs, k);
+		double ax = x(latLngs, a), ay = y(latLngs, a);
+		double dx = x(latLngs, b) - ax, dy = y(latLngs, b) - ay;
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+		double ex = ax + t * dx - px, ey = ay + t * dy - py;
+		return Math.sqrt(ex * ex + ey * ey) * 256 * Math.pow(2, zoom);
+	}
+
+	// recursive Douglas-Peucker: keep the farthest vertex of a range if it
+	// is at least the tolerance off the line
+	private static void douglasPeucker(double[] latLngs, int a, int b, int zoom, boolean[] keep) {
+		int farthest = -1;
+		double distance = -1;
+		for (int k = a + 1; k < b; k++) {
+			double d = pixels(latLngs, k, a, b, zoom);
+			if (d > distance) {
+				distance = d;
+				farthest = k;
+			}
+		}
+		if (farthest >= 0 && distance >= PathSimplifier.TOLERANCE_PIXELS) {
+			keep[farthest] = true;
+			douglasPeucker(latLngs, a, farthest, zoom, keep);
+			douglasPeucker(latLngs, farthest, b, zoom, keep);
+		}
+	}
+
+	@Test
+	public void testMatchesDouglasPeucker() {
+		int n = walk.length / 2;
+		assertEquals(n, simplifier.size());
+		for (int zoom = 0; zoom < PathSimplifier.MAX_ZOOM; zoom++) {
+			boolean[] keep = new boolean[n];
+			keep[0] = keep[n - 1] = true;
+			douglasPeucker(walk, 0, n - 1, zoom, keep);
+			int kept = 0;
+			for (int i = 0; i < n; i++) {
+				assertEquals("zoom " + zoom + " vertex " + i, keep[i],
+						i == 0 || i == n - 1 || simplifier.getMinZoom(i) <= zoom);
+				if (keep[i]) kept++;
+			}
+			assertEquals(2 * kept, simplifier.simplify(0, n - 1, zoom).length);
+		}
+		// every vertex is kept from the last level
+		assertArrayEquals(walk, simplifier.simplify(0, n - 1, PathSimplifier.MAX_ZOOM), 0);
+	}
+
+	/**
+	 * Every vertex left out at a zoom is within the tolerance of the
+	 * simplified line.
+	 */
+	@Test
+	public void testErrorBound() {
+		int n = walk.length / 2;
+		for (int zoom = 0; zoom <= PathSimplifier.MAX_ZOOM; zoom++) {
+			int last = 0;
+			for (int i = 1; i < n; i++) {
+				if (i < n - 1 && simplifier.getMinZoom(i) > zoom) continue;
+				for (int k = last + 1; k < i; k++) {
+					assertTrue("zoom " + zoom + " vertex " + k,
+							pixels(walk, k, last, i, zoom) < PathSimplifier.TOLERANCE_PIXELS);
+				}
+				last = i;
+			}
+		}
+	}
+
+	@Test
+	public void testSimplifyPart() {
+		int from = 1000, to = 1500, zoom = 15;
+		double[] part = simplifier.simplify(from, to, zoom);
+		// the ends are kept whatever their level
+		assertEquals(walk[2 * from], part[0], 0);
+		assertEquals(walk[2 * from + 1], part[1], 0);
+		assertEquals(walk[2 * to], part[part.length - 2], 0);
+		assertEquals(walk[2 * to + 1], part[part.length - 1], 0);
+		int j = 2;
+		for (int i = from + 1; i < to; i++) {
+			if (simplifier.getMinZoom(i) <= zoom) {
+				assertEquals(walk[2 * i], part[j++], 0);
+				assertEquals(walk[2 * i + 1], part[j++], 0);
+			}
+		}
+		assertEquals(part.length - 2, j);
+	}
+
+	@Test
+	public void testStraightLine() {
+		double[] line = new double[2 * 10];
+		for (int i = 0; i < 10; i++) {
+			line[2 * i] = 0;
+			line[2 * i + 1] = i * 0.001;
+		}
+		PathSimplifier straight = new PathSimplifier(line);
+		assertArrayEquals(new double[] { 0, 0, 0, line[19] },
+				straight.simplify(0, 9, PathSimplifier.MAX_ZOOM - 1), 0);
+		assertEquals(20, straight.simplify(0, 9, PathSimplifier.MAX_ZOOM).length);
+	}
+
+	@Test
+	public void testShortPaths() {
+		assertEquals(0, new PathSimplifier(new double[0]).size());
+		PathSimplifier two = new PathSimplifier(new double[] { 1, 2, 3, 4 });
+		assertArrayEquals(new double[] { 1, 2, 3, 4 }, two.simplify(0, 1, 0), 0);
+		assertArrayEquals(new double[] { 3, 4 }, two.simplify(1, 1, 0), 0);
+		try {
+			new PathSimplifier(new double[3]);
+			fail("odd length");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ *
+ */
+package geography;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import util.GraphLoader;
+
+/**
+ * Tests R-tree searches against a scan over every item.
+ *
+ * @author Daniel
+ *
+ */
+public class RTreeTest {
+
+	// the items whose boxes meet the query box, in increasing order
+	private static int[] scan(double[][] boxes, double south, double west, double north, double east) {
+		int[] found = new int[boxes.length];
+		int count = 0;
+		for (int i = 0; i < boxes.length; i++) {
+			double[] box = boxes[i];
+			boolean latitude = box[0] <= north && box[2] >= south;
+			boolean longitude = west <= east ? box[1] <= east && box[3] >= west
+					: box[3] >= west || box[1] <= east;
+			if (latitude && longitude) {
+				found[count++] = i;
+			}
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	private static int[] search(RTree tree, double south, double west, double north, double east) {
+		int[] found = tree.search(south, west, north, east);
+		Arrays.sort(found);
+		return found;
+	}
+
+	// random query boxes of many sizes over the area the boxes cover
+	private static void assertMatchesScan(RTree tree, double[][] boxes, double south, double west,
+			double north, double east, Random random) {
+		assertEquals(boxes.length, tree.size());
+		for (int q = 0; q < 500; q++) {
+			double size = Math.pow(10, -3 * random.nextDouble());
+			double height = (north - south) * size;
+			double width = (east - west) * size;
+			double s = south - height + random.nextDouble() * (north - south + height);
+			double w = west - width + random.nextDouble() * (east - west + width);
+			assertArrayEquals("query " + q, scan(boxes, s, w, s + height, w + width),
+					search(tree, s, w, s + height, w + width));
+		}
+		// a box around everything, and one that meets nothing
+		int[] all = new int[boxes.length];
+		for (int i = 0; i < all.length; i++) {
+			all[i] = i;
+		}
+		assertArrayEquals(all, search(tree, south, west, north, east));
+		assertEquals(0, tree.search(north + 1, west, north + 2, east).length);
+	}
+
+	@Test
+	public void testRandomPoints() {
+		Random random = new Random(42);
+		for (int n : new int[] { 0, 1, RTree.NODE_CAPACITY, RTree.NODE_CAPACITY + 1, 300, 5000 }) {
+			List<GeographicPoint> points = new ArrayList<GeographicPoint>();
+			double[][] boxes = new double[n][];
+			for (int i = 0; i < n; i++) {
+				double lat = 32 + random.nextDouble();
+				double lng = -118 + random.nextDouble();
+				// some points share a location
+				if (i > 0 && random.nextInt(10) == 0) {
+					lat = points.get(i - 1).getX();
+					lng = points.get(i - 1).getY();
+				}
+				points.add(new GeographicPoint(lat, lng));
+				boxes[i] = new double[] { lat, lng, lat, lng };
+			}
+			RTree tree = RTree.ofPoints(points);
+			assertMatchesScan(tree, boxes, 32, -118, 33, -117, random);
+		}
+	}
+
+	@Test
+	public void testSegments() {
+		HashMap<GeographicPoint, HashSet<RoadSegment>> roads =
+				new HashMap<GeographicPoint, HashSet<RoadSegment>>();
+		HashSet<GeographicPoint> intersections = new HashSet<GeographicPoint>();
+		GraphLoader.loadRoadMap("data/maps/hollywood_large.map", new roadgraph.MapGraph(), roads,
+				intersections);
+		HashSet<RoadSegment> unique = new HashSet<RoadSegment>();
+		for (Collection<RoadSegment> segments : roads.values()) {
+			unique.addAll(segments);
+		}
+		List<RoadSegment> segments = new ArrayList<RoadSegment>(unique);
+		double[][] boxes = new double[segments.size()][];
+		double south = 90, west = 180, north = -90, east = -180;
+		for (int i = 0; i < boxes.length; i++) {
+			boxes[i] = segments.get(i).getBounds();
+			south = Math.min(south, boxes[i][0]);
+			west = Math.min(west, boxes[i][1]);
+			north = Math.max(north, boxes[i][2]);
+			east = Math.max(east, boxes[i][3]);
+		}
+		assertMatchesScan(RTree.ofSegments(segments), boxes, south, west, north, east, new Random(7));
+	}
+
+	@Test
+	public void testSegmentBounds() {
+		GeographicPoint a = new GeographicPoint(1, 4);
+		GeographicPoint b = new GeographicPoint(3, 2);
+		List<GeographicPoint> geometry = Arrays.asList(a, new GeographicPoint(0, 3),
+				new GeographicPoint(2, 5), b);
+		RoadSegment segment = new RoadSegment(a, b, geometry, "road", "residential", 1);
+		assertArrayEquals(new double[] { 0, 2, 3, 5 }, segment.getBounds(), 0);
+	}
+
+	/**
+	 * A box whose west edge is east of its east edge crosses the 180th
+	 * meridian.
+	 */
+	@Test
+	public void testAntimeridian() {
+		Random random = new Random(42);
+		List<GeographicPoint> points = new ArrayList<GeographicPoint>();
+		double[][] boxes = new double[2000][];
+		for (int i = 0; i < boxes.length; i++) {
+			double lat = -60 + 120 * random.nextDouble();
+			double lng = -179.5 + 359 * random.nextDouble();
+			points.add(new GeographicPoint(lat, lng));
+			boxes[i] = new double[] { lat, lng, lat, lng };
+		}
+		RTree tree = RTree.ofPoints(points);
+		for (int q = 0; q < 200; q++) {
+			double s = -60 + 100 * random.nextDouble();
+			double w = 100 + 79 * random.nextDouble();
+			double e = -179 + 79 * random.nextDouble();
+			int[] expected = scan(boxes, s, w, s + 20, e);
+			assertArrayEquals("query " + q, expected, search(tree, s, w, s + 20, e));
+		}
+	}
+
+	@Test
+	public void testVisitor() {
+		List<GeographicPoint> points = new ArrayList<GeographicPoint>();
+		for (int i = 0; i < 100; i++) {
+			points.add(new GeographicPoint(i, i));
+		}
+		RTree tree = RTree.ofPoints(points);
+		List<Integer> visited = new ArrayList<Integer>();
+		tree.search(10, 10, 19.5, 19.5, visited::add);
+		visited.sort(null);
+		assertEquals(Arrays.asList(10, 11, 12, 13, 14, 15, 16, 17, 18, 19), visited);
+	}
+}
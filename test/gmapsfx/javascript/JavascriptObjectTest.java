@@ -0,0 +1,125 @@
+/**
+ *
+ */
+package gmapsfx.javascript;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gmapsfx.javascript.object.MapTypeIdEnum;
+
+/**
+ * Tests the Javascript source JavascriptObject writes for values and for
+ * the calls it queues, on a StubWebEngine.
+ *
+ * @author Daniel
+ *
+ */
+public class JavascriptObjectTest {
+
+    private StubWebEngine engine;
+    private IJavascriptRuntime runtime;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        engine = new StubWebEngine();
+        JavascriptRuntime.setDefaultWebEngine(engine);
+        runtime = JavascriptRuntime.getInstance();
+        runtime.setBatching(false);
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        runtime.setBatching(false);
+        JavascriptRuntime.setDefaultWebEngine(null);
+    }
+
+    // an object whose constructor is run as a script, so it is declared
+    private static JavascriptObject declared() {
+        return new JavascriptObject("Thing", 1) {
+        };
+    }
+
+    @Test
+    public void testStringLiterals() {
+        assertEquals("\"plain\"", JavascriptObject.toLiteral("plain"));
+        assertEquals("\"\"", JavascriptObject.toLiteral(""));
+        assertEquals("\"say \\\"hi\\\"\"", JavascriptObject.toLiteral("say \"hi\""));
+        assertEquals("\"it's\"", JavascriptObject.toLiteral("it's"));
+        assertEquals("\"C:\\\\maps\\\\\"", JavascriptObject.toLiteral("C:\\maps\\"));
+        // control characters and the line separators Javascript strings cannot hold
+        assertEquals("\"a\\u000ab\\u000dc\\u0009d\\u0000\"", JavascriptObject.toLiteral("a\nb\rc\td\u0000"));
+        assertEquals("\"a\\u2028b\\u2029\"", JavascriptObject.toLiteral("a\u2028b\u2029"));
+        assertEquals("\"caf\u00e9 \u65e5\"", JavascriptObject.toLiteral("caf\u00e9 \u65e5"));
+    }
+
+    @Test
+    public void testOtherLiterals() {
+        assertEquals("null", JavascriptObject.toLiteral(null));
+        assertEquals("3", JavascriptObject.toLiteral(3));
+        assertEquals("-2.5", JavascriptObject.toLiteral(-2.5));
+        assertEquals("true", JavascriptObject.toLiteral(true));
+        assertEquals(MapTypeIdEnum.ROADMAP.getType() + ".ROADMAP", JavascriptObject.toLiteral(MapTypeIdEnum.ROADMAP));
+        JavascriptObject object = declared();
+        assertEquals(object.getVariableName(), JavascriptObject.toLiteral(object));
+        // no source form
+        assertNull(JavascriptObject.toLiteral(new JavascriptObject("Thing", new StubJSObject()) {
+        }));
+        assertNull(JavascriptObject.toLiteral(new Object()));
+    }
+
+    /**
+     * A call whose arguments all have a source form is queued as one
+     * command.
+     */
+    @Test
+    public void testInvokeLater() {
+        JavascriptObject object = declared();
+        assertEquals(1, engine.scripts.size());
+        runtime.setBatching(true);
+        object.invokeJavascriptLater("setTitle", "\"quoted\"\u2028", 3, true, null);
+        object.invokeJavascriptLater("close");
+        assertEquals(1, engine.scripts.size());
+        runtime.flush();
+        String script = engine.last();
+        String title = object.getVariableName() + ".setTitle(\"\\\"quoted\\\"\\u2028\",3,true,null)";
+        assertTrue(script, script.contains(title));
+        assertTrue(script, script.indexOf(title) < script.indexOf(object.getVariableName() + ".close()"));
+    }
+
+    /**
+     * A call with an argument that has no source form is made at once on
+     * the Javascript object, after the calls queued before it.
+     */
+    @Test
+    public void testInvokeNow() {
+        JavascriptObject object = declared();
+        StubJSObject js = new StubJSObject();
+        engine.results.put(object.getVariableName(), js);
+        runtime.setBatching(true);
+        object.invokeJavascriptLater("setZoom", 3);
+        object.invokeJavascriptLater("setMap", engine);
+        assertEquals(3, engine.scripts.size());
+        assertTrue(engine.scripts.get(1).contains(".setZoom(3)"));
+        assertEquals(object.getVariableName(), engine.last());
+        assertEquals(1, js.calls.size());
+        assertEquals("setMap[" + engine + "]", js.calls.get(0));
+
+        // an object made from a Javascript result is called at once
+        StubJSObject wrapped = new StubJSObject();
+        JavascriptObject result = new JavascriptObject("Thing", wrapped) {
+        };
+        result.invokeJavascriptLater("setZoom", 4);
+        assertEquals(3, engine.scripts.size());
+        assertEquals("setZoom[4]", wrapped.calls.get(0));
+    }
+}
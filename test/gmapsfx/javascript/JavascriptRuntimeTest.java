@@ -0,0 +1,287 @@
+/**
+ *
+ */
+package gmapsfx.javascript;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the encoded polyline strings written by JavascriptRuntime, and the
+ * batches of queued scripts it runs on a StubWebEngine.
+ *
+ * @author Daniel
+ *
+ */
+public class JavascriptRuntimeTest {
+
+    private IJavascriptRuntime runtime;
+    private StubWebEngine engine;
+    private final Logger log = Logger.getLogger(JavascriptRuntime.class.getName());
+    private final List<LogRecord> logged = new ArrayList<LogRecord>();
+    private final Handler logHandler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            logged.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        engine = new StubWebEngine();
+        JavascriptRuntime.setDefaultWebEngine(engine);
+        runtime = new JavascriptRuntime();
+        log.addHandler(logHandler);
+        log.setUseParentHandlers(false);
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        log.removeHandler(logHandler);
+        log.setUseParentHandlers(true);
+        JavascriptRuntime.setDefaultWebEngine(null);
+    }
+
+    // the encoded string passed to the decoder, with escapes removed
+    private String encode(double[] latLngs) {
+        String script = runtime.getEncodedLatLngArray(latLngs);
+        String prefix = JavascriptRuntime.POLYLINE_DECODER + "(\"";
+        assertTrue(script.startsWith(prefix));
+        assertTrue(script.endsWith("\")"));
+        return script.substring(prefix.length(), script.length() - 2).replace("\\\\", "\\");
+    }
+
+    // the decoder of the script, in Java
+    private static double[] decode(String encoded) {
+        double[] latLngs = new double[2 * encoded.length()];
+        int n = 0;
+        int[] index = {0};
+        long lat = 0, lng = 0;
+        while (index[0] < encoded.length()) {
+            lat += next(encoded, index);
+            lng += next(encoded, index);
+            latLngs[n++] = lat / 1e5;
+            latLngs[n++] = lng / 1e5;
+        }
+        return Arrays.copyOf(latLngs, n);
+    }
+
+    private static long next(String encoded, int[] index) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = encoded.charAt(index[0]++) - 63;
+            result |= (long) (b & 31) << shift;
+            shift += 5;
+        } while (b >= 32);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+
+    /**
+     * The example from the documentation of the encoded polyline format.
+     */
+    @Test
+    public void testReferenceExample() {
+        double[] points = {38.5, -120.2, 40.7, -120.95, 43.252, -126.453};
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", encode(points));
+        assertArrayEquals(points, decode(encode(points)), 1e-9);
+    }
+
+    /**
+     * Points anywhere on the globe round-trip to five decimal places.
+     */
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(42);
+        double[] points = new double[2 * 1000];
+        for (int i = 0; i < points.length; i += 2) {
+            points[i] = -90 + 180 * random.nextDouble();
+            points[i + 1] = -180 + 360 * random.nextDouble();
+        }
+        double[] decoded = decode(encode(points));
+        assertEquals(points.length, decoded.length);
+        for (int i = 0; i < points.length; i++) {
+            assertEquals(Math.round(points[i] * 1e5) / 1e5, decoded[i], 1e-9);
+        }
+    }
+
+    /**
+     * Some differences encode to a backslash, which must be escaped in the
+     * Javascript string.
+     */
+    @Test
+    public void testBackslash() {
+        // -15 is written as ~(-15 << 1) = 29, the character 63 + 29 = '\\'
+        double[] points = {-0.00015, 0};
+        String script = runtime.getEncodedLatLngArray(points);
+        assertTrue(script.endsWith("(\"\\\\?\")"));
+        assertArrayEquals(points, decode(encode(points)), 1e-12);
+    }
+
+    @Test
+    public void testEmptyAndOdd() {
+        assertEquals("", encode(new double[0]));
+        try {
+            runtime.getEncodedLatLngArray(new double[3]);
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+
+    /**
+     * Packed coordinates are written as one numeric array passed to the
+     * decoder.
+     */
+    @Test
+    public void testLatLngArray() {
+        String prefix = JavascriptRuntime.LAT_LNG_DECODER + "([";
+        assertEquals(prefix + "])", runtime.getLatLngArray(new double[0]));
+        assertEquals(prefix + "32.5,-117.25,-0.001,179.99999,-90.0,-180.0])",
+                runtime.getLatLngArray(new double[] {32.5, -117.25, -0.001, 179.99999, -90, -180}));
+        // Java writes small values with an exponent, which Javascript reads too
+        assertEquals(prefix + "1.0E-5,-2.5E-6])", runtime.getLatLngArray(new double[] {0.00001, -0.0000025}));
+        try {
+            runtime.getLatLngArray(new double[] {32.5, -117.25, 1});
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            runtime.getLatLngArray(new double[1]);
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+
+    /**
+     * Commands queued while batching reach the engine in order, as one
+     * script, when the queue is flushed.
+     */
+    @Test
+    public void testBatchInOrder() {
+        runtime.setBatching(true);
+        runtime.executeLater("a = 1");
+        runtime.executeLater("b = 2");
+        runtime.executeLater("c = 3");
+        assertTrue(engine.scripts.isEmpty());
+        runtime.flush();
+        assertEquals(1, engine.scripts.size());
+        String script = engine.last();
+        assertTrue(script.indexOf("a = 1") >= 0);
+        assertTrue(script.indexOf("a = 1") < script.indexOf("b = 2"));
+        assertTrue(script.indexOf("b = 2") < script.indexOf("c = 3"));
+        // each command runs in its own try block
+        assertEquals(4, script.split("try \\{").length);
+        // nothing is left to run
+        runtime.flush();
+        assertEquals(1, engine.scripts.size());
+        assertTrue(logged.isEmpty());
+    }
+
+    @Test
+    public void testNotBatching() {
+        runtime.executeLater("a = 1");
+        assertEquals(Arrays.asList("a = 1"), engine.scripts);
+        runtime.setBatching(true);
+        runtime.executeLater("b = 2");
+        assertEquals(1, engine.scripts.size());
+        // turning batching off runs what was queued
+        runtime.setBatching(false);
+        assertEquals(2, engine.scripts.size());
+        assertTrue(engine.last().contains("b = 2"));
+    }
+
+    @Test
+    public void testExecuteFlushesFirst() {
+        StubJSObject document = new StubJSObject();
+        engine.results.put("document", document);
+        runtime.setBatching(true);
+        runtime.executeLater("a = 1");
+        runtime.executeLater("b = 2");
+        assertSame(document, runtime.execute("document"));
+        assertEquals(2, engine.scripts.size());
+        assertTrue(engine.scripts.get(0).contains("a = 1"));
+        assertTrue(engine.scripts.get(0).contains("b = 2"));
+        assertEquals("document", engine.last());
+    }
+
+    // queue a command from a method of its own, to look for in the logged stack
+    private void queueFailing(String command) {
+        runtime.executeLater(command);
+    }
+
+    private static void assertFailureLogged(LogRecord record, String command, String error) {
+        assertEquals(Level.SEVERE, record.getLevel());
+        assertTrue(record.getMessage(), record.getMessage().contains(command));
+        assertTrue(record.getMessage(), record.getMessage().contains(error));
+        boolean caller = false;
+        for (StackTraceElement frame : record.getThrown().getStackTrace()) {
+            caller |= frame.getMethodName().equals("queueFailing");
+        }
+        assertTrue("not logged against the caller", caller);
+    }
+
+    /**
+     * A command that throws is reported by the batch and logged against
+     * the call that queued it, not thrown from the flush.
+     */
+    @Test
+    public void testErrorInBatch() {
+        runtime.setBatching(true);
+        runtime.executeLater("a = 1");
+        queueFailing("nope()");
+        runtime.executeLater("c = 3");
+        engine.defaultResult = "1 ReferenceError: nope is not defined";
+        runtime.flush();
+        assertEquals(1, engine.scripts.size());
+        assertEquals(1, logged.size());
+        assertFailureLogged(logged.get(0), "nope()", "ReferenceError: nope is not defined");
+    }
+
+    /**
+     * When the batch as a whole does not parse, the commands are run one
+     * at a time, so the ones after the bad command still run.
+     */
+    @Test
+    public void testBatchDoesNotParse() {
+        runtime.setBatching(true);
+        runtime.executeLater("a = 1");
+        queueFailing("nope(");
+        runtime.executeLater("c = 3");
+        engine.failOn = "nope(";
+        runtime.flush();
+        assertEquals(4, engine.scripts.size());
+        assertEquals(Arrays.asList("a = 1", "nope(", "c = 3"), engine.scripts.subList(1, 4));
+        assertEquals(1, logged.size());
+        assertFailureLogged(logged.get(0), "nope(", "SyntaxError: Unexpected token");
+    }
+}
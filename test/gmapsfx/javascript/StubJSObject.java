@@ -0,0 +1,64 @@
+/**
+ *
+ */
+package gmapsfx.javascript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import netscape.javascript.JSObject;
+
+/**
+ * A JSObject for tests, which keeps its members in a map and records the
+ * functions called on it.
+ *
+ * @author Daniel
+ *
+ */
+public class StubJSObject extends JSObject {
+
+    public final Map<String, Object> members = new HashMap<String, Object>();
+    /** Each call, as the function name followed by the list of arguments */
+    public final List<String> calls = new ArrayList<String>();
+    /** What each function returns, by its name */
+    public final Map<String, Object> returns = new HashMap<String, Object>();
+
+    @Override
+    public Object call(String methodName, Object... args) {
+        calls.add(methodName + Arrays.asList(args));
+        return returns.get(methodName);
+    }
+
+    @Override
+    public Object eval(String s) {
+        return null;
+    }
+
+    @Override
+    public Object getMember(String name) {
+        return members.get(name);
+    }
+
+    @Override
+    public void setMember(String name, Object value) {
+        members.put(name, value);
+    }
+
+    @Override
+    public void removeMember(String name) {
+        members.remove(name);
+    }
+
+    @Override
+    public Object getSlot(int index) {
+        return members.get(Integer.toString(index));
+    }
+
+    @Override
+    public void setSlot(int index, Object value) {
+        members.put(Integer.toString(index), value);
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ *
+ */
+package gmapsfx.javascript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.concurrent.Worker;
+
+/**
+ * An IWebEngine for tests, which runs no Javascript but records every
+ * script it is given.
+ *
+ * @author Daniel
+ *
+ */
+public class StubWebEngine implements IWebEngine {
+
+    /** Every script executed, in order */
+    public final List<String> scripts = new ArrayList<String>();
+    /** What a script returns, by its text */
+    public final Map<String, Object> results = new HashMap<String, Object>();
+    /** What the scripts not in results return */
+    public Object defaultResult;
+    /** Scripts containing this text throw, as a script that does not parse would */
+    public String failOn;
+
+    @Override
+    public Object executeScript(String command) {
+        scripts.add(command);
+        if (failOn != null && command.contains(failOn)) {
+            throw new RuntimeException("SyntaxError: Unexpected token");
+        }
+        return results.containsKey(command) ? results.get(command) : defaultResult;
+    }
+
+    @Override
+    public Worker<Void> getLoadWorker() {
+        return null;
+    }
+
+    @Override
+    public void load(String url) {
+    }
+
+    /**
+     * @return the last script executed
+     */
+    public String last() {
+        return scripts.get(scripts.size() - 1);
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ *
+ */
+package gmapsfx.javascript.event;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that EventHandlers dispatches the calls made from Javascript to
+ * the handler registered under their key.
+ *
+ * @author Daniel
+ *
+ */
+public class EventHandlersTest {
+
+    private EventHandlers handlers;
+    private List<String> events;
+    private int first, state, second;
+    private PrintStream err;
+    private ByteArrayOutputStream errors;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        handlers = new EventHandlers();
+        events = new ArrayList<String>();
+        IndexedEventHandler firstHandler = index -> events.add("first " + index);
+        StateEventHandler stateHandler = () -> events.add("state");
+        IndexedEventHandler secondHandler = index -> events.add("second " + index);
+        first = handlers.registerHandler(firstHandler);
+        state = handlers.registerHandler(stateHandler);
+        second = handlers.registerHandler(secondHandler);
+        err = System.err;
+        errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors, true));
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        System.setErr(err);
+    }
+
+    @Test
+    public void testDispatchByKey() {
+        assertEquals(0, first);
+        assertEquals(1, state);
+        assertEquals(2, second);
+        handlers.handleIndexedEvent(second, 4);
+        handlers.handleIndexedEvent(first, 0);
+        handlers.handleStateEvent(state);
+        handlers.handleIndexedEvent(second, 123456);
+        assertEquals(Arrays.asList("second 4", "first 0", "state", "second 123456"), events);
+        assertEquals("", errors.toString());
+    }
+
+    /**
+     * A key of a handler of another type, or of no handler, is reported
+     * and calls nothing.
+     */
+    @Test
+    public void testWrongKey() {
+        handlers.handleIndexedEvent(state, 1);
+        handlers.handleStateEvent(first);
+        handlers.handleUIEvent(second, null);
+        handlers.handleIndexedEvent(-1, 1);
+        handlers.handleIndexedEvent(3, 1);
+        assertTrue(events.isEmpty());
+        String reported = errors.toString();
+        assertTrue(reported, reported.contains("Error in handle: " + state + " for index: 1"));
+        assertTrue(reported, reported.contains("Error in handle: " + first + " for state handler"));
+        assertTrue(reported, reported.contains("Error in handle: -1 for index: 1"));
+        assertTrue(reported, reported.contains("Error in handle: 3 for index: 1"));
+        assertEquals(5, reported.split("Error in handle").length - 1);
+    }
+
+    /**
+     * A removed handler is not called, and the keys of the others do not
+     * change.
+     */
+    @Test
+    public void testRemove() {
+        handlers.removeHandler(first);
+        handlers.handleIndexedEvent(first, 0);
+        handlers.handleIndexedEvent(second, 1);
+        assertEquals(Arrays.asList("second 1"), events);
+        IndexedEventHandler later = index -> events.add("later " + index);
+        assertEquals(3, handlers.registerHandler(later));
+        handlers.handleIndexedEvent(3, 2);
+        assertEquals(Arrays.asList("second 1", "later 2"), events);
+        // keys that were never given out are ignored
+        handlers.removeHandler(-1);
+        handlers.removeHandler(10);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ *
+ */
+package gmapsfx.javascript.object;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gmapsfx.javascript.JavascriptRuntime;
+import gmapsfx.javascript.StubJSObject;
+import gmapsfx.javascript.StubWebEngine;
+import gmapsfx.javascript.event.EventHandlers;
+import gmapsfx.javascript.event.MapStateEventType;
+import gmapsfx.javascript.event.UIEventType;
+
+/**
+ * Tests the scripts GoogleMap writes for handlers shared by many objects,
+ * on a StubWebEngine.
+ *
+ * @author Daniel
+ *
+ */
+public class GoogleMapTest {
+
+    private StubWebEngine engine;
+    private StubJSObject document;
+    private GoogleMap map;
+    private Marker marker;
+    private List<Integer> clicked;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        engine = new StubWebEngine();
+        document = new StubJSObject();
+        engine.results.put("document", document);
+        JavascriptRuntime.setDefaultWebEngine(engine);
+        JavascriptRuntime.getInstance().setBatching(false);
+        map = new GoogleMap();
+        marker = new Marker(new MarkerOptions());
+        clicked = new ArrayList<Integer>();
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        JavascriptRuntime.setDefaultWebEngine(null);
+    }
+
+    // the handlers the Javascript listeners call back into
+    private EventHandlers handlers() {
+        return (EventHandlers) document.getMember("jsHandlers");
+    }
+
+    @Test
+    public void testIndexedListener() {
+        int key = map.addIndexedEventHandler(UIEventType.click, clicked::add);
+        assertNotNull(handlers());
+        assertEquals("var gfxListeners" + key + " = [];var gfxDispatcher" + key + " = function() {"
+                + "document.jsHandlers.handleIndexedEvent(" + key + ", this.gfxIndex" + key + ");}",
+                engine.last());
+
+        map.addIndexedListener(marker, key, 7);
+        String name = marker.getVariableName();
+        assertEquals(name + ".gfxIndex" + key + " = 7;gfxListeners" + key
+                + ".push(google.maps.event.addListener(" + name + ", 'click', gfxDispatcher" + key + "))",
+                engine.last());
+
+        // what the dispatcher does when the marker is clicked
+        handlers().handleIndexedEvent(key, 7);
+        assertEquals(Arrays.asList(7), clicked);
+
+        // each dispatcher has its own key and event type; the document is
+        // given the handlers once
+        int doubleKey = map.addIndexedEventHandler(UIEventType.dblclick, index -> clicked.add(-index));
+        assertTrue(doubleKey != key);
+        map.addIndexedListener(marker, doubleKey, 2);
+        assertTrue(engine.last().contains("'dblclick', gfxDispatcher" + doubleKey + ")"));
+        handlers().handleIndexedEvent(doubleKey, 2);
+        assertEquals(Arrays.asList(7, -2), clicked);
+        assertEquals(1, Collections.frequency(engine.scripts, "document"));
+    }
+
+    /**
+     * Only the ids of indexed handlers can be given to addIndexedListener.
+     */
+    @Test
+    public void testUnknownDispatcher() {
+        int state = map.addStateEventHandler(MapStateEventType.idle, () -> clicked.add(0));
+        int scripts = engine.scripts.size();
+        for (int dispatcher : new int[] {-1, state, state + 1, 1000}) {
+            try {
+                map.addIndexedListener(marker, dispatcher, 0);
+                fail("dispatcher " + dispatcher);
+            }
+            catch (IllegalArgumentException e) {
+            }
+        }
+        assertEquals(scripts, engine.scripts.size());
+    }
+
+    @Test
+    public void testRemoveEventHandler() {
+        int key = map.addIndexedEventHandler(UIEventType.click, clicked::add);
+        map.addIndexedListener(marker, key, 3);
+        map.removeEventHandler(key);
+        assertEquals("gfxListeners" + key + ".forEach(google.maps.event.removeListener);gfxListeners" + key
+                + " = []", engine.last());
+        try {
+            map.addIndexedListener(marker, key, 4);
+            fail("removed dispatcher");
+        }
+        catch (IllegalArgumentException e) {
+        }
+
+        int state = map.addStateEventHandler(MapStateEventType.idle, () -> clicked.add(0));
+        assertTrue(engine.last().startsWith("var gfxListener" + state + " = google.maps.event.addListener("
+                + map.getVariableName() + ", 'idle', "));
+        handlers().handleStateEvent(state);
+        map.removeEventHandler(state);
+        assertEquals("google.maps.event.removeListener(gfxListener" + state + ")", engine.last());
+        assertEquals(Arrays.asList(0), clicked);
+    }
+}
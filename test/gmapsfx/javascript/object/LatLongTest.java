@@ -0,0 +1,67 @@
+/**
+ *
+ */
+package gmapsfx.javascript.object;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the destination points LatLong works out in Java for the arcs
+ * sent to the map as packed arrays.
+ *
+ * @author Daniel
+ *
+ */
+public class LatLongTest {
+
+    private static final double QUARTER = LatLong.EarthRadiusMeters * Math.PI / 2;
+
+    private static double[] destination(double lat, double lng, double bearing, double distance) {
+        double[] end = new double[2];
+        LatLong.getDestinationPoint(lat, lng, bearing, distance, end, 0);
+        return end;
+    }
+
+    @Test
+    public void testCardinalDirections() {
+        assertArrayEquals(new double[] {0, 90}, destination(0, 0, 90, QUARTER), 1e-9);
+        assertArrayEquals(new double[] {0, -90}, destination(0, 0, 270, QUARTER), 1e-9);
+        assertArrayEquals(new double[] {45, 10}, destination(0, 10, 0, QUARTER / 2), 1e-9);
+        assertArrayEquals(new double[] {-45, 10}, destination(0, 10, 180, QUARTER / 2), 1e-9);
+        assertArrayEquals(new double[] {32.87, -117.24}, destination(32.87, -117.24, 45, 0), 1e-12);
+    }
+
+    /**
+     * The end point is the given distance along a great circle from the
+     * start, by the haversine formula.
+     */
+    @Test
+    public void testDistance() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            double lat = -80 + 160 * random.nextDouble();
+            double lng = -180 + 360 * random.nextDouble();
+            double distance = 1e6 * random.nextDouble();
+            double[] end = destination(lat, lng, 360 * random.nextDouble(), distance);
+            double dLat = Math.toRadians(end[0] - lat);
+            double dLng = Math.toRadians(end[1] - lng);
+            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat))
+                    * Math.cos(Math.toRadians(end[0])) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+            double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+            assertEquals(distance, LatLong.EarthRadiusMeters * c, 1e-3);
+        }
+    }
+
+    @Test
+    public void testIndex() {
+        double[] latLngs = new double[6];
+        Arrays.fill(latLngs, -1);
+        LatLong.getDestinationPoint(0, 0, 90, QUARTER, latLngs, 2);
+        assertArrayEquals(new double[] {-1, -1, 0, 90, -1, -1}, latLngs, 1e-9);
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package gmapsfx.javascript.object;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gmapsfx.javascript.IJavascriptRuntime;
+import gmapsfx.javascript.JavascriptRuntime;
+import gmapsfx.javascript.StubJSObject;
+import gmapsfx.javascript.StubWebEngine;
+
+/**
+ * Tests that MVCArray sends packed coordinates as one array, on a
+ * StubWebEngine.
+ *
+ * @author Daniel
+ *
+ */
+public class MVCArrayTest {
+
+    private StubWebEngine engine;
+    private IJavascriptRuntime runtime;
+    private final double[] latLngs = {32.87, -117.24, 32.88, -117.25, -33.9, 151.2};
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        engine = new StubWebEngine();
+        JavascriptRuntime.setDefaultWebEngine(engine);
+        runtime = JavascriptRuntime.getInstance();
+        runtime.setBatching(false);
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        JavascriptRuntime.setDefaultWebEngine(null);
+    }
+
+    @Test
+    public void testConstructor() {
+        MVCArray array = new MVCArray(latLngs);
+        assertEquals(1, engine.scripts.size());
+        assertEquals("var " + array.getVariableName() + " = new " + GMapObjectType.MVC_ARRAY + "("
+                + runtime.getLatLngArray(latLngs) + ")", engine.last());
+        new MVCArray(new double[0]);
+        assertTrue(engine.last().endsWith("(" + runtime.getLatLngArray(new double[0]) + ")"));
+        try {
+            new MVCArray(new double[] {32.87, -117.24, 32.88});
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testPushAll() {
+        MVCArray array = new MVCArray(new double[0]);
+        array.pushAll(latLngs);
+        assertEquals(2, engine.scripts.size());
+        assertEquals(runtime.getLatLngArray(latLngs) + ".forEach(function(p) {"
+                + array.getVariableName() + ".push(p);})", engine.last());
+        try {
+            array.pushAll(new double[] {32.87});
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+        assertEquals(2, engine.scripts.size());
+    }
+
+    /**
+     * An array made from a Javascript result is pushed one LatLong at a time.
+     */
+    @Test
+    public void testPushAllUndeclared() {
+        StubJSObject js = new StubJSObject();
+        js.returns.put("push", 1);
+        engine.defaultResult = new StubJSObject();
+        MVCArray array = new MVCArray(js);
+        array.pushAll(latLngs);
+        assertEquals(3, js.calls.size());
+        for (String call : js.calls) {
+            assertTrue(call, call.startsWith("push["));
+        }
+        try {
+            array.pushAll(new double[] {32.87, -117.24, 32.88});
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+        assertEquals(3, js.calls.size());
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ *
+ */
+package gmapsfx.service.elevation;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gmapsfx.javascript.IJavascriptRuntime;
+import gmapsfx.javascript.JavascriptRuntime;
+import gmapsfx.javascript.StubWebEngine;
+import gmapsfx.javascript.object.LatLong;
+
+/**
+ * Tests that the elevation requests set their points in one statement, on
+ * a StubWebEngine.
+ *
+ * @author Daniel
+ *
+ */
+public class ElevationRequestTest {
+
+    private StubWebEngine engine;
+    private IJavascriptRuntime runtime;
+    private final double[] latLngs = {32.87, -117.24, 32.88, -117.25};
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        engine = new StubWebEngine();
+        JavascriptRuntime.setDefaultWebEngine(engine);
+        runtime = JavascriptRuntime.getInstance();
+        runtime.setBatching(false);
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        JavascriptRuntime.setDefaultWebEngine(null);
+    }
+
+    @Test
+    public void testLocations() {
+        LocationElevationRequest request = new LocationElevationRequest(latLngs);
+        assertEquals(2, engine.scripts.size());
+        assertEquals(request.getVariableName() + ".locations = " + runtime.getLatLngArray(latLngs),
+                engine.last());
+
+        LatLong a = new LatLong(32.87, -117.24);
+        LatLong b = new LatLong(32.88, -117.25);
+        int before = engine.scripts.size();
+        request = new LocationElevationRequest(new LatLong[] {a, b});
+        assertEquals(before + 2, engine.scripts.size());
+        assertEquals(request.getVariableName() + ".locations = [" + a.getVariableName() + ","
+                + b.getVariableName() + "]", engine.last());
+    }
+
+    @Test
+    public void testPath() {
+        PathElevationRequest request = new PathElevationRequest(latLngs, 5);
+        List<String> scripts = engine.scripts;
+        assertEquals(3, scripts.size());
+        assertEquals(request.getVariableName() + ".path = " + runtime.getLatLngArray(latLngs), scripts.get(1));
+        assertEquals(request.getVariableName() + ".samples = 5", scripts.get(2));
+
+        LatLong a = new LatLong(32.87, -117.24);
+        request = new PathElevationRequest(new LatLong[] {a}, 2);
+        assertEquals(request.getVariableName() + ".path = [" + a.getVariableName() + "]",
+                scripts.get(scripts.size() - 2));
+    }
+
+    @Test
+    public void testOddLength() {
+        try {
+            new LocationElevationRequest(new double[] {32.87});
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+        try {
+            new PathElevationRequest(new double[] {32.87, -117.24, 32.88}, 2);
+            fail("odd length");
+        }
+        catch (IllegalArgumentException e) {
+        }
+    }
+}
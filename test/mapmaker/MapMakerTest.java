@@ -0,0 +1,165 @@
+/**
+ *
+ */
+package mapmaker;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import roadgraph.MapGraph;
+import util.GraphLoader;
+
+/**
+ * Runs MapMaker against a recorded Overpass response served by a local
+ * HTTP server.
+ *
+ * @author Daniel
+ *
+ */
+public class MapMakerTest {
+
+	private static final String RESPONSE = "data/testdata/overpass.json";
+	private static final float[] BOUNDS = {32.87f, -117.25f, 32.88f, -117.23f};
+
+	// the recorded response as .map lines; the road to node 1004 leaves
+	// the bounds and Gilman Drive is one way
+	private static final List<String> EXPECTED = Arrays.asList(
+			"32.871 -117.243 32.872 -117.242 \"Library Walk\" residential",
+			"32.872 -117.242 32.871 -117.243 \"Library Walk\" residential",
+			"32.872 -117.242 32.873 -117.241 \"Library Walk\" residential",
+			"32.873 -117.241 32.872 -117.242 \"Library Walk\" residential",
+			"32.873 -117.241 32.874 -117.24 \"Gilman Drive\" primary",
+			"32.874 -117.24 32.871 -117.243 \"\" unclassified",
+			"32.871 -117.243 32.874 -117.24 \"\" unclassified");
+
+	private HttpServer server;
+	private String endpoint;
+	private String query;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		byte[] response = Files.readAllBytes(Paths.get(RESPONSE));
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/api/interpreter", exchange -> {
+			query = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(response);
+			}
+		});
+		server.start();
+		endpoint = "http://localhost:" + server.getAddress().getPort() + "/api/interpreter";
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int n;
+		while ((n = in.read(buffer)) > 0) {
+			bytes.write(buffer, 0, n);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Test method for {@link mapmaker.MapMaker#parseData(java.lang.String)}.
+	 */
+	@Test
+	public void testParseData() throws Exception {
+		File file = File.createTempFile("overpass", ".map");
+		file.deleteOnExit();
+		assertTrue(new MapMaker(BOUNDS, endpoint).parseData(file.getPath()));
+		assertEquals(new DataFetcher(BOUNDS).constructQuery(BOUNDS), query);
+		assertEquals(EXPECTED, Files.readAllLines(file.toPath()));
+
+		// node 4294967297 is partway along Library Walk, not an intersection
+		MapGraph graph = new MapGraph();
+		GraphLoader.loadRoadMap(file.getPath(), graph);
+		assertEquals(3, graph.getNumVertices());
+		assertEquals(5, graph.getNumEdges());
+	}
+
+	@Test
+	public void testParseDataFailure() throws Exception {
+		server.stop(0);
+		File file = File.createTempFile("overpass", ".map");
+		file.deleteOnExit();
+		assertFalse(new MapMaker(BOUNDS, endpoint).parseData(file.getPath()));
+	}
+
+	/**
+	 * Ways listed before their nodes are written once the nodes are known.
+	 */
+	@Test
+	public void testWayBeforeNodes() {
+		String response = "{\"elements\":["
+				+ "{\"type\":\"way\",\"id\":7,\"nodes\":[5000000000,5000000001],"
+				+ "\"tags\":{\"highway\":\"residential\",\"name\":\"Ramp\",\"oneway\":\"yes\"}},"
+				+ "{\"type\":\"node\",\"id\":5000000000,\"lat\":32.875,\"lon\":-117.235},"
+				+ "{\"type\":\"node\",\"id\":5000000001,\"lat\":32.876,\"lon\":-117.236}]}";
+		StringWriter lines = new StringWriter();
+		PrintWriter out = new PrintWriter(lines);
+		new MapMaker(BOUNDS, endpoint).writeMap(
+				new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)), out);
+		out.flush();
+		assertEquals("32.875 -117.235 32.876 -117.236 \"Ramp\" residential"
+				+ System.lineSeparator(), lines.toString());
+	}
+
+	/**
+	 * Test method for {@link mapmaker.NodeTable}.
+	 */
+	@Test
+	public void testNodeTable() {
+		NodeTable table = new NodeTable(4);
+		// ids which are equal when truncated to an int
+		table.put(1L, 1.0, 2.0);
+		table.put((1L << 32) + 1, 3.0, 4.0);
+		for (long id = 100; id < 10000; id++) {
+			table.put(id * 7919, id * 0.001, -id * 0.001);
+		}
+		assertEquals(9902, table.size());
+		assertEquals(1.0, table.getLatitude(table.indexOf(1L)), 0);
+		assertEquals(4.0, table.getLongitude(table.indexOf((1L << 32) + 1)), 0);
+		for (long id = 100; id < 10000; id++) {
+			int index = table.indexOf(id * 7919);
+			assertEquals(id * 0.001, table.getLatitude(index), 1e-9);
+			assertEquals(-id * 0.001, table.getLongitude(index), 1e-9);
+		}
+		assertEquals(-1, table.indexOf(2L));
+		assertEquals(-1, table.indexOf(Long.MIN_VALUE));
+
+		table.put(1L, 5.0, 6.0);
+		assertEquals(9902, table.size());
+		assertEquals(5.0, table.getLatitude(table.indexOf(1L)), 0);
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ *
+ */
+package roadgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Tests MapGraph.betweenness against small graphs with known scores and
+ * against a brute-force count over all pairs of real maps.
+ *
+ * @author Daniel
+ *
+ */
+public class BetweennessTest {
+
+	private GeographicPoint a, b, c, d;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		a = new GeographicPoint(1, 1);
+		b = new GeographicPoint(2, 1);
+		c = new GeographicPoint(1, 2);
+		d = new GeographicPoint(2, 2);
+	}
+
+	private static void addRoad(MapGraph graph, GeographicPoint from, GeographicPoint to, double length) {
+		graph.addEdge(from, to, "road", "residential", length);
+		graph.addEdge(to, from, "road", "residential", length);
+	}
+
+	/**
+	 * a - b - c: b is on the shortest paths a to c and c to a.
+	 */
+	@Test
+	public void testPath() {
+		MapGraph graph = new MapGraph();
+		graph.addVertex(a);
+		graph.addVertex(b);
+		graph.addVertex(c);
+		addRoad(graph, a, b, 1);
+		addRoad(graph, b, c, 1);
+
+		Centrality centrality = graph.betweenness();
+		assertEquals(0, centrality.getScore(a), 1e-9);
+		assertEquals(2, centrality.getScore(b), 1e-9);
+		assertEquals(0, centrality.getScore(c), 1e-9);
+		assertEquals(0, centrality.getScore(d), 0);
+		assertFalse(centrality.isSampled());
+		assertEquals(3, centrality.getSources());
+		assertEquals(Arrays.asList(b, a, c), centrality.top(3));
+		assertEquals(Arrays.asList(b), centrality.top(1));
+	}
+
+	/**
+	 * The square a - b - d - c - a with equal sides: opposite corners are
+	 * joined by two shortest paths, so each corner between them gets half
+	 * of each of the two directions.
+	 */
+	@Test
+	public void testSquare() {
+		MapGraph graph = new MapGraph();
+		for (GeographicPoint p : new GeographicPoint[] {a, b, c, d}) {
+			graph.addVertex(p);
+		}
+		addRoad(graph, a, b, 1);
+		addRoad(graph, b, d, 1);
+		addRoad(graph, d, c, 1);
+		addRoad(graph, c, a, 1);
+
+		Centrality centrality = graph.betweenness();
+		for (GeographicPoint p : new GeographicPoint[] {a, b, c, d}) {
+			assertEquals(1, centrality.getScore(p), 1e-9);
+		}
+
+		// a one way shortcut from a to d takes the paths from a to d
+		graph.addEdge(a, d, "cut", "residential", 1.5);
+		centrality = graph.betweenness();
+		assertEquals(0.5, centrality.getScore(b), 1e-9);
+		assertEquals(0.5, centrality.getScore(c), 1e-9);
+		assertEquals(1, centrality.getScore(a), 1e-9);
+		assertEquals(1, centrality.getScore(d), 1e-9);
+	}
+
+	@Test
+	public void testEmpty() {
+		MapGraph graph = new MapGraph();
+		Centrality centrality = graph.betweenness();
+		assertEquals(0, centrality.getSources());
+		assertFalse(centrality.isSampled());
+		assertTrue(centrality.top(5).isEmpty());
+		assertEquals(0, centrality.getScore(a), 0);
+	}
+
+	@Test
+	public void testSamples() {
+		MapGraph graph = new MapGraph();
+		GraphLoader.loadRoadMap("data/testdata/simpletest.map", graph);
+		int n = graph.getNumVertices();
+		Centrality exact = graph.betweenness();
+		Centrality all = graph.betweenness(n + 5, 1);
+		assertFalse(all.isSampled());
+		for (GeographicPoint p : graph.getVertices()) {
+			assertEquals(exact.getScore(p), all.getScore(p), 1e-9);
+		}
+
+		Centrality sampled = graph.betweenness(2, 1);
+		assertTrue(sampled.isSampled());
+		assertEquals(2, sampled.getSources());
+		assertEquals(sampled.top(n), graph.betweenness(2, 1).top(n));
+
+		try {
+			graph.betweenness(0, 1);
+			fail("no samples");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Compare against the definition: for every pair s, t and every other
+	 * v on a shortest path from s to t, add the share of the shortest paths
+	 * from s to t which pass through v.
+	 */
+	@Test
+	public void testBruteForce() {
+		for (String file : new String[] {"data/maps/ucsd.map", "data/maps/utc.map",
+				"data/testdata/simpletest.map"}) {
+			MapGraph graph = new MapGraph();
+			GraphLoader.loadRoadMap(file, graph);
+			CompactGraph compact = graph.freeze();
+			int n = compact.numNodes;
+
+			// distances and numbers of shortest paths between all pairs
+			double[][] dist = new double[n][];
+			double[][] paths = new double[n][];
+			for (int s = 0; s < n; s++) {
+				dist[s] = new double[n];
+				paths[s] = new double[n];
+				countPaths(compact, s, dist[s], paths[s]);
+			}
+
+			double[] expected = new double[n];
+			for (int s = 0; s < n; s++) {
+				for (int t = 0; t < n; t++) {
+					if (s == t || paths[s][t] == 0) continue;
+					for (int v = 0; v < n; v++) {
+						// the sums are taken in a different order than the
+						// searches take them, so may differ in the last bits
+						if (v != s && v != t && Math.abs(dist[s][v] + dist[v][t] - dist[s][t]) <= 1e-9 * dist[s][t]) {
+							expected[v] += paths[s][v] * paths[v][t] / paths[s][t];
+						}
+					}
+				}
+			}
+
+			Centrality centrality = graph.betweenness();
+			List<GeographicPoint> all = centrality.top(n);
+			assertEquals(n, all.size());
+			for (GeographicPoint p : all) {
+				int v = compact.getId(p);
+				assertEquals(file + " " + p, expected[v], centrality.getScore(p), 1e-6);
+			}
+		}
+	}
+
+	// Bellman-Ford from s, then the path counts in order of distance
+	private static void countPaths(CompactGraph graph, int s, double[] dist, double[] paths) {
+		int n = graph.numNodes;
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		dist[s] = 0;
+		for (boolean changed = true; changed; ) {
+			changed = false;
+			for (int e = 0; e < graph.numEdges; e++) {
+				double candidate = dist[graph.edgeSource[e]] + graph.edgeLength[e];
+				if (candidate < dist[graph.edgeTarget[e]]) {
+					dist[graph.edgeTarget[e]] = candidate;
+					changed = true;
+				}
+			}
+		}
+		Integer[] order = new Integer[n];
+		for (int v = 0; v < n; v++) {
+			order[v] = v;
+		}
+		Arrays.sort(order, (x, y) -> Double.compare(dist[x], dist[y]));
+		paths[s] = 1;
+		for (int v : order) {
+			if (v == s || dist[v] == Double.POSITIVE_INFINITY) continue;
+			for (int e = 0; e < graph.numEdges; e++) {
+				int u = graph.edgeSource[e];
+				if (graph.edgeTarget[e] == v && u != v && dist[u] + graph.edgeLength[e] == dist[v]) {
+					paths[v] += paths[u];
+				}
+			}
+		}
+	}
+}
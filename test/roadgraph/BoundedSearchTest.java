@@ -0,0 +1,113 @@
+/**
+ *
+ */
+package roadgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Tests that weighted A* and focal search keep to their cost bounds.
+ *
+ * @author Daniel
+ *
+ */
+public class BoundedSearchTest {
+
+	private static final double[] WEIGHTS = { 1.0, 1.1, 1.5, 2.0 };
+	private static final double[] EPSILONS = { 0.0, 0.1, 0.5, 1.0 };
+
+	private static void checkBounds(String file, int queries) {
+		MapGraph graph = new MapGraph();
+		GraphLoader.loadRoadMap(file, graph);
+		CompactGraph compact = graph.freeze();
+		Random random = new Random(42);
+		for (int q = 0; q < queries; q++) {
+			GeographicPoint start = compact.coordinates.getPoint(random.nextInt(compact.numNodes));
+			GeographicPoint goal = compact.coordinates.getPoint(random.nextInt(compact.numNodes));
+			PathResult shortest = graph.findPath(start, goal, SearchAlgorithm.DIJKSTRA);
+			double optimal = shortest.getCost();
+			for (double weight : WEIGHTS) {
+				SearchOptions options = new SearchOptions().heuristicWeight(weight);
+				PathResult result = graph.findPath(start, goal, SearchAlgorithm.WEIGHTED_A_STAR,
+						options, x -> {});
+				assertEquals(shortest.getStatus(), result.getStatus());
+				assertTrue(file + " w=" + weight + " " + result.getCost() + " > " + optimal,
+						result.getCost() <= weight * optimal * (1 + 1e-12));
+				if (weight == 1.0) {
+					assertEquals(optimal, result.getCost(), 1e-9);
+				}
+			}
+			for (double epsilon : EPSILONS) {
+				SearchOptions options = new SearchOptions().suboptimality(epsilon);
+				PathResult result = graph.findPath(start, goal, SearchAlgorithm.FOCAL, options, x -> {});
+				assertEquals(shortest.getStatus(), result.getStatus());
+				assertTrue(file + " eps=" + epsilon + " " + result.getCost() + " > " + optimal,
+						result.getCost() <= (1 + epsilon) * optimal * (1 + 1e-12));
+				if (epsilon == 0.0) {
+					assertEquals(optimal, result.getCost(), 1e-9);
+				}
+				if (result.isFound()) {
+					assertEquals(start, result.getPoints().get(0));
+					assertEquals(goal, result.getPoints().get(result.size() - 1));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBoundsUtc() {
+		checkBounds("data/maps/utc.map", 500);
+	}
+
+	@Test
+	public void testBoundsSanDiego() {
+		checkBounds("data/maps/san_diego.map", 500);
+	}
+
+	@Test
+	public void testDefaults() {
+		MapGraph graph = new MapGraph();
+		GraphLoader.loadRoadMap("data/testdata/simpletest.map", graph);
+		GeographicPoint start = new GeographicPoint(1.0, 1.0);
+		GeographicPoint goal = new GeographicPoint(8.0, -1.0);
+		double optimal = graph.findPath(start, goal, SearchAlgorithm.DIJKSTRA).getCost();
+		assertTrue(graph.findPath(start, goal, SearchAlgorithm.WEIGHTED_A_STAR).getCost() <= 1.1 * optimal);
+		assertTrue(graph.findPath(start, goal, SearchAlgorithm.FOCAL).getCost() <= 1.1 * optimal);
+
+		SearchOptions options = new SearchOptions();
+		assertEquals(1.1, options.getHeuristicWeight(), 0);
+		assertEquals(0.1, options.getSuboptimality(), 0);
+		options.heuristicWeight(3).suboptimality(2);
+		SearchOptions copy = new SearchOptions(options);
+		assertEquals(3, copy.getHeuristicWeight(), 0);
+		assertEquals(2, copy.getSuboptimality(), 0);
+	}
+
+	@Test
+	public void testInvalidBounds() {
+		SearchOptions options = new SearchOptions();
+		for (double weight : new double[] { 0.9, -1, Double.NaN }) {
+			try {
+				options.heuristicWeight(weight);
+				fail("weight " + weight);
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+		for (double epsilon : new double[] { -0.1, Double.NaN }) {
+			try {
+				options.suboptimality(epsilon);
+				fail("epsilon " + epsilon);
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ *
+ */
+package roadgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Tests freezing a MapGraph into a CompactGraph and the node orders it can
+ * be numbered in.
+ *
+ * @author Daniel
+ *
+ */
+public class CompactGraphTest {
+
+	private MapGraph graph;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		graph = new MapGraph();
+		GraphLoader.loadRoadMap("data/maps/utc.map", graph);
+	}
+
+	// every edge joins the nodes at the ends of its MapEdge, and the edges
+	// of each node are the edges of the MapNode at its location
+	private void assertMatchesGraph(CompactGraph compact) {
+		assertEquals(graph.getNumVertices(), compact.numNodes);
+		assertEquals(graph.getNumEdges(), compact.numEdges);
+		assertEquals(0, compact.firstEdge[0]);
+		assertEquals(compact.numEdges, compact.firstEdge[compact.numNodes]);
+		for (int u = 0; u < compact.numNodes; u++) {
+			GeographicPoint location = compact.coordinates.getPoint(u);
+			assertEquals(u, compact.getId(location));
+			assertTrue(compact.firstEdge[u] <= compact.firstEdge[u + 1]);
+			for (int e = compact.firstEdge[u]; e < compact.firstEdge[u + 1]; e++) {
+				MapEdge edge = compact.edges[e];
+				assertEquals(u, compact.edgeSource[e]);
+				assertEquals(location, edge.getFrom());
+				assertEquals(compact.coordinates.getPoint(compact.edgeTarget[e]), edge.getTo());
+				assertEquals(edge.getLength(), compact.edgeLength[e], 0);
+			}
+		}
+	}
+
+	private static void assertPermutation(int[] newToOld, int n) {
+		assertEquals(n, newToOld.length);
+		int[] sorted = newToOld.clone();
+		Arrays.sort(sorted);
+		assertArrayEquals(NodeReordering.identity(n), sorted);
+	}
+
+	@Test
+	public void testFreeze() {
+		for (NodeOrder order : NodeOrder.values()) {
+			graph.setNodeOrder(order);
+			assertMatchesGraph(graph.freeze());
+		}
+	}
+
+	@Test
+	public void testPermutations() {
+		graph.setNodeOrder(NodeOrder.INSERTION);
+		CompactGraph compact = graph.freeze();
+		int n = compact.numNodes;
+		assertPermutation(NodeReordering.hilbert(compact.coordinates), n);
+		assertPermutation(NodeReordering.reverseCuthillMcKee(compact.firstEdge, compact.edgeTarget), n);
+		assertArrayEquals(NodeReordering.identity(n), NodeReordering.permutation(NodeOrder.INSERTION,
+				compact.coordinates, compact.firstEdge, compact.edgeTarget));
+
+		int[] newToOld = NodeReordering.hilbert(compact.coordinates);
+		CompactGraph renumbered = compact.renumber(newToOld);
+		for (int i = 0; i < n; i++) {
+			assertEquals(compact.coordinates.getPoint(newToOld[i]), renumbered.coordinates.getPoint(i));
+			assertEquals(compact.nodeIds[newToOld[i]], renumbered.nodeIds[i]);
+			assertEquals(compact.firstEdge[newToOld[i] + 1] - compact.firstEdge[newToOld[i]],
+					renumbered.firstEdge[i + 1] - renumbered.firstEdge[i]);
+		}
+	}
+
+	/**
+	 * A path of nodes: reverse Cuthill-McKee starts from an end and keeps
+	 * neighbours next to each other.
+	 */
+	@Test
+	public void testReverseCuthillMcKeePath() {
+		// 0 - 2 - 4 - 1 - 3, as directed edges both ways
+		int[] firstEdge = {0, 1, 3, 5, 6, 8};
+		int[] edgeTarget = {2, 4, 3, 0, 4, 1, 2, 1};
+		int[] newToOld = NodeReordering.reverseCuthillMcKee(firstEdge, edgeTarget);
+		assertPermutation(newToOld, 5);
+		for (int i = 0; i + 1 < 5; i++) {
+			int a = newToOld[i], b = newToOld[i + 1];
+			boolean adjacent = false;
+			for (int e = firstEdge[a]; e < firstEdge[a + 1]; e++) {
+				adjacent |= edgeTarget[e] == b;
+			}
+			assertTrue(a + " and " + b + " are neighbours", adjacent);
+		}
+	}
+
+	@Test
+	public void testFreezeIsCached() {
+		CompactGraph first = graph.freeze();
+		assertSame(first, graph.freeze());
+
+		graph.setNodeOrder(NodeOrder.HILBERT);
+		CompactGraph hilbert = graph.freeze();
+		assertNotSame(first, hilbert);
+		assertSame(hilbert, graph.freeze());
+
+		// the snapshot does not see later changes to the graph
+		GeographicPoint added = new GeographicPoint(33, -117);
+		graph.addVertex(added);
+		assertEquals(-1, hilbert.getId(added));
+		CompactGraph changed = graph.freeze();
+		assertNotSame(hilbert, changed);
+		assertEquals(hilbert.numNodes + 1, changed.numNodes);
+		assertTrue(changed.getId(added) >= 0);
+
+		try {
+			graph.setNodeOrder(null);
+			fail("null order");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Searches find paths of the same length whatever order the nodes
+	 * are numbered in.
+	 */
+	@Test
+	public void testOrdersGiveSameCosts() {
+		graph.setNodeOrder(NodeOrder.INSERTION);
+		CompactGraph compact = graph.freeze();
+		Random random = new Random(42);
+		GeographicPoint[][] queries = new GeographicPoint[200][];
+		double[] costs = new double[queries.length];
+		for (int q = 0; q < queries.length; q++) {
+			queries[q] = new GeographicPoint[] {
+					compact.coordinates.getPoint(random.nextInt(compact.numNodes)),
+					compact.coordinates.getPoint(random.nextInt(compact.numNodes)) };
+			PathResult result = graph.findPath(queries[q][0], queries[q][1], SearchAlgorithm.DIJKSTRA);
+			costs[q] = result.isFound() ? result.getCost() : -1;
+		}
+		for (NodeOrder order : NodeOrder.values()) {
+			graph.setNodeOrder(order);
+			for (int q = 0; q < queries.length; q++) {
+				for (SearchAlgorithm algorithm : new SearchAlgorithm[] {
+						SearchAlgorithm.DIJKSTRA, SearchAlgorithm.A_STAR }) {
+					PathResult result = graph.findPath(queries[q][0], queries[q][1], algorithm);
+					assertEquals(order + " " + algorithm + " " + q, costs[q],
+							result.isFound() ? result.getCost() : -1, 1e-9);
+				}
+			}
+		}
+	}
+}
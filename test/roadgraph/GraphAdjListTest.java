@@ -0,0 +1,181 @@
+/**
+ *
+ */
+package roadgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Tests the id based adjacency of roadgraph.GraphAdjList against the map
+ * of point lists it replaced.
+ *
+ * @author Daniel
+ *
+ */
+public class GraphAdjListTest {
+
+	// the implementation before vertices had ids: a list of out-neighbors
+	// per location, and in-neighbors found by scanning every list
+	private static class PointListGraph {
+		private Map<GeographicPoint, List<GeographicPoint>> adjListMap = new HashMap<>();
+		private int numOfEdges = 0;
+
+		boolean addVertex(GeographicPoint location) {
+			if (location == null || adjListMap.containsKey(location)) return false;
+			adjListMap.put(location, new ArrayList<GeographicPoint>());
+			return true;
+		}
+
+		void addEdge(GeographicPoint from, GeographicPoint to) {
+			if (adjListMap.containsKey(from) && adjListMap.containsKey(to)) {
+				adjListMap.get(from).add(to);
+				numOfEdges++;
+			}
+		}
+
+		List<GeographicPoint> getInNeighbors(GeographicPoint v) {
+			List<GeographicPoint> inNeighbors = new ArrayList<>();
+			for (GeographicPoint u : adjListMap.keySet()) {
+				for (GeographicPoint w : adjListMap.get(u)) {
+					if (GraphUtil.isSameNode(v, w)) {
+						inNeighbors.add(u);
+					}
+				}
+			}
+			return inNeighbors;
+		}
+
+		Map<GeographicPoint, Integer> getEdgeCounts() {
+			Map<GeographicPoint, Integer> edgeCounts = new HashMap<>();
+			for (GeographicPoint v : adjListMap.keySet()) {
+				for (GeographicPoint in : getInNeighbors(v)) {
+					edgeCounts.merge(in, 1, Integer::sum);
+				}
+			}
+			return edgeCounts;
+		}
+	}
+
+	private static List<GeographicPoint> sorted(List<GeographicPoint> points) {
+		List<GeographicPoint> copy = new ArrayList<GeographicPoint>(points);
+		Collections.sort(copy, (a, b) -> a.getX() != b.getX()
+				? Double.compare(a.getX(), b.getX()) : Double.compare(a.getY(), b.getY()));
+		return copy;
+	}
+
+	/**
+	 * Both graphs get the intersections and roads of a map, then random
+	 * edges including self-loops, parallel edges and edges to points that
+	 * are not in the graph.
+	 */
+	private static void checkMap(String file) {
+		MapGraph map = new MapGraph();
+		GraphLoader.loadRoadMap(file, map);
+		CompactGraph compact = map.freeze();
+		GraphAdjList graph = new GraphAdjList();
+		PointListGraph expected = new PointListGraph();
+		List<GeographicPoint> points = new ArrayList<GeographicPoint>();
+		for (int v = 0; v < compact.numNodes; v++) {
+			GeographicPoint point = compact.coordinates.getPoint(v);
+			points.add(point);
+			assertEquals(expected.addVertex(point), graph.addVertex(point));
+			assertFalse(graph.addVertex(point));
+		}
+		assertFalse(graph.addVertex(null));
+		for (MapEdge edge : compact.edges) {
+			graph.addEdge(edge.getFrom(), edge.getTo(), edge.getRoadName(), edge.getRoadType(),
+					edge.getLength());
+			expected.addEdge(edge.getFrom(), edge.getTo());
+		}
+		Random random = new Random(42);
+		GeographicPoint outside = new GeographicPoint(0, 0);
+		for (int e = 0; e < 2 * compact.numEdges; e++) {
+			GeographicPoint from = points.get(random.nextInt(points.size()));
+			int choice = random.nextInt(20);
+			GeographicPoint to = choice == 0 ? from
+					: choice == 1 ? outside : points.get(random.nextInt(points.size()));
+			graph.addEdge(from, to, "random", "residential", 1);
+			expected.addEdge(from, to);
+		}
+
+		assertEquals(expected.adjListMap.size(), graph.getNumVertices());
+		assertEquals(expected.adjListMap.keySet(), graph.getVertices());
+		assertEquals(expected.numOfEdges, graph.getNumOfEdges());
+		assertEquals(expected.getEdgeCounts(), graph.getEdgeCounts());
+		int[] inDegrees = graph.getInDegrees();
+		assertEquals(graph.getNumVertices(), inDegrees.length);
+		for (GeographicPoint v : points) {
+			assertTrue(graph.contains(v));
+			List<GeographicPoint> out = expected.adjListMap.get(v);
+			List<GeographicPoint> in = expected.getInNeighbors(v);
+			assertEquals(out, graph.getNeighbors(v));
+			assertEquals(sorted(in), sorted(graph.getInNeighbors(v)));
+			assertEquals(out.size(), graph.getOutDegree(v));
+			assertEquals(in.size(), graph.getInDegree(v));
+			assertEquals(in.size(), inDegrees[graph.getId(v)]);
+		}
+		assertFalse(graph.contains(outside));
+		assertEquals(-1, graph.getId(outside));
+		assertEquals(0, graph.getInDegree(outside));
+		assertTrue(graph.getNeighbors(outside).isEmpty());
+	}
+
+	@Test
+	public void testMatchesPointListsUtc() {
+		checkMap("data/maps/utc.map");
+	}
+
+	@Test
+	public void testMatchesPointListsSanDiego() {
+		checkMap("data/maps/san_diego.map");
+	}
+
+	@Test
+	public void testReadOnlyViews() {
+		GraphAdjList graph = new GraphAdjList();
+		GeographicPoint a = new GeographicPoint(1, 1);
+		GeographicPoint b = new GeographicPoint(2, 2);
+		graph.addVertex(a);
+		graph.addVertex(b);
+		List<GeographicPoint> neighbors = graph.getNeighbors(a);
+		List<GeographicPoint> inNeighbors = graph.getInNeighbors(b);
+		Set<GeographicPoint> vertices = graph.getVertices();
+		assertTrue(neighbors.isEmpty());
+
+		// the views see edges added later
+		graph.addEdge(a, b, "road", "residential", 1);
+		assertEquals(Collections.singletonList(b), neighbors);
+		assertEquals(Collections.singletonList(a), inNeighbors);
+		try {
+			neighbors.add(a);
+			fail("neighbors can be changed");
+		}
+		catch (UnsupportedOperationException e) {
+		}
+		try {
+			vertices.clear();
+			fail("vertices can be changed");
+		}
+		catch (UnsupportedOperationException e) {
+		}
+		try {
+			neighbors.get(1);
+			fail("out of range");
+		}
+		catch (IndexOutOfBoundsException e) {
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ *
+ */
+package roadgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Tests the PathResult returned by MapGraph.findPath.
+ *
+ * @author Daniel
+ *
+ */
+public class PathResultTest {
+
+	private MapGraph graph;
+	private GeographicPoint start;
+	private GeographicPoint goal;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		graph = new MapGraph();
+		GraphLoader.loadRoadMap("data/testdata/simpletest.map", graph);
+		start = new GeographicPoint(1.0, 1.0);
+		goal = new GeographicPoint(8.0, -1.0);
+	}
+
+	@Test
+	public void testFound() {
+		for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+			PathResult result = graph.findPath(start, goal, algorithm);
+			assertEquals(PathResult.Status.FOUND, result.getStatus());
+			assertTrue(result.isFound());
+			assertTrue(result.hasPath());
+
+			List<GeographicPoint> points = result.getPoints();
+			List<MapEdge> edges = result.getEdges();
+			assertEquals(result.size(), points.size());
+			assertEquals(points.size() - 1, edges.size());
+			assertEquals(start, points.get(0));
+			assertEquals(goal, points.get(points.size() - 1));
+			double cost = 0;
+			for (int i = 0; i < edges.size(); i++) {
+				assertEquals(points.get(i), edges.get(i).getFrom());
+				assertEquals(points.get(i + 1), edges.get(i).getTo());
+				cost += edges.get(i).getLength();
+			}
+			assertEquals(cost, result.getCost(), 1e-12);
+
+			int[] nodeIds = result.getNodeIds();
+			assertEquals(result.size(), nodeIds.length);
+			assertEquals(edges.size(), result.getEdgeIds().length);
+			// the ids are copies
+			nodeIds[0] = -1;
+			assertEquals(start, result.getPoints().get(0));
+		}
+	}
+
+	/**
+	 * The node and edge ids are those of the MapNodes and MapEdges on the
+	 * path, whatever order the graph was frozen in.
+	 */
+	@Test
+	public void testStableIds() {
+		MapGraph utc = new MapGraph();
+		GraphLoader.loadRoadMap("data/maps/utc.map", utc);
+		GeographicPoint from = new GeographicPoint(32.860222, -117.217293);
+		GeographicPoint to = new GeographicPoint(32.870977, -117.223559);
+		int[] nodeIds = null;
+		int[] edgeIds = null;
+		for (NodeOrder order : new NodeOrder[] { NodeOrder.INSERTION, NodeOrder.HILBERT }) {
+			utc.setNodeOrder(order);
+			PathResult result = utc.findPath(from, to, SearchAlgorithm.DIJKSTRA);
+			List<MapEdge> edges = result.getEdges();
+			int[] nodes = result.getNodeIds();
+			int[] ids = result.getEdgeIds();
+			assertEquals(edges.size(), ids.length);
+			for (int i = 0; i < edges.size(); i++) {
+				assertEquals(edges.get(i).getId(), ids[i]);
+				assertEquals(edges.get(i).getFromId(), nodes[i]);
+				assertEquals(edges.get(i).getToId(), nodes[i + 1]);
+			}
+			// the ids work with the graph's geometry store
+			assertArrayEquals(result.getGeometry(), utc.getGeometry().getPath(ids, null), 0);
+			if (nodeIds != null) {
+				assertArrayEquals(nodeIds, nodes);
+				assertArrayEquals(edgeIds, ids);
+			}
+			nodeIds = nodes;
+			edgeIds = ids;
+		}
+	}
+
+	@Test
+	public void testShortestPath() {
+		PathResult dijkstra = graph.findPath(start, goal, SearchAlgorithm.DIJKSTRA);
+		PathResult aStar = graph.findPath(start, goal, SearchAlgorithm.A_STAR);
+		assertEquals(dijkstra.getCost(), aStar.getCost(), 1e-12);
+		assertEquals(dijkstra.getPoints(), aStar.getPoints());
+		assertEquals(dijkstra.getPoints(), graph.dijkstra(start, goal));
+		assertEquals(aStar.getPoints(), graph.aStarSearch(start, goal));
+
+		// the expected counts of the course's week 3 test
+		assertEquals(9, dijkstra.getStats().getNodesVisited());
+		assertEquals(5, aStar.getStats().getNodesVisited());
+		assertTrue(dijkstra.getStats().getEdgesRelaxed() >= dijkstra.getStats().getNodesVisited() - 1);
+		assertTrue(dijkstra.getStats().getElapsedNanos() >= 0);
+	}
+
+	@Test
+	public void testReadOnlyViews() {
+		PathResult result = graph.findPath(start, goal, SearchAlgorithm.BFS);
+		try {
+			result.getPoints().set(0, goal);
+			fail("points can be changed");
+		}
+		catch (UnsupportedOperationException e) {
+		}
+		try {
+			result.getEdges().clear();
+			fail("edges can be changed");
+		}
+		catch (UnsupportedOperationException e) {
+		}
+	}
+
+	@Test
+	public void testSameStartAndGoal() {
+		PathResult result = graph.findPath(start, start, SearchAlgorithm.A_STAR);
+		assertEquals(PathResult.Status.FOUND, result.getStatus());
+		assertEquals(1, result.size());
+		assertEquals(0, result.getCost(), 0);
+		assertTrue(result.getEdges().isEmpty());
+		assertArrayEquals(new double[] {1.0, 1.0}, result.getGeometry(), 0);
+	}
+
+	@Test
+	public void testNoPath() {
+		GeographicPoint island = new GeographicPoint(20.0, 20.0);
+		graph.addVertex(island);
+		for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+			PathResult result = graph.findPath(start, island, algorithm);
+			assertEquals(algorithm.toString(), PathResult.Status.NO_PATH, result.getStatus());
+			assertFalse(result.isFound());
+			assertFalse(result.hasPath());
+			assertEquals(0, result.size());
+			assertTrue(result.getPoints().isEmpty());
+			assertEquals(Double.POSITIVE_INFINITY, result.getCost(), 0);
+		}
+		assertNull(graph.bfs(start, island));
+		assertNull(graph.dijkstra(start, island));
+		assertNull(graph.aStarSearch(start, island));
+	}
+
+	@Test
+	public void testNotAnIntersection() {
+		GeographicPoint nowhere = new GeographicPoint(-5.0, -5.0);
+		assertNull(graph.findPath(start, nowhere, SearchAlgorithm.DIJKSTRA));
+		assertNull(graph.findPath(nowhere, goal, SearchAlgorithm.BFS));
+		assertNull(graph.dijkstra(nowhere, goal));
+	}
+
+	/**
+	 * The geometry of a path of straight roads is its intersections, and
+	 * edgeEnds marks where each road ends.
+	 */
+	@Test
+	public void testGeometry() {
+		PathResult result = graph.findPath(start, goal, SearchAlgorithm.DIJKSTRA);
+		int[] edgeEnds = new int[result.size() - 1];
+		double[] geometry = result.getGeometry(edgeEnds);
+		assertEquals(2 * result.size(), geometry.length);
+		for (int i = 0; i < result.size(); i++) {
+			assertEquals(result.getPoints().get(i).getX(), geometry[2 * i], 0);
+			assertEquals(result.getPoints().get(i).getY(), geometry[2 * i + 1], 0);
+		}
+		for (int i = 0; i < edgeEnds.length; i++) {
+			assertEquals(i + 1, edgeEnds[i]);
+		}
+		assertArrayEquals(geometry, result.getGeometry(), 0);
+	}
+}
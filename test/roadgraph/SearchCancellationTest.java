@@ -0,0 +1,193 @@
+/**
+ *
+ */
+package roadgraph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import geography.GeographicPoint;
+import util.GraphLoader;
+
+/**
+ * Tests search deadlines, cancellation tokens and the cancelling of
+ * background searches.
+ *
+ * @author Daniel
+ *
+ */
+public class SearchCancellationTest {
+
+	private MapGraph graph;
+	private GeographicPoint start;
+	private GeographicPoint goal;
+	// the searches handed to the executor, run when the test says so
+	private List<Runnable> queued;
+	private Executor later;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		graph = new MapGraph();
+		GraphLoader.loadRoadMap("data/maps/utc.map", graph);
+		start = new GeographicPoint(32.860222, -117.217293);
+		goal = new GeographicPoint(32.870977, -117.223559);
+		queued = new ArrayList<Runnable>();
+		later = queued::add;
+	}
+
+	private void runQueued() {
+		for (Runnable search : queued) {
+			search.run();
+		}
+		queued.clear();
+	}
+
+	@Test
+	public void testChildToken() {
+		CancellationToken parent = new CancellationToken();
+		CancellationToken child = new CancellationToken(parent);
+		CancellationToken sibling = new CancellationToken(parent);
+		assertFalse(child.isCancelled());
+
+		child.cancel();
+		assertTrue(child.isCancelled());
+		assertFalse(parent.isCancelled());
+		assertFalse(sibling.isCancelled());
+
+		parent.cancel();
+		assertTrue(sibling.isCancelled());
+		assertFalse(new CancellationToken().isCancelled());
+	}
+
+	/**
+	 * Cancelling one query leaves the caller's token, and the other queries
+	 * sharing it, running.
+	 */
+	@Test
+	public void testCancelFuture() {
+		CancellationToken token = new CancellationToken();
+		SearchOptions options = new SearchOptions().cancellation(token);
+		CompletableFuture<PathResult> first = graph.findPathAsync(start, goal,
+				SearchAlgorithm.DIJKSTRA, options, later);
+		CompletableFuture<PathResult> second = graph.findPathAsync(start, goal,
+				SearchAlgorithm.DIJKSTRA, options, later);
+
+		assertTrue(first.cancel(true));
+		assertFalse(token.isCancelled());
+		assertSame(token, options.getCancellation());
+
+		runQueued();
+		assertTrue(first.isCancelled());
+		assertEquals(PathResult.Status.FOUND, second.join().getStatus());
+	}
+
+	/**
+	 * Cancelling the caller's token stops every query using it.
+	 */
+	@Test
+	public void testCancelToken() {
+		CancellationToken token = new CancellationToken();
+		SearchOptions options = new SearchOptions().cancellation(token);
+		CompletableFuture<PathResult> first = graph.findPathAsync(start, goal,
+				SearchAlgorithm.A_STAR, options, later);
+		CompletableFuture<PathResult> second = graph.findPathAsync(start, goal,
+				SearchAlgorithm.BFS, options, later);
+		CompletableFuture<PathResult> other = graph.findPathAsync(start, goal,
+				SearchAlgorithm.BFS, new SearchOptions(), later);
+
+		token.cancel();
+		runQueued();
+		assertEquals(PathResult.Status.CANCELLED, first.join().getStatus());
+		assertEquals(PathResult.Status.CANCELLED, second.join().getStatus());
+		assertEquals(PathResult.Status.FOUND, other.join().getStatus());
+	}
+
+	/**
+	 * A search past its deadline stops.  The heuristic searches return the
+	 * path to the reached node closest to the goal, which is only the
+	 * start when the deadline has passed before the first expansion.
+	 */
+	@Test
+	public void testDeadline() {
+		SearchOptions options = new SearchOptions().timeout(0, TimeUnit.NANOSECONDS);
+		for (SearchAlgorithm algorithm : new SearchAlgorithm[] {
+				SearchAlgorithm.BFS, SearchAlgorithm.DIJKSTRA }) {
+			PathResult result = graph.findPath(start, goal, algorithm, options, x -> {});
+			assertEquals(PathResult.Status.TIMED_OUT, result.getStatus());
+			assertFalse(result.hasPath());
+			assertEquals(0, result.getStats().getNodesVisited());
+		}
+		for (SearchAlgorithm algorithm : new SearchAlgorithm[] {
+				SearchAlgorithm.A_STAR, SearchAlgorithm.WEIGHTED_A_STAR, SearchAlgorithm.FOCAL }) {
+			PathResult result = graph.findPath(start, goal, algorithm, options, x -> {});
+			assertEquals(PathResult.Status.BEST_EFFORT, result.getStatus());
+			assertFalse(result.isFound());
+			assertTrue(result.hasPath());
+			assertEquals(1, result.size());
+			assertEquals(start, result.getPoints().get(0));
+			assertEquals(0, result.getCost(), 0);
+		}
+	}
+
+	@Test
+	public void testDeadlineNotReached() {
+		SearchOptions options = new SearchOptions().timeout(1, TimeUnit.MINUTES);
+		for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+			PathResult result = graph.findPath(start, goal, algorithm, options, x -> {});
+			assertEquals(PathResult.Status.FOUND, result.getStatus());
+		}
+		assertEquals(TimeUnit.MINUTES.toNanos(1), options.getTimeoutNanos());
+		assertEquals(-1, new SearchOptions().getTimeoutNanos());
+		assertEquals(options.getTimeoutNanos(), new SearchOptions(options).getTimeoutNanos());
+		try {
+			new SearchOptions().timeout(-1, TimeUnit.SECONDS);
+			fail("negative timeout");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testCancelledSearch() {
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		SearchOptions options = new SearchOptions().cancellation(token);
+		for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+			PathResult result = graph.findPath(start, goal, algorithm, options, x -> {});
+			assertEquals(PathResult.Status.CANCELLED, result.getStatus());
+			assertFalse(result.hasPath());
+		}
+		// the search checks the token while it runs
+		CancellationToken during = new CancellationToken();
+		SearchOptions cancelling = new SearchOptions().cancellation(during);
+		int[] expanded = new int[1];
+		PathResult result = graph.findPath(start, goal, SearchAlgorithm.BFS, cancelling, x -> {
+			if (++expanded[0] == 1) {
+				during.cancel();
+			}
+		});
+		assertEquals(PathResult.Status.CANCELLED, result.getStatus());
+		assertTrue(result.getStats().getNodesVisited() <= SearchOptions.CHECK_INTERVAL);
+	}
+
+	@Test
+	public void testAsyncResult() {
+		CompletableFuture<PathResult> future = graph.findPathAsync(start, goal,
+				SearchAlgorithm.A_STAR, new SearchOptions());
+		assertEquals(graph.findPath(start, goal, SearchAlgorithm.A_STAR).getPoints(),
+				future.join().getPoints());
+		assertNull(graph.findPathAsync(start, new GeographicPoint(0, 0),
+				SearchAlgorithm.A_STAR, new SearchOptions()).join());
+	}
+}
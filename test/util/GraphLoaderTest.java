@@ -0,0 +1,145 @@
+/**
+ *
+ */
+package util;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import basicgraph.Graph;
+import basicgraph.GraphAdjList;
+
+/**
+ * Tests the vertex labels of Graph and the route loader that builds them.
+ *
+ * @author Daniel
+ *
+ */
+public class GraphLoaderTest {
+
+	private GraphAdjList graph;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		graph = new GraphAdjList();
+		graph.initializeLabels();
+	}
+
+	// the loader before labels were indexed: split every line and add
+	// each airport the first time it is seen
+	private static Graph loadRoutesBySplitting(String filename) throws IOException {
+		Graph graph = new GraphAdjList();
+		graph.initializeLabels();
+		try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(",");
+				String source = fields[2];
+				String destination = fields[4];
+				if (!graph.hasVertex(source)) {
+					graph.addVertex();
+					graph.addLabel(graph.getNumVertices() - 1, source);
+				}
+				if (!graph.hasVertex(destination)) {
+					graph.addVertex();
+					graph.addLabel(graph.getNumVertices() - 1, destination);
+				}
+				graph.addEdge(graph.getIndex(source), graph.getIndex(destination));
+			}
+		}
+		return graph;
+	}
+
+	private static void assertSameGraph(Graph expected, Graph actual) {
+		assertEquals(expected.getNumVertices(), actual.getNumVertices());
+		assertEquals(expected.getNumEdges(), actual.getNumEdges());
+		for (int v = 0; v < expected.getNumVertices(); v++) {
+			assertEquals(expected.getLabel(v), actual.getLabel(v));
+			assertEquals(v, actual.getIndex(expected.getLabel(v)));
+			assertEquals("neighbors of " + expected.getLabel(v),
+					expected.getNeighbors(v), actual.getNeighbors(v));
+		}
+	}
+
+	@Test
+	public void testLabels() {
+		assertFalse(graph.hasVertex("ABE"));
+		assertEquals(0, graph.getOrAddVertex("ABE"));
+		assertEquals(1, graph.getOrAddVertex("ORD"));
+		assertEquals(0, graph.getOrAddVertex("ABE"));
+		assertEquals(2, graph.getNumVertices());
+		assertTrue(graph.hasVertex("ORD"));
+		assertEquals(1, graph.getIndex("ORD"));
+		assertEquals("ABE", graph.getLabel(0));
+		assertEquals(-1, graph.getIndex("SAN"));
+		assertNull(graph.getLabel(-1));
+		assertNull(graph.getLabel(2));
+
+		// relabelling or labelling a missing vertex is refused
+		graph.addLabel(0, "SAN");
+		graph.addLabel(5, "SAN");
+		assertEquals("ABE", graph.getLabel(0));
+		assertFalse(graph.hasVertex("SAN"));
+	}
+
+	/**
+	 * The label array grows past its initial capacity.
+	 */
+	@Test
+	public void testManyLabels() {
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, graph.getOrAddVertex("V" + i));
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("V" + i, graph.getLabel(i));
+			assertEquals(i, graph.getIndex("V" + i));
+		}
+	}
+
+	@Test
+	public void testMatchesSplitLoader() throws IOException {
+		String file = "data/airports/routesUA.dat";
+		GraphAdjList loaded = new GraphAdjList();
+		GraphLoader.loadRoutes(file, loaded);
+		assertTrue(loaded.getNumVertices() > 0);
+		assertSameGraph(loadRoutesBySplitting(file), loaded);
+	}
+
+	/**
+	 * Lines missing an airport are skipped, and the last line does not
+	 * need a newline.
+	 */
+	@Test
+	public void testShortLines() throws IOException {
+		File file = File.createTempFile("routes", ".dat");
+		try {
+			try (Writer writer = new FileWriter(file)) {
+				writer.write("UA,5209,ABE,4355,ORD,3830,Y,0,ER4 ERJ\r\n");
+				writer.write("UA,5209,ABJ\n");
+				writer.write("\n");
+				writer.write("UA,5209,ORD,3830,SAN");
+			}
+			GraphLoader.loadRoutes(file.getPath(), graph);
+			assertEquals(3, graph.getNumVertices());
+			assertEquals(2, graph.getNumEdges());
+			assertFalse(graph.hasVertex("ABJ"));
+			assertEquals(graph.getIndex("ORD"), (int) graph.getNeighbors(graph.getIndex("ABE")).get(0));
+			assertEquals(graph.getIndex("SAN"), (int) graph.getNeighbors(graph.getIndex("ORD")).get(0));
+		}
+		finally {
+			file.delete();
+		}
+	}
+}
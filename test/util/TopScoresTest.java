@@ -0,0 +1,52 @@
+/**
+ *
+ */
+package util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests TopScores against sorting every index.
+ *
+ * @author Daniel
+ *
+ */
+public class TopScoresTest {
+
+	@Test
+	public void testMatchesSort() {
+		Random random = new Random(42);
+		for (int t = 0; t < 200; t++) {
+			double[] scores = new double[random.nextInt(300)];
+			for (int v = 0; v < scores.length; v++) {
+				// few distinct values, so there are many ties
+				scores[v] = random.nextInt(20);
+			}
+			Integer[] sorted = new Integer[scores.length];
+			for (int v = 0; v < sorted.length; v++) {
+				sorted[v] = v;
+			}
+			Arrays.sort(sorted, Comparator.<Integer>comparingDouble(v -> -scores[v])
+					.thenComparingInt(v -> v));
+			int count = random.nextInt(scores.length + 10);
+			int[] expected = new int[Math.min(count, scores.length)];
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] = sorted[i];
+			}
+			assertArrayEquals(expected, TopScores.of(scores, count));
+		}
+	}
+
+	@Test
+	public void testEdgeCases() {
+		assertEquals(0, TopScores.of(new double[0], 5).length);
+		assertEquals(0, TopScores.of(new double[] { 1, 2 }, 0).length);
+		assertArrayEquals(new int[] { 1, 0, 2 }, TopScores.of(new double[] { 1, 3, 1 }, 3));
+	}
+}
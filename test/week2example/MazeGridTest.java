@@ -0,0 +1,137 @@
+/**
+ *
+ */
+package week2example;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the bidirectional BFS and Jump Point Search of MazeGrid against a
+ * plain breadth first search.
+ *
+ * @author Daniel
+ *
+ */
+public class MazeGridTest {
+
+	// the number of moves on a shortest path, or -1 if there is none
+	private static int bfsDistance(MazeGrid grid, int startRow, int startCol, int goalRow, int goalCol) {
+		if (!grid.isOpen(startRow, startCol) || !grid.isOpen(goalRow, goalCol)) return -1;
+		int[] distance = new int[grid.getWidth() * grid.getHeight()];
+		Arrays.fill(distance, -1);
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		int start = grid.cell(startRow, startCol);
+		distance[start] = 0;
+		queue.add(start);
+		while (!queue.isEmpty()) {
+			int cell = queue.remove();
+			int row = grid.rowOf(cell), col = grid.colOf(cell);
+			if (row == goalRow && col == goalCol) return distance[cell];
+			int[][] moves = { { row - 1, col }, { row + 1, col }, { row, col - 1 }, { row, col + 1 } };
+			for (int[] move : moves) {
+				if (grid.isOpen(move[0], move[1]) && distance[grid.cell(move[0], move[1])] < 0) {
+					distance[grid.cell(move[0], move[1])] = distance[cell] + 1;
+					queue.add(grid.cell(move[0], move[1]));
+				}
+			}
+		}
+		return -1;
+	}
+
+	// the path is a chain of open, adjacent cells from start to goal
+	private static void assertPath(MazeGrid grid, int[] path, int expectedMoves, int start, int goal,
+			String message) {
+		if (expectedMoves < 0) {
+			assertEquals(message, 0, path.length);
+			return;
+		}
+		assertEquals(message, expectedMoves + 1, path.length);
+		assertEquals(message, start, path[0]);
+		assertEquals(message, goal, path[path.length - 1]);
+		for (int i = 0; i < path.length; i++) {
+			assertTrue(message, grid.isOpen(grid.rowOf(path[i]), grid.colOf(path[i])));
+			if (i > 0) {
+				int rows = Math.abs(grid.rowOf(path[i]) - grid.rowOf(path[i - 1]));
+				int cols = Math.abs(grid.colOf(path[i]) - grid.colOf(path[i - 1]));
+				assertEquals(message, 1, rows + cols);
+			}
+		}
+	}
+
+	/**
+	 * Random grids of random density, some wider than one 64 bit word,
+	 * with searches between random open cells.
+	 */
+	@Test
+	public void testRandomGrids() {
+		Random random = new Random(42);
+		for (int g = 0; g < 3000; g++) {
+			int width = 1 + random.nextInt(g % 10 == 0 ? 150 : 40);
+			int height = 1 + random.nextInt(40);
+			double density = 0.5 + 0.5 * random.nextDouble();
+			MazeGrid grid = new MazeGrid(width, height);
+			for (int r = 0; r < height; r++) {
+				for (int c = 0; c < width; c++) {
+					grid.setOpen(r, c, random.nextDouble() < density);
+				}
+			}
+			for (int q = 0; q < 3; q++) {
+				int startRow = random.nextInt(height), startCol = random.nextInt(width);
+				int goalRow = random.nextInt(height), goalCol = random.nextInt(width);
+				int moves = bfsDistance(grid, startRow, startCol, goalRow, goalCol);
+				int start = grid.cell(startRow, startCol);
+				int goal = grid.cell(goalRow, goalCol);
+				String message = "grid " + g + " query " + q;
+				assertPath(grid, grid.bidirectionalBfs(startRow, startCol, goalRow, goalCol),
+						moves, start, goal, message + " bidirectional BFS");
+				assertPath(grid, grid.jumpPointSearch(startRow, startCol, goalRow, goalCol),
+						moves, start, goal, message + " JPS");
+			}
+		}
+	}
+
+	@Test
+	public void testOpenCells() {
+		MazeGrid grid = new MazeGrid(70, 3);
+		assertFalse(grid.isOpen(1, 65));
+		grid.setOpen(1, 65, true);
+		assertTrue(grid.isOpen(1, 65));
+		assertFalse(grid.isOpen(0, 65));
+		assertFalse(grid.isOpen(1, 1));
+		assertFalse(grid.isOpen(-1, 0));
+		assertFalse(grid.isOpen(1, 70));
+		grid.setOpen(1, 65, false);
+		assertFalse(grid.isOpen(1, 65));
+		assertEquals(2 * 70 + 5, grid.cell(2, 5));
+		assertEquals(2, grid.rowOf(grid.cell(2, 5)));
+		assertEquals(5, grid.colOf(grid.cell(2, 5)));
+		try {
+			grid.setOpen(3, 0, true);
+			fail("out of range");
+		}
+		catch (IndexOutOfBoundsException e) {
+		}
+		try {
+			new MazeGrid(100000, 100000);
+			fail("too many cells");
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testSameStartAndGoal() {
+		MazeGrid grid = new MazeGrid(3, 3);
+		grid.setOpen(1, 1, true);
+		assertArrayEquals(new int[] { 4 }, grid.bidirectionalBfs(1, 1, 1, 1));
+		assertArrayEquals(new int[] { 4 }, grid.jumpPointSearch(1, 1, 1, 1));
+		assertEquals(0, grid.bidirectionalBfs(0, 0, 1, 1).length);
+		assertEquals(0, grid.jumpPointSearch(1, 1, 0, 0).length);
+	}
+}